@@ -32,6 +32,11 @@ public interface UrlConstants {
    */
   static final String LOG = "/log";
 
+  /**
+   * {@value}.
+   */
+  static final String METRICS = "/metrics";
+
   /**
    * {@value}.
    */
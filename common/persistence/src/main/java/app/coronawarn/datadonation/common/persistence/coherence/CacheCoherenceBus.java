@@ -0,0 +1,172 @@
+package app.coronawarn.datadonation.common.persistence.coherence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-process caches of several service replicas coherent. Replicas share nothing but Postgres, so writes
+ * that affect a cache are announced with <code>NOTIFY</code> and every replica applies the events of the others from
+ * a dedicated <code>LISTEN</code> connection. Notifications are transactional: events published inside a transaction
+ * are only delivered if it commits.
+ *
+ * <p>Delivery is at most once. If the listening connection breaks, the bus reconnects and calls
+ * {@link CoherenceListener#onResync()} on all subscribers, which must then drop whatever could have become stale.
+ */
+@Component
+public class CacheCoherenceBus implements InitializingBean, DisposableBean {
+
+  static final String CHANNEL = "data_donation_cache";
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheCoherenceBus.class);
+  private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final CoherenceConfiguration configuration;
+  private final String origin = UUID.randomUUID().toString();
+  private final Map<String, List<CoherenceListener>> listeners = new ConcurrentHashMap<>();
+
+  private volatile boolean running;
+  private Thread listenerThread;
+
+  /**
+   * Creates the bus, the listening connection is opened on startup if the bus is enabled.
+   */
+  public CacheCoherenceBus(DataSource dataSource, JdbcTemplate jdbcTemplate, CoherenceConfiguration configuration) {
+    this.dataSource = dataSource;
+    this.jdbcTemplate = jdbcTemplate;
+    this.configuration = configuration;
+  }
+
+  /**
+   * Registers a listener for the events of the given cache.
+   */
+  public void subscribe(String cache, CoherenceListener listener) {
+    listeners.computeIfAbsent(cache, key -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  /**
+   * Announces that the given key was written and may be added to the caches of other replicas.
+   */
+  public void publishInsert(String cache, String key) {
+    publish(new CoherenceEvent(origin, CoherenceEvent.Type.INSERT, cache, key));
+  }
+
+  /**
+   * Announces that the state behind the given key changed and other replicas must drop it from their caches.
+   */
+  public void publishInvalidate(String cache, String key) {
+    publish(new CoherenceEvent(origin, CoherenceEvent.Type.INVALIDATE, cache, key));
+  }
+
+  private void publish(CoherenceEvent event) {
+    if (configuration.isEnabled()) {
+      jdbcTemplate.query(NOTIFY, (ResultSetExtractor<Void>) resultSet -> null, CHANNEL, event.toPayload());
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    running = true;
+    listenerThread = new Thread(this::listen, "cache-coherence-listener");
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    running = false;
+    if (listenerThread != null) {
+      listenerThread.interrupt();
+      listenerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        resync();
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(configuration.getPollTimeoutMillis());
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              dispatch(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          logger.warn("Cache coherence connection lost, reconnecting in {} ms.",
+              configuration.getReconnectDelayMillis(), e);
+          sleepBeforeReconnect();
+        }
+      }
+    }
+  }
+
+  private void sleepBeforeReconnect() {
+    try {
+      Thread.sleep(configuration.getReconnectDelayMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private void resync() {
+    listeners.values().forEach(cacheListeners -> cacheListeners.forEach(listener -> {
+      try {
+        listener.onResync();
+      } catch (RuntimeException e) {
+        logger.error("Cache coherence listener failed to resync.", e);
+      }
+    }));
+  }
+
+  void dispatch(String payload) {
+    CoherenceEvent event;
+    try {
+      event = CoherenceEvent.fromPayload(payload);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Ignoring malformed cache coherence event.");
+      return;
+    }
+    if (origin.equals(event.getOrigin())) {
+      return;
+    }
+    List<CoherenceListener> cacheListeners = listeners.get(event.getCache());
+    if (cacheListeners != null) {
+      cacheListeners.forEach(listener -> {
+        try {
+          listener.onEvent(event);
+        } catch (RuntimeException e) {
+          logger.error("Cache coherence listener failed to apply an event of cache {}.", event.getCache(), e);
+        }
+      });
+    }
+  }
+}
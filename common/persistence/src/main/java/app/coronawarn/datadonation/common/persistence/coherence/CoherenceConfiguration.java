@@ -0,0 +1,37 @@
+package app.coronawarn.datadonation.common.persistence.coherence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "coherence")
+public class CoherenceConfiguration {
+
+  private boolean enabled;
+  private long reconnectDelayMillis = 5000;
+  private int pollTimeoutMillis = 1000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getReconnectDelayMillis() {
+    return reconnectDelayMillis;
+  }
+
+  public void setReconnectDelayMillis(long reconnectDelayMillis) {
+    this.reconnectDelayMillis = reconnectDelayMillis;
+  }
+
+  public int getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
+  public void setPollTimeoutMillis(int pollTimeoutMillis) {
+    this.pollTimeoutMillis = pollTimeoutMillis;
+  }
+}
@@ -0,0 +1,84 @@
+package app.coronawarn.datadonation.common.persistence.coherence;
+
+import java.util.Objects;
+
+/**
+ * A cache change published by one replica. Events are sent as a single space separated NOTIFY payload
+ * "origin type cache key". The cache name must not contain spaces, the key is the remainder of the payload and may.
+ */
+public final class CoherenceEvent {
+
+  public enum Type {
+    /**
+     * The key was written and may be added to the local cache.
+     */
+    INSERT,
+    /**
+     * The state behind the key changed and the local copy must be dropped.
+     */
+    INVALIDATE
+  }
+
+  private final String origin;
+  private final Type type;
+  private final String cache;
+  private final String key;
+
+  CoherenceEvent(String origin, Type type, String cache, String key) {
+    this.origin = origin;
+    this.type = type;
+    this.cache = cache;
+    this.key = key;
+  }
+
+  String getOrigin() {
+    return origin;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getCache() {
+    return cache;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  String toPayload() {
+    return origin + ' ' + type.name() + ' ' + cache + ' ' + key;
+  }
+
+  /**
+   * Parses a NOTIFY payload.
+   *
+   * @throws IllegalArgumentException if the payload is not a valid event.
+   */
+  static CoherenceEvent fromPayload(String payload) {
+    String[] parts = payload.split(" ", 4);
+    if (parts.length != 4) {
+      throw new IllegalArgumentException("Malformed cache coherence event: " + payload);
+    }
+    return new CoherenceEvent(parts[0], Type.valueOf(parts[1]), parts[2], parts[3]);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CoherenceEvent that = (CoherenceEvent) o;
+    return Objects.equals(origin, that.origin) && type == that.type && Objects.equals(cache, that.cache)
+        && Objects.equals(key, that.key);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(origin, type, cache, key);
+  }
+}
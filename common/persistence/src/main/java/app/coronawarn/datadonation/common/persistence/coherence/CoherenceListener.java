@@ -0,0 +1,21 @@
+package app.coronawarn.datadonation.common.persistence.coherence;
+
+/**
+ * Applies the cache changes of other replicas to a local cache.
+ */
+@FunctionalInterface
+public interface CoherenceListener {
+
+  /**
+   * Called for every event of the subscribed cache published by another replica, after the publishing transaction
+   * committed.
+   */
+  void onEvent(CoherenceEvent event);
+
+  /**
+   * Called whenever the connection to the bus was (re-)established. Events published while disconnected are lost, so
+   * caches which must not serve stale entries have to drop them here.
+   */
+  default void onResync() {
+  }
+}
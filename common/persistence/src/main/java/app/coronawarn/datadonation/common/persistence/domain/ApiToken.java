@@ -12,6 +12,7 @@ public class ApiToken {
   private Long createdAt;
   private Long lastUsedEdus;
   private Long lastUsedPpac;
+  private Long lastUsedMetrics;
 
   /**
    * Create new instance of apitoken.
@@ -70,6 +71,14 @@ public class ApiToken {
     this.lastUsedPpac = lastUsedPpac;
   }
 
+  public Optional<Long> getLastUsedMetrics() {
+    return Optional.ofNullable(lastUsedMetrics);
+  }
+
+  public void setLastUsedMetrics(Long lastUsedMetrics) {
+    this.lastUsedMetrics = lastUsedMetrics;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -82,11 +91,12 @@ public class ApiToken {
     return Objects.equals(apiToken, apiToken1.apiToken)
         && Objects.equals(expirationDate, apiToken1.expirationDate)
         && Objects.equals(lastUsedEdus, apiToken1.lastUsedEdus)
-        && Objects.equals(lastUsedPpac, apiToken1.lastUsedPpac);
+        && Objects.equals(lastUsedPpac, apiToken1.lastUsedPpac)
+        && Objects.equals(lastUsedMetrics, apiToken1.lastUsedMetrics);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(apiToken, expirationDate, lastUsedEdus, lastUsedPpac);
+    return Objects.hash(apiToken, expirationDate, lastUsedEdus, lastUsedPpac, lastUsedMetrics);
   }
 }
@@ -1,30 +1,39 @@
 package app.coronawarn.datadonation.common.persistence.domain;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
 
-public class DeviceToken {
+public class DeviceToken implements Persistable<byte[]> {
 
   @Id
-  private Long id;
-
   private byte[] deviceTokenHash;
 
   Long createdAt;
 
+  @Transient
+  private boolean isNew = false;
+
   public DeviceToken() {
   }
 
+  /**
+   * Constructs a new device token, which is inserted when saved.
+   */
   public DeviceToken(byte[] deviceTokenHash, Long createdAt) {
     this.deviceTokenHash = deviceTokenHash;
     this.createdAt = createdAt;
+    this.isNew = true;
   }
 
-  public Long getId() {
-    return id;
+  @Override
+  public byte[] getId() {
+    return deviceTokenHash;
   }
 
-  public void setId(Long id) {
-    this.id = id;
+  @Override
+  public boolean isNew() {
+    return isNew;
   }
 
   public byte[] getDeviceTokenHash() {
@@ -4,17 +4,20 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.chrono.ChronoLocalDateTime;
+import java.util.UUID;
 import javax.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.domain.Persistable;
 import org.springframework.lang.Nullable;
 
-public class OneTimePassword implements Persistable<String> {
+public class OneTimePassword implements Persistable<UUID> {
 
+  /**
+   * Stored as native <code>uuid</code>, which also makes the lookup independent of the case the client sends.
+   */
   @Id
-  @Size(min = 36, max = 36)
-  private String password;
+  private UUID password;
   private Long redemptionTimestamp;
   private Long expirationTimestamp;
   private Boolean androidPpacBasicIntegrity;
@@ -37,7 +40,7 @@ public class OneTimePassword implements Persistable<String> {
    * @param password The otp to store.
    */
   public OneTimePassword(@Size(min = 36, max = 36) String password) {
-    this.password = password;
+    this.password = toUuid(password);
     this.isNew = true;
   }
 
@@ -55,7 +58,7 @@ public class OneTimePassword implements Persistable<String> {
   public OneTimePassword(@Size(min = 36, max = 36) String password, Long redemptionTimestamp, Long expirationTimestamp,
       Boolean androidPpacBasicIntegrity, Boolean androidPpacCtsProfileMatch, Boolean androidPpacEvaluationTypeBasic,
       Boolean androidPpacEvaluationTypeHardwareBacked) {
-    this.password = password;
+    this.password = toUuid(password);
     this.redemptionTimestamp = redemptionTimestamp;
     this.expirationTimestamp = expirationTimestamp;
     this.androidPpacBasicIntegrity = androidPpacBasicIntegrity;
@@ -66,11 +69,11 @@ public class OneTimePassword implements Persistable<String> {
   }
 
   public String getPassword() {
-    return password;
+    return password == null ? null : password.toString();
   }
 
   public void setPassword(String password) {
-    this.password = password;
+    this.password = toUuid(password);
   }
 
   public Long getRedemptionTimestamp() {
@@ -130,7 +133,7 @@ public class OneTimePassword implements Persistable<String> {
   }
 
   @Override
-  public String getId() {
+  public UUID getId() {
     return password;
   }
 
@@ -139,6 +142,11 @@ public class OneTimePassword implements Persistable<String> {
     return isNew;
   }
 
+  @Nullable
+  private static UUID toUuid(@Nullable String password) {
+    return password == null ? null : UUID.fromString(password);
+  }
+
   @Nullable
   private Long epochSecond(final ChronoLocalDateTime<LocalDate> time) {
     if (time == null) {
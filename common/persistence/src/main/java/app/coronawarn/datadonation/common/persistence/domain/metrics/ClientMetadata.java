@@ -2,12 +2,13 @@ package app.coronawarn.datadonation.common.persistence.domain.metrics;
 
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
 import java.util.Objects;
+import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Embedded;
 import org.springframework.data.relational.core.mapping.Embedded.OnEmpty;
 
 public class ClientMetadata extends DataDonationMetric {
 
-  @Embedded(onEmpty = OnEmpty.USE_EMPTY)
+  @Column("client_metadata_id")
   private final ClientMetadataDetails clientMetadataDetails;
 
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
@@ -31,6 +32,11 @@ public class ClientMetadata extends DataDonationMetric {
     return technicalMetadata;
   }
 
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    // no constraints on the embedded metadata of this entity
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(id, clientMetadataDetails, technicalMetadata);
@@ -1,9 +1,6 @@
 package app.coronawarn.datadonation.common.persistence.domain.metrics;
 
-import java.util.Set;
-import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
-import javax.validation.Validator;
+import java.util.List;
 import org.springframework.data.annotation.Id;
 
 /**
@@ -11,9 +8,6 @@ import org.springframework.data.annotation.Id;
  */
 public abstract class DataDonationMetric {
 
-  private static final Validator VALIDATOR =
-      Validation.buildDefaultValidatorFactory().getValidator();
-
   @Id
   protected final Long id;
 
@@ -28,9 +22,17 @@ public abstract class DataDonationMetric {
   /**
    * Performs a validation of constraints defined in subclasses.
    *
-   * @return A set of constraint violations of this entity.
+   * @return The constraint violations of this entity, each formatted as "property message".
    */
-  public Set<ConstraintViolation<DataDonationMetric>> validate() {
-    return VALIDATOR.validate(this);
+  public List<String> validate() {
+    MetricViolations violations = new MetricViolations();
+    collectViolations(violations);
+    return violations.asList();
   }
+
+  /**
+   * Checks the constraints declared on the fields of the concrete metric. Implementations must be kept in sync with
+   * the validation annotations of their fields.
+   */
+  protected abstract void collectViolations(MetricViolations violations);
 }
@@ -12,19 +12,19 @@ public class ExposureRiskMetadata extends DataDonationMetric {
 
   private static final long MIN_RISK_LEVEL = 0;
   private static final long MAX_RISK_LEVEL = 3;
+  private static final String RISK_LEVEL_RANGE_MESSAGE =
+      "Risk Level must be in between " + MIN_RISK_LEVEL + " and " + MAX_RISK_LEVEL + ".";
 
   /**
    * The risk level reported by the client (0 to 3).
    */
-  @Range(min = MIN_RISK_LEVEL, max = MAX_RISK_LEVEL,
-      message = "Risk Level must be in between " + MIN_RISK_LEVEL + " and " + MAX_RISK_LEVEL + ".")
-  private final Integer riskLevel;
+  @Range(min = MIN_RISK_LEVEL, max = MAX_RISK_LEVEL, message = RISK_LEVEL_RANGE_MESSAGE)
+  private final int riskLevel;
   /**
    * Boolean to indicate if the Risk Level changed compared to the previous submission of the
    * client.
    */
-  @NotNull
-  private final Boolean riskLevelChanged;
+  private final boolean riskLevelChanged;
   /**
    * The date of the most recent encounter at the given risk level (i.e. what is displayed on the
    * risk card)
@@ -34,20 +34,21 @@ public class ExposureRiskMetadata extends DataDonationMetric {
   /**
    * Boolean to indicate if the date changed compared to the previous submission of the client.
    */
-  @NotNull
-  private final Boolean mostRecentDateChanged;
+  private final boolean mostRecentDateChanged;
 
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final UserMetadataDetails userMetadata;
 
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final TechnicalMetadata technicalMetadata;
 
   /**
    * constructs an immutable instance.
    */
-  public ExposureRiskMetadata(Long id, Integer riskLevel, Boolean riskLevelChanged,
-      LocalDate mostRecentDateAtRiskLevel, Boolean mostRecentDateChanged, UserMetadataDetails userMetadata,
+  public ExposureRiskMetadata(Long id, int riskLevel, boolean riskLevelChanged,
+      LocalDate mostRecentDateAtRiskLevel, boolean mostRecentDateChanged, UserMetadataDetails userMetadata,
       TechnicalMetadata technicalMetadata) {
     super(id);
     this.riskLevel = riskLevel;
@@ -58,11 +59,11 @@ public class ExposureRiskMetadata extends DataDonationMetric {
     this.technicalMetadata = technicalMetadata;
   }
 
-  public Integer getRiskLevel() {
+  public int getRiskLevel() {
     return riskLevel;
   }
 
-  public Boolean getRiskLevelChanged() {
+  public boolean getRiskLevelChanged() {
     return riskLevelChanged;
   }
 
@@ -70,7 +71,7 @@ public class ExposureRiskMetadata extends DataDonationMetric {
     return mostRecentDateAtRiskLevel;
   }
 
-  public Boolean getMostRecentDateChanged() {
+  public boolean getMostRecentDateChanged() {
     return mostRecentDateChanged;
   }
 
@@ -82,6 +83,15 @@ public class ExposureRiskMetadata extends DataDonationMetric {
     return technicalMetadata;
   }
 
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    violations
+        .inRange("riskLevel", riskLevel, MIN_RISK_LEVEL, MAX_RISK_LEVEL, RISK_LEVEL_RANGE_MESSAGE)
+        .notNull("mostRecentDateAtRiskLevel", mostRecentDateAtRiskLevel)
+        .notNull("userMetadata", userMetadata)
+        .notNull("technicalMetadata", technicalMetadata);
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(id, mostRecentDateAtRiskLevel, mostRecentDateChanged, riskLevel,
@@ -113,25 +123,13 @@ public class ExposureRiskMetadata extends DataDonationMetric {
     } else if (!mostRecentDateAtRiskLevel.equals(other.mostRecentDateAtRiskLevel)) {
       return false;
     }
-    if (mostRecentDateChanged == null) {
-      if (other.mostRecentDateChanged != null) {
-        return false;
-      }
-    } else if (!mostRecentDateChanged.equals(other.mostRecentDateChanged)) {
+    if (mostRecentDateChanged != other.mostRecentDateChanged) {
       return false;
     }
-    if (riskLevel == null) {
-      if (other.riskLevel != null) {
-        return false;
-      }
-    } else if (!riskLevel.equals(other.riskLevel)) {
+    if (riskLevel != other.riskLevel) {
       return false;
     }
-    if (riskLevelChanged == null) {
-      if (other.riskLevelChanged != null) {
-        return false;
-      }
-    } else if (!riskLevelChanged.equals(other.riskLevelChanged)) {
+    if (riskLevelChanged != other.riskLevelChanged) {
       return false;
     }
     if (technicalMetadata == null) {
@@ -3,41 +3,44 @@ package app.coronawarn.datadonation.common.persistence.domain.metrics;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
 import java.time.LocalDate;
 import java.util.Objects;
-import java.util.Set;
 import javax.validation.constraints.NotNull;
+import org.springframework.data.annotation.PersistenceConstructor;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Embedded;
 import org.springframework.data.relational.core.mapping.Embedded.OnEmpty;
-import org.springframework.data.relational.core.mapping.MappedCollection;
 
 public class ExposureWindow extends DataDonationMetric {
   
   @NotNull
   private final LocalDate date;
-  @NotNull
-  private final Integer reportType;
-  @NotNull
-  private final Integer infectiousness;
-  @NotNull
-  private final Integer callibrationConfidence;
-  @NotNull
-  private final Integer transmissionRiskLevel;
-  @NotNull
-  private final Double normalizedTime;
+  private final int reportType;
+  private final int infectiousness;
+  private final int callibrationConfidence;
+  private final int transmissionRiskLevel;
+  private final double normalizedTime;
   
-  @Embedded(onEmpty = OnEmpty.USE_EMPTY)
+  @NotNull
+  @Column("client_metadata_id")
   private final ClientMetadataDetails clientMetadata;
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final TechnicalMetadata technicalMetadata;
   
-  @MappedCollection(idColumn = "exposure_window_id")
-  private final Set<ScanInstance> scanInstances;
+  /**
+   * Written to and read from the scan_instance table by the {@code ExposureWindowBatchRepository}, not by the
+   * generic aggregate mapping. Windows read by the aggregate mapping get theirs from an after-load callback (see
+   * {@code MetricsJdbcConfiguration}).
+   */
+  @Transient
+  private final ScanInstances scanInstances;
 
   /**
    * Constructs an immutable instance.
    */
-  public ExposureWindow(Long id, LocalDate date, Integer reportType, Integer infectiousness,
-      Integer callibrationConfidence, Integer transmissionRiskLevel, Double normalizedTime,
-      ClientMetadataDetails clientMetadata, TechnicalMetadata technicalMetadata, Set<ScanInstance> scanInstances) {
+  public ExposureWindow(Long id, LocalDate date, int reportType, int infectiousness,
+      int callibrationConfidence, int transmissionRiskLevel, double normalizedTime,
+      ClientMetadataDetails clientMetadata, TechnicalMetadata technicalMetadata, ScanInstances scanInstances) {
     super(id);
     this.date = date;
     this.reportType = reportType;
@@ -47,30 +50,42 @@ public class ExposureWindow extends DataDonationMetric {
     this.normalizedTime = normalizedTime;
     this.clientMetadata = clientMetadata;
     this.technicalMetadata = technicalMetadata;
-    this.scanInstances = Set.copyOf(scanInstances);
+    this.scanInstances = scanInstances == null ? ScanInstances.EMPTY : scanInstances;
+  }
+
+  /**
+   * Used by the aggregate mapping, which does not read the scan instances. They are loaded right after by an
+   * after-load callback.
+   */
+  @PersistenceConstructor
+  ExposureWindow(Long id, LocalDate date, int reportType, int infectiousness, int callibrationConfidence,
+      int transmissionRiskLevel, double normalizedTime, ClientMetadataDetails clientMetadata,
+      TechnicalMetadata technicalMetadata) {
+    this(id, date, reportType, infectiousness, callibrationConfidence, transmissionRiskLevel, normalizedTime,
+        clientMetadata, technicalMetadata, ScanInstances.EMPTY);
   }
 
   public LocalDate getDate() {
     return date;
   }
 
-  public Integer getReportType() {
+  public int getReportType() {
     return reportType;
   }
 
-  public Integer getInfectiousness() {
+  public int getInfectiousness() {
     return infectiousness;
   }
 
-  public Integer getCallibrationConfidence() {
+  public int getCallibrationConfidence() {
     return callibrationConfidence;
   }
 
-  public Integer getTransmissionRiskLevel() {
+  public int getTransmissionRiskLevel() {
     return transmissionRiskLevel;
   }
 
-  public Double getNormalizedTime() {
+  public double getNormalizedTime() {
     return normalizedTime;
   }
 
@@ -82,10 +97,18 @@ public class ExposureWindow extends DataDonationMetric {
     return technicalMetadata;
   }
 
-  public Set<ScanInstance> getScanInstances() {
+  public ScanInstances getScanInstances() {
     return scanInstances;
   }
 
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    violations
+        .notNull("date", date)
+        .notNull("clientMetadata", clientMetadata)
+        .notNull("technicalMetadata", technicalMetadata);
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(callibrationConfidence, clientMetadata, date, infectiousness,
@@ -102,11 +125,7 @@ public class ExposureWindow extends DataDonationMetric {
     }
     
     ExposureWindow other = (ExposureWindow) obj;
-    if (callibrationConfidence == null) {
-      if (other.callibrationConfidence != null) {
-        return false;
-      }
-    } else if (!callibrationConfidence.equals(other.callibrationConfidence)) {
+    if (callibrationConfidence != other.callibrationConfidence) {
       return false;
     }
     if (clientMetadata == null) {
@@ -123,25 +142,13 @@ public class ExposureWindow extends DataDonationMetric {
     } else if (!date.equals(other.date)) {
       return false;
     }
-    if (infectiousness == null) {
-      if (other.infectiousness != null) {
-        return false;
-      }
-    } else if (!infectiousness.equals(other.infectiousness)) {
+    if (infectiousness != other.infectiousness) {
       return false;
     }
-    if (normalizedTime == null) {
-      if (other.normalizedTime != null) {
-        return false;
-      }
-    } else if (!normalizedTime.equals(other.normalizedTime)) {
+    if (Double.compare(normalizedTime, other.normalizedTime) != 0) {
       return false;
     }
-    if (reportType == null) {
-      if (other.reportType != null) {
-        return false;
-      }
-    } else if (!reportType.equals(other.reportType)) {
+    if (reportType != other.reportType) {
       return false;
     }
     if (scanInstances == null) {
@@ -158,11 +165,7 @@ public class ExposureWindow extends DataDonationMetric {
     } else if (!technicalMetadata.equals(other.technicalMetadata)) {
       return false;
     }
-    if (transmissionRiskLevel == null) {
-      if (other.transmissionRiskLevel != null) {
-        return false;
-      }
-    } else if (!transmissionRiskLevel.equals(other.transmissionRiskLevel)) {
+    if (transmissionRiskLevel != other.transmissionRiskLevel) {
       return false;
     }
     return true;
@@ -0,0 +1,86 @@
+package app.coronawarn.datadonation.common.persistence.domain.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * The values of one key and type of the generic <code>Metrics</code>, collected from any number of submissions and
+ * stored as a single row of the <code>generic_metric</code> table.
+ */
+public class GenericMetricBlock {
+
+  public enum Type {
+    /**
+     * Unsigned 64 bit values, stored as their signed two's complement.
+     */
+    INT("int8"),
+    FLOAT("float8"),
+    TEXT("text");
+
+    private final String sqlType;
+
+    Type(String sqlType) {
+      this.sqlType = sqlType;
+    }
+
+    public String getSqlType() {
+      return sqlType;
+    }
+  }
+
+  private final long key;
+  private final Type type;
+  private final List<Object> values = new ArrayList<>();
+
+  /**
+   * Creates an empty block, the key is the unsigned 32 bit key of the metric.
+   */
+  public GenericMetricBlock(long key, Type type) {
+    this.key = key;
+    this.type = type;
+  }
+
+  public long getKey() {
+    return key;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public List<Object> getValues() {
+    return Collections.unmodifiableList(values);
+  }
+
+  public void add(Object value) {
+    values.add(value);
+  }
+
+  /**
+   * Shuffles the values, so their position does not tell which values of different blocks stem from the same
+   * submission.
+   */
+  public void shuffle(Random random) {
+    Collections.shuffle(values, random);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key, type, values);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    GenericMetricBlock other = (GenericMetricBlock) obj;
+    return key == other.key && type == other.type && values.equals(other.values);
+  }
+}
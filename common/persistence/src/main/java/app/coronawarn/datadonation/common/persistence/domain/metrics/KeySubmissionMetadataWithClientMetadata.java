@@ -3,6 +3,7 @@ package app.coronawarn.datadonation.common.persistence.domain.metrics;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
 import java.util.Objects;
 import javax.validation.constraints.NotNull;
+import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Embedded;
 import org.springframework.data.relational.core.mapping.Embedded.OnEmpty;
 
@@ -11,46 +12,42 @@ public class KeySubmissionMetadataWithClientMetadata extends DataDonationMetric
   /**
    * Boolean to indicate if the client submitted keys.
    */
-  @NotNull
-  private final Boolean submitted;
+  private final boolean submitted;
   /**
    * Boolean to indicate if keys were submitted in background.
    */
-  @NotNull
-  private final Boolean submittedInBackground;
+  private final boolean submittedInBackground;
   /**
    * Boolean to indicate if keys were submitted after the user canceled the submission flow.
    */
-  @NotNull
-  private final Boolean submittedAfterCancel;
+  private final boolean submittedAfterCancel;
   /**
    * Boolean to indicate if keys were submitted after following the symptom flow.
    */
-  @NotNull
-  private final Boolean submittedAfterSymptomFlow;
+  private final boolean submittedAfterSymptomFlow;
   /**
    * Boolean to indicate if the user agreed to share keys when registering the test.
    */
-  @NotNull
-  private final Boolean advancedConsentGiven;
+  private final boolean advancedConsentGiven;
   /**
    * Screen ID of the last screen of the submission flow that was displayed to the user.
    */
-  @NotNull
-  private final Integer lastSubmissionFlowScreen;
+  private final int lastSubmissionFlowScreen;
 
-  @Embedded(onEmpty = OnEmpty.USE_EMPTY)
+  @NotNull
+  @Column("client_metadata_id")
   private final ClientMetadataDetails clientMetadata;
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final TechnicalMetadata technicalMetadata;
 
   /**
    * Constructs an immutable instance.
    */
-  public KeySubmissionMetadataWithClientMetadata(Long id, Boolean submitted,
-      Boolean submittedInBackground, Boolean submittedAfterCancel,
-      Boolean submittedAfterSymptomFlow, Boolean advancedConsentGiven,
-      Integer lastSubmissionFlowScreen, ClientMetadataDetails clientMetadata,
+  public KeySubmissionMetadataWithClientMetadata(Long id, boolean submitted,
+      boolean submittedInBackground, boolean submittedAfterCancel,
+      boolean submittedAfterSymptomFlow, boolean advancedConsentGiven,
+      int lastSubmissionFlowScreen, ClientMetadataDetails clientMetadata,
       TechnicalMetadata technicalMetadata) {
     super(id);
     this.submitted = submitted;
@@ -63,27 +60,27 @@ public class KeySubmissionMetadataWithClientMetadata extends DataDonationMetric
     this.technicalMetadata = technicalMetadata;
   }
 
-  public Boolean getSubmitted() {
+  public boolean getSubmitted() {
     return submitted;
   }
 
-  public Boolean getSubmittedInBackground() {
+  public boolean getSubmittedInBackground() {
     return submittedInBackground;
   }
 
-  public Boolean getSubmittedAfterCancel() {
+  public boolean getSubmittedAfterCancel() {
     return submittedAfterCancel;
   }
 
-  public Boolean getSubmittedAfterSymptomFlow() {
+  public boolean getSubmittedAfterSymptomFlow() {
     return submittedAfterSymptomFlow;
   }
 
-  public Boolean getAdvancedConsentGiven() {
+  public boolean getAdvancedConsentGiven() {
     return advancedConsentGiven;
   }
 
-  public Integer getLastSubmissionFlowScreen() {
+  public int getLastSubmissionFlowScreen() {
     return lastSubmissionFlowScreen;
   }
 
@@ -95,6 +92,13 @@ public class KeySubmissionMetadataWithClientMetadata extends DataDonationMetric
     return technicalMetadata;
   }
 
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    violations
+        .notNull("clientMetadata", clientMetadata)
+        .notNull("technicalMetadata", technicalMetadata);
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(id, clientMetadata, technicalMetadata, advancedConsentGiven,
@@ -111,11 +115,7 @@ public class KeySubmissionMetadataWithClientMetadata extends DataDonationMetric
       return false;
     }
     KeySubmissionMetadataWithClientMetadata other = (KeySubmissionMetadataWithClientMetadata) obj;
-    if (advancedConsentGiven == null) {
-      if (other.advancedConsentGiven != null) {
-        return false;
-      }
-    } else if (!advancedConsentGiven.equals(other.advancedConsentGiven)) {
+    if (advancedConsentGiven != other.advancedConsentGiven) {
       return false;
     }
     if (clientMetadata == null) {
@@ -132,39 +132,19 @@ public class KeySubmissionMetadataWithClientMetadata extends DataDonationMetric
     } else if (!id.equals(other.id)) {
       return false;
     }
-    if (lastSubmissionFlowScreen == null) {
-      if (other.lastSubmissionFlowScreen != null) {
-        return false;
-      }
-    } else if (!lastSubmissionFlowScreen.equals(other.lastSubmissionFlowScreen)) {
+    if (lastSubmissionFlowScreen != other.lastSubmissionFlowScreen) {
       return false;
     }
-    if (submitted == null) {
-      if (other.submitted != null) {
-        return false;
-      }
-    } else if (!submitted.equals(other.submitted)) {
+    if (submitted != other.submitted) {
       return false;
     }
-    if (submittedAfterCancel == null) {
-      if (other.submittedAfterCancel != null) {
-        return false;
-      }
-    } else if (!submittedAfterCancel.equals(other.submittedAfterCancel)) {
+    if (submittedAfterCancel != other.submittedAfterCancel) {
       return false;
     }
-    if (submittedAfterSymptomFlow == null) {
-      if (other.submittedAfterSymptomFlow != null) {
-        return false;
-      }
-    } else if (!submittedAfterSymptomFlow.equals(other.submittedAfterSymptomFlow)) {
+    if (submittedAfterSymptomFlow != other.submittedAfterSymptomFlow) {
       return false;
     }
-    if (submittedInBackground == null) {
-      if (other.submittedInBackground != null) {
-        return false;
-      }
-    } else if (!submittedInBackground.equals(other.submittedInBackground)) {
+    if (submittedInBackground != other.submittedInBackground) {
       return false;
     }
     if (technicalMetadata == null) {
@@ -11,43 +11,38 @@ public class KeySubmissionMetadataWithUserMetadata extends DataDonationMetric {
   /**
    * Boolean to indicate if the client submitted keys.
    */
-  @NotNull
-  private final Boolean submitted;
+  private final boolean submitted;
   /**
    * Boolean to indicate if keys were submitted after following the symptom flow.
    */
-  @NotNull
-  private final Boolean submittedAfterSymptomFlow;
+  private final boolean submittedAfterSymptomFlow;
   /**
    * Boolean to indicate if keys were submitted due to a TeleTAN.
    */
-  @NotNull
-  private final Boolean submittedWithTeletan;
+  private final boolean submittedWithTeletan;
   /**
    * The hours since the test was registered on the device.
    */
-  @NotNull
-  private final Integer hoursSinceReceptionOfTestResult;
+  private final int hoursSinceReceptionOfTestResult;
   /**
    * The hours since the test was registered on the device.
    */
-  @NotNull
-  private final Integer hoursSinceTestRegistration;
+  private final int hoursSinceTestRegistration;
   /**
    * The number of days since the most recent encounter at the given risk level at test
    * registration.
    */
-  @NotNull
-  private final Integer daysSinceMostRecentDateAtRiskLevelAtTestRegistration;
+  private final int daysSinceMostRecentDateAtRiskLevelAtTestRegistration;
   /**
    * The hours since a high risk warning was issued and the test was registered.
    */
-  @NotNull
-  private final Integer hoursSinceHighRiskWarningAtTestRegistration;
+  private final int hoursSinceHighRiskWarningAtTestRegistration;
 
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final UserMetadataDetails userMetadata;
 
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final TechnicalMetadata technicalMetadata;
 
@@ -55,11 +50,11 @@ public class KeySubmissionMetadataWithUserMetadata extends DataDonationMetric {
   /**
    * Constructs an immutable instance.
    */
-  public KeySubmissionMetadataWithUserMetadata(Long id, Boolean submitted,
-      Boolean submittedAfterSymptomFlow, Boolean submittedWithTeletan,
-      Integer hoursSinceReceptionOfTestResult, Integer hoursSinceTestRegistration,
-      Integer daysSinceMostRecentDateAtRiskLevelAtTestRegistration,
-      Integer hoursSinceHighRiskWarningAtTestRegistration, UserMetadataDetails userMetadata,
+  public KeySubmissionMetadataWithUserMetadata(Long id, boolean submitted,
+      boolean submittedAfterSymptomFlow, boolean submittedWithTeletan,
+      int hoursSinceReceptionOfTestResult, int hoursSinceTestRegistration,
+      int daysSinceMostRecentDateAtRiskLevelAtTestRegistration,
+      int hoursSinceHighRiskWarningAtTestRegistration, UserMetadataDetails userMetadata,
       TechnicalMetadata technicalMetadata) {
     super(id);
     this.submitted = submitted;
@@ -74,31 +69,31 @@ public class KeySubmissionMetadataWithUserMetadata extends DataDonationMetric {
     this.technicalMetadata = technicalMetadata;
   }
 
-  public Boolean getSubmitted() {
+  public boolean getSubmitted() {
     return submitted;
   }
 
-  public Boolean getSubmittedAfterSymptomFlow() {
+  public boolean getSubmittedAfterSymptomFlow() {
     return submittedAfterSymptomFlow;
   }
 
-  public Boolean getSubmittedWithTeletan() {
+  public boolean getSubmittedWithTeletan() {
     return submittedWithTeletan;
   }
 
-  public Integer getHoursSinceReceptionOfTestResult() {
+  public int getHoursSinceReceptionOfTestResult() {
     return hoursSinceReceptionOfTestResult;
   }
 
-  public Integer getHoursSinceTestRegistration() {
+  public int getHoursSinceTestRegistration() {
     return hoursSinceTestRegistration;
   }
 
-  public Integer getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration() {
+  public int getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration() {
     return daysSinceMostRecentDateAtRiskLevelAtTestRegistration;
   }
 
-  public Integer getHoursSinceHighRiskWarningAtTestRegistration() {
+  public int getHoursSinceHighRiskWarningAtTestRegistration() {
     return hoursSinceHighRiskWarningAtTestRegistration;
   }
 
@@ -110,6 +105,13 @@ public class KeySubmissionMetadataWithUserMetadata extends DataDonationMetric {
     return technicalMetadata;
   }
 
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    violations
+        .notNull("userMetadata", userMetadata)
+        .notNull("technicalMetadata", technicalMetadata);
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(id, daysSinceMostRecentDateAtRiskLevelAtTestRegistration,
@@ -127,34 +129,17 @@ public class KeySubmissionMetadataWithUserMetadata extends DataDonationMetric {
       return false;
     }
     KeySubmissionMetadataWithUserMetadata other = (KeySubmissionMetadataWithUserMetadata) obj;
-    if (daysSinceMostRecentDateAtRiskLevelAtTestRegistration == null) {
-      if (other.daysSinceMostRecentDateAtRiskLevelAtTestRegistration != null) {
-        return false;
-      }
-    } else if (!daysSinceMostRecentDateAtRiskLevelAtTestRegistration
-        .equals(other.daysSinceMostRecentDateAtRiskLevelAtTestRegistration)) {
+    if (daysSinceMostRecentDateAtRiskLevelAtTestRegistration
+        != other.daysSinceMostRecentDateAtRiskLevelAtTestRegistration) {
       return false;
     }
-    if (hoursSinceHighRiskWarningAtTestRegistration == null) {
-      if (other.hoursSinceHighRiskWarningAtTestRegistration != null) {
-        return false;
-      }
-    } else if (!hoursSinceHighRiskWarningAtTestRegistration
-        .equals(other.hoursSinceHighRiskWarningAtTestRegistration)) {
+    if (hoursSinceHighRiskWarningAtTestRegistration != other.hoursSinceHighRiskWarningAtTestRegistration) {
       return false;
     }
-    if (hoursSinceReceptionOfTestResult == null) {
-      if (other.hoursSinceReceptionOfTestResult != null) {
-        return false;
-      }
-    } else if (!hoursSinceReceptionOfTestResult.equals(other.hoursSinceReceptionOfTestResult)) {
+    if (hoursSinceReceptionOfTestResult != other.hoursSinceReceptionOfTestResult) {
       return false;
     }
-    if (hoursSinceTestRegistration == null) {
-      if (other.hoursSinceTestRegistration != null) {
-        return false;
-      }
-    } else if (!hoursSinceTestRegistration.equals(other.hoursSinceTestRegistration)) {
+    if (hoursSinceTestRegistration != other.hoursSinceTestRegistration) {
       return false;
     }
     if (id == null) {
@@ -164,25 +149,13 @@ public class KeySubmissionMetadataWithUserMetadata extends DataDonationMetric {
     } else if (!id.equals(other.id)) {
       return false;
     }
-    if (submitted == null) {
-      if (other.submitted != null) {
-        return false;
-      }
-    } else if (!submitted.equals(other.submitted)) {
+    if (submitted != other.submitted) {
       return false;
     }
-    if (submittedAfterSymptomFlow == null) {
-      if (other.submittedAfterSymptomFlow != null) {
-        return false;
-      }
-    } else if (!submittedAfterSymptomFlow.equals(other.submittedAfterSymptomFlow)) {
+    if (submittedAfterSymptomFlow != other.submittedAfterSymptomFlow) {
       return false;
     }
-    if (submittedWithTeletan == null) {
-      if (other.submittedWithTeletan != null) {
-        return false;
-      }
-    } else if (!submittedWithTeletan.equals(other.submittedWithTeletan)) {
+    if (submittedWithTeletan != other.submittedWithTeletan) {
       return false;
     }
     if (technicalMetadata == null) {
@@ -0,0 +1,48 @@
+package app.coronawarn.datadonation.common.persistence.domain.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the constraint violations of a {@link DataDonationMetric} as "property message" entries. Messages are the
+ * same ones Bean Validation produces for the {@code @NotNull} and {@code @Range} annotations declared on the metric
+ * fields, so the checks can run without reflective metadata lookups on every submission.
+ */
+public final class MetricViolations {
+
+  static final String NOT_NULL_MESSAGE = "must not be null";
+
+  private List<String> violations;
+
+  /**
+   * Records a violation if the given value is <code>null</code>.
+   */
+  public MetricViolations notNull(String property, Object value) {
+    if (value == null) {
+      add(property, NOT_NULL_MESSAGE);
+    }
+    return this;
+  }
+
+  /**
+   * Records a violation if the given value is outside of [min, max].
+   */
+  public MetricViolations inRange(String property, long value, long min, long max, String message) {
+    if (value < min || value > max) {
+      add(property, message);
+    }
+    return this;
+  }
+
+  private void add(String property, String message) {
+    if (violations == null) {
+      violations = new ArrayList<>();
+    }
+    violations.add(property + " " + message);
+  }
+
+  public List<String> asList() {
+    return violations == null ? Collections.emptyList() : Collections.unmodifiableList(violations);
+  }
+}
@@ -0,0 +1,103 @@
+package app.coronawarn.datadonation.common.persistence.domain.metrics;
+
+import java.util.Arrays;
+
+/**
+ * The scan instances of an {@link ExposureWindow}, stored as one flat primitive array of (typical attenuation,
+ * minimum attenuation, seconds since last scan) triples.
+ *
+ * <p>Scan instances are kept in the order reported by the client and are <b>not</b> deduplicated: two identical
+ * entries describe two distinct scans of the same window and are both persisted.
+ */
+public final class ScanInstances {
+
+  private static final int FIELDS_PER_SCAN = 3;
+  private static final int TYPICAL_ATTENUATION = 0;
+  private static final int MINIMUM_ATTENUATION = 1;
+  private static final int SECONDS_SINCE_LAST_SCAN = 2;
+
+  public static final ScanInstances EMPTY = new ScanInstances(new int[0]);
+
+  private final int[] values;
+
+  private ScanInstances(int[] values) {
+    this.values = values;
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  public int size() {
+    return values.length / FIELDS_PER_SCAN;
+  }
+
+  public boolean isEmpty() {
+    return values.length == 0;
+  }
+
+  public int getTypicalAttenuation(int index) {
+    return values[index * FIELDS_PER_SCAN + TYPICAL_ATTENUATION];
+  }
+
+  public int getMinimumAttenuation(int index) {
+    return values[index * FIELDS_PER_SCAN + MINIMUM_ATTENUATION];
+  }
+
+  public int getSecondsSinceLastScan(int index) {
+    return values[index * FIELDS_PER_SCAN + SECONDS_SINCE_LAST_SCAN];
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    return Arrays.equals(values, ((ScanInstances) obj).values);
+  }
+
+  /**
+   * Collects scan instances in insertion order.
+   */
+  public static final class Builder {
+
+    private int[] values;
+    private int length;
+
+    private Builder(int expectedSize) {
+      this.values = new int[Math.max(expectedSize, 0) * FIELDS_PER_SCAN];
+    }
+
+    /**
+     * Appends a scan instance.
+     */
+    public Builder add(int typicalAttenuation, int minimumAttenuation, int secondsSinceLastScan) {
+      if (length + FIELDS_PER_SCAN > values.length) {
+        values = Arrays.copyOf(values, Math.max(values.length * 2, FIELDS_PER_SCAN * 4));
+      }
+      values[length + TYPICAL_ATTENUATION] = typicalAttenuation;
+      values[length + MINIMUM_ATTENUATION] = minimumAttenuation;
+      values[length + SECONDS_SINCE_LAST_SCAN] = secondsSinceLastScan;
+      length += FIELDS_PER_SCAN;
+      return this;
+    }
+
+    /**
+     * Creates the immutable scan instances collected so far.
+     */
+    public ScanInstances build() {
+      if (length == 0) {
+        return EMPTY;
+      }
+      return new ScanInstances(length == values.length ? values : Arrays.copyOf(values, length));
+    }
+  }
+}
@@ -10,43 +10,40 @@ public class TestResultMetadata extends DataDonationMetric {
   /**
    * The test result reported by the client (0 to 4).
    */
-  @NotNull
-  private final Integer testResult;
+  private final int testResult;
   /**
    * The hours since the test was registered on the device.
    */
-  @NotNull
-  private final Integer hoursSinceTestRegistration;
+  private final int hoursSinceTestRegistration;
   /**
    * The risk level on the client when the test was registered (0 to 3).
    */
-  @NotNull
-  private final Integer riskLevelAtTestRegistration;
+  private final int riskLevelAtTestRegistration;
   /**
    * The number of days since the most recent encounter at the given risk level at test
    * registration.
    */
-  @NotNull
-  private final Integer daysSinceMostRecentDateAtRiskLevelAtTestRegistration;
+  private final int daysSinceMostRecentDateAtRiskLevelAtTestRegistration;
   /**
    * The hours since a high risk warning was issued and the test was registered.
    */
-  @NotNull
-  private final Integer hoursSinceHighRiskWarningAtTestRegistration;
+  private final int hoursSinceHighRiskWarningAtTestRegistration;
 
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final UserMetadataDetails userMetadata;
   
+  @NotNull
   @Embedded(onEmpty = OnEmpty.USE_EMPTY)
   private final TechnicalMetadata technicalMetadata;
 
   /**
    * Constructs an immutable instance.
    */
-  public TestResultMetadata(Long id, Integer testResult, Integer hoursSinceTestRegistration,
-      Integer riskLevelAtTestRegistration,
-      Integer daysSinceMostRecentDateAtRiskLevelAtTestRegistration,
-      Integer hoursSinceHighRiskWarningAtTestRegistration, UserMetadataDetails userMetadata,
+  public TestResultMetadata(Long id, int testResult, int hoursSinceTestRegistration,
+      int riskLevelAtTestRegistration,
+      int daysSinceMostRecentDateAtRiskLevelAtTestRegistration,
+      int hoursSinceHighRiskWarningAtTestRegistration, UserMetadataDetails userMetadata,
       TechnicalMetadata technicalMetadata) {
     super(id);
     this.testResult = testResult;
@@ -59,23 +56,23 @@ public class TestResultMetadata extends DataDonationMetric {
     this.technicalMetadata = technicalMetadata;
   }
 
-  public Integer getTestResult() {
+  public int getTestResult() {
     return testResult;
   }
 
-  public Integer getHoursSinceTestRegistration() {
+  public int getHoursSinceTestRegistration() {
     return hoursSinceTestRegistration;
   }
 
-  public Integer getRiskLevelAtTestRegistration() {
+  public int getRiskLevelAtTestRegistration() {
     return riskLevelAtTestRegistration;
   }
 
-  public Integer getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration() {
+  public int getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration() {
     return daysSinceMostRecentDateAtRiskLevelAtTestRegistration;
   }
 
-  public Integer getHoursSinceHighRiskWarningAtTestRegistration() {
+  public int getHoursSinceHighRiskWarningAtTestRegistration() {
     return hoursSinceHighRiskWarningAtTestRegistration;
   }
 
@@ -86,4 +83,11 @@ public class TestResultMetadata extends DataDonationMetric {
   public TechnicalMetadata getTechnicalMetadata() {
     return technicalMetadata;
   }
+
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    violations
+        .notNull("userMetadata", userMetadata)
+        .notNull("technicalMetadata", technicalMetadata);
+  }
 }
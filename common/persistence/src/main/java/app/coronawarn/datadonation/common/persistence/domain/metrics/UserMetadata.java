@@ -31,6 +31,11 @@ public class UserMetadata extends DataDonationMetric {
     return technicalMetadata;
   }
 
+  @Override
+  protected void collectViolations(MetricViolations violations) {
+    // no constraints on the embedded metadata of this entity
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(id, userMetadataDetails, technicalMetadata);
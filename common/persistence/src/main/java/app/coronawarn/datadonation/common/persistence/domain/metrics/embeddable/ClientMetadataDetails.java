@@ -4,8 +4,10 @@ import java.util.Objects;
 import javax.validation.constraints.NotNull;
 
 /**
- * The following properties are client metadata that are inlined per record to avoid that correlating
- * entries from the same submission (no ETag reference here).
+ * Client metadata of a submission, i.e. the app and OS versions and the ETag of the app config the client used. The
+ * metric records do not store these values themselves but reference the entry of the
+ * {@code ClientMetadataDictionary} that holds each distinct value once. An entry is shared by all submissions with
+ * the same value, so like the values themselves the reference does not correlate the records of one submission.
  */
 public class ClientMetadataDetails {
 
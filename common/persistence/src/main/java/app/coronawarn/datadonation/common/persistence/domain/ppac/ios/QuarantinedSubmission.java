@@ -0,0 +1,79 @@
+package app.coronawarn.datadonation.common.persistence.domain.ppac.ios;
+
+import java.time.LocalDate;
+
+/**
+ * An iOS data submission whose authentication has not been verified yet, see the <code>ios_quarantine</code> table.
+ */
+public class QuarantinedSubmission {
+
+  private final Long id;
+  private final long receivedAt;
+  private final LocalDate submittedAt;
+  private final String deviceToken;
+  private final String apiToken;
+  private final boolean ignoreApiTokenAlreadyIssued;
+  private final byte[] payload;
+  private final boolean verified;
+
+  /**
+   * Creates a submission, the id is <code>null</code> until it is stored.
+   *
+   * @param receivedAt  epoch seconds of the submission.
+   * @param submittedAt the submission date of its metrics.
+   * @param payload     the serialized <code>PPADataIOS</code>.
+   */
+  public QuarantinedSubmission(Long id, long receivedAt, LocalDate submittedAt, String deviceToken, String apiToken,
+      boolean ignoreApiTokenAlreadyIssued, byte[] payload) {
+    this(id, receivedAt, submittedAt, deviceToken, apiToken, ignoreApiTokenAlreadyIssued, payload, false);
+  }
+
+  /**
+   * Creates a stored submission.
+   *
+   * @param verified whether its authentication was already verified, but it could not be stored yet.
+   */
+  public QuarantinedSubmission(Long id, long receivedAt, LocalDate submittedAt, String deviceToken, String apiToken,
+      boolean ignoreApiTokenAlreadyIssued, byte[] payload, boolean verified) {
+    this.id = id;
+    this.receivedAt = receivedAt;
+    this.submittedAt = submittedAt;
+    this.deviceToken = deviceToken;
+    this.apiToken = apiToken;
+    this.ignoreApiTokenAlreadyIssued = ignoreApiTokenAlreadyIssued;
+    this.payload = payload;
+    this.verified = verified;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public long getReceivedAt() {
+    return receivedAt;
+  }
+
+  public LocalDate getSubmittedAt() {
+    return submittedAt;
+  }
+
+  public String getDeviceToken() {
+    return deviceToken;
+  }
+
+  public String getApiToken() {
+    return apiToken;
+  }
+
+  public boolean isIgnoreApiTokenAlreadyIssued() {
+    return ignoreApiTokenAlreadyIssued;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  public boolean isVerified() {
+    return verified;
+  }
+}
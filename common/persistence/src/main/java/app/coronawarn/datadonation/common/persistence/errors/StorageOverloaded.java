@@ -0,0 +1,14 @@
+package app.coronawarn.datadonation.common.persistence.errors;
+
+/**
+ * Thrown instead of buffering a submission once the buffer in front of the database is full. The client should retry
+ * later.
+ */
+public class StorageOverloaded extends RuntimeException {
+
+  private static final long serialVersionUID = 4601937263850571318L;
+
+  public StorageOverloaded(String message) {
+    super(message);
+  }
+}
@@ -1,6 +1,7 @@
 package app.coronawarn.datadonation.common.persistence.repository;
 
 import app.coronawarn.datadonation.common.persistence.domain.ApiToken;
+import java.util.Optional;
 import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -10,15 +11,52 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ApiTokenRepository extends CrudRepository<ApiToken, String> {
 
+  @Query("select * from api_token where api_token = cast(:apiToken as uuid)")
+  Optional<ApiToken> findById(@Param("apiToken") String apiToken);
+
   @Modifying
   @Query("insert into api_token (api_token,expiration_date,created_at,last_used_edus, last_used_ppac)"
-      + "values(:apiToken,:expirationDate,:createdAt,:lastUsedEDUS,:lastUsedPPAC)")
+      + "values(cast(:apiToken as uuid),:expirationDate,:createdAt,:lastUsedEDUS,:lastUsedPPAC)")
   void insert(@Param("apiToken") String apiToken,
       @Param("expirationDate") Long expirationDate,
       @Param("createdAt") Long createdAt,
       @Param("lastUsedEDUS") Long lastUsedEdus,
       @Param("lastUsedPPAC") Long lastUsedPpac);
 
+  /**
+   * Marks the given api token as used for PPA unless it was already used at or after the given threshold.
+   *
+   * @return the number of updated rows, i.e. <code>0</code> if the quota was already consumed.
+   */
+  @Modifying
+  @Query("update api_token set last_used_ppac = :lastUsed where api_token = cast(:apiToken as uuid) "
+      + "and (last_used_ppac is null or last_used_ppac < :threshold)")
+  int consumeForPpa(@Param("apiToken") String apiToken, @Param("lastUsed") long lastUsed,
+      @Param("threshold") long threshold);
+
+  /**
+   * Marks the given api token as used for generic metrics unless it was already used for them at or after the given
+   * threshold.
+   *
+   * @return the number of updated rows, i.e. <code>0</code> if the quota was already consumed.
+   */
+  @Modifying
+  @Query("update api_token set last_used_metrics = :lastUsed where api_token = cast(:apiToken as uuid) "
+      + "and (last_used_metrics is null or last_used_metrics < :threshold)")
+  int consumeForMetrics(@Param("apiToken") String apiToken, @Param("lastUsed") long lastUsed,
+      @Param("threshold") long threshold);
+
+  /**
+   * Marks the given api token as used for EDUS unless it was already used at or after the given threshold.
+   *
+   * @return the number of updated rows, i.e. <code>0</code> if the quota was already consumed.
+   */
+  @Modifying
+  @Query("update api_token set last_used_edus = :lastUsed where api_token = cast(:apiToken as uuid) "
+      + "and (last_used_edus is null or last_used_edus < :threshold)")
+  int consumeForEdus(@Param("apiToken") String apiToken, @Param("lastUsed") long lastUsed,
+      @Param("threshold") long threshold);
+
   @Modifying
   @Query("delete from api_token where created_at < :threshold")
   void deleteOlderThan(@Param("threshold") long threshold);
@@ -9,7 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface DeviceTokenRepository extends CrudRepository<DeviceToken, Long> {
+public interface DeviceTokenRepository extends CrudRepository<DeviceToken, byte[]> {
 
   @Query("SELECT * FROM device_token d WHERE d.device_token_hash = :deviceTokenHash ")
   Optional<DeviceToken> findByDeviceTokenHash(@Param("deviceTokenHash") byte[] deviceToken);
@@ -21,8 +21,16 @@ public interface DeviceTokenRepository extends CrudRepository<DeviceToken, Long>
   @Query("select count(*) from device_token where created_at < :threshold")
   int countOlderThan(@Param("threshold") long threshold);
 
+  /**
+   * Stores the given device token hash unless it is already present in any bucket of the {@link ReplayProtectionRing}.
+   * The unique constraint only covers a single bucket, so two concurrent inserts right at the turn of an hour may
+   * both succeed.
+   *
+   * @return the number of inserted rows, i.e. <code>0</code> if the device token was already redeemed.
+   */
   @Modifying
-  @Query("insert into device_token (id,device_token_hash,created_at)" + "values(:id,:deviceTokenHash,:createdAt)")
-  void persist(@Param("id") Long id, @Param("deviceTokenHash") byte[] deviceTokenHash,
-      @Param("createdAt") long createdAt);
+  @Query("insert into device_token (device_token_hash, created_at) select :deviceTokenHash, :createdAt "
+      + "where not exists (select 1 from device_token where device_token_hash = :deviceTokenHash) "
+      + "on conflict do nothing")
+  int insertIfAbsent(@Param("deviceTokenHash") byte[] deviceTokenHash, @Param("createdAt") long createdAt);
 }
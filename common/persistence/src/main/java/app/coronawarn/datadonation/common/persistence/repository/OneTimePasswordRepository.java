@@ -1,6 +1,7 @@
 package app.coronawarn.datadonation.common.persistence.repository;
 
 import app.coronawarn.datadonation.common.persistence.domain.OneTimePassword;
+import java.util.UUID;
 import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -8,7 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OneTimePasswordRepository extends CrudRepository<OneTimePassword, String> {
+public interface OneTimePasswordRepository extends CrudRepository<OneTimePassword, UUID> {
 
   @Modifying
   @Query("delete from one_time_password where expiration_timestamp < :threshold or redemption_timestamp < :threshold")
@@ -20,7 +21,7 @@ public interface OneTimePasswordRepository extends CrudRepository<OneTimePasswor
 
   @Modifying
   @Query("insert into one_time_password (password, redemption_timestamp, expiration_timestamp) "
-      + "values(:password, :redemptionTimestamp, :expirationTimestamp)")
+      + "values(cast(:password as uuid), :redemptionTimestamp, :expirationTimestamp)")
   void insert(@Param("password") String password,
       @Param("redemptionTimestamp") Long redemptionTimestamp,
       @Param("expirationTimestamp") Long expirationTimestamp
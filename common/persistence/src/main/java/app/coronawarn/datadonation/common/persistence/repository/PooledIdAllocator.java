@@ -0,0 +1,89 @@
+package app.coronawarn.datadonation.common.persistence.repository;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * Hands out primary keys from blocks reserved with a single <code>nextval</code> each (pooled hi-lo), so batches of
+ * rows can be inserted with their ids bound up front instead of retrieving a generated key per row. The block size is
+ * the <code>INCREMENT</code> of the sequence: a <code>nextval</code> returning <code>lo</code> reserves the ids
+ * <code>lo</code> to <code>lo + increment - 1</code> for this instance. Consecutive values of the sequence are
+ * <code>increment</code> apart, so blocks never overlap each other nor a value taken by a column default, and since a
+ * fresh sequence starts at 1, no id is ever zero or negative. Ids of unused blocks are lost on shutdown.
+ */
+public class PooledIdAllocator {
+
+  private static final String SELECT_INCREMENT =
+      "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String sequenceName;
+  private final String selectBlocks;
+
+  private long blockSize;
+  private long next;
+  private long remaining;
+
+  /**
+   * Creates an allocator for the given sequence, which is only queried on the first allocation.
+   */
+  public PooledIdAllocator(JdbcTemplate jdbcTemplate, String sequenceName) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.sequenceName = sequenceName;
+    this.selectBlocks = "SELECT nextval('" + sequenceName + "') FROM generate_series(1, ?)";
+  }
+
+  /**
+   * Allocates the given number of ids, reserving as many new blocks as needed with a single query.
+   *
+   * @return the ids in ascending order, not necessarily contiguous.
+   */
+  public synchronized long[] allocate(int count) {
+    if (blockSize == 0) {
+      blockSize = readBlockSize();
+    }
+    long[] ids = new long[count];
+    int filled = take(ids, 0);
+    if (filled < count) {
+      long[] blocks = reserveBlocks((int) ((count - filled + blockSize - 1) / blockSize));
+      for (long lo : blocks) {
+        next = lo;
+        remaining = blockSize;
+        filled = take(ids, filled);
+      }
+    }
+    return ids;
+  }
+
+  private int take(long[] ids, int offset) {
+    int filled = offset;
+    while (filled < ids.length && remaining > 0) {
+      ids[filled++] = next++;
+      remaining--;
+    }
+    return filled;
+  }
+
+  private long[] reserveBlocks(int blocks) {
+    return jdbcTemplate.query(selectBlocks, (ResultSetExtractor<long[]>) resultSet -> {
+      long[] values = new long[blocks];
+      int row = 0;
+      while (resultSet.next() && row < blocks) {
+        values[row++] = resultSet.getLong(1);
+      }
+      if (row != blocks) {
+        throw new IncorrectResultSizeDataAccessException(blocks, row);
+      }
+      return values;
+    }, blocks);
+  }
+
+  private long readBlockSize() {
+    Long increment = jdbcTemplate.queryForObject(SELECT_INCREMENT, Long.class, sequenceName);
+    if (increment == null || increment < 1) {
+      throw new IllegalStateException("Sequence " + sequenceName + " must have a positive increment");
+    }
+    return increment;
+  }
+}
@@ -0,0 +1,102 @@
+package app.coronawarn.datadonation.common.persistence.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Expires the replay protection tables <code>salt</code> and <code>device_token</code>. Both are partitioned into
+ * {@value #BUCKETS} hourly buckets, a row is stored in the bucket of the hour it was inserted in. Expiry truncates the
+ * buckets whose newest row is past the retention period instead of deleting rows, which leaves neither dead tuples nor
+ * work for vacuum. The current and the next hour are never truncated, since they are or are about to be written.
+ *
+ * <p>A bucket is written for one hour and then holds only expired rows from that hour plus the retention period until
+ * it is written again {@value #BUCKETS} hours later, so expiry has to run at least once in between. The retention runs
+ * at least every {@value #MAX_RUN_INTERVAL_HOURS} hours, so the retention period may be at most
+ * {@value #MAX_RETENTION_HOURS} hours.
+ */
+@Repository
+public class ReplayProtectionRing {
+
+  public static final int BUCKETS = 72;
+  public static final int MAX_RUN_INTERVAL_HOURS = 24;
+  public static final int MAX_RETENTION_HOURS = BUCKETS - 2 - MAX_RUN_INTERVAL_HOURS;
+
+  private static final String SELECT_CURRENT_HOUR = "SELECT floor(extract(EPOCH FROM now()) / 3600)::BIGINT";
+
+  public enum Table {
+    SALT("salt", TimeUnit.MILLISECONDS),
+    DEVICE_TOKEN("device_token", TimeUnit.SECONDS);
+
+    private final String name;
+    private final TimeUnit createdAtUnit;
+
+    Table(String name, TimeUnit createdAtUnit) {
+      this.name = name;
+      this.createdAtUnit = createdAtUnit;
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ReplayProtectionRing(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Counts the rows in the buckets that {@link #truncateOlderThan(Table, int)} would truncate.
+   */
+  public int countOlderThan(Table table, int retentionHours) {
+    List<String> partitions = expiredPartitions(table, retentionHours, currentHour());
+    if (partitions.isEmpty()) {
+      return 0;
+    }
+    String union = partitions.stream()
+        .map(partition -> "SELECT count(*) AS n FROM " + partition)
+        .collect(Collectors.joining(" UNION ALL "));
+    Integer count = jdbcTemplate.queryForObject("SELECT coalesce(sum(n), 0)::INTEGER FROM (" + union + ") c",
+        Integer.class);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Truncates all buckets holding only rows of hours before the retention period, i.e. rows created before the
+   * current hour minus <code>retentionHours</code>.
+   */
+  public void truncateOlderThan(Table table, int retentionHours) {
+    truncateOlderThan(table, retentionHours, currentHour());
+  }
+
+  void truncateOlderThan(Table table, int retentionHours, long currentHour) {
+    List<String> partitions = expiredPartitions(table, retentionHours, currentHour);
+    if (!partitions.isEmpty()) {
+      jdbcTemplate.execute("TRUNCATE " + String.join(", ", partitions));
+    }
+  }
+
+  List<String> expiredPartitions(Table table, int retentionHours, long currentHour) {
+    if (retentionHours < 0 || retentionHours > MAX_RETENTION_HOURS) {
+      throw new IllegalArgumentException("Retention of " + table.name + " must be between 0 and "
+          + MAX_RETENTION_HOURS + " hours, but is " + retentionHours);
+    }
+    List<String> candidates = new ArrayList<>();
+    // all but the current and the next hour
+    for (int age = 1; age <= BUCKETS - 2; age++) {
+      candidates.add(String.format("%s_%02d", table.name, Math.floorMod(currentHour - age, BUCKETS)));
+    }
+    String newestRows = candidates.stream()
+        .map(partition -> "SELECT '" + partition + "' AS p, max(created_at) AS m FROM " + partition)
+        .collect(Collectors.joining(" UNION ALL "));
+    long threshold = table.createdAtUnit.convert(currentHour - retentionHours, TimeUnit.HOURS);
+    return jdbcTemplate.queryForList("SELECT p FROM (" + newestRows + ") b WHERE m < ? ORDER BY p", String.class,
+        threshold);
+  }
+
+  private long currentHour() {
+    Long currentHour = jdbcTemplate.queryForObject(SELECT_CURRENT_HOUR, Long.class);
+    return currentHour == null ? 0 : currentHour;
+  }
+}
@@ -0,0 +1,234 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Dictionary of the distinct {@link ClientMetadataDetails}, each stored once in <code>client_metadata_dim</code> and
+ * referenced by its id from the metric tables. Both directions are cached in process, so the table is only queried for
+ * values this instance has not seen before. New values are inserted in a transaction of their own, so a cached id is
+ * always committed, even if the metrics that first referenced it are rolled back. Writers therefore resolve the ids of
+ * a batch with {@link #idsOf(Collection)} before its transaction begins. Each cache keeps the
+ * {@link #MAX_CACHED_VALUES} most recently used values.
+ *
+ * <p>Cached ids expire after {@link #MAX_CACHE_AGE}, and each lookup in the table refreshes the
+ * <code>last_used_at</code> of the entry. The retention only deletes entries that have not been used for
+ * {@link #MAX_UNUSED_AGE} and are no longer referenced, so no instance can still hand out a deleted id.
+ */
+@Repository
+public class ClientMetadataDictionary {
+
+  /**
+   * Upper bound of cached values. The app config ETag is client controlled, the least recently used values are evicted
+   * beyond it.
+   */
+  static final int MAX_CACHED_VALUES = 10_000;
+
+  /**
+   * Time after which a cached id is looked up again, which marks the entry as still in use.
+   */
+  static final Duration MAX_CACHE_AGE = Duration.ofHours(1);
+
+  /**
+   * Time after its last use until an unreferenced entry is deleted. Leaves room for ids that were handed out just
+   * before their cache entry expired, but only reach the metric tables after a retry or the next staging merge.
+   */
+  static final Duration MAX_UNUSED_AGE = Duration.ofDays(1);
+
+  /**
+   * Durable metric tables referencing the dictionary, whose rows written before it was introduced still have to be
+   * assigned their id (see V7__clientMetadataDimension.sql).
+   */
+  public static final List<String> METRIC_TABLES = List.of("exposure_window",
+      "key_submission_metadata_with_client_metadata", "client_metadata");
+
+  private static final List<String> REFERENCING_TABLES = List.of("exposure_window",
+      "key_submission_metadata_with_client_metadata", "client_metadata", "staging_exposure_window",
+      "staging_key_submission_metadata_with_client_metadata", "staging_client_metadata");
+
+  private static final String COLUMNS = "cwa_version_major, cwa_version_minor, cwa_version_patch, app_config_etag, "
+      + "ios_version_major, ios_version_minor, ios_version_patch, android_api_level, android_enf_version";
+
+  private static final String UPSERT = "INSERT INTO client_metadata_dim (" + COLUMNS + ") "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (cwa_version_major, cwa_version_minor, cwa_version_patch, "
+      + "app_config_etag, coalesce(ios_version_major, -1), coalesce(ios_version_minor, -1), "
+      + "coalesce(ios_version_patch, -1), coalesce(android_api_level, -1), coalesce(android_enf_version, -1)) "
+      + "DO UPDATE SET last_used_at = now() RETURNING id";
+
+  private static final String DELETE_UNREFERENCED = "DELETE FROM client_metadata_dim d WHERE last_used_at < now() - "
+      + "make_interval(secs => ?)" + REFERENCING_TABLES.stream()
+          .map(table -> " AND NOT EXISTS (SELECT 1 FROM " + table + " t WHERE t.client_metadata_id = d.id)")
+          .collect(Collectors.joining());
+
+  private static final String MAX_UNASSIGNED_ID = "SELECT coalesce(max(id), ?) FROM (SELECT id FROM %s "
+      + "WHERE id > ? AND client_metadata_id IS NULL ORDER BY id LIMIT ?) b";
+
+  private static final String INSERT_UNASSIGNED = "INSERT INTO client_metadata_dim (" + COLUMNS + ") "
+      + "SELECT DISTINCT " + COLUMNS + " FROM %s WHERE id > ? AND id <= ? AND client_metadata_id IS NULL "
+      + "ON CONFLICT DO NOTHING";
+
+  private static final String ASSIGN_IDS = "UPDATE %s t SET client_metadata_id = d.id, cwa_version_major = NULL, "
+      + "cwa_version_minor = NULL, cwa_version_patch = NULL, app_config_etag = NULL, ios_version_major = NULL, "
+      + "ios_version_minor = NULL, ios_version_patch = NULL, android_api_level = NULL, android_enf_version = NULL "
+      + "FROM client_metadata_dim d WHERE t.id > ? AND t.id <= ? AND t.client_metadata_id IS NULL "
+      + "AND d.cwa_version_major = t.cwa_version_major AND d.cwa_version_minor = t.cwa_version_minor "
+      + "AND d.cwa_version_patch = t.cwa_version_patch AND d.app_config_etag = t.app_config_etag "
+      + "AND coalesce(d.ios_version_major, -1) = coalesce(t.ios_version_major, -1) "
+      + "AND coalesce(d.ios_version_minor, -1) = coalesce(t.ios_version_minor, -1) "
+      + "AND coalesce(d.ios_version_patch, -1) = coalesce(t.ios_version_patch, -1) "
+      + "AND coalesce(d.android_api_level, -1) = coalesce(t.android_api_level, -1) "
+      + "AND coalesce(d.android_enf_version, -1) = coalesce(t.android_enf_version, -1)";
+
+  private static final String SELECT_VALUES = "SELECT cwa_version_major, cwa_version_minor, cwa_version_patch, "
+      + "app_config_etag, ios_version_major, ios_version_minor, ios_version_patch, android_api_level, "
+      + "android_enf_version FROM client_metadata_dim WHERE id = ?";
+
+  private static final int[] VALUE_TYPES = {Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.VARCHAR,
+      Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER};
+
+  private static final RowMapper<ClientMetadataDetails> VALUES_MAPPER = (rs, rowNum) -> new ClientMetadataDetails(
+      rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getString(4), rs.getObject(5, Integer.class),
+      rs.getObject(6, Integer.class), rs.getObject(7, Integer.class), rs.getObject(8, Integer.class),
+      rs.getObject(9, Integer.class));
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Map<ClientMetadataDetails, CachedId> ids = Collections.synchronizedMap(new LruCache<>());
+  private final Map<Integer, ClientMetadataDetails> values = Collections.synchronizedMap(new LruCache<>());
+
+  /**
+   * Creates the dictionary with empty caches.
+   */
+  public ClientMetadataDictionary(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Returns the id of the given value, adding it to the dictionary if it is not known yet.
+   */
+  public int idOf(ClientMetadataDetails clientMetadata) {
+    CachedId cached = ids.get(clientMetadata);
+    if (cached == null || cached.isExpired()) {
+      int id = transactionTemplate.execute(
+          status -> jdbcTemplate.queryForObject(UPSERT, args(clientMetadata), VALUE_TYPES, Integer.class));
+      ids.put(clientMetadata, new CachedId(id));
+      values.put(id, clientMetadata);
+      return id;
+    }
+    return cached.id;
+  }
+
+  /**
+   * Returns the ids of the given values, adding those that are not known yet to the dictionary. Must be called outside
+   * of the transaction writing them.
+   */
+  public Map<ClientMetadataDetails, Integer> idsOf(Collection<ClientMetadataDetails> clientMetadata) {
+    Map<ClientMetadataDetails, Integer> result = new HashMap<>();
+    clientMetadata.forEach(value -> result.put(value, idOf(value)));
+    return result;
+  }
+
+  /**
+   * Returns the value stored with the given id.
+   *
+   * @throws org.springframework.dao.EmptyResultDataAccessException if there is no value with this id.
+   */
+  public ClientMetadataDetails valueOf(int id) {
+    ClientMetadataDetails clientMetadata = values.get(id);
+    if (clientMetadata == null) {
+      clientMetadata = jdbcTemplate.queryForObject(SELECT_VALUES, VALUES_MAPPER, id);
+      // only idOf caches ids, since reading a value does not mark the entry as used
+      values.put(id, clientMetadata);
+    }
+    return clientMetadata;
+  }
+
+  /**
+   * Deletes the entries that have not been used for {@link #MAX_UNUSED_AGE} and are not referenced by any metric or
+   * staging table.
+   *
+   * @return the number of deleted entries.
+   */
+  public int deleteUnreferenced() {
+    return jdbcTemplate.update(DELETE_UNREFERENCED, MAX_UNUSED_AGE.toSeconds());
+  }
+
+  /**
+   * Returns the highest id of the next batch of rows of the given metric table after the given id that have not been
+   * assigned their dictionary id yet, or the given id if there are none.
+   */
+  public long maxUnassignedId(String table, long afterId, int batchSize) {
+    return jdbcTemplate.queryForObject(String.format(MAX_UNASSIGNED_ID, metricTable(table)), Long.class, afterId,
+        afterId, batchSize);
+  }
+
+  /**
+   * Adds the client metadata of the rows of the given metric table in the id range (afterId, toId] to the dictionary,
+   * assigns the rows their dictionary id and clears their inline values, whose space vacuum can then reclaim.
+   *
+   * @return the number of assigned rows.
+   */
+  public int assignIds(String table, long afterId, long toId) {
+    String metricTable = metricTable(table);
+    jdbcTemplate.update(String.format(INSERT_UNASSIGNED, metricTable), afterId, toId);
+    return jdbcTemplate.update(String.format(ASSIGN_IDS, metricTable), afterId, toId);
+  }
+
+  private static String metricTable(String table) {
+    if (!METRIC_TABLES.contains(table)) {
+      throw new IllegalArgumentException("Not a metric table referencing the client metadata: " + table);
+    }
+    return table;
+  }
+
+  private static Object[] args(ClientMetadataDetails clientMetadata) {
+    return new Object[] {clientMetadata.getCwaVersionMajor(), clientMetadata.getCwaVersionMinor(),
+        clientMetadata.getCwaVersionPatch(), clientMetadata.getAppConfigEtag(), clientMetadata.getIosVersionMajor(),
+        clientMetadata.getIosVersionMinor(), clientMetadata.getIosVersionPatch(), clientMetadata.getAndroidApiLevel(),
+        clientMetadata.getAndroidEnfVersion()};
+  }
+
+  private static final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private LruCache() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > MAX_CACHED_VALUES;
+    }
+  }
+
+  private static final class CachedId {
+
+    private final int id;
+    private final long cachedAt = System.nanoTime();
+
+    private CachedId(int id) {
+      this.id = id;
+    }
+
+    private boolean isExpired() {
+      return System.nanoTime() - cachedAt > MAX_CACHE_AGE.toNanos();
+    }
+  }
+}
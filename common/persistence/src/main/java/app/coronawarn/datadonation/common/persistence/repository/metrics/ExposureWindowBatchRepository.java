@@ -0,0 +1,23 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
+import java.util.Collection;
+
+/**
+ * Bulk insert path for the exposure windows of a single submission, which can contain several hundred windows
+ * with their scan instances.
+ */
+public interface ExposureWindowBatchRepository {
+
+  /**
+   * Inserts the given exposure windows and their scan instances using JDBC batches. The primitive entity values
+   * are bound directly to the prepared statements.
+   */
+  void insertAll(Collection<ExposureWindow> exposureWindows);
+
+  /**
+   * Reads the scan instances stored for the given exposure window, in insertion order.
+   */
+  ScanInstances findScanInstances(long exposureWindowId);
+}
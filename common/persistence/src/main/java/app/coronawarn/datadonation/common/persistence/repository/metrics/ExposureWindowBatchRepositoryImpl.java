@@ -0,0 +1,149 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.repository.PooledIdAllocator;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import org.springframework.data.jdbc.core.convert.JdbcConverter;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * Implementation of {@link ExposureWindowBatchRepository}, picked up by Spring Data as fragment of the
+ * {@link ExposureWindowRepository}. Ids of both tables are reserved in blocks by a {@link PooledIdAllocator}, so
+ * windows and scan instances are written as pure batches without generated key retrieval. The client metadata is
+ * bound as the id of its {@link ClientMetadataDictionary} entry, converted like in the aggregate mapping.
+ */
+public class ExposureWindowBatchRepositoryImpl implements ExposureWindowBatchRepository {
+
+  private static final String INSERT_EXPOSURE_WINDOW = "INSERT INTO exposure_window (id, date, report_type, "
+      + "infectiousness, callibration_confidence, transmission_risk_level, normalized_time, client_metadata_id, "
+      + "submitted_at, android_ppac_basic_integrity, android_ppac_cts_profile_match, "
+      + "android_ppac_evaluation_type_basic, android_ppac_evaluation_type_hardware_backed) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final TypeInformation<Integer> CLIENT_METADATA_ID = ClassTypeInformation.from(Integer.class);
+
+  private static final String SELECT_SCAN_INSTANCES = "SELECT typical_attenuation, minimum_attenuation, "
+      + "seconds_since_last_scan FROM scan_instance WHERE exposure_window_id = ? ORDER BY id";
+
+  private static final String INSERT_SCAN_INSTANCE = "INSERT INTO scan_instance (id, exposure_window_id, "
+      + "typical_attenuation, minimum_attenuation, seconds_since_last_scan) VALUES (?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final JdbcConverter jdbcConverter;
+  private final PooledIdAllocator exposureWindowIds;
+  private final PooledIdAllocator scanInstanceIds;
+
+  /**
+   * Creates the repository fragment with id allocators for both tables.
+   */
+  public ExposureWindowBatchRepositoryImpl(JdbcTemplate jdbcTemplate, JdbcConverter jdbcConverter) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.jdbcConverter = jdbcConverter;
+    this.exposureWindowIds = new PooledIdAllocator(jdbcTemplate, "exposure_window_id_seq");
+    this.scanInstanceIds = new PooledIdAllocator(jdbcTemplate, "scan_instance_id_seq");
+  }
+
+  @Override
+  public void insertAll(Collection<ExposureWindow> exposureWindows) {
+    if (exposureWindows.isEmpty()) {
+      return;
+    }
+    long[] windowIds = exposureWindowIds.allocate(exposureWindows.size());
+    int scanInstanceCount = exposureWindows.stream().mapToInt(window -> window.getScanInstances().size()).sum();
+    long[] instanceIds = scanInstanceIds.allocate(scanInstanceCount);
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      insertExposureWindows(connection, exposureWindows, windowIds);
+      insertScanInstances(connection, exposureWindows, windowIds, instanceIds);
+      return null;
+    });
+  }
+
+  @Override
+  public ScanInstances findScanInstances(long exposureWindowId) {
+    return findScanInstances(jdbcTemplate, exposureWindowId);
+  }
+
+  static ScanInstances findScanInstances(JdbcTemplate jdbcTemplate, long exposureWindowId) {
+    return jdbcTemplate.query(SELECT_SCAN_INSTANCES, (ResultSetExtractor<ScanInstances>) resultSet -> {
+      ScanInstances.Builder builder = ScanInstances.builder(0);
+      while (resultSet.next()) {
+        builder.add(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3));
+      }
+      return builder.build();
+    }, exposureWindowId);
+  }
+
+  private void insertExposureWindows(Connection connection, Collection<ExposureWindow> exposureWindows,
+      long[] windowIds) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_EXPOSURE_WINDOW)) {
+      int windowIndex = 0;
+      for (ExposureWindow exposureWindow : exposureWindows) {
+        statement.setLong(1, windowIds[windowIndex++]);
+        bindExposureWindow(statement, exposureWindow);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private void insertScanInstances(Connection connection, Collection<ExposureWindow> exposureWindows,
+      long[] windowIds, long[] instanceIds) throws SQLException {
+    if (instanceIds.length == 0) {
+      return;
+    }
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_SCAN_INSTANCE)) {
+      int windowIndex = 0;
+      int instanceIndex = 0;
+      for (ExposureWindow exposureWindow : exposureWindows) {
+        ScanInstances scanInstances = exposureWindow.getScanInstances();
+        for (int i = 0; i < scanInstances.size(); i++) {
+          statement.setLong(1, instanceIds[instanceIndex++]);
+          statement.setLong(2, windowIds[windowIndex]);
+          statement.setInt(3, scanInstances.getTypicalAttenuation(i));
+          statement.setInt(4, scanInstances.getMinimumAttenuation(i));
+          statement.setInt(5, scanInstances.getSecondsSinceLastScan(i));
+          statement.addBatch();
+        }
+        windowIndex++;
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private void bindExposureWindow(PreparedStatement statement, ExposureWindow exposureWindow)
+      throws SQLException {
+    TechnicalMetadata technicalMetadata = exposureWindow.getTechnicalMetadata();
+    statement.setObject(2, exposureWindow.getDate());
+    statement.setInt(3, exposureWindow.getReportType());
+    statement.setInt(4, exposureWindow.getInfectiousness());
+    statement.setInt(5, exposureWindow.getCallibrationConfidence());
+    statement.setInt(6, exposureWindow.getTransmissionRiskLevel());
+    statement.setDouble(7, exposureWindow.getNormalizedTime());
+    statement.setObject(8, jdbcConverter.writeValue(exposureWindow.getClientMetadata(), CLIENT_METADATA_ID),
+        Types.INTEGER);
+    statement.setObject(9, technicalMetadata.getSubmittedAt());
+    setNullable(statement, 10, technicalMetadata.getAndroidPpacBasicIntegrity(), Types.BOOLEAN);
+    setNullable(statement, 11, technicalMetadata.getAndroidPpacCtsProfileMatch(), Types.BOOLEAN);
+    setNullable(statement, 12, technicalMetadata.getAndroidPpacEvaluationTypeBasic(), Types.BOOLEAN);
+    setNullable(statement, 13, technicalMetadata.getAndroidPpacEvaluationTypeHardwareBacked(), Types.BOOLEAN);
+  }
+
+  private static void setNullable(PreparedStatement statement, int index, Object value, int sqlType)
+      throws SQLException {
+    if (value == null) {
+      statement.setNull(index, sqlType);
+    } else {
+      statement.setObject(index, value, sqlType);
+    }
+  }
+}
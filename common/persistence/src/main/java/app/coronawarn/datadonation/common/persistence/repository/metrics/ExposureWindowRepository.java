@@ -2,12 +2,14 @@ package app.coronawarn.datadonation.common.persistence.repository.metrics;
 
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
-public interface ExposureWindowRepository extends CrudRepository<ExposureWindow, Long> {
+public interface ExposureWindowRepository extends CrudRepository<ExposureWindow, Long>, ExposureWindowBatchRepository {
 
   @Query("select count(*) from exposure_window where submitted_at < :threshold")
   int countOlderThan(@Param("threshold") LocalDate threshold);
@@ -15,4 +17,38 @@ public interface ExposureWindowRepository extends CrudRepository<ExposureWindow,
   @Modifying
   @Query("delete from exposure_window where submitted_at < :threshold")
   void deleteOlderThan(@Param("threshold") LocalDate threshold);
+
+  /**
+   * Returns the ids of at most <code>limit</code> exposure windows submitted before the threshold, in ascending order
+   * and starting after <code>afterId</code>. Passing the last returned id walks all of them in batches without
+   * revisiting the windows of earlier batches.
+   */
+  @Query("select id from exposure_window where submitted_at < :threshold and id > :afterId order by id limit :limit")
+  List<Long> findIdsOlderThan(@Param("threshold") LocalDate threshold, @Param("afterId") long afterId,
+      @Param("limit") int limit);
+
+  /**
+   * Deletes the scan instances of the given exposure windows.
+   *
+   * @return The number of deleted scan instances.
+   */
+  @Modifying
+  @Query("delete from scan_instance where exposure_window_id in (:windowIds)")
+  int deleteScanInstancesOfWindows(@Param("windowIds") Collection<Long> windowIds);
+
+  @Query("select coalesce(min(id), 1) from scan_instance")
+  long minScanInstanceId();
+
+  @Query("select coalesce(max(id), 0) from scan_instance")
+  long maxScanInstanceId();
+
+  /**
+   * Deletes the scan instances with an id in <code>(fromId, toId]</code> whose exposure window no longer exists.
+   *
+   * @return The number of deleted scan instances.
+   */
+  @Modifying
+  @Query("delete from scan_instance s where s.id > :fromId and s.id <= :toId"
+      + " and not exists (select 1 from exposure_window w where w.id = s.exposure_window_id)")
+  int deleteOrphanScanInstances(@Param("fromId") long fromId, @Param("toId") long toId);
 }
@@ -0,0 +1,84 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stores {@link GenericMetricBlock}s in the <code>generic_metric</code> table, one row per block with its values in
+ * the array column of its type.
+ */
+@Repository
+public class GenericMetricRepository {
+
+  private static final String INSERT = "INSERT INTO generic_metric (metric_key, submitted_at, int_values, "
+      + "float_values, text_values) VALUES (?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public GenericMetricRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Inserts the given blocks with a single JDBC batch. Like the technical metadata of the other metrics, the
+   * submission date is the current UTC date, not the one of the database session time zone.
+   */
+  @Transactional(timeout = 20)
+  public void insertAll(Collection<GenericMetricBlock> blocks) {
+    if (blocks.isEmpty()) {
+      return;
+    }
+    LocalDate submittedAt = LocalDate.now(ZoneOffset.UTC);
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      List<Array> arrays = new ArrayList<>(blocks.size());
+      try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+        for (GenericMetricBlock block : blocks) {
+          Array values = connection.createArrayOf(block.getType().getSqlType(), block.getValues().toArray());
+          arrays.add(values);
+          statement.setLong(1, block.getKey());
+          statement.setObject(2, submittedAt);
+          // the array columns follow the order of the types
+          for (GenericMetricBlock.Type type : GenericMetricBlock.Type.values()) {
+            if (type == block.getType()) {
+              statement.setArray(3 + type.ordinal(), values);
+            } else {
+              statement.setNull(3 + type.ordinal(), Types.ARRAY);
+            }
+          }
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      } finally {
+        for (Array array : arrays) {
+          array.free();
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Counts the stored values, not blocks, submitted before the threshold.
+   */
+  public int countOlderThan(LocalDate threshold) {
+    Integer count = jdbcTemplate.queryForObject("SELECT coalesce(sum(coalesce(cardinality(int_values), 0) "
+        + "+ coalesce(cardinality(float_values), 0) + coalesce(cardinality(text_values), 0)), 0)::INTEGER "
+        + "FROM generic_metric WHERE submitted_at < ?", Integer.class, threshold);
+    return count == null ? 0 : count;
+  }
+
+  public void deleteOlderThan(LocalDate threshold) {
+    jdbcTemplate.update("DELETE FROM generic_metric WHERE submitted_at < ?", threshold);
+  }
+}
@@ -0,0 +1,92 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.jdbc.core.convert.JdbcCustomConversions;
+import org.springframework.data.jdbc.repository.config.AbstractJdbcConfiguration;
+import org.springframework.data.relational.core.mapping.event.AfterLoadCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Spring Data JDBC configuration of the metric entities. {@link ClientMetadataDetails} are mapped to the id of their
+ * entry in the {@link ClientMetadataDictionary}, which is all the metric tables store. Batches of submissions are not
+ * written through this mapping but by the
+ * {@link app.coronawarn.datadonation.common.persistence.staging.DurableTableWriter}.
+ */
+@Configuration
+public class MetricsJdbcConfiguration extends AbstractJdbcConfiguration {
+
+  private final ClientMetadataDictionary clientMetadataDictionary;
+
+  public MetricsJdbcConfiguration(ClientMetadataDictionary clientMetadataDictionary) {
+    this.clientMetadataDictionary = clientMetadataDictionary;
+  }
+
+  /**
+   * Loads the scan instances of every exposure window read through the aggregate mapping, which does not map them.
+   */
+  @Bean
+  ExposureWindowScanInstancesLoader exposureWindowScanInstancesLoader(JdbcTemplate jdbcTemplate) {
+    return new ExposureWindowScanInstancesLoader(jdbcTemplate);
+  }
+
+  @Bean
+  @Override
+  public JdbcCustomConversions jdbcCustomConversions() {
+    return new JdbcCustomConversions(List.of(new ClientMetadataWritingConverter(clientMetadataDictionary),
+        new ClientMetadataReadingConverter(clientMetadataDictionary)));
+  }
+
+  @WritingConverter
+  static class ClientMetadataWritingConverter implements Converter<ClientMetadataDetails, Integer> {
+
+    private final ClientMetadataDictionary dictionary;
+
+    ClientMetadataWritingConverter(ClientMetadataDictionary dictionary) {
+      this.dictionary = dictionary;
+    }
+
+    @Override
+    public Integer convert(ClientMetadataDetails source) {
+      return dictionary.idOf(source);
+    }
+  }
+
+  static class ExposureWindowScanInstancesLoader implements AfterLoadCallback<ExposureWindow> {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ExposureWindowScanInstancesLoader(JdbcTemplate jdbcTemplate) {
+      this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public ExposureWindow onAfterLoad(ExposureWindow window) {
+      return new ExposureWindow(window.getId(), window.getDate(), window.getReportType(), window.getInfectiousness(),
+          window.getCallibrationConfidence(), window.getTransmissionRiskLevel(), window.getNormalizedTime(),
+          window.getClientMetadata(), window.getTechnicalMetadata(),
+          ExposureWindowBatchRepositoryImpl.findScanInstances(jdbcTemplate, window.getId()));
+    }
+  }
+
+  @ReadingConverter
+  static class ClientMetadataReadingConverter implements Converter<Integer, ClientMetadataDetails> {
+
+    private final ClientMetadataDictionary dictionary;
+
+    ClientMetadataReadingConverter(ClientMetadataDictionary dictionary) {
+      this.dictionary = dictionary;
+    }
+
+    @Override
+    public ClientMetadataDetails convert(Integer source) {
+      return dictionary.valueOf(source);
+    }
+  }
+}
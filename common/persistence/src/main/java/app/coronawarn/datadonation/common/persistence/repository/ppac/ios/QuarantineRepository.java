@@ -0,0 +1,120 @@
+package app.coronawarn.datadonation.common.persistence.repository.ppac.ios;
+
+import app.coronawarn.datadonation.common.persistence.domain.ppac.ios.QuarantinedSubmission;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stores {@link QuarantinedSubmission}s in the <code>ios_quarantine</code> table.
+ */
+@Repository
+public class QuarantineRepository {
+
+  private static final String COLUMNS = "received_at, submitted_at, device_token, api_token, "
+      + "ignore_api_token_already_issued, payload";
+
+  /**
+   * Inserts unless the table may already hold the given number of rows. The ids are assigned in ascending order and
+   * rows are only deleted, so the id range is an upper bound of the row count that only needs two index lookups.
+   */
+  private static final String INSERT_BELOW_LIMIT = "INSERT INTO ios_quarantine (" + COLUMNS + ") "
+      + "SELECT ?, ?, ?, ?, ?, ? WHERE (SELECT coalesce(max(id) - min(id) + 1, 0) FROM ios_quarantine) < ?";
+
+  private static final String CLAIM = "UPDATE ios_quarantine SET claimed_until = ? WHERE id IN (SELECT id "
+      + "FROM ios_quarantine WHERE claimed_until IS NULL OR claimed_until < ? ORDER BY id LIMIT ? "
+      + "FOR UPDATE SKIP LOCKED) RETURNING *";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public QuarantineRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Stores the submission unless the quarantine is full.
+   *
+   * @param maxRows the maximum number of quarantined submissions.
+   * @return <code>false</code> if the submission was not stored because the quarantine is full.
+   */
+  public boolean insert(QuarantinedSubmission submission, int maxRows) {
+    return jdbcTemplate.update(INSERT_BELOW_LIMIT, submission.getReceivedAt(), submission.getSubmittedAt(),
+        submission.getDeviceToken(), UUID.fromString(submission.getApiToken()),
+        submission.isIgnoreApiTokenAlreadyIssued(), submission.getPayload(), maxRows) > 0;
+  }
+
+  /**
+   * Claims and returns up to <code>limit</code> of the oldest submissions that are not claimed by another instance,
+   * until the given time. The submissions stay stored until they are deleted or released, so the submissions of an
+   * instance that fails in between are claimed again once their claim expired.
+   *
+   * @param now          current epoch seconds.
+   * @param claimSeconds duration of the claim.
+   */
+  public List<QuarantinedSubmission> claim(int limit, long now, int claimSeconds) {
+    return jdbcTemplate.query(CLAIM, this::map, now + claimSeconds, now, limit);
+  }
+
+  /**
+   * Deletes a handled submission.
+   */
+  public void delete(long id) {
+    jdbcTemplate.update("DELETE FROM ios_quarantine WHERE id = ?", id);
+  }
+
+  /**
+   * Marks a submission whose authentication was verified, so it is not verified again if it can not be stored.
+   */
+  public void markVerified(long id) {
+    jdbcTemplate.update("UPDATE ios_quarantine SET verified = true WHERE id = ?", id);
+  }
+
+  /**
+   * Releases the claim of submissions that could not be verified yet, so they are claimed again by the next batch.
+   */
+  public void release(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.update(connection -> {
+      PreparedStatement statement = connection.prepareStatement(
+          "UPDATE ios_quarantine SET claimed_until = NULL WHERE id = ANY (?)");
+      statement.setArray(1, connection.createArrayOf("BIGINT", ids.toArray()));
+      return statement;
+    });
+  }
+
+  /**
+   * Counts the submissions received before the given epoch seconds.
+   */
+  public int countOlderThan(long threshold) {
+    Integer count = jdbcTemplate.queryForObject(
+        "SELECT count(*)::INTEGER FROM ios_quarantine WHERE received_at < ?", Integer.class, threshold);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Deletes the submissions received before the given epoch seconds, whether claimed or not.
+   */
+  public int deleteOlderThan(long threshold) {
+    return jdbcTemplate.update("DELETE FROM ios_quarantine WHERE received_at < ?", threshold);
+  }
+
+  public int count() {
+    Integer count = jdbcTemplate.queryForObject("SELECT count(*)::INTEGER FROM ios_quarantine", Integer.class);
+    return count == null ? 0 : count;
+  }
+
+  private QuarantinedSubmission map(ResultSet resultSet, int row) throws SQLException {
+    return new QuarantinedSubmission(resultSet.getLong("id"), resultSet.getLong("received_at"),
+        resultSet.getObject("submitted_at", LocalDate.class), resultSet.getString("device_token"),
+        resultSet.getString("api_token"), resultSet.getBoolean("ignore_api_token_already_issued"),
+        resultSet.getBytes("payload"), resultSet.getBoolean("verified"));
+  }
+}
@@ -0,0 +1,110 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock.Type;
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.GenericMetricRepository;
+import app.coronawarn.datadonation.common.protocols.FloatMetric;
+import app.coronawarn.datadonation.common.protocols.IntMetric;
+import app.coronawarn.datadonation.common.protocols.Metrics;
+import app.coronawarn.datadonation.common.protocols.TextMetric;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the values of the generic {@link Metrics} of many submissions per key and type, and writes them as one
+ * {@link GenericMetricBlock} each. The values of a block are shuffled before it is written, so neither their position
+ * nor their row tells which values of different keys stem from the same submission.
+ *
+ * <p>Like the {@link ShuffledIngestion}, the values are buffered by an {@link IngestionBuffer}: they are written once
+ * the configured number of values is reached or the configured delay has passed, and every submitting request waits
+ * until its values are committed. Beyond the configured number of pending values, submissions are rejected with
+ * {@link StorageOverloaded}. Unlike the metrics of the {@link ShuffledIngestion}, generic metrics are buffered by
+ * default: written per submission, every value would take a block, i.e. a row, of its own.
+ */
+@Component
+public class GenericMetricsIngestion implements InitializingBean, DisposableBean {
+
+  private final Random random = new SecureRandom();
+  private final IngestionBuffer<Blocks> buffer;
+
+  /**
+   * Creates the ingestion, which buffers values unless buffering of generic metrics is disabled.
+   */
+  public GenericMetricsIngestion(GenericMetricRepository repository, IngestionConfiguration configuration) {
+    this.buffer = new IngestionBuffer<>("generic metric values", configuration::isGenericMetricsEnabled,
+        configuration, Blocks::new, blocks -> blocks.values, configuration::getMaxGenericValues, configuration::getMaxPendingGenericValues,
+        blocks -> repository.insertAll(blocks.shuffled(random)));
+  }
+
+  /**
+   * Adds the values of a validated submission to the pending blocks and waits until they are stored.
+   *
+   * @throws StorageOverloaded if too many values are already waiting to be stored.
+   * @throws RuntimeException  the error of the write, if the blocks could not be stored.
+   */
+  public void submit(Metrics metrics) {
+    buffer.submit(blocks -> blocks.add(metrics));
+  }
+
+  int getPendingValues() {
+    return buffer.getPendingSize();
+  }
+
+  void flush() {
+    buffer.flush();
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    buffer.start();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    buffer.close();
+  }
+
+  /**
+   * The pending blocks by type and key.
+   */
+  private static final class Blocks {
+
+    private final Map<Type, Map<Long, GenericMetricBlock>> blocks = new EnumMap<>(Type.class);
+    private int values;
+
+    void add(Metrics metrics) {
+      for (IntMetric metric : metrics.getIntDataList()) {
+        block(Type.INT, metric.getKey()).add(metric.getValue());
+      }
+      for (FloatMetric metric : metrics.getFloatDataList()) {
+        block(Type.FLOAT, metric.getKey()).add(metric.getValue());
+      }
+      for (TextMetric metric : metrics.getTextDataList()) {
+        block(Type.TEXT, metric.getKey()).add(metric.getValue());
+      }
+      values += metrics.getIntDataCount() + metrics.getFloatDataCount() + metrics.getTextDataCount();
+    }
+
+    private GenericMetricBlock block(Type type, int key) {
+      long unsignedKey = Integer.toUnsignedLong(key);
+      return blocks.computeIfAbsent(type, t -> new HashMap<>())
+          .computeIfAbsent(unsignedKey, k -> new GenericMetricBlock(unsignedKey, type));
+    }
+
+    List<GenericMetricBlock> shuffled(Random random) {
+      List<GenericMetricBlock> all = new ArrayList<>();
+      blocks.values().forEach(blocksOfType -> all.addAll(blocksOfType.values()));
+      all.forEach(block -> block.shuffle(random));
+      return all;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers the data of many submissions in one batch and writes it once it holds the maximum size or the configured
+ * delay has passed. Every submitting request waits until its batch is committed and fails with the error of the write
+ * if the batch could not be stored, so a client is never told that data was accepted which was then lost. Beyond the
+ * maximum pending size, submissions are rejected with {@link StorageOverloaded}. When disabled, every submission is
+ * written on its own and immediately.
+ *
+ * @param <B> the type of the batch, whose size is counted in units such as submissions or values.
+ */
+class IngestionBuffer<B> {
+
+  private static final Logger logger = LoggerFactory.getLogger(IngestionBuffer.class);
+
+  private final String name;
+  private final BooleanSupplier enabled;
+  private final IngestionConfiguration configuration;
+  private final Supplier<B> newBatch;
+  private final ToIntFunction<B> size;
+  private final IntSupplier maxSize;
+  private final IntSupplier maxPendingSize;
+  private final Consumer<B> writer;
+
+  private B pending;
+  private CompletableFuture<Void> pendingCommit = new CompletableFuture<>();
+  private boolean flushScheduled;
+  private boolean closed;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a buffer, which is only flushed periodically once started.
+   *
+   * @param name           names the units of the batch size in messages and the thread of the buffer.
+   * @param enabled        whether submissions are buffered, or written on their own.
+   * @param newBatch       creates an empty batch.
+   * @param size           the size of a batch.
+   * @param maxSize        the size at which a batch is written without further delay.
+   * @param maxPendingSize the size beyond which submissions are rejected.
+   * @param writer         stores a batch, or throws the error of the write.
+   */
+  IngestionBuffer(String name, BooleanSupplier enabled, IngestionConfiguration configuration, Supplier<B> newBatch,
+      ToIntFunction<B> size, IntSupplier maxSize, IntSupplier maxPendingSize, Consumer<B> writer) {
+    this.name = name;
+    this.enabled = enabled;
+    this.configuration = configuration;
+    this.newBatch = newBatch;
+    this.size = size;
+    this.maxSize = maxSize;
+    this.maxPendingSize = maxPendingSize;
+    this.writer = writer;
+    this.pending = newBatch.get();
+  }
+
+  /**
+   * Adds a validated submission to the next batch and waits until that batch is stored.
+   *
+   * @param addition adds the data of the submission to a batch.
+   * @throws StorageOverloaded if the pending batch already holds the maximum pending size.
+   * @throws RuntimeException  the error of the write, if the batch could not be stored.
+   */
+  void submit(Consumer<B> addition) {
+    CompletableFuture<Void> commit;
+    boolean scheduleFlush;
+    synchronized (this) {
+      if (!enabled.getAsBoolean() || closed) {
+        commit = null;
+        scheduleFlush = false;
+      } else {
+        if (size.applyAsInt(pending) >= maxPendingSize.getAsInt()) {
+          throw new StorageOverloaded("Too many " + name + " are waiting to be stored");
+        }
+        addition.accept(pending);
+        commit = pendingCommit;
+        scheduleFlush = !flushScheduled && size.applyAsInt(pending) >= maxSize.getAsInt();
+        flushScheduled |= scheduleFlush;
+      }
+    }
+    if (commit == null) {
+      B batch = newBatch.get();
+      addition.accept(batch);
+      writer.accept(batch);
+      return;
+    }
+    if (scheduleFlush) {
+      try {
+        scheduler.execute(this::flush);
+      } catch (RejectedExecutionException e) {
+        // shutting down, the pending batch is flushed on close
+      }
+    }
+    awaitCommit(commit);
+  }
+
+  synchronized int getPendingSize() {
+    return size.applyAsInt(pending);
+  }
+
+  private static void awaitCommit(CompletableFuture<Void> commit) {
+    try {
+      commit.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Writes the pending batch, and the next one as long as it is full already.
+   */
+  void flush() {
+    boolean full = true;
+    while (full) {
+      B batch;
+      CompletableFuture<Void> commit;
+      synchronized (this) {
+        flushScheduled = false;
+        if (size.applyAsInt(pending) == 0) {
+          return;
+        }
+        batch = pending;
+        commit = pendingCommit;
+        pending = newBatch.get();
+        pendingCommit = new CompletableFuture<>();
+      }
+      try {
+        writer.accept(batch);
+        commit.complete(null);
+      } catch (RuntimeException e) {
+        logger.error("Failed to store a batch of {} {}.", size.applyAsInt(batch), name, e);
+        commit.completeExceptionally(e);
+      }
+      synchronized (this) {
+        full = size.applyAsInt(pending) >= maxSize.getAsInt();
+      }
+    }
+  }
+
+  /**
+   * Starts the periodic flush, unless the buffer is disabled.
+   */
+  void start() {
+    if (!enabled.getAsBoolean()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, name.replace(' ', '-') + "-ingestion");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::flush, configuration.getMaxDelayMillis(),
+        configuration.getMaxDelayMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the periodic flush and writes the pending batch. Later submissions are written immediately.
+   */
+  void close() throws InterruptedException {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdown();
+    scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    synchronized (this) {
+      closed = true;
+    }
+    flush();
+  }
+}
@@ -0,0 +1,73 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "ingestion")
+public class IngestionConfiguration {
+
+  private boolean enabled;
+  private boolean genericMetricsEnabled = true;
+  private int maxSubmissions = 64;
+  private int maxPendingSubmissions = 256;
+  private long maxDelayMillis = 2000;
+  private int maxGenericValues = 4096;
+  private int maxPendingGenericValues = 16384;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isGenericMetricsEnabled() {
+    return genericMetricsEnabled;
+  }
+
+  public void setGenericMetricsEnabled(boolean genericMetricsEnabled) {
+    this.genericMetricsEnabled = genericMetricsEnabled;
+  }
+
+  public int getMaxSubmissions() {
+    return maxSubmissions;
+  }
+
+  public void setMaxSubmissions(int maxSubmissions) {
+    this.maxSubmissions = maxSubmissions;
+  }
+
+  public int getMaxPendingSubmissions() {
+    return maxPendingSubmissions;
+  }
+
+  public void setMaxPendingSubmissions(int maxPendingSubmissions) {
+    this.maxPendingSubmissions = maxPendingSubmissions;
+  }
+
+  public long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  public void setMaxDelayMillis(long maxDelayMillis) {
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  public int getMaxGenericValues() {
+    return maxGenericValues;
+  }
+
+  public void setMaxGenericValues(int maxGenericValues) {
+    this.maxGenericValues = maxGenericValues;
+  }
+
+  public int getMaxPendingGenericValues() {
+    return maxPendingGenericValues;
+  }
+
+  public void setMaxPendingGenericValues(int maxPendingGenericValues) {
+    this.maxPendingGenericValues = maxPendingGenericValues;
+  }
+}
@@ -0,0 +1,132 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ClientMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The metrics of one or more submissions, collected per table. Once shuffled, neither the order of the rows nor their
+ * generated ids tell which rows of different tables stem from the same submission.
+ */
+public class MetricsBatch {
+
+  private final List<ExposureRiskMetadata> exposureRiskMetadata = new ArrayList<>();
+  private final List<ExposureWindow> exposureWindows = new ArrayList<>();
+  private final List<TestResultMetadata> testResultMetadata = new ArrayList<>();
+  private final List<KeySubmissionMetadataWithUserMetadata> keySubmissionsWithUserMetadata = new ArrayList<>();
+  private final List<KeySubmissionMetadataWithClientMetadata> keySubmissionsWithClientMetadata = new ArrayList<>();
+  private final List<UserMetadata> userMetadata = new ArrayList<>();
+  private final List<ClientMetadata> clientMetadata = new ArrayList<>();
+  private Map<ClientMetadataDetails, Integer> clientMetadataIds = Map.of();
+  private int submissions;
+
+  /**
+   * Creates a batch holding a single submission.
+   */
+  public static MetricsBatch of(PpaDataStorageRequest dataToStore) {
+    MetricsBatch batch = new MetricsBatch();
+    batch.add(dataToStore);
+    return batch;
+  }
+
+  /**
+   * Adds the metrics of a submission.
+   */
+  public void add(PpaDataStorageRequest dataToStore) {
+    dataToStore.getExposureRiskMetric().ifPresent(exposureRiskMetadata::add);
+    dataToStore.getExposureWindowsMetric().ifPresent(exposureWindows::addAll);
+    dataToStore.getTestResultMetric().ifPresent(testResultMetadata::add);
+    dataToStore.getKeySubmissionWithUserMetadata().ifPresent(keySubmissionsWithUserMetadata::add);
+    dataToStore.getKeySubmissionWithClientMetadata().ifPresent(keySubmissionsWithClientMetadata::add);
+    dataToStore.getUserMetadata().ifPresent(userMetadata::add);
+    dataToStore.getClientMetadata().ifPresent(clientMetadata::add);
+    submissions++;
+  }
+
+  /**
+   * Shuffles the rows of every table independently. Exposure windows keep their scan instances.
+   */
+  public void shuffle(Random random) {
+    Collections.shuffle(exposureRiskMetadata, random);
+    Collections.shuffle(exposureWindows, random);
+    Collections.shuffle(testResultMetadata, random);
+    Collections.shuffle(keySubmissionsWithUserMetadata, random);
+    Collections.shuffle(keySubmissionsWithClientMetadata, random);
+    Collections.shuffle(userMetadata, random);
+    Collections.shuffle(clientMetadata, random);
+  }
+
+  public int getSubmissions() {
+    return submissions;
+  }
+
+  public boolean isEmpty() {
+    return submissions == 0;
+  }
+
+  public List<ExposureRiskMetadata> getExposureRiskMetadata() {
+    return exposureRiskMetadata;
+  }
+
+  public List<ExposureWindow> getExposureWindows() {
+    return exposureWindows;
+  }
+
+  public List<TestResultMetadata> getTestResultMetadata() {
+    return testResultMetadata;
+  }
+
+  public List<KeySubmissionMetadataWithUserMetadata> getKeySubmissionsWithUserMetadata() {
+    return keySubmissionsWithUserMetadata;
+  }
+
+  public List<KeySubmissionMetadataWithClientMetadata> getKeySubmissionsWithClientMetadata() {
+    return keySubmissionsWithClientMetadata;
+  }
+
+  public List<UserMetadata> getUserMetadata() {
+    return userMetadata;
+  }
+
+  public List<ClientMetadata> getClientMetadata() {
+    return clientMetadata;
+  }
+
+  /**
+   * The dictionary ids of {@link #getClientMetadataDetails()}, resolved before the batch is written.
+   */
+  public Map<ClientMetadataDetails, Integer> getClientMetadataIds() {
+    return clientMetadataIds;
+  }
+
+  public void setClientMetadataIds(Map<ClientMetadataDetails, Integer> clientMetadataIds) {
+    this.clientMetadataIds = clientMetadataIds;
+  }
+
+  /**
+   * The distinct client metadata values referenced by the rows of this batch.
+   */
+  public Set<ClientMetadataDetails> getClientMetadataDetails() {
+    return Stream.of(exposureWindows.stream().map(ExposureWindow::getClientMetadata),
+        keySubmissionsWithClientMetadata.stream().map(KeySubmissionMetadataWithClientMetadata::getClientMetadata),
+        clientMetadata.stream().map(ClientMetadata::getClientMetadataDetails))
+        .flatMap(Function.identity())
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+  }
+}
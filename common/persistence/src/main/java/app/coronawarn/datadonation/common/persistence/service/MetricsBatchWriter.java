@@ -0,0 +1,28 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import app.coronawarn.datadonation.common.persistence.staging.DurableTableWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes a {@link MetricsBatch} in a single transaction, every table as one JDBC batch.
+ */
+@Component
+public class MetricsBatchWriter {
+
+  private final DurableTableWriter durableTableWriter;
+
+  public MetricsBatchWriter(DurableTableWriter durableTableWriter) {
+    this.durableTableWriter = durableTableWriter;
+  }
+
+  /**
+   * Stores all metrics of the batch, in the order of its lists. The ids of its client metadata must already be
+   * resolved, see {@link MetricsBatch#getClientMetadataIds()}.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 20)
+  public void write(MetricsBatch batch) {
+    durableTableWriter.insert(batch);
+  }
+}
@@ -5,6 +5,8 @@ import app.coronawarn.datadonation.common.persistence.repository.OneTimePassword
 import app.coronawarn.datadonation.common.utils.TimeUtils;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -38,7 +40,6 @@ public class OtpService {
     ZonedDateTime expirationTime = ZonedDateTime.now(ZoneOffset.UTC).plusHours(validityInHours);
     otp.setExpirationTimestamp(expirationTime.toEpochSecond());
 
-    otp.setPassword(otp.getPassword().toLowerCase());
     otpRepository.save(otp);
     return expirationTime;
   }
@@ -54,7 +55,6 @@ public class OtpService {
     OtpState state = getOtpStatus(otp);
     if (state.equals(OtpState.VALID)) {
       otp.setRedemptionTimestamp(TimeUtils.getEpochSecondsForNow());
-      otp.setPassword(otp.getPassword().toLowerCase());
       otpRepository.save(otp);
       return getOtpStatus(otp);
     }
@@ -67,10 +67,15 @@ public class OtpService {
    *
    * @param password The password/ID of the OTP.
    * @return The {@link OneTimePassword} from the repository (if present).
-   * @throws OtpNotFoundException if no OTP was found.
+   * @throws OtpNotFoundException if no OTP was found, which includes passwords that are not a UUID.
    */
   public OneTimePassword getOtp(String password) {
-    var otp = otpRepository.findById(password.toLowerCase());
+    Optional<OneTimePassword> otp;
+    try {
+      otp = otpRepository.findById(UUID.fromString(password));
+    } catch (IllegalArgumentException e) {
+      otp = Optional.empty();
+    }
     if (otp.isPresent()) {
       return otp.get();
     } else {
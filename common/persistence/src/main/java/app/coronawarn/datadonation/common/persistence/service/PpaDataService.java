@@ -2,19 +2,9 @@ package app.coronawarn.datadonation.common.persistence.service;
 
 import app.coronawarn.datadonation.common.persistence.domain.metrics.DataDonationMetric;
 import app.coronawarn.datadonation.common.persistence.errors.MetricsDataCouldNotBeStored;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureRiskMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureWindowRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithClientMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithUserMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.TestResultMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.UserMetadataRepository;
-import java.util.Collection;
-import java.util.stream.Collectors;
-import javax.validation.ConstraintViolation;
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import java.util.List;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Encapsulates logic regarding storing, retrieval and transactional manipulation of the PPA data model.
@@ -22,78 +12,48 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class PpaDataService {
 
-  private final ExposureRiskMetadataRepository exposureRiskMetadataRepo;
-  private final ExposureWindowRepository exposureWindowRepo;
-  private final TestResultMetadataRepository testResultRepo;
-  private final KeySubmissionMetadataWithUserMetadataRepository keySubmissionWithUserMetadataRepo;
-  private final KeySubmissionMetadataWithClientMetadataRepository keySubmissionWithClientMetadataRepo;
-  private final UserMetadataRepository userMetadataRepo;
-  private final ClientMetadataRepository clientMetadataRepo;
+  private final ShuffledIngestion ingestion;
 
   /**
    * Constructs the service bean.
    */
-  public PpaDataService(ExposureRiskMetadataRepository exposureRiskMetadataRepo,
-      ExposureWindowRepository exposureWindowRepo,
-      TestResultMetadataRepository testResultRepo,
-      KeySubmissionMetadataWithUserMetadataRepository keySubmissionWithUserMetadataRepo,
-      KeySubmissionMetadataWithClientMetadataRepository keySubmissionWithClientMetadataRepo, 
-      UserMetadataRepository userMetadataRepo, ClientMetadataRepository clientMetadataRepo) {
-    this.exposureRiskMetadataRepo = exposureRiskMetadataRepo;
-    this.exposureWindowRepo = exposureWindowRepo;
-    this.testResultRepo = testResultRepo;
-    this.keySubmissionWithUserMetadataRepo = keySubmissionWithUserMetadataRepo;
-    this.keySubmissionWithClientMetadataRepo = keySubmissionWithClientMetadataRepo;
-    this.userMetadataRepo = userMetadataRepo;
-    this.clientMetadataRepo = clientMetadataRepo;
+  public PpaDataService(ShuffledIngestion ingestion) {
+    this.ingestion = ingestion;
   }
 
   /**
-   * Store any metrics that have been provided via the storage request container object.
+   * Validates and stores any metrics that have been provided via the storage request container object. Depending on
+   * the {@link IngestionConfiguration} they are written with the metrics of other submissions in a shuffled batch.
+   * Either way the method only returns once they are stored.
+   *
+   * @throws StorageOverloaded if too many submissions are already waiting for the next batch.
    */
-  @Transactional(propagation = Propagation.REQUIRES_NEW, timeout = 20)
   public void store(PpaDataStorageRequest dataToStore) {
-    dataToStore.getExposureRiskMetric().ifPresent(metrics -> {
-      throwIfMetricsNotValid(metrics);
-      exposureRiskMetadataRepo.save(metrics);
-    });
-    dataToStore.getExposureWindowsMetric().ifPresent(metrics -> {
-      metrics.forEach(this::throwIfMetricsNotValid);
-      exposureWindowRepo.saveAll(metrics);
-    });
-    dataToStore.getTestResultMetric().ifPresent(metrics -> {
-      throwIfMetricsNotValid(metrics);
-      testResultRepo.save(metrics);
-    });
-    dataToStore.getKeySubmissionWithUserMetadata().ifPresent(metrics -> {
-      throwIfMetricsNotValid(metrics);
-      keySubmissionWithUserMetadataRepo.save(metrics);
-    });
-    dataToStore.getKeySubmissionWithClientMetadata().ifPresent(metrics -> {
-      throwIfMetricsNotValid(metrics);
-      keySubmissionWithClientMetadataRepo.save(metrics);
-    });
-    dataToStore.getUserMetadata().ifPresent(metrics -> {
-      userMetadataRepo.save(metrics);
-    });
-    dataToStore.getClientMetadata().ifPresent(metrics -> {
-      clientMetadataRepo.save(metrics);
-    });
+    validate(dataToStore);
+    ingestion.submit(dataToStore);
+  }
+
+  /**
+   * Checks the metrics of the storage request without storing them.
+   *
+   * @throws MetricsDataCouldNotBeStored if any metric is not valid.
+   */
+  public void validate(PpaDataStorageRequest dataToStore) {
+    dataToStore.getExposureRiskMetric().ifPresent(this::throwIfMetricsNotValid);
+    dataToStore.getExposureWindowsMetric().ifPresent(metrics -> metrics.forEach(this::throwIfMetricsNotValid));
+    dataToStore.getTestResultMetric().ifPresent(this::throwIfMetricsNotValid);
+    dataToStore.getKeySubmissionWithUserMetadata().ifPresent(this::throwIfMetricsNotValid);
+    dataToStore.getKeySubmissionWithClientMetadata().ifPresent(this::throwIfMetricsNotValid);
   }
 
   private void throwIfMetricsNotValid(DataDonationMetric metricData) {
-    Collection<ConstraintViolation<DataDonationMetric>> violations = metricData.validate();
+    List<String> violations = metricData.validate();
     boolean isValid = violations.isEmpty();
 
     if (!isValid) {
-      String violationMessages =
-          violations.stream().map(this::convertToMessage).collect(Collectors.joining(","));
+      String violationMessages = String.join(",", violations);
       throw new MetricsDataCouldNotBeStored(
           "Validation failed for diagnosis key from database. Violations: " + violationMessages);
     }
   }
-  
-  public String convertToMessage(ConstraintViolation<DataDonationMetric> v) {
-    return v.getPropertyPath().toString() + " " + v.getMessage();
-  }
 }
@@ -0,0 +1,94 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
+import app.coronawarn.datadonation.common.persistence.staging.StagingWriter;
+import java.security.SecureRandom;
+import java.util.Random;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the metrics of many submissions and writes them as one shuffled {@link MetricsBatch}. Rows of a single
+ * submission are no longer stored at adjacent ids across the metric tables, which would allow to correlate them
+ * although the schema deliberately inlines the technical metadata per row to prevent exactly that.
+ *
+ * <p>Submissions are buffered by an {@link IngestionBuffer}: a batch is written once it holds the configured number of
+ * submissions or the configured delay has passed, and every submitting request waits until its batch is committed.
+ * At most the configured number of submissions wait for the next batch; beyond that, submissions are rejected with
+ * {@link StorageOverloaded}. With staging enabled, batches go to the {@link StagingWriter} instead of the durable
+ * tables. Staging requires batching, since every staged batch is journaled and synced to disk on its own.
+ */
+@Component
+public class ShuffledIngestion implements InitializingBean, DisposableBean {
+
+  private final MetricsBatchWriter writer;
+  private final StagingWriter stagingWriter;
+  private final ClientMetadataDictionary clientMetadataDictionary;
+  private final IngestionConfiguration configuration;
+  private final Random random = new SecureRandom();
+  private final IngestionBuffer<MetricsBatch> buffer;
+
+  /**
+   * Creates the ingestion, which writes to the staging tables if staging is enabled.
+   */
+  public ShuffledIngestion(MetricsBatchWriter writer, StagingWriter stagingWriter,
+      IngestionConfiguration configuration, ClientMetadataDictionary clientMetadataDictionary) {
+    this.writer = writer;
+    this.stagingWriter = stagingWriter;
+    this.clientMetadataDictionary = clientMetadataDictionary;
+    this.configuration = configuration;
+    this.buffer = new IngestionBuffer<>("submissions", configuration::isEnabled, configuration, MetricsBatch::new,
+        MetricsBatch::getSubmissions, configuration::getMaxSubmissions, configuration::getMaxPendingSubmissions,
+        this::write);
+  }
+
+  /**
+   * Adds the metrics of a validated submission to the next batch and waits until that batch is stored.
+   *
+   * @throws StorageOverloaded if too many submissions are already waiting for the next batch.
+   * @throws RuntimeException  the error of the write, if the batch could not be stored.
+   */
+  public void submit(PpaDataStorageRequest dataToStore) {
+    buffer.submit(batch -> batch.add(dataToStore));
+  }
+
+  int getPendingSubmissions() {
+    return buffer.getPendingSize();
+  }
+
+  void flush() {
+    buffer.flush();
+  }
+
+  private void write(MetricsBatch batch) {
+    batch.shuffle(random);
+    // unknown client metadata is added to the dictionary before, not during the transaction writing the batch
+    batch.setClientMetadataIds(clientMetadataDictionary.idsOf(batch.getClientMetadataDetails()));
+    if (stagingWriter.isEnabled()) {
+      stagingWriter.stage(batch);
+    } else {
+      writer.write(batch);
+    }
+  }
+
+  /**
+   * Starts the periodic flush.
+   *
+   * @throws IllegalStateException if staging is enabled without batching.
+   */
+  @Override
+  public void afterPropertiesSet() {
+    if (stagingWriter.isEnabled() && !configuration.isEnabled()) {
+      throw new IllegalStateException("staging.enabled requires ingestion.enabled, staging single submissions "
+          + "would journal and sync each of them on its own");
+    }
+    buffer.start();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    buffer.close();
+  }
+}
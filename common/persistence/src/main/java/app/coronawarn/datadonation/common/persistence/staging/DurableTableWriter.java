@@ -0,0 +1,47 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import app.coronawarn.datadonation.common.persistence.repository.PooledIdAllocator;
+import app.coronawarn.datadonation.common.persistence.service.MetricsBatch;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserts metric batches straight into the durable tables, as the same {@link StagedBatch} rows that are otherwise
+ * staged. Every table is written as one JDBC batch. Exposure windows and scan instances get their ids from a
+ * {@link PooledIdAllocator}, all other rows from their column default, so no statement returns generated keys.
+ */
+@Component
+public class DurableTableWriter {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PooledIdAllocator exposureWindowIds;
+  private final PooledIdAllocator scanInstanceIds;
+
+  /**
+   * Creates the writer with id allocators for exposure windows and scan instances.
+   */
+  public DurableTableWriter(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.exposureWindowIds = new PooledIdAllocator(jdbcTemplate, "exposure_window_id_seq");
+    this.scanInstanceIds = new PooledIdAllocator(jdbcTemplate, "scan_instance_id_seq");
+  }
+
+  /**
+   * Inserts all metrics of the batch within the current transaction, keeping the order of its lists.
+   *
+   * @throws IllegalStateException if the id of some client metadata of the batch was not resolved beforehand, see
+   *                               {@link MetricsBatch#getClientMetadataIds()}.
+   */
+  public void insert(MetricsBatch batch) {
+    Map<ClientMetadataDetails, Integer> ids = batch.getClientMetadataIds();
+    StagedBatch.of(0, batch, exposureWindowIds, scanInstanceIds, clientMetadata -> {
+      Integer id = ids.get(clientMetadata);
+      if (id == null) {
+        throw new IllegalStateException("Client metadata of the batch was not resolved before it was written");
+      }
+      return id;
+    }).insert(jdbcTemplate, StagedTable::getInsert);
+  }
+}
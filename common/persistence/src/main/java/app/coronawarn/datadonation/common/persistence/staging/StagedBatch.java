@@ -0,0 +1,304 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ClientMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.UserMetadataDetails;
+import app.coronawarn.datadonation.common.persistence.repository.PooledIdAllocator;
+import app.coronawarn.datadonation.common.persistence.service.MetricsBatch;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The rows of a {@link MetricsBatch} as plain column values per {@link StagedTable}, which is what is inserted into
+ * the staging or the durable tables and what is written to the {@link StagingJournal}.
+ */
+final class StagedBatch {
+
+  private static final int MAGIC = 0x50504153;
+  private static final byte VERSION = 2;
+
+  private static final byte NULL = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte BOOLEAN = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte STRING = 5;
+  private static final byte DATE = 6;
+
+  private final long batchId;
+  private final Map<StagedTable, List<Object[]>> rows;
+
+  private StagedBatch(long batchId, Map<StagedTable, List<Object[]>> rows) {
+    this.batchId = batchId;
+    this.rows = rows;
+  }
+
+  /**
+   * Converts the batch, keeping the order of its rows. Exposure windows and scan instances get their ids here, so a
+   * replayed batch links them exactly as the original. Client metadata is replaced by its dictionary id.
+   *
+   * @param clientMetadataIds returns the dictionary id of the given client metadata.
+   */
+  static StagedBatch of(long batchId, MetricsBatch batch, PooledIdAllocator exposureWindowIds,
+      PooledIdAllocator scanInstanceIds, Function<ClientMetadataDetails, Integer> clientMetadataIds) {
+    Map<StagedTable, List<Object[]>> rows = new EnumMap<>(StagedTable.class);
+    batch.getExposureRiskMetadata().forEach(metric -> add(rows, StagedTable.EXPOSURE_RISK_METADATA, row(metric)));
+    addExposureWindows(rows, batch.getExposureWindows(), exposureWindowIds, scanInstanceIds,
+        clientMetadataIds);
+    batch.getTestResultMetadata().forEach(metric -> add(rows, StagedTable.TEST_RESULT_METADATA, row(metric)));
+    batch.getKeySubmissionsWithUserMetadata()
+        .forEach(metric -> add(rows, StagedTable.KEY_SUBMISSION_METADATA_WITH_USER_METADATA, row(metric)));
+    batch.getKeySubmissionsWithClientMetadata().forEach(metric -> add(rows,
+        StagedTable.KEY_SUBMISSION_METADATA_WITH_CLIENT_METADATA, row(metric, clientMetadataIds)));
+    batch.getUserMetadata().forEach(metric -> add(rows, StagedTable.USER_METADATA, row(metric)));
+    batch.getClientMetadata()
+        .forEach(metric -> add(rows, StagedTable.CLIENT_METADATA, row(metric, clientMetadataIds)));
+    return new StagedBatch(batchId, rows);
+  }
+
+  long getBatchId() {
+    return batchId;
+  }
+
+  Map<StagedTable, List<Object[]>> getRows() {
+    return Collections.unmodifiableMap(rows);
+  }
+
+  int getRowCount() {
+    return rows.values().stream().mapToInt(List::size).sum();
+  }
+
+  /**
+   * Inserts the rows of every table as one JDBC batch, within the current transaction if there is one.
+   *
+   * @param insert returns the insert statement of a table, binding the values of a row in order.
+   */
+  void insert(JdbcTemplate jdbcTemplate, Function<StagedTable, String> insert) {
+    rows.forEach((table, tableRows) -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(insert.apply(table))) {
+        for (Object[] row : tableRows) {
+          bind(statement, row);
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      }
+      return null;
+    }));
+  }
+
+  private static void bind(PreparedStatement statement, Object[] row) throws SQLException {
+    for (int i = 0; i < row.length; i++) {
+      Object value = row[i];
+      if (value == null) {
+        statement.setNull(i + 1, Types.NULL);
+      } else {
+        statement.setObject(i + 1, value);
+      }
+    }
+  }
+
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(batchId);
+    out.writeInt(rows.size());
+    for (Map.Entry<StagedTable, List<Object[]>> table : rows.entrySet()) {
+      out.writeUTF(table.getKey().name());
+      out.writeInt(table.getValue().size());
+      for (Object[] row : table.getValue()) {
+        out.writeShort(row.length);
+        for (Object value : row) {
+          writeValue(out, value);
+        }
+      }
+    }
+  }
+
+  static StagedBatch readFrom(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+      throw new IOException("Not a staged batch of a supported version");
+    }
+    long batchId = in.readLong();
+    int tables = in.readInt();
+    Map<StagedTable, List<Object[]>> rows = new EnumMap<>(StagedTable.class);
+    for (int t = 0; t < tables; t++) {
+      StagedTable table = StagedTable.valueOf(in.readUTF());
+      int rowCount = in.readInt();
+      List<Object[]> tableRows = new ArrayList<>(rowCount);
+      for (int r = 0; r < rowCount; r++) {
+        Object[] row = new Object[in.readShort()];
+        for (int c = 0; c < row.length; c++) {
+          row[c] = readValue(in);
+        }
+        tableRows.add(row);
+      }
+      rows.put(table, tableRows);
+    }
+    return new StagedBatch(batchId, rows);
+  }
+
+  private static void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      out.writeUTF((String) value);
+    } else if (value instanceof LocalDate) {
+      out.writeByte(DATE);
+      out.writeLong(((LocalDate) value).toEpochDay());
+    } else {
+      throw new IOException("Unsupported column value " + value.getClass());
+    }
+  }
+
+  private static Object readValue(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case INT:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case BOOLEAN:
+        return in.readBoolean();
+      case DOUBLE:
+        return in.readDouble();
+      case STRING:
+        return in.readUTF();
+      case DATE:
+        return LocalDate.ofEpochDay(in.readLong());
+      default:
+        throw new IOException("Unknown column value type " + type);
+    }
+  }
+
+  private static void add(Map<StagedTable, List<Object[]>> rows, StagedTable table, Object[] row) {
+    rows.computeIfAbsent(table, key -> new ArrayList<>()).add(row);
+  }
+
+  private static void addExposureWindows(Map<StagedTable, List<Object[]>> rows, List<ExposureWindow> windows,
+      PooledIdAllocator exposureWindowIds, PooledIdAllocator scanInstanceIds,
+      Function<ClientMetadataDetails, Integer> clientMetadataIds) {
+    if (windows.isEmpty()) {
+      return;
+    }
+    long[] windowIds = exposureWindowIds.allocate(windows.size());
+    long[] instanceIds = scanInstanceIds.allocate(windows.stream().mapToInt(w -> w.getScanInstances().size()).sum());
+    int instanceIndex = 0;
+    for (int w = 0; w < windows.size(); w++) {
+      ExposureWindow window = windows.get(w);
+      add(rows, StagedTable.EXPOSURE_WINDOW, values(windowIds[w], window.getDate(), window.getReportType(),
+          window.getInfectiousness(), window.getCallibrationConfidence(), window.getTransmissionRiskLevel(),
+          window.getNormalizedTime(), client(window.getClientMetadata(), clientMetadataIds),
+          technical(window.getTechnicalMetadata())));
+      ScanInstances scanInstances = window.getScanInstances();
+      for (int i = 0; i < scanInstances.size(); i++) {
+        add(rows, StagedTable.SCAN_INSTANCE, new Object[] {instanceIds[instanceIndex++], windowIds[w],
+            scanInstances.getTypicalAttenuation(i), scanInstances.getMinimumAttenuation(i),
+            scanInstances.getSecondsSinceLastScan(i)});
+      }
+    }
+  }
+
+  private static Object[] row(ExposureRiskMetadata metric) {
+    return values(metric.getRiskLevel(), metric.getRiskLevelChanged(), metric.getMostRecentDateAtRiskLevel(),
+        metric.getMostRecentDateChanged(), user(metric.getUserMetadata()), technical(metric.getTechnicalMetadata()));
+  }
+
+  private static Object[] row(TestResultMetadata metric) {
+    return values(metric.getTestResult(), metric.getHoursSinceTestRegistration(),
+        metric.getRiskLevelAtTestRegistration(), metric.getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration(),
+        metric.getHoursSinceHighRiskWarningAtTestRegistration(), user(metric.getUserMetadata()),
+        technical(metric.getTechnicalMetadata()));
+  }
+
+  private static Object[] row(KeySubmissionMetadataWithUserMetadata metric) {
+    return values(metric.getSubmitted(), metric.getSubmittedAfterSymptomFlow(), metric.getSubmittedWithTeletan(),
+        metric.getHoursSinceReceptionOfTestResult(), metric.getHoursSinceTestRegistration(),
+        metric.getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration(),
+        metric.getHoursSinceHighRiskWarningAtTestRegistration(), user(metric.getUserMetadata()),
+        technical(metric.getTechnicalMetadata()));
+  }
+
+  private static Object[] row(KeySubmissionMetadataWithClientMetadata metric,
+      Function<ClientMetadataDetails, Integer> clientMetadataIds) {
+    return values(metric.getSubmitted(), metric.getSubmittedInBackground(), metric.getSubmittedAfterCancel(),
+        metric.getSubmittedAfterSymptomFlow(), metric.getAdvancedConsentGiven(),
+        metric.getLastSubmissionFlowScreen(), client(metric.getClientMetadata(), clientMetadataIds),
+        technical(metric.getTechnicalMetadata()));
+  }
+
+  private static Object[] row(UserMetadata metric) {
+    return values(user(metric.getUserMetadataDetails()), technical(metric.getTechnicalMetadata()));
+  }
+
+  private static Object[] row(ClientMetadata metric, Function<ClientMetadataDetails, Integer> clientMetadataIds) {
+    return values(client(metric.getClientMetadataDetails(), clientMetadataIds),
+        technical(metric.getTechnicalMetadata()));
+  }
+
+  private static Object[] user(UserMetadataDetails user) {
+    return user == null ? new Object[3]
+        : new Object[] {user.getFederalState(), user.getAdministrativeUnit(), user.getAgeGroup()};
+  }
+
+  private static Integer client(ClientMetadataDetails client, Function<ClientMetadataDetails, Integer> clientMetadataIds) {
+    return client == null ? null : clientMetadataIds.apply(client);
+  }
+
+  private static Object[] technical(TechnicalMetadata technical) {
+    return technical == null ? new Object[5]
+        : new Object[] {technical.getSubmittedAt(), technical.getAndroidPpacBasicIntegrity(),
+            technical.getAndroidPpacCtsProfileMatch(), technical.getAndroidPpacEvaluationTypeBasic(),
+            technical.getAndroidPpacEvaluationTypeHardwareBacked()};
+  }
+
+  /**
+   * Flattens the given values, expanding the column groups of embedded metadata.
+   */
+  private static Object[] values(Object... values) {
+    List<Object> flat = new ArrayList<>();
+    for (Object value : values) {
+      if (value instanceof Object[]) {
+        Collections.addAll(flat, (Object[]) value);
+      } else {
+        flat.add(value);
+      }
+    }
+    return flat.toArray();
+  }
+}
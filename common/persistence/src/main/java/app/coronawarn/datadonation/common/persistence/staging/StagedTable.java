@@ -0,0 +1,109 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The metric tables with an UNLOGGED <code>staging_</code> twin and the columns copied between both. The id is part of
+ * every staging row: tables with {@link #hasExplicitId()} get it from a {@link
+ * app.coronawarn.datadonation.common.persistence.repository.PooledIdAllocator}, the others from the column default,
+ * which shares the sequence of the durable table.
+ */
+enum StagedTable {
+
+  EXPOSURE_RISK_METADATA("exposure_risk_metadata", false, List.of("risk_level", "risk_level_changed",
+      "most_recent_date_at_risk_level", "most_recent_date_changed"), Columns.USER, Columns.TECHNICAL),
+  EXPOSURE_WINDOW("exposure_window", true, List.of("date", "report_type", "infectiousness",
+      "callibration_confidence", "transmission_risk_level", "normalized_time"), Columns.CLIENT, Columns.TECHNICAL),
+  SCAN_INSTANCE("scan_instance", true, List.of("exposure_window_id", "typical_attenuation", "minimum_attenuation",
+      "seconds_since_last_scan")),
+  TEST_RESULT_METADATA("test_result_metadata", false, List.of("test_result", "hours_since_test_registration",
+      "risk_level_at_test_registration", "days_since_most_recent_date_at_risk_level_at_test_registration",
+      "hours_since_high_risk_warning_at_test_registration"), Columns.USER, Columns.TECHNICAL),
+  KEY_SUBMISSION_METADATA_WITH_USER_METADATA("key_submission_metadata_with_user_metadata", false, List.of(
+      "submitted", "submitted_after_symptom_flow", "submitted_with_teletan", "hours_since_reception_of_test_result",
+      "hours_since_test_registration", "days_since_most_recent_date_at_risk_level_at_test_registration",
+      "hours_since_high_risk_warning_at_test_registration"), Columns.USER, Columns.TECHNICAL),
+  KEY_SUBMISSION_METADATA_WITH_CLIENT_METADATA("key_submission_metadata_with_client_metadata", false, List.of(
+      "submitted", "submitted_in_background", "submitted_after_cancel", "submitted_after_symptom_flow",
+      "advanced_consent_given", "last_submission_flow_screen"), Columns.CLIENT, Columns.TECHNICAL),
+  USER_METADATA("user_metadata", false, Columns.USER, Columns.TECHNICAL),
+  CLIENT_METADATA("client_metadata", false, Columns.CLIENT, Columns.TECHNICAL);
+
+  private final String tableName;
+  private final boolean explicitId;
+  private final List<String> columns;
+
+  @SafeVarargs
+  StagedTable(String tableName, boolean explicitId, List<String>... columnGroups) {
+    this.tableName = tableName;
+    this.explicitId = explicitId;
+    List<String> allColumns = new ArrayList<>();
+    Stream.of(columnGroups).forEach(allColumns::addAll);
+    this.columns = Collections.unmodifiableList(allColumns);
+  }
+
+  String getTableName() {
+    return tableName;
+  }
+
+  String getStagingTableName() {
+    return "staging_" + tableName;
+  }
+
+  boolean hasExplicitId() {
+    return explicitId;
+  }
+
+  /**
+   * The columns of a staged row, in the order of its values.
+   */
+  List<String> getInsertColumns() {
+    if (!explicitId) {
+      return columns;
+    }
+    List<String> insertColumns = new ArrayList<>(columns.size() + 1);
+    insertColumns.add("id");
+    insertColumns.addAll(columns);
+    return insertColumns;
+  }
+
+  String getStagingInsert() {
+    return insertInto(getStagingTableName());
+  }
+
+  /**
+   * Inserts a staged row straight into the durable table.
+   */
+  String getInsert() {
+    return insertInto(tableName);
+  }
+
+  private String insertInto(String table) {
+    List<String> insertColumns = getInsertColumns();
+    return "INSERT INTO " + table + " (" + String.join(", ", insertColumns) + ") VALUES ("
+        + insertColumns.stream().map(column -> "?").collect(joining(", ")) + ")";
+  }
+
+  /**
+   * Moves all committed staging rows into the durable table with a single set-based statement.
+   */
+  String getMerge() {
+    String allColumns = "id, " + String.join(", ", columns);
+    return "WITH moved AS (DELETE FROM " + getStagingTableName() + " RETURNING " + allColumns + ") "
+        + "INSERT INTO " + tableName + " (" + allColumns + ") SELECT " + allColumns + " FROM moved";
+  }
+
+  private static final class Columns {
+
+    private static final List<String> USER = List.of("federal_state", "administrative_unit", "age_group");
+    private static final List<String> CLIENT = List.of("client_metadata_id");
+    private static final List<String> TECHNICAL = List.of("submitted_at", "android_ppac_basic_integrity",
+        "android_ppac_cts_profile_match", "android_ppac_evaluation_type_basic",
+        "android_ppac_evaluation_type_hardware_backed");
+  }
+}
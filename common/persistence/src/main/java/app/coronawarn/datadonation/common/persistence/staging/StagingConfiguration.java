@@ -0,0 +1,37 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "staging")
+public class StagingConfiguration {
+
+  private boolean enabled;
+  private long mergeIntervalMillis = 10000;
+  private String journalDirectory = "staging-journal";
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getMergeIntervalMillis() {
+    return mergeIntervalMillis;
+  }
+
+  public void setMergeIntervalMillis(long mergeIntervalMillis) {
+    this.mergeIntervalMillis = mergeIntervalMillis;
+  }
+
+  public String getJournalDirectory() {
+    return journalDirectory;
+  }
+
+  public void setJournalDirectory(String journalDirectory) {
+    this.journalDirectory = journalDirectory;
+  }
+}
@@ -0,0 +1,117 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durable local copy of every staged batch of this instance, one file per batch. A batch file is written and synced
+ * before its rows are inserted into the staging tables and only deleted once the batch was merged into the durable
+ * tables, so the rows can be staged again when Postgres drops the UNLOGGED tables after a crash.
+ */
+class StagingJournal {
+
+  private static final String SUFFIX = ".batch";
+  private static final String QUARANTINE_SUFFIX = ".corrupt";
+
+  private final Path directory;
+  private final String instanceId;
+
+  StagingJournal(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.instanceId = readOrCreateInstanceId();
+  }
+
+  /**
+   * Identifies the staged batches of this journal across restarts.
+   */
+  String getInstanceId() {
+    return instanceId;
+  }
+
+  void write(StagedBatch batch) throws IOException {
+    Path temporary = directory.resolve(batch.getBatchId() + SUFFIX + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      batch.writeTo(out);
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, file(batch.getBatchId()), StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+  }
+
+  StagedBatch read(long batchId) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(batchId))))) {
+      return StagedBatch.readFrom(in);
+    }
+  }
+
+  /**
+   * Lists the ids of all journaled batches in ascending order.
+   */
+  List<Long> list() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString())
+          .filter(name -> name.endsWith(SUFFIX))
+          .map(name -> Long.valueOf(name.substring(0, name.length() - SUFFIX.length())))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  void delete(long batchId) throws IOException {
+    Files.deleteIfExists(file(batchId));
+  }
+
+  /**
+   * Moves an unreadable batch aside, so it is no longer listed but kept for inspection.
+   */
+  void quarantine(long batchId) throws IOException {
+    Files.move(file(batchId), directory.resolve(batchId + SUFFIX + QUARANTINE_SUFFIX),
+        StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+  }
+
+  private Path file(long batchId) {
+    return directory.resolve(batchId + SUFFIX);
+  }
+
+  private String readOrCreateInstanceId() throws IOException {
+    Path file = directory.resolve("instance-id");
+    if (Files.exists(file)) {
+      return Files.readString(file, StandardCharsets.US_ASCII).trim();
+    }
+    String id = UUID.randomUUID().toString();
+    Path temporary = directory.resolve("instance-id.tmp");
+    Files.writeString(temporary, id, StandardCharsets.US_ASCII, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+    return id;
+  }
+
+  /**
+   * Makes renames and deletions in the journal directory durable. Without it, a batch file could vanish after a crash
+   * although its write was reported as durable, so a failure is propagated like any other write error.
+   */
+  private void syncDirectory() throws IOException {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Periodically moves all staged rows into the durable metric tables, one set-based <code>INSERT ... SELECT</code>
+ * per table, in a single transaction. Every replica with staging enabled runs a merger; an advisory lock makes sure
+ * only one of them merges at a time. Afterwards each replica reconciles its own {@link StagingJournal}.
+ *
+ * <p>Exports <code>staging.merge.lag</code> (age of the oldest batch at the last merge, in seconds),
+ * <code>staging.merge.duration</code>, <code>staging.merged.rows</code> and <code>staging.journal.batches</code>.
+ */
+@Component
+public class StagingMerger implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(StagingMerger.class);
+
+  private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('staging_merge'))";
+  private static final String LOCK_BATCHES = "LOCK TABLE staging_batch IN EXCLUSIVE MODE";
+  private static final String SELECT_LAG =
+      "SELECT COALESCE(EXTRACT(EPOCH FROM now() - min(staged_at)), 0) FROM staging_batch";
+  private static final String MARK_MERGED = "WITH merged AS (DELETE FROM staging_batch RETURNING instance_id, "
+      + "batch_id) INSERT INTO staging_merged (instance_id, batch_id) SELECT instance_id, batch_id FROM merged";
+
+  private final StagingConfiguration configuration;
+  private final StagingWriter stagingWriter;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+  private final AtomicLong lagSeconds = new AtomicLong();
+
+  private Counter mergedRows;
+  private Timer mergeDuration;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates the merger, which is only scheduled if staging is enabled.
+   */
+  public StagingMerger(StagingConfiguration configuration, StagingWriter stagingWriter, JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.configuration = configuration;
+    this.stagingWriter = stagingWriter;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Merges all staged batches, unless another replica is merging right now.
+   *
+   * @return the number of merged rows, or -1 if another replica holds the merge lock.
+   */
+  long merge() {
+    Long rows = transactionTemplate.execute(status -> {
+      if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class))) {
+        return -1L;
+      }
+      // waits for staging transactions in flight and keeps new ones out until the merge commits
+      jdbcTemplate.execute(LOCK_BATCHES);
+      Double lag = jdbcTemplate.queryForObject(SELECT_LAG, Double.class);
+      lagSeconds.set(lag == null ? 0 : lag.longValue());
+      long moved = 0;
+      for (StagedTable table : StagedTable.values()) {
+        moved += jdbcTemplate.update(table.getMerge());
+      }
+      jdbcTemplate.update(MARK_MERGED);
+      return moved;
+    });
+    return rows == null ? 0 : rows;
+  }
+
+  private void mergeAndReconcile() {
+    try {
+      long started = System.nanoTime();
+      long rows = merge();
+      if (rows >= 0) {
+        mergeDuration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        mergedRows.increment(rows);
+      }
+      stagingWriter.reconcile();
+    } catch (RuntimeException e) {
+      logger.error("Failed to merge the staging tables.", e);
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    Gauge.builder("staging.merge.lag", lagSeconds, AtomicLong::get).baseUnit("seconds").register(registry);
+    Gauge.builder("staging.journal.batches", stagingWriter, StagingWriter::getJournaledBatches).register(registry);
+    mergedRows = Counter.builder("staging.merged.rows").register(registry);
+    mergeDuration = Timer.builder("staging.merge.duration").register(registry);
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "staging-merger");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::mergeAndReconcile, 0, configuration.getMergeIntervalMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    if (scheduler != null) {
+      scheduler.shutdown();
+      scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    }
+  }
+}
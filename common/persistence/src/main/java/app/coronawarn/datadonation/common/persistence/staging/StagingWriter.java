@@ -0,0 +1,176 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import app.coronawarn.datadonation.common.persistence.repository.PooledIdAllocator;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
+import app.coronawarn.datadonation.common.persistence.service.MetricsBatch;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes metric batches into the UNLOGGED staging tables, from where the {@link StagingMerger} moves them into the
+ * durable tables. Every batch is journaled locally before it is staged and registered in <code>staging_batch</code>
+ * within the same transaction as its rows. The merge moves the registration into the logged
+ * <code>staging_merged</code> table, so {@link #reconcile()} can tell for every journaled batch whether it is merged,
+ * still staged, or was lost with the staging tables and has to be staged again.
+ */
+@Component
+public class StagingWriter implements InitializingBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(StagingWriter.class);
+
+  private static final String REGISTER_BATCH = "INSERT INTO staging_batch (instance_id, batch_id) VALUES (?, ?)";
+  private static final String SELECT_BATCH_STATES = "SELECT batch_id, true FROM staging_merged WHERE instance_id = ? "
+      + "UNION ALL SELECT batch_id, false FROM staging_batch WHERE instance_id = ?";
+  private static final String DELETE_MERGED = "DELETE FROM staging_merged WHERE instance_id = ? AND batch_id = ?";
+  private static final String DELETE_ALL_MERGED = "DELETE FROM staging_merged WHERE instance_id = ?";
+
+  private final StagingConfiguration configuration;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final PooledIdAllocator exposureWindowIds;
+  private final PooledIdAllocator scanInstanceIds;
+  private final ClientMetadataDictionary clientMetadataDictionary;
+  private final AtomicInteger journaledBatches = new AtomicInteger();
+
+  private StagingJournal journal;
+  private AtomicLong nextBatchId;
+
+  /**
+   * Creates the writer, the journal is opened on startup if staging is enabled.
+   */
+  public StagingWriter(StagingConfiguration configuration, JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, ClientMetadataDictionary clientMetadataDictionary) {
+    this.configuration = configuration;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.exposureWindowIds = new PooledIdAllocator(jdbcTemplate, "exposure_window_id_seq");
+    this.scanInstanceIds = new PooledIdAllocator(jdbcTemplate, "scan_instance_id_seq");
+    this.clientMetadataDictionary = clientMetadataDictionary;
+  }
+
+  public boolean isEnabled() {
+    return configuration.isEnabled();
+  }
+
+  /**
+   * The number of batches in the local journal, i.e. not yet known to be merged.
+   */
+  int getJournaledBatches() {
+    return journaledBatches.get();
+  }
+
+  /**
+   * Journals and stages the given batch. Once journaled, a batch is not lost anymore: if staging fails, it is staged
+   * again by the next {@link #reconcile()}.
+   *
+   * @throws UncheckedIOException if the batch could not be journaled.
+   */
+  public synchronized void stage(MetricsBatch batch) {
+    StagedBatch stagedBatch = StagedBatch.of(nextBatchId.getAndIncrement(), batch, exposureWindowIds,
+        scanInstanceIds, clientMetadataDictionary::idOf);
+    try {
+      journal.write(stagedBatch);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to journal staged batch " + stagedBatch.getBatchId(), e);
+    }
+    journaledBatches.incrementAndGet();
+    try {
+      insert(stagedBatch);
+    } catch (DataAccessException e) {
+      logger.warn("Failed to stage batch {}, it is staged again from the journal.", stagedBatch.getBatchId(), e);
+    }
+  }
+
+  /**
+   * Deletes the journaled batches that were merged and stages those again that got lost. Batches are reconciled one
+   * by one: a batch that fails is retried by the next reconciliation, a batch that can not be read from the journal
+   * is quarantined, and neither keeps the remaining batches from being reconciled.
+   */
+  synchronized void reconcile() {
+    List<Long> journaled;
+    try {
+      journaled = journal.list();
+    } catch (IOException e) {
+      logger.error("Failed to read the staging journal.", e);
+      return;
+    }
+    journaledBatches.set(journaled.size());
+    if (journaled.isEmpty()) {
+      jdbcTemplate.update(DELETE_ALL_MERGED, journal.getInstanceId());
+      return;
+    }
+    Map<Long, Boolean> states = jdbcTemplate.query(SELECT_BATCH_STATES,
+        (ResultSetExtractor<Map<Long, Boolean>>) resultSet -> {
+          Map<Long, Boolean> result = new HashMap<>();
+          while (resultSet.next()) {
+            result.put(resultSet.getLong(1), resultSet.getBoolean(2));
+          }
+          return result;
+        }, journal.getInstanceId(), journal.getInstanceId());
+    for (long batchId : journaled) {
+      Boolean merged = states.get(batchId);
+      try {
+        if (merged == null) {
+          logger.warn("Staged batch {} is missing from the staging tables, staging it again.", batchId);
+          restage(batchId);
+        } else if (merged) {
+          journal.delete(batchId);
+          jdbcTemplate.update(DELETE_MERGED, journal.getInstanceId(), batchId);
+          journaledBatches.decrementAndGet();
+        }
+      } catch (IOException | DataAccessException e) {
+        logger.error("Failed to reconcile staged batch {}, it is retried by the next reconciliation.", batchId, e);
+      }
+    }
+  }
+
+  private void restage(long batchId) throws IOException {
+    StagedBatch batch;
+    try {
+      batch = journal.read(batchId);
+    } catch (IOException | RuntimeException e) {
+      logger.error("Staged batch {} can not be read from the journal, it is quarantined.", batchId, e);
+      journal.quarantine(batchId);
+      journaledBatches.decrementAndGet();
+      return;
+    }
+    insert(batch);
+  }
+
+  private void insert(StagedBatch batch) {
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.update(REGISTER_BATCH, journal.getInstanceId(), batch.getBatchId());
+      batch.insert(jdbcTemplate, StagedTable::getStagingInsert);
+    });
+  }
+
+  @Override
+  public void afterPropertiesSet() throws IOException {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    journal = new StagingJournal(Path.of(configuration.getJournalDirectory()));
+    List<Long> journaled = journal.list();
+    long lastBatchId = journaled.isEmpty() ? 0 : journaled.get(journaled.size() - 1);
+    nextBatchId = new AtomicLong(Math.max(lastBatchId + 1, System.currentTimeMillis()));
+    journaledBatches.set(journaled.size());
+    logger.info("Staging enabled, journal {} holds {} batches.", journal.getInstanceId(), journaled.size());
+  }
+}
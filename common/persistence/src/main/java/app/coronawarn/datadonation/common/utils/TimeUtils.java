@@ -93,6 +93,24 @@ public class TimeUtils {
     return Instant.now().atOffset(ZoneOffset.UTC).toLocalDate();
   }
 
+  /**
+   * Calculates the epoch seconds of the start of the current day in UTC.
+   *
+   * @return the epoch seconds of today at midnight in UTC.
+   */
+  public static long getStartOfDayForNow() {
+    return getLocalDateForNow().atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+  }
+
+  /**
+   * Calculates the epoch seconds of the start of the current month in UTC.
+   *
+   * @return the epoch seconds of the first day of the current month at midnight in UTC.
+   */
+  public static long getStartOfMonthForNow() {
+    return getLocalDateForNow().withDayOfMonth(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+  }
+
   /**
    * Calculates the epcoch milli seconds in UTC (important for Apple's DeviceCheck).
    *
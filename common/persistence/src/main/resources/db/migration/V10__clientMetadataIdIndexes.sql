@@ -0,0 +1,17 @@
+-- The retention deletes unreferenced client_metadata_dim entries (see ClientMetadataDictionary), which probes each
+-- metric table for a reference and makes the foreign keys check every deleted entry. Without an index both scan the
+-- largest tables on every run. The staging tables only hold the rows of one merge interval and need none.
+--
+-- A plain CREATE INDEX would block every ingest insert for the whole build (see V7), so the indexes are built
+-- CONCURRENTLY. Flyway runs a migration consisting only of such statements outside of a transaction. A build that
+-- fails leaves an INVALID index behind, which is dropped first when the migration is repeated.
+
+DROP INDEX CONCURRENTLY IF EXISTS exposure_window_client_metadata_id_idx;
+CREATE INDEX CONCURRENTLY exposure_window_client_metadata_id_idx ON exposure_window (client_metadata_id);
+
+DROP INDEX CONCURRENTLY IF EXISTS key_submission_metadata_client_metadata_id_idx;
+CREATE INDEX CONCURRENTLY key_submission_metadata_client_metadata_id_idx
+    ON key_submission_metadata_with_client_metadata (client_metadata_id);
+
+DROP INDEX CONCURRENTLY IF EXISTS client_metadata_client_metadata_id_idx;
+CREATE INDEX CONCURRENTLY client_metadata_client_metadata_id_idx ON client_metadata (client_metadata_id);
@@ -0,0 +1,7 @@
+-- Exposure windows and scan instances are inserted in JDBC batches with ids reserved in blocks by the
+-- PooledIdAllocator. A nextval returning lo reserves the block of INCREMENT ids starting at lo, up to
+-- lo + INCREMENT - 1. Rows inserted with the column default only take the returned value itself, the first id of a
+-- block no one else uses, and can not collide with a reserved block.
+
+ALTER SEQUENCE exposure_window_id_seq INCREMENT BY 100;
+ALTER SEQUENCE scan_instance_id_seq INCREMENT BY 1000;
@@ -0,0 +1,30 @@
+-- UNLOGGED staging twins of the metric tables, filled when staging is enabled and periodically merged into the
+-- durable tables. Postgres truncates them after a crash, lost batches are staged again from the local journals.
+-- The column defaults, including the id sequences, are shared with the durable tables. Columns added to a metric
+-- table must be added to its staging twin as well.
+
+CREATE UNLOGGED TABLE staging_exposure_risk_metadata (LIKE exposure_risk_metadata INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_exposure_window (LIKE exposure_window INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_scan_instance (LIKE scan_instance INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_test_result_metadata (LIKE test_result_metadata INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_key_submission_metadata_with_user_metadata
+    (LIKE key_submission_metadata_with_user_metadata INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_key_submission_metadata_with_client_metadata
+    (LIKE key_submission_metadata_with_client_metadata INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_user_metadata (LIKE user_metadata INCLUDING DEFAULTS);
+CREATE UNLOGGED TABLE staging_client_metadata (LIKE client_metadata INCLUDING DEFAULTS);
+
+-- Batches currently staged, registered in the same transaction as their rows.
+CREATE UNLOGGED TABLE staging_batch (
+    instance_id VARCHAR(36) NOT NULL,
+    batch_id BIGINT NOT NULL,
+    staged_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (instance_id, batch_id)
+);
+
+-- Batches moved into the durable tables, until their instance deleted them from its journal.
+CREATE TABLE staging_merged (
+    instance_id VARCHAR(36) NOT NULL,
+    batch_id BIGINT NOT NULL,
+    PRIMARY KEY (instance_id, batch_id)
+);
@@ -0,0 +1,7 @@
+-- The retention service deletes scan instances in batches by the submission date of their exposure window and sweeps
+-- orphaned scan instances whose window is gone. Both joins, as well as the date based deletes, need an index to keep
+-- the runtime proportional to the number of deleted rows instead of the table size.
+
+CREATE INDEX IF NOT EXISTS scan_instance_exposure_window_id_idx ON scan_instance (exposure_window_id);
+CREATE INDEX IF NOT EXISTS exposure_window_submitted_at_idx ON exposure_window (submitted_at);
+CREATE INDEX IF NOT EXISTS user_metadata_submitted_at_idx ON user_metadata (submitted_at);
@@ -0,0 +1,46 @@
+-- Salts and device tokens only protect against replays for a fixed number of hours. Instead of deleting rows, both
+-- tables become rings of 72 hourly partitions: a row lands in the bucket of the hour it is inserted in, and the
+-- retention service truncates the buckets holding only expired rows (see ReplayProtectionRing). Unique constraints of a
+-- partitioned table must contain the partition key, so uniqueness across buckets is checked by the inserts.
+
+CREATE FUNCTION replay_ring_bucket(at TIMESTAMP WITH TIME ZONE) RETURNS SMALLINT AS $$
+  SELECT (floor(extract(EPOCH FROM at) / 3600)::BIGINT % 72)::SMALLINT
+$$ LANGUAGE SQL IMMUTABLE;
+
+ALTER TABLE device_token RENAME TO device_token_old;
+ALTER SEQUENCE device_token_id_seq OWNED BY NONE;
+
+CREATE TABLE device_token (
+  id INTEGER NOT NULL DEFAULT nextval('device_token_id_seq'),
+  device_token_hash BYTEA NOT NULL,
+  created_at BIGINT NOT NULL,
+  bucket SMALLINT NOT NULL DEFAULT replay_ring_bucket(now()),
+  PRIMARY KEY (id, bucket),
+  UNIQUE (device_token_hash, bucket)
+) PARTITION BY LIST (bucket);
+
+ALTER SEQUENCE device_token_id_seq OWNED BY device_token.id;
+
+ALTER TABLE salt RENAME TO salt_old;
+
+CREATE TABLE salt (
+    salt VARCHAR(32) NOT NULL,
+    created_at BIGINT NOT NULL,
+    bucket SMALLINT NOT NULL DEFAULT replay_ring_bucket(now()),
+    PRIMARY KEY (salt, bucket)
+) PARTITION BY LIST (bucket);
+
+DO $$
+BEGIN
+  FOR b IN 0..71 LOOP
+    EXECUTE format('CREATE TABLE device_token_%s PARTITION OF device_token FOR VALUES IN (%s)', lpad(b::TEXT, 2, '0'), b);
+    EXECUTE format('CREATE TABLE salt_%s PARTITION OF salt FOR VALUES IN (%s)', lpad(b::TEXT, 2, '0'), b);
+  END LOOP;
+END $$;
+
+-- existing rows start over in the current bucket, which at most prolongs their replay protection
+INSERT INTO device_token (id, device_token_hash, created_at) SELECT id, device_token_hash, created_at FROM device_token_old;
+INSERT INTO salt (salt, created_at) SELECT salt, created_at FROM salt_old;
+
+DROP TABLE device_token_old;
+DROP TABLE salt_old;
@@ -0,0 +1,21 @@
+-- Stores the keys of the replay protection and token tables in their native form. UUIDs take 16 bytes instead of 37
+-- and compare independent of case, the device token hash becomes the key of its table instead of a SERIAL id with a
+-- second unique index. Keys which are no valid UUID could never be sent by a client, they are removed.
+
+DELETE FROM one_time_password WHERE password !~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$';
+ALTER TABLE one_time_password ALTER COLUMN password TYPE UUID USING password::UUID;
+
+DELETE FROM api_token WHERE api_token !~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$';
+ALTER TABLE api_token ALTER COLUMN api_token TYPE UUID USING api_token::UUID;
+
+-- dropping the id also drops the primary key (id, bucket) and the id sequence
+ALTER TABLE device_token DROP COLUMN id;
+DO $$
+DECLARE
+  unique_hash NAME;
+BEGIN
+  SELECT conname INTO unique_hash FROM pg_constraint
+    WHERE conrelid = 'device_token'::REGCLASS AND contype = 'u';
+  EXECUTE format('ALTER TABLE device_token DROP CONSTRAINT %I', unique_hash);
+END $$;
+ALTER TABLE device_token ADD PRIMARY KEY (device_token_hash, bucket);
@@ -0,0 +1,72 @@
+-- The client metadata of the metric tables only takes a few hundred distinct values. Each value is stored once in the
+-- client_metadata_dim dictionary and referenced by its id (see ClientMetadataDictionary). last_used_at is refreshed
+-- whenever an instance (re)caches the value, so the retention only deletes entries no cache can still hand out.
+
+CREATE TABLE client_metadata_dim (
+    id SERIAL PRIMARY KEY,
+    cwa_version_major INTEGER NOT NULL,
+    cwa_version_minor INTEGER NOT NULL,
+    cwa_version_patch INTEGER NOT NULL,
+    app_config_etag VARCHAR(100) NOT NULL,
+    ios_version_major INTEGER,
+    ios_version_minor INTEGER,
+    ios_version_patch INTEGER,
+    android_api_level INTEGER,
+    android_enf_version INTEGER,
+    last_used_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- A unique constraint treats NULLs as distinct, so the platform specific columns are indexed with a placeholder.
+CREATE UNIQUE INDEX client_metadata_dim_values ON client_metadata_dim (cwa_version_major, cwa_version_minor,
+    cwa_version_patch, app_config_etag, coalesce(ios_version_major, -1), coalesce(ios_version_minor, -1),
+    coalesce(ios_version_patch, -1), coalesce(android_api_level, -1), coalesce(android_enf_version, -1));
+
+-- The durable tables may be large, and the whole migration runs in one transaction which would hold the ACCESS
+-- EXCLUSIVE lock of the first ALTER TABLE until it commits. They therefore only get the new column and constraints
+-- that are NOT VALID, i.e. enforced for new rows without scanning the existing ones, all of which only take their
+-- locks briefly. Existing rows keep their inline values, now nullable, until the retention service gives them their
+-- id and clears the inline values in small batches (services.retention.backfill-client-metadata). New rows only store
+-- the id, so the inline columns are NULL in every row once the backfill is complete and take no space but their bit
+-- in the null bitmap. Validating the constraints and dropping the columns is left to a migration that is only
+-- released after the backfill has completed in every environment.
+DO $$
+DECLARE
+  t TEXT;
+BEGIN
+  FOREACH t IN ARRAY ARRAY['exposure_window', 'key_submission_metadata_with_client_metadata', 'client_metadata'] LOOP
+    EXECUTE format('ALTER TABLE %I ADD COLUMN client_metadata_id INTEGER, '
+        'ALTER COLUMN cwa_version_major DROP NOT NULL, ALTER COLUMN cwa_version_minor DROP NOT NULL, '
+        'ALTER COLUMN cwa_version_patch DROP NOT NULL, ALTER COLUMN app_config_etag DROP NOT NULL, '
+        'ADD CONSTRAINT %I CHECK (client_metadata_id IS NOT NULL) NOT VALID, '
+        'ADD CONSTRAINT %I FOREIGN KEY (client_metadata_id) REFERENCES client_metadata_dim (id) NOT VALID',
+        t, t || '_client_metadata_id_not_null', t || '_client_metadata_id_fkey');
+  END LOOP;
+END $$;
+
+-- The UNLOGGED staging tables only hold the batches of the last merge interval and are converted right away.
+DO $$
+DECLARE
+  t TEXT;
+BEGIN
+  FOREACH t IN ARRAY ARRAY['staging_exposure_window', 'staging_key_submission_metadata_with_client_metadata',
+      'staging_client_metadata'] LOOP
+    EXECUTE format('INSERT INTO client_metadata_dim (cwa_version_major, cwa_version_minor, cwa_version_patch, '
+        'app_config_etag, ios_version_major, ios_version_minor, ios_version_patch, android_api_level, '
+        'android_enf_version) SELECT DISTINCT cwa_version_major, cwa_version_minor, cwa_version_patch, '
+        'app_config_etag, ios_version_major, ios_version_minor, ios_version_patch, android_api_level, '
+        'android_enf_version FROM %I ON CONFLICT DO NOTHING', t);
+    EXECUTE format('ALTER TABLE %I ADD COLUMN client_metadata_id INTEGER', t);
+    EXECUTE format('UPDATE %I t SET client_metadata_id = d.id FROM client_metadata_dim d '
+        'WHERE d.cwa_version_major = t.cwa_version_major AND d.cwa_version_minor = t.cwa_version_minor '
+        'AND d.cwa_version_patch = t.cwa_version_patch AND d.app_config_etag = t.app_config_etag '
+        'AND coalesce(d.ios_version_major, -1) = coalesce(t.ios_version_major, -1) '
+        'AND coalesce(d.ios_version_minor, -1) = coalesce(t.ios_version_minor, -1) '
+        'AND coalesce(d.ios_version_patch, -1) = coalesce(t.ios_version_patch, -1) '
+        'AND coalesce(d.android_api_level, -1) = coalesce(t.android_api_level, -1) '
+        'AND coalesce(d.android_enf_version, -1) = coalesce(t.android_enf_version, -1)', t);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN client_metadata_id SET NOT NULL, '
+        'DROP COLUMN cwa_version_major, DROP COLUMN cwa_version_minor, DROP COLUMN cwa_version_patch, '
+        'DROP COLUMN app_config_etag, DROP COLUMN ios_version_major, DROP COLUMN ios_version_minor, '
+        'DROP COLUMN ios_version_patch, DROP COLUMN android_api_level, DROP COLUMN android_enf_version', t);
+  END LOOP;
+END $$;
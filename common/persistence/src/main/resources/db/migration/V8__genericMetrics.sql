@@ -0,0 +1,21 @@
+-- Generic key/value metrics of the Metrics protocol buffer. New metric keys need no migration: each row holds a block
+-- of the buffered values of one key and type (see GenericMetricsIngestion), so a counter reported by every client
+-- costs one array element instead of one row per value. Large arrays are compressed out of line by TOAST.
+-- Rows are only ever appended and deleted by date, a BRIN index on the submission date is sufficient. The submission
+-- date is the UTC date bound by GenericMetricRepository, a default would take the date of the session time zone.
+
+CREATE TABLE generic_metric (
+    id BIGSERIAL PRIMARY KEY,
+    metric_key BIGINT NOT NULL,
+    submitted_at DATE NOT NULL,
+    int_values BIGINT[],
+    float_values DOUBLE PRECISION[],
+    text_values TEXT[],
+    CHECK (num_nonnulls(int_values, float_values, text_values) = 1)
+);
+
+CREATE INDEX generic_metric_submitted_at ON generic_metric USING BRIN (submitted_at);
+CREATE INDEX generic_metric_key ON generic_metric (metric_key, submitted_at);
+
+-- Generic metrics have a daily quota per iOS API token of their own, separate from the one of PPA data submissions.
+ALTER TABLE api_token ADD COLUMN last_used_metrics BIGINT;
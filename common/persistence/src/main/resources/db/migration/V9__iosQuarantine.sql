@@ -0,0 +1,18 @@
+-- iOS data submissions accepted while Apple DeviceCheck is degraded. They keep their authentication until the
+-- QuarantineVerifier checked it, then they are either stored in the metric tables or discarded, and always deleted.
+-- Rows are claimed in id order by setting claimed_until, so several instances never verify the same submission at the
+-- same time. A row is only deleted once it was handled, rows of a crashed instance are claimed again after the claim
+-- expired. A verified row is marked as such before it is stored, since its device token is then redeemed and a retry
+-- after a failed store must not verify it again. Rows older than the maximum age are deleted by the retention service.
+
+CREATE TABLE ios_quarantine (
+    id BIGSERIAL PRIMARY KEY,
+    received_at BIGINT NOT NULL,
+    submitted_at DATE NOT NULL,
+    device_token TEXT NOT NULL,
+    api_token UUID NOT NULL,
+    ignore_api_token_already_issued BOOLEAN NOT NULL,
+    payload BYTEA NOT NULL,
+    claimed_until BIGINT,
+    verified BOOLEAN NOT NULL DEFAULT false
+);
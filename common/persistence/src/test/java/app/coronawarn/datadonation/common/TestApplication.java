@@ -1,10 +1,18 @@
 package app.coronawarn.datadonation.common;
 
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsJdbcConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
+/**
+ * The metric entities are only mapped correctly with the {@link MetricsJdbcConfiguration}, which is imported here so
+ * that the {@code @DataJdbcTest} slices use it as well.
+ */
 @SpringBootApplication
 @Configuration
+@Import({ClientMetadataDictionary.class, MetricsJdbcConfiguration.class})
 public class TestApplication {
 
 }
@@ -0,0 +1,106 @@
+package app.coronawarn.datadonation.common.persistence.coherence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class CacheCoherenceBusTest {
+
+  private static final String CACHE = "test-cache";
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private CacheCoherenceBus first;
+  private CacheCoherenceBus second;
+  private final BlockingQueue<CoherenceEvent> receivedBySecond = new LinkedBlockingQueue<>();
+  private final BlockingQueue<CoherenceEvent> receivedByFirst = new LinkedBlockingQueue<>();
+  private final CountDownLatch secondConnected = new CountDownLatch(1);
+
+  @BeforeEach
+  void setup() throws InterruptedException {
+    first = new CacheCoherenceBus(dataSource, jdbcTemplate, enabledConfiguration());
+    second = new CacheCoherenceBus(dataSource, jdbcTemplate, enabledConfiguration());
+    first.subscribe(CACHE, receivedByFirst::add);
+    second.subscribe(CACHE, new CoherenceListener() {
+      @Override
+      public void onEvent(CoherenceEvent event) {
+        receivedBySecond.add(event);
+      }
+
+      @Override
+      public void onResync() {
+        secondConnected.countDown();
+      }
+    });
+    first.afterPropertiesSet();
+    second.afterPropertiesSet();
+    assertThat(secondConnected.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    first.destroy();
+    second.destroy();
+  }
+
+  @Test
+  void eventsShouldBeDeliveredToOtherReplicasOnly() throws InterruptedException {
+    first.publishInvalidate(CACHE, "key");
+
+    CoherenceEvent event = receivedBySecond.poll(10, TimeUnit.SECONDS);
+    assertThat(event).isNotNull();
+    assertThat(event.getType()).isEqualTo(CoherenceEvent.Type.INVALIDATE);
+    assertThat(event.getCache()).isEqualTo(CACHE);
+    assertThat(event.getKey()).isEqualTo("key");
+    assertThat(receivedByFirst.poll(500, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void malformedAndForeignCacheEventsShouldBeIgnored() throws InterruptedException {
+    second.dispatch("garbage");
+    second.dispatch("other-replica INSERT other-cache key");
+    second.dispatch("other-replica INSERT " + CACHE + " key with spaces");
+
+    CoherenceEvent event = receivedBySecond.poll(1, TimeUnit.SECONDS);
+    assertThat(event).isNotNull();
+    assertThat(event.getKey()).isEqualTo("key with spaces");
+    assertThat(receivedBySecond).isEmpty();
+  }
+
+  @Test
+  void failingListenerShouldNotStopDispatchToOthers() throws InterruptedException {
+    second.subscribe(CACHE, event -> {
+      throw new IllegalStateException("listener failure");
+    });
+    BlockingQueue<CoherenceEvent> receivedAfterFailure = new LinkedBlockingQueue<>();
+    second.subscribe(CACHE, receivedAfterFailure::add);
+
+    second.dispatch("other-replica INVALIDATE " + CACHE + " key");
+
+    assertThat(receivedBySecond.poll(1, TimeUnit.SECONDS)).isNotNull();
+    assertThat(receivedAfterFailure.poll(1, TimeUnit.SECONDS)).isNotNull();
+  }
+
+  private static CoherenceConfiguration enabledConfiguration() {
+    CoherenceConfiguration configuration = new CoherenceConfiguration();
+    configuration.setEnabled(true);
+    configuration.setPollTimeoutMillis(100);
+    configuration.setReconnectDelayMillis(100);
+    return configuration;
+  }
+}
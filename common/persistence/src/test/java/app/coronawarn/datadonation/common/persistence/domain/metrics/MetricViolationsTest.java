@@ -0,0 +1,44 @@
+package app.coronawarn.datadonation.common.persistence.domain.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsMockData;
+import org.junit.jupiter.api.Test;
+
+class MetricViolationsTest {
+
+  @Test
+  void validMetricsShouldNotHaveViolations() {
+    assertThat(MetricsMockData.getExposureRiskMetadata().validate()).isEmpty();
+    assertThat(MetricsMockData.getTestResultMetric().validate()).isEmpty();
+    assertThat(MetricsMockData.getKeySubmissionWithClientMetadata().validate()).isEmpty();
+    assertThat(MetricsMockData.getKeySubmissionWithUserMetadata().validate()).isEmpty();
+    MetricsMockData.getExposureWindows().forEach(window -> assertThat(window.validate()).isEmpty());
+  }
+
+  @Test
+  void nullFieldsShouldBeReportedWithPropertyPathAndMessage() {
+    ExposureWindow window = new ExposureWindow(null, null, 0, 0, 0, 0, 0.0, null, null, ScanInstances.EMPTY);
+
+    assertThat(window.validate()).containsExactly(
+        "date must not be null",
+        "clientMetadata must not be null",
+        "technicalMetadata must not be null");
+  }
+
+  @Test
+  void riskLevelOutOfRangeShouldBeReported() {
+    assertThat(MetricsMockData.getExposureRiskMetadataWithInvalidRiskLevel().validate())
+        .containsExactly("riskLevel Risk Level must be in between 0 and 3.");
+  }
+
+  @Test
+  void missingEmbeddedMetadataShouldBeReported() {
+    ExposureRiskMetadata metadata = new ExposureRiskMetadata(null, 0, false, null, false, null, null);
+
+    assertThat(metadata.validate()).containsExactly(
+        "mostRecentDateAtRiskLevel must not be null",
+        "userMetadata must not be null",
+        "technicalMetadata must not be null");
+  }
+}
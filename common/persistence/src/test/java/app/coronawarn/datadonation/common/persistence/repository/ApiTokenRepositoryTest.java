@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import app.coronawarn.datadonation.common.persistence.domain.ApiToken;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 @SpringBootTest
 public class ApiTokenRepositoryTest {
 
+  private static final String API_TOKEN = "2a3c6d5e-bc47-4b3a-9f5d-6c7f0b1e2d3a";
+
   @Autowired
   ApiTokenRepository underTest;
 
@@ -28,15 +31,46 @@ public class ApiTokenRepositoryTest {
     long expirationDate = now.getEpochSecond();
     long createdAt = now.minus(1, ChronoUnit.DAYS).getEpochSecond();
 
-    underTest.insert("apiToken", expirationDate, createdAt,
+    underTest.insert(API_TOKEN, expirationDate, createdAt,
         createdAt, createdAt);
-    ApiToken apiToken1 = underTest.findById("apiToken").get();
+    ApiToken apiToken1 = underTest.findById(API_TOKEN).get();
 
     assertThat(apiToken1).isNotNull();
-    assertThat(apiToken1.getApiToken()).isEqualTo("apiToken");
+    assertThat(apiToken1.getApiToken()).isEqualTo(API_TOKEN);
     assertThat(apiToken1.getExpirationDate()).isEqualTo(expirationDate);
     assertThat(apiToken1.getCreatedAt()).isEqualTo(createdAt);
     assertThat(apiToken1.getLastUsedEdus().get()).isEqualTo(createdAt);
     assertThat(apiToken1.getLastUsedPpac().get()).isEqualTo(createdAt);
   }
+
+  @Test
+  public void testConsumeForPpaOnlyOncePerThreshold() {
+    final Instant now = Instant.now();
+    long startOfDay = now.truncatedTo(ChronoUnit.DAYS).getEpochSecond();
+    long yesterday = now.minus(1, ChronoUnit.DAYS).getEpochSecond();
+
+    underTest.insert(API_TOKEN, now.getEpochSecond(), yesterday, null, yesterday);
+
+    assertThat(underTest.consumeForPpa(API_TOKEN, now.getEpochSecond(), startOfDay)).isEqualTo(1);
+    assertThat(underTest.consumeForPpa(API_TOKEN, now.getEpochSecond(), startOfDay)).isZero();
+    assertThat(underTest.findById(API_TOKEN).get().getLastUsedPpac()).contains(now.getEpochSecond());
+  }
+
+  @Test
+  public void testConsumeForEdusWithoutPreviousUsage() {
+    final Instant now = Instant.now();
+
+    underTest.insert(API_TOKEN, now.getEpochSecond(), now.getEpochSecond(), null, null);
+
+    assertThat(underTest.consumeForEdus(API_TOKEN, now.getEpochSecond(), now.getEpochSecond())).isEqualTo(1);
+    assertThat(underTest.consumeForEdus(UUID.randomUUID().toString(), now.getEpochSecond(), now.getEpochSecond())).isZero();
+  }
+
+  @Test
+  public void testFindByIdIgnoresCase() {
+    underTest.insert(API_TOKEN, Instant.now().getEpochSecond(), Instant.now().getEpochSecond(), null, null);
+
+    assertThat(underTest.findById(API_TOKEN.toUpperCase())).hasValueSatisfying(
+        apiToken -> assertThat(apiToken.getApiToken()).isEqualTo(API_TOKEN));
+  }
 }
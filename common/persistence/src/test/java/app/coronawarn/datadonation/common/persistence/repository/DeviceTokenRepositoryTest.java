@@ -26,7 +26,7 @@ public class DeviceTokenRepositoryTest {
 
     final DeviceToken persistedDeviceToken = underTest.save(buildDeviceToken(timestamp, deviceTokenHash, false));
 
-    assertThat(persistedDeviceToken.getId()).isNotNull();
+    assertThat(underTest.findByDeviceTokenHash(persistedDeviceToken.getId())).isPresent();
     assertThat(persistedDeviceToken)
         .extracting(dt -> new String(dt.getDeviceTokenHash(), StandardCharsets.UTF_8), DeviceToken::getCreatedAt)
         .containsExactly(deviceTokenHash, timestamp);
@@ -44,6 +44,17 @@ public class DeviceTokenRepositoryTest {
         DuplicateKeyException.class);
   }
 
+  @Test
+  void testInsertIfAbsentReportsDuplicatesByRowCount() {
+    long timestamp = Instant.now().getEpochSecond();
+    byte[] deviceTokenHash = "deviceTokenHash".getBytes(StandardCharsets.UTF_8);
+
+    assertThat(underTest.insertIfAbsent(deviceTokenHash, timestamp)).isEqualTo(1);
+    assertThat(underTest.insertIfAbsent(deviceTokenHash, timestamp + 1)).isZero();
+    assertThat(underTest.findByDeviceTokenHash(deviceTokenHash))
+        .hasValueSatisfying(deviceToken -> assertThat(deviceToken.getCreatedAt()).isEqualTo(timestamp));
+  }
+
   @Test
   void testTokenRetrievalByHash() throws Exception {
     Long timestamp = Instant.now().getEpochSecond();
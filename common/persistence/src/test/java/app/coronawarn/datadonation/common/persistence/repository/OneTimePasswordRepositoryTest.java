@@ -0,0 +1,55 @@
+package app.coronawarn.datadonation.common.persistence.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.common.persistence.domain.OneTimePassword;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+public class OneTimePasswordRepositoryTest {
+
+  private static final String PASSWORD = "fb954b83-02ff-4cb7-8f07-fae2bcd64363";
+
+  @Autowired
+  OneTimePasswordRepository underTest;
+
+  @BeforeEach
+  public void setup() {
+    underTest.deleteAll();
+  }
+
+  @Test
+  public void testInheritedIdMethodsMatchTheUuidColumn() {
+    OneTimePassword otp = new OneTimePassword(PASSWORD.toUpperCase());
+    otp.setExpirationTimestamp(Instant.now().getEpochSecond());
+    underTest.save(otp);
+    UUID id = UUID.fromString(PASSWORD);
+
+    assertThat(underTest.existsById(id)).isTrue();
+    assertThat(underTest.findById(id)).hasValueSatisfying(found -> {
+      assertThat(found.getPassword()).isEqualTo(PASSWORD);
+      assertThat(found.isNew()).isFalse();
+    });
+
+    underTest.deleteById(id);
+
+    assertThat(underTest.existsById(id)).isFalse();
+  }
+
+  @Test
+  public void testRedemptionUpdatesTheExistingRow() {
+    underTest.insert(PASSWORD, null, Instant.now().getEpochSecond());
+    OneTimePassword otp = underTest.findById(UUID.fromString(PASSWORD)).get();
+    otp.setRedemptionTimestamp(Instant.now().getEpochSecond());
+
+    underTest.save(otp);
+
+    assertThat(underTest.count()).isEqualTo(1);
+    assertThat(underTest.findById(UUID.fromString(PASSWORD)).get().getRedemptionTimestamp()).isNotNull();
+  }
+}
@@ -0,0 +1,68 @@
+package app.coronawarn.datadonation.common.persistence.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+class PooledIdAllocatorTest {
+
+  private static final long INCREMENT = 10;
+
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  // Like a fresh Postgres sequence, the first nextval returns 1.
+  private final AtomicLong sequence = new AtomicLong(1 - INCREMENT);
+
+  private PooledIdAllocator underTest;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setup() {
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("test_id_seq"))).thenReturn(INCREMENT);
+    when(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class), anyInt()))
+        .then(invocation -> LongStream.range(0, (int) invocation.getArgument(2))
+            .map(i -> sequence.addAndGet(INCREMENT)).toArray());
+    underTest = new PooledIdAllocator(jdbcTemplate, "test_id_seq");
+  }
+
+  @Test
+  void idsShouldBeTakenFromReservedBlocks() {
+    assertThat(underTest.allocate(3)).containsExactly(1, 2, 3);
+    assertThat(underTest.allocate(7)).containsExactly(4, 5, 6, 7, 8, 9, 10);
+
+    verify(jdbcTemplate, times(1)).query(anyString(), any(ResultSetExtractor.class), anyInt());
+  }
+
+  @Test
+  void largeAllocationShouldReserveSeveralBlocksAtOnce() {
+    underTest.allocate(5);
+
+    assertThat(underTest.allocate(20)).containsExactly(LongStream.rangeClosed(6, 25).toArray());
+    verify(jdbcTemplate, times(2)).query(anyString(), any(ResultSetExtractor.class), anyInt());
+  }
+
+  @Test
+  void idsShouldBePositiveOnAFreshSequence() {
+    assertThat(underTest.allocate((int) INCREMENT + 1))
+        .containsExactly(LongStream.rangeClosed(1, INCREMENT + 1).toArray());
+  }
+
+  @Test
+  void emptyAllocationShouldNotReserveBlocks() {
+    assertThat(underTest.allocate(0)).isEmpty();
+
+    verify(jdbcTemplate, times(0)).query(anyString(), any(ResultSetExtractor.class), anyInt());
+  }
+}
@@ -0,0 +1,104 @@
+package app.coronawarn.datadonation.common.persistence.repository;
+
+import static app.coronawarn.datadonation.common.persistence.repository.ReplayProtectionRing.Table.DEVICE_TOKEN;
+import static app.coronawarn.datadonation.common.persistence.repository.ReplayProtectionRing.Table.SALT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.datadonation.common.persistence.repository.ppac.android.SaltRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJdbcTest
+@Import(ReplayProtectionRing.class)
+class ReplayProtectionRingTest {
+
+  @Autowired
+  private ReplayProtectionRing underTest;
+
+  @Autowired
+  private SaltRepository saltRepository;
+
+  @Autowired
+  private DeviceTokenRepository deviceTokenRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void expiredBucketsShouldBeTruncated() {
+    saltRepository.persist("current-salt", Instant.now().toEpochMilli());
+    insertSaltHoursAgo("expired-salt", 30);
+    insertSaltHoursAgo("live-salt", 23);
+
+    assertThat(underTest.countOlderThan(SALT, 24)).isEqualTo(1);
+    underTest.truncateOlderThan(SALT, 24);
+
+    assertThat(saltRepository.findById("expired-salt")).isEmpty();
+    assertThat(saltRepository.findById("live-salt")).isPresent();
+    assertThat(saltRepository.findById("current-salt")).isPresent();
+  }
+
+  @Test
+  void currentAndNextHourShouldNeverExpire() {
+    long currentHour = TimeUnit.SECONDS.toHours(Instant.now().getEpochSecond());
+    insertDeviceToken("current", currentHour, currentHour - ReplayProtectionRing.BUCKETS);
+    insertDeviceToken("next", currentHour + 1, currentHour + 1 - ReplayProtectionRing.BUCKETS);
+    insertDeviceToken("previous", currentHour - 1, currentHour - 1 - ReplayProtectionRing.BUCKETS);
+
+    underTest.truncateOlderThan(DEVICE_TOKEN, 0, currentHour);
+
+    assertThat(deviceTokenHours()).containsExactlyInAnyOrder(currentHour - ReplayProtectionRing.BUCKETS,
+        currentHour + 1 - ReplayProtectionRing.BUCKETS);
+    assertThatThrownBy(() -> underTest.truncateOlderThan(DEVICE_TOKEN, ReplayProtectionRing.MAX_RETENTION_HOURS + 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void dailyRunsShouldLeaveNoExpiredRows() {
+    int retentionHours = 24;
+    long firstHour = TimeUnit.SECONDS.toHours(Instant.now().getEpochSecond());
+    for (long hour = firstHour; hour < firstHour + 10 * ReplayProtectionRing.BUCKETS; hour++) {
+      insertDeviceToken("token-" + hour, hour, hour);
+      if ((hour - firstHour) % ReplayProtectionRing.MAX_RUN_INTERVAL_HOURS == 0) {
+        underTest.truncateOlderThan(DEVICE_TOKEN, retentionHours, hour);
+
+        long oldestLiveHour = hour - retentionHours;
+        assertThat(deviceTokenHours()).allMatch(createdAtHour -> createdAtHour >= oldestLiveHour);
+      }
+    }
+  }
+
+  @Test
+  void deviceTokenOfAnEarlierBucketShouldNotBeInsertedAgain() {
+    byte[] deviceTokenHash = "deviceTokenHash".getBytes(StandardCharsets.UTF_8);
+    jdbcTemplate.update("INSERT INTO device_token (device_token_hash, created_at, bucket) "
+        + "VALUES (?, 0, replay_ring_bucket(now() - INTERVAL '5 hours'))", (Object) deviceTokenHash);
+
+    assertThat(deviceTokenRepository.insertIfAbsent(deviceTokenHash, Instant.now().getEpochSecond())).isZero();
+  }
+
+  private void insertSaltHoursAgo(String salt, int hours) {
+    jdbcTemplate.update("INSERT INTO salt (salt, created_at, bucket) "
+        + "VALUES (?, ?, replay_ring_bucket(now() - ? * INTERVAL '1 hour'))", salt,
+        Instant.now().minus(hours, ChronoUnit.HOURS).toEpochMilli(), hours);
+  }
+
+  private void insertDeviceToken(String deviceToken, long bucketHour, long createdAtHour) {
+    jdbcTemplate.update("INSERT INTO device_token (device_token_hash, created_at, bucket) VALUES (?, ?, ?)",
+        deviceToken.getBytes(StandardCharsets.UTF_8), TimeUnit.HOURS.toSeconds(createdAtHour),
+        Math.floorMod(bucketHour, ReplayProtectionRing.BUCKETS));
+  }
+
+  private List<Long> deviceTokenHours() {
+    return jdbcTemplate.queryForList("SELECT created_at / 3600 FROM device_token", Long.class);
+  }
+}
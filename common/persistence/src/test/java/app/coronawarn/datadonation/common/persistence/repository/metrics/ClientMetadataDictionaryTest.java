@@ -0,0 +1,105 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@DataJdbcTest
+class ClientMetadataDictionaryTest {
+
+  @Autowired
+  private ClientMetadataDictionary underTest;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void equalValuesShouldShareOneEntry() {
+    ClientMetadataDetails ios = new ClientMetadataDetails(1, 2, 3, "dictionary-test", 14, 4, 1, null, null);
+    ClientMetadataDetails android = new ClientMetadataDetails(1, 2, 3, "dictionary-test", null, null, null, 29, 2);
+
+    int iosId = underTest.idOf(ios);
+    int androidId = underTest.idOf(android);
+
+    assertThat(iosId).isNotEqualTo(androidId);
+    assertThat(underTest.idOf(new ClientMetadataDetails(1, 2, 3, "dictionary-test", 14, 4, 1, null, null)))
+        .isEqualTo(iosId);
+    assertThat(new ClientMetadataDictionary(jdbcTemplate, transactionManager).idOf(android)).isEqualTo(androidId);
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM client_metadata_dim WHERE app_config_etag = ?",
+        Integer.class, "dictionary-test")).isEqualTo(2);
+  }
+
+  @Test
+  void idsOfABatchShouldBeResolvedTogether() {
+    ClientMetadataDetails ios = new ClientMetadataDetails(1, 2, 4, "dictionary-batch", 14, 4, 1, null, null);
+    ClientMetadataDetails android = new ClientMetadataDetails(1, 2, 4, "dictionary-batch", null, null, null, 29, 2);
+
+    Map<ClientMetadataDetails, Integer> ids = underTest.idsOf(List.of(ios, android));
+
+    assertThat(ids).containsOnly(entry(ios, underTest.idOf(ios)), entry(android, underTest.idOf(android)));
+  }
+
+  @Test
+  void valuesShouldBeReadBackById() {
+    ClientMetadataDetails android = new ClientMetadataDetails(1, 9, 0, "dictionary-read", null, null, null, 30, 1);
+    int id = underTest.idOf(android);
+
+    assertThat(new ClientMetadataDictionary(jdbcTemplate, transactionManager).valueOf(id)).isEqualTo(android);
+  }
+
+  @Test
+  void unusedUnreferencedEntriesShouldBeDeleted() {
+    int unused = underTest.idOf(new ClientMetadataDetails(1, 9, 1, "dictionary-unused", null, null, null, 30, 1));
+    int recent = underTest.idOf(new ClientMetadataDetails(1, 9, 1, "dictionary-recent", null, null, null, 30, 1));
+    jdbcTemplate.update("UPDATE client_metadata_dim SET last_used_at = now() - interval '2 days' WHERE id = ?",
+        unused);
+
+    underTest.deleteUnreferenced();
+
+    assertThat(jdbcTemplate.queryForList("SELECT id FROM client_metadata_dim WHERE id IN (?, ?)", Integer.class,
+        unused, recent)).containsExactly(recent);
+  }
+
+  @Test
+  void referencedEntriesShouldBeKept() {
+    int id = underTest.idOf(new ClientMetadataDetails(1, 9, 2, "dictionary-referenced", 14, 2, 0, null, null));
+    jdbcTemplate.update("INSERT INTO client_metadata (client_metadata_id) VALUES (?)", id);
+    jdbcTemplate.update("UPDATE client_metadata_dim SET last_used_at = now() - interval '2 days' WHERE id = ?", id);
+
+    underTest.deleteUnreferenced();
+
+    assertThat(underTest.valueOf(id).getAppConfigEtag()).isEqualTo("dictionary-referenced");
+  }
+
+  @Test
+  void rowsWrittenBeforeTheDictionaryShouldBeAssignedTheirId() {
+    // rows written before V7 predate the constraint, which is only enforced for new rows
+    jdbcTemplate.execute("ALTER TABLE client_metadata DROP CONSTRAINT client_metadata_client_metadata_id_not_null");
+    jdbcTemplate.update("INSERT INTO client_metadata (cwa_version_major, cwa_version_minor, cwa_version_patch, "
+        + "app_config_etag, android_api_level, android_enf_version) VALUES (1, 9, 3, 'dictionary-backfill', 30, 1)");
+    long afterId = jdbcTemplate.queryForObject("SELECT max(id) - 1 FROM client_metadata", Long.class);
+
+    long toId = underTest.maxUnassignedId("client_metadata", afterId, 10);
+
+    assertThat(toId).isEqualTo(afterId + 1);
+    assertThat(underTest.assignIds("client_metadata", afterId, toId)).isEqualTo(1);
+    assertThat(underTest.maxUnassignedId("client_metadata", afterId, 10)).isEqualTo(afterId);
+    int id = jdbcTemplate.queryForObject("SELECT client_metadata_id FROM client_metadata WHERE id = ?", Integer.class,
+        toId);
+    assertThat(underTest.valueOf(id))
+        .isEqualTo(new ClientMetadataDetails(1, 9, 3, "dictionary-backfill", null, null, null, 30, 1));
+    assertThat(jdbcTemplate.queryForObject("SELECT app_config_etag IS NULL AND android_api_level IS NULL "
+        + "FROM client_metadata WHERE id = ?", Boolean.class, toId)).isTrue();
+  }
+}
@@ -2,9 +2,10 @@ package app.coronawarn.datadonation.common.persistence.repository.metrics;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
 import java.time.LocalDate;
@@ -12,11 +13,11 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @DataJdbcTest
 class ExposureWindowRepositoryTest {
@@ -24,9 +25,13 @@ class ExposureWindowRepositoryTest {
   @Autowired
   private ExposureWindowRepository exposureWindowRepository;
 
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
   @AfterEach
   void tearDown() {
     exposureWindowRepository.deleteAll();
+    jdbcTemplate.update("DELETE FROM scan_instance");
   }
 
   @Test
@@ -35,12 +40,11 @@ class ExposureWindowRepositoryTest {
     ClientMetadataDetails clientMetadata = new ClientMetadataDetails(1, 1, 1, "abc", 2, 2, 3, 1, 2);
     TechnicalMetadata technicalMetadata =
         new TechnicalMetadata(justADate, true, false, true, false);
-    Set<ScanInstance> scanInstances =
-        Set.of(new ScanInstance(null, null, 5, 4, 2), new ScanInstance(null, null, 7, 7, 7));
+    ScanInstances scanInstances = ScanInstances.builder(2).add(5, 4, 2).add(7, 7, 7).build();
     ExposureWindow exposureMetrics =
         new ExposureWindow(null, justADate, 1, 1, 1, 2, 2.23, clientMetadata, technicalMetadata, scanInstances);
 
-    exposureWindowRepository.save(exposureMetrics);
+    exposureWindowRepository.insertAll(List.of(exposureMetrics));
     ExposureWindow loadedEntity = exposureWindowRepository.findAll().iterator().next();
     assertEquals(loadedEntity.getCallibrationConfidence(),
         exposureMetrics.getCallibrationConfidence());
@@ -53,31 +57,72 @@ class ExposureWindowRepositoryTest {
     assertEquals(loadedEntity.getTransmissionRiskLevel(),
         exposureMetrics.getTransmissionRiskLevel());
     assertNotNull(loadedEntity.getId());
-    assertScanInstancesDataAreEqual(scanInstances, loadedEntity.getScanInstances());
+    assertEquals(scanInstances, exposureWindowRepository.findScanInstances(loadedEntity.getId()));
+    assertEquals(scanInstances, loadedEntity.getScanInstances());
+    assertEquals(scanInstances, exposureWindowRepository.findById(loadedEntity.getId()).get().getScanInstances());
   }
 
-  private void assertScanInstancesDataAreEqual(Set<ScanInstance> beforePersistence,
-      Set<ScanInstance> afterPersistence) {
-    ArrayList<ScanInstance> beforePersistenceScans = new ArrayList<>(beforePersistence);
-    ArrayList<ScanInstance> afterPersistenceScans = new ArrayList<>(afterPersistence);
-    beforePersistenceScans.sort(Comparator.comparingInt(ScanInstance::getMinimumAttenuation)
-        .thenComparingInt(ScanInstance::getTypicalAttenuation)
-        .thenComparingInt(ScanInstance::getSecondsSinceLastScan));
-    afterPersistenceScans.sort(Comparator.comparingInt(ScanInstance::getMinimumAttenuation)
-        .thenComparingInt(ScanInstance::getTypicalAttenuation)
-        .thenComparingInt(ScanInstance::getSecondsSinceLastScan));
-
-    for (int i = 0; i < beforePersistenceScans.size(); i++) {
-      ScanInstance beforePersistenceScan = beforePersistenceScans.get(i);
-      ScanInstance afterPersistenceScan = afterPersistenceScans.get(i);
-      if (beforePersistenceScan.getMinimumAttenuation() != afterPersistenceScan
-          .getMinimumAttenuation()
-          || beforePersistenceScan.getTypicalAttenuation() != afterPersistenceScan
-              .getTypicalAttenuation()
-          || beforePersistenceScan.getSecondsSinceLastScan() != afterPersistenceScan
-              .getSecondsSinceLastScan()) {
-        throw new AssertionError("scan instances were not persisted correctly");
-      }
-    }
+  @Test
+  void exposureWindowsShouldBeBatchInsertedWithTheirScanInstances() {
+    LocalDate justADate = LocalDate.now(ZoneId.of("UTC"));
+    ClientMetadataDetails clientMetadata = new ClientMetadataDetails(1, 1, 1, "abc", null, null, null, 29, 2);
+    TechnicalMetadata technicalMetadata = new TechnicalMetadata(justADate, true, false, true, null);
+    ScanInstances firstScanInstances = ScanInstances.builder(2).add(5, 4, 2).add(7, 7, 7).build();
+    ScanInstances secondScanInstances = ScanInstances.builder(1).add(1, 2, 3).build();
+    ExposureWindow first =
+        new ExposureWindow(null, justADate, 1, 1, 1, 2, 2.23, clientMetadata, technicalMetadata, firstScanInstances);
+    ExposureWindow second =
+        new ExposureWindow(null, justADate, 2, 2, 2, 3, 0.5, clientMetadata, technicalMetadata, secondScanInstances);
+
+    exposureWindowRepository.insertAll(List.of(first, second));
+
+    List<ExposureWindow> loadedEntities = new ArrayList<>();
+    exposureWindowRepository.findAll().forEach(loadedEntities::add);
+    loadedEntities.sort(Comparator.comparingInt(ExposureWindow::getReportType));
+    assertEquals(2, loadedEntities.size());
+    assertEquals(clientMetadata, loadedEntities.get(0).getClientMetadata());
+    assertEquals(technicalMetadata, loadedEntities.get(1).getTechnicalMetadata());
+    assertEquals(second.getNormalizedTime(), loadedEntities.get(1).getNormalizedTime());
+    assertEquals(firstScanInstances, exposureWindowRepository.findScanInstances(loadedEntities.get(0).getId()));
+    assertEquals(secondScanInstances, exposureWindowRepository.findScanInstances(loadedEntities.get(1).getId()));
+  }
+
+  @Test
+  void scanInstancesOfOutdatedWindowsShouldBeDeletedPageByPage() {
+    LocalDate justADate = LocalDate.now(ZoneId.of("UTC"));
+    ClientMetadataDetails clientMetadata = new ClientMetadataDetails(1, 1, 1, "abc", 2, 2, 3, 1, 2);
+    TechnicalMetadata technicalMetadata = new TechnicalMetadata(justADate, true, false, true, false);
+    ScanInstances scanInstances = ScanInstances.builder(2).add(5, 4, 2).add(7, 7, 7).build();
+    exposureWindowRepository.insertAll(List.of(
+        new ExposureWindow(null, justADate, 1, 1, 1, 2, 2.23, clientMetadata, technicalMetadata, scanInstances),
+        new ExposureWindow(null, justADate, 2, 2, 2, 3, 0.5, clientMetadata, technicalMetadata, scanInstances)));
+    LocalDate threshold = justADate.plusDays(1);
+
+    List<Long> firstPage = exposureWindowRepository.findIdsOlderThan(threshold, Long.MIN_VALUE, 1);
+    List<Long> secondPage = exposureWindowRepository.findIdsOlderThan(threshold, firstPage.get(0), 1);
+
+    assertEquals(1, firstPage.size());
+    assertEquals(1, secondPage.size());
+    assertTrue(firstPage.get(0) < secondPage.get(0));
+    assertTrue(exposureWindowRepository.findIdsOlderThan(justADate, Long.MIN_VALUE, 1).isEmpty());
+    assertEquals(2, exposureWindowRepository.deleteScanInstancesOfWindows(firstPage));
+    assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM scan_instance", Integer.class));
+  }
+
+  @Test
+  void identicalScanInstancesShouldBeKeptInClientOrder() {
+    LocalDate justADate = LocalDate.now(ZoneId.of("UTC"));
+    ClientMetadataDetails clientMetadata = new ClientMetadataDetails(1, 1, 1, "abc", 2, 2, 3, 1, 2);
+    TechnicalMetadata technicalMetadata = new TechnicalMetadata(justADate, true, false, true, false);
+    ScanInstances scanInstances = ScanInstances.builder(1).add(7, 7, 7).add(5, 4, 2).add(7, 7, 7).build();
+    ExposureWindow exposureWindow =
+        new ExposureWindow(null, justADate, 1, 1, 1, 2, 2.23, clientMetadata, technicalMetadata, scanInstances);
+
+    exposureWindowRepository.insertAll(List.of(exposureWindow));
+
+    ScanInstances loaded = exposureWindowRepository
+        .findScanInstances(exposureWindowRepository.findAll().iterator().next().getId());
+    assertEquals(3, loaded.size());
+    assertEquals(scanInstances, loaded);
   }
-}
\ No newline at end of file
+}
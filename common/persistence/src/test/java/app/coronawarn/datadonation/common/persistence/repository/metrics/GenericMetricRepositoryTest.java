@@ -0,0 +1,75 @@
+package app.coronawarn.datadonation.common.persistence.repository.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock.Type;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJdbcTest
+@Import(GenericMetricRepository.class)
+class GenericMetricRepositoryTest {
+
+  @Autowired
+  private GenericMetricRepository underTest;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void blocksShouldBeStoredAsOneRowEach() {
+    GenericMetricBlock counter = new GenericMetricBlock(4_000_000_000L, Type.INT);
+    counter.add(1L);
+    counter.add(-1L);
+    GenericMetricBlock ratio = new GenericMetricBlock(7, Type.FLOAT);
+    ratio.add(0.25);
+    GenericMetricBlock label = new GenericMetricBlock(7, Type.TEXT);
+    label.add("a");
+    label.add("b");
+    label.add("c");
+
+    underTest.insertAll(List.of(counter, ratio, label));
+
+    Map<String, Object> counterRow = jdbcTemplate.queryForMap("SELECT cardinality(int_values) AS n, "
+        + "int_values[2] AS second, float_values, text_values FROM generic_metric WHERE metric_key = 4000000000");
+    assertThat(counterRow).containsEntry("n", 2).containsEntry("second", -1L)
+        .containsEntry("float_values", null).containsEntry("text_values", null);
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM generic_metric WHERE metric_key = 7",
+        Integer.class)).isEqualTo(2);
+    assertThat(underTest.countOlderThan(LocalDate.now(ZoneOffset.UTC).plusDays(1))).isEqualTo(6);
+  }
+
+  @Test
+  void submissionDateShouldBeTheUtcDate() {
+    // a day ahead of UTC for most of the UTC day
+    jdbcTemplate.execute("SET LOCAL TIME ZONE 'Pacific/Kiritimati'");
+    GenericMetricBlock counter = new GenericMetricBlock(5_000_000_000L, Type.INT);
+    counter.add(1L);
+
+    underTest.insertAll(List.of(counter));
+
+    assertThat(jdbcTemplate.queryForObject("SELECT submitted_at FROM generic_metric WHERE metric_key = 5000000000",
+        LocalDate.class)).isEqualTo(LocalDate.now(ZoneOffset.UTC));
+  }
+
+  @Test
+  void blocksShouldBeDeletedBySubmissionDate() {
+    GenericMetricBlock counter = new GenericMetricBlock(1, Type.INT);
+    counter.add(42L);
+    underTest.insertAll(List.of(counter));
+
+    underTest.deleteOlderThan(LocalDate.now(ZoneOffset.UTC));
+    assertThat(underTest.countOlderThan(LocalDate.now(ZoneOffset.UTC).plusDays(1))).isEqualTo(1);
+
+    underTest.deleteOlderThan(LocalDate.now(ZoneOffset.UTC).plusDays(1));
+    assertThat(underTest.countOlderThan(LocalDate.now(ZoneOffset.UTC).plusDays(1))).isZero();
+  }
+}
@@ -2,13 +2,12 @@ package app.coronawarn.datadonation.common.persistence.repository.metrics;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
@@ -39,8 +38,8 @@ public final class MetricsMockData {
         mockTechnicalMetadata, getScanInstances()));
   }
 
-  private static Set<ScanInstance> getScanInstances() {
-    return Set.of(new ScanInstance(null, null, 3, 4, 5), new ScanInstance(null, null, 6, 7, 7));
+  private static ScanInstances getScanInstances() {
+    return ScanInstances.builder(2).add(3, 4, 5).add(6, 7, 7).build();
   }
 
   public static TestResultMetadata getTestResultMetric() {
@@ -0,0 +1,110 @@
+package app.coronawarn.datadonation.common.persistence.repository.ppac.ios;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.common.persistence.domain.ppac.ios.QuarantinedSubmission;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+
+@DataJdbcTest
+@Import(QuarantineRepository.class)
+class QuarantineRepositoryTest {
+
+  private static final String API_TOKEN = "2ad3b3b8-5a57-44b4-9e4e-1f0d0c1a3f66";
+  private static final long NOW = 1620000000L;
+  private static final int CLAIM_SECONDS = 300;
+  private static final int MAX_ROWS = 10;
+
+  @Autowired
+  private QuarantineRepository underTest;
+
+  @Test
+  void submissionsShouldBeClaimedOnceInOrder() {
+    insert("first");
+    insert("second");
+    insert("third");
+
+    List<QuarantinedSubmission> claimed = underTest.claim(2, NOW, CLAIM_SECONDS);
+
+    assertThat(claimed).extracting(QuarantinedSubmission::getDeviceToken).containsExactly("first", "second");
+    assertThat(claimed.get(0).getApiToken()).isEqualTo(API_TOKEN);
+    assertThat(claimed.get(0).getSubmittedAt()).isEqualTo(LocalDate.of(2021, 5, 3));
+    assertThat(claimed.get(0).getPayload()).containsExactly(1, 2, 3);
+    assertThat(deviceTokens(underTest.claim(10, NOW, CLAIM_SECONDS))).containsExactly("third");
+    assertThat(underTest.count()).isEqualTo(3);
+  }
+
+  @Test
+  void expiredClaimsShouldBeClaimedAgain() {
+    insert("first");
+    underTest.claim(1, NOW, CLAIM_SECONDS);
+
+    assertThat(underTest.claim(1, NOW + CLAIM_SECONDS - 1, CLAIM_SECONDS)).isEmpty();
+    assertThat(deviceTokens(underTest.claim(1, NOW + CLAIM_SECONDS + 1, CLAIM_SECONDS))).containsExactly("first");
+  }
+
+  @Test
+  void releasedSubmissionsShouldBeClaimedAgainAndDeletedOnesNot() {
+    insert("first");
+    insert("second");
+    List<QuarantinedSubmission> claimed = underTest.claim(2, NOW, CLAIM_SECONDS);
+
+    underTest.delete(claimed.get(0).getId());
+    underTest.release(List.of(claimed.get(1).getId()));
+
+    assertThat(deviceTokens(underTest.claim(10, NOW, CLAIM_SECONDS))).containsExactly("second");
+    assertThat(underTest.count()).isEqualTo(1);
+  }
+
+  @Test
+  void verifiedSubmissionsShouldStayMarkedWhenClaimedAgain() {
+    insert("first");
+    QuarantinedSubmission claimed = underTest.claim(1, NOW, CLAIM_SECONDS).get(0);
+    assertThat(claimed.isVerified()).isFalse();
+
+    underTest.markVerified(claimed.getId());
+    underTest.release(List.of(claimed.getId()));
+
+    assertThat(underTest.claim(1, NOW, CLAIM_SECONDS)).extracting(QuarantinedSubmission::isVerified)
+        .containsExactly(true);
+  }
+
+  @Test
+  void submissionsShouldBeRejectedOnceTheQuarantineIsFull() {
+    for (int i = 0; i < MAX_ROWS; i++) {
+      assertThat(underTest.insert(submission("accepted"), MAX_ROWS)).isTrue();
+    }
+
+    assertThat(underTest.insert(submission("rejected"), MAX_ROWS)).isFalse();
+    assertThat(underTest.count()).isEqualTo(MAX_ROWS);
+  }
+
+  @Test
+  void outdatedSubmissionsShouldBeDeleted() {
+    insert("outdated");
+    underTest.insert(new QuarantinedSubmission(null, NOW + 1, LocalDate.of(2021, 5, 3), "recent", API_TOKEN, true,
+        new byte[] {1, 2, 3}), MAX_ROWS);
+
+    assertThat(underTest.countOlderThan(NOW + 1)).isEqualTo(1);
+    assertThat(underTest.deleteOlderThan(NOW + 1)).isEqualTo(1);
+    assertThat(deviceTokens(underTest.claim(10, NOW, CLAIM_SECONDS))).containsExactly("recent");
+  }
+
+  private void insert(String deviceToken) {
+    underTest.insert(submission(deviceToken), MAX_ROWS);
+  }
+
+  private static List<String> deviceTokens(List<QuarantinedSubmission> submissions) {
+    return submissions.stream().map(QuarantinedSubmission::getDeviceToken).collect(Collectors.toList());
+  }
+
+  private static QuarantinedSubmission submission(String deviceToken) {
+    return new QuarantinedSubmission(null, NOW, LocalDate.of(2021, 5, 3), deviceToken, API_TOKEN, true,
+        new byte[] {1, 2, 3});
+  }
+}
@@ -0,0 +1,159 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.GenericMetricBlock.Type;
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.GenericMetricRepository;
+import app.coronawarn.datadonation.common.protocols.FloatMetric;
+import app.coronawarn.datadonation.common.protocols.IntMetric;
+import app.coronawarn.datadonation.common.protocols.Metrics;
+import app.coronawarn.datadonation.common.protocols.TextMetric;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+
+class GenericMetricsIngestionTest {
+
+  private final GenericMetricRepository repository = mock(GenericMetricRepository.class);
+  private final IngestionConfiguration configuration = new IngestionConfiguration();
+  private final ExecutorService requests = Executors.newCachedThreadPool();
+
+  private GenericMetricsIngestion underTest;
+
+  @BeforeEach
+  void setup() {
+    configuration.setEnabled(true);
+    configuration.setMaxGenericValues(1000);
+    configuration.setMaxDelayMillis(60_000);
+    underTest = new GenericMetricsIngestion(repository, configuration);
+    underTest.afterPropertiesSet();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    underTest.destroy();
+    requests.shutdownNow();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void valuesOfOneKeyShouldBeWrittenAsOneBlock() throws Exception {
+    CompletableFuture<Void> first = submitAsync(1, 3);
+    CompletableFuture<Void> second = submitAsync(2, 6);
+    verify(repository, never()).insertAll(any());
+    assertThat(first).isNotDone();
+
+    underTest.flush();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    ArgumentCaptor<Collection<GenericMetricBlock>> blocks = ArgumentCaptor.forClass(Collection.class);
+    verify(repository, times(1)).insertAll(blocks.capture());
+    assertThat(blocks.getValue()).hasSize(3);
+    assertThat(blocks.getValue()).anySatisfy(block -> {
+      assertThat(block.getType()).isEqualTo(Type.INT);
+      assertThat(block.getKey()).isEqualTo(0xFFFFFFFFL);
+      assertThat(block.getValues()).containsExactlyInAnyOrder(1L, 2L);
+    });
+  }
+
+  @Test
+  void failedWriteShouldFailItsSubmissions() throws Exception {
+    QueryTimeoutException failure = new QueryTimeoutException("timeout");
+    doThrow(failure).when(repository).insertAll(any());
+    CompletableFuture<Void> submission = submitAsync(1, 3);
+
+    underTest.flush();
+
+    assertThatThrownBy(() -> submission.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(failure);
+  }
+
+  @Test
+  void submissionsShouldBeRejectedOnceTheBufferIsFull() throws Exception {
+    configuration.setMaxPendingGenericValues(3);
+    CompletableFuture<Void> accepted = submitAsync(1, 3);
+
+    assertThatThrownBy(() -> underTest.submit(metrics(2))).isInstanceOf(StorageOverloaded.class);
+
+    underTest.flush();
+    accepted.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void pendingValuesShouldBeWrittenOnShutdown() throws Exception {
+    CompletableFuture<Void> submission = submitAsync(1, 3);
+
+    underTest.destroy();
+
+    submission.get(5, TimeUnit.SECONDS);
+    verify(repository, times(1)).insertAll(any());
+  }
+
+  @Test
+  void valuesShouldBeBufferedWithoutBatchedSubmissions() throws Exception {
+    configuration.setEnabled(false);
+    CompletableFuture<Void> first = submitAsync(1, 3);
+    CompletableFuture<Void> second = submitAsync(2, 6);
+    verify(repository, never()).insertAll(any());
+
+    underTest.flush();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    verify(repository, times(1)).insertAll(any());
+  }
+
+  @Test
+  void disabledBufferShouldWriteImmediately() {
+    IngestionConfiguration unbuffered = new IngestionConfiguration();
+    unbuffered.setGenericMetricsEnabled(false);
+    GenericMetricsIngestion direct = new GenericMetricsIngestion(repository, unbuffered);
+    direct.afterPropertiesSet();
+
+    direct.submit(metrics(1));
+
+    verify(repository, times(1)).insertAll(any());
+  }
+
+  /**
+   * Submits from another thread, since a submission only returns once its values are written, and waits until the
+   * values are buffered.
+   */
+  private CompletableFuture<Void> submitAsync(long counter, int expectedPending) throws InterruptedException {
+    CompletableFuture<Void> submission = CompletableFuture.runAsync(() -> underTest.submit(metrics(counter)),
+        requests);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (underTest.getPendingValues() < expectedPending && !submission.isDone()
+        && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    return submission;
+  }
+
+  private static Metrics metrics(long counter) {
+    return Metrics.newBuilder()
+        .addIntData(IntMetric.newBuilder().setKey(-1).setValue(counter))
+        .addFloatData(FloatMetric.newBuilder().setKey(2).setValue(0.5))
+        .addTextData(TextMetric.newBuilder().setKey(3).setValue("text"))
+        .build();
+  }
+}
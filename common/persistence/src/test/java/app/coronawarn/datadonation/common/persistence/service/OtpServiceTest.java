@@ -116,7 +116,7 @@ public class OtpServiceTest {
 
       OneTimePassword otp = generateValidOtp();
       otpService.createOtp(otp, validityInHours);
-      when(otpRepository.findById(otp.getPassword())).thenReturn(Optional.of(otp));
+      when(otpRepository.findById(otp.getId())).thenReturn(Optional.of(otp));
 
       OtpState state = otpService.redeemOtp(otp);
       assertThat(state.equals(OtpState.VALID));
@@ -127,7 +127,7 @@ public class OtpServiceTest {
       OneTimePassword otp = generateValidOtp();
       otp.setPassword(otp.getPassword().toUpperCase());
       when(otpRepository.save(otp)).thenReturn(otp);
-      when(otpRepository.findById(otp.getPassword())).thenReturn(Optional.of(otp));
+      when(otpRepository.findById(otp.getId())).thenReturn(Optional.of(otp));
 
       OtpState state = otpService.redeemOtp(otp);
       assertThat(state.equals(OtpState.VALID));
@@ -141,7 +141,7 @@ public class OtpServiceTest {
     void testRedeemExpired() {
       OneTimePassword otp = generateValidOtp();
       otp.setExpirationTimestamp(twoHoursAgo);
-      when(otpRepository.findById(otp.getPassword())).thenReturn(Optional.of(otp));
+      when(otpRepository.findById(otp.getId())).thenReturn(Optional.of(otp));
 
       OtpState state = otpService.redeemOtp(otp);
       assertThat(state.equals(OtpState.EXPIRED));
@@ -151,7 +151,7 @@ public class OtpServiceTest {
     void testRedeemRedeemed() {
       OneTimePassword otp = generateValidOtp();
       otp.setRedemptionTimestamp(twoHoursAgo);
-      when(otpRepository.findById(otp.getPassword())).thenReturn(Optional.of(otp));
+      when(otpRepository.findById(otp.getId())).thenReturn(Optional.of(otp));
 
       OtpState state = otpService.redeemOtp(otp);
       assertThat(state.equals(OtpState.REDEEMED));
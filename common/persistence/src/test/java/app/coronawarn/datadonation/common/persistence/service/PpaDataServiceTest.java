@@ -3,22 +3,15 @@ package app.coronawarn.datadonation.common.persistence.service;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import java.util.List;
-import java.util.Set;
 import org.junit.jupiter.api.Test;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.errors.MetricsDataCouldNotBeStored;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureRiskMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureWindowRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithClientMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithUserMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsMockData;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.TestResultMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.metrics.UserMetadataRepository;
 
 class PpaDataServiceTest {
 
@@ -64,16 +57,15 @@ class PpaDataServiceTest {
     return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
         MetricsMockData.getExposureWindows(), MetricsMockData.getTestResultMetric(),
         MetricsMockData.getKeySubmissionWithClientMetadata(),
-        new KeySubmissionMetadataWithUserMetadata(null, null, null, null, null, null, null, null,
-            null, null),
+        new KeySubmissionMetadataWithUserMetadata(null, false, false, false, 0, 0, 0, 0, null, null),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
   }
 
   private PpaDataStorageRequest invalidKeySubmissionWithClientMetadataRequest() {
     return new PpaDataStorageRequest(
         MetricsMockData.getExposureRiskMetadata(), MetricsMockData.getExposureWindows(),
-        MetricsMockData.getTestResultMetric(), new KeySubmissionMetadataWithClientMetadata(null,
-            null, null, null, null, null, null, null, null),
+        MetricsMockData.getTestResultMetric(),
+        new KeySubmissionMetadataWithClientMetadata(null, false, false, false, false, false, 0, null, null),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
   }
@@ -81,7 +73,7 @@ class PpaDataServiceTest {
   private PpaDataStorageRequest invalidTestResultRequest() {
     return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
         MetricsMockData.getExposureWindows(),
-        new TestResultMetadata(null, null, null, null, null, null, null, null),
+        new TestResultMetadata(null, 0, 0, 0, 0, 0, null, null),
         MetricsMockData.getKeySubmissionWithClientMetadata(),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
@@ -89,7 +81,7 @@ class PpaDataServiceTest {
 
   private PpaDataStorageRequest invalidExpposureWidowRequest() {
     return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
-        List.of(new ExposureWindow(null, null, null, null, null, null, null, null, null, Set.of())),
+        List.of(new ExposureWindow(null, null, 0, 0, 0, 0, 0.0, null, null, ScanInstances.EMPTY)),
         MetricsMockData.getTestResultMetric(), MetricsMockData.getKeySubmissionWithClientMetadata(),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
@@ -97,7 +89,7 @@ class PpaDataServiceTest {
 
   private PpaDataStorageRequest invalidRiskMetadataRequest() {
     return new PpaDataStorageRequest(
-        new ExposureRiskMetadata(null, null, null, null, null, null, null),
+        new ExposureRiskMetadata(null, 0, false, null, false, null, null),
         MetricsMockData.getExposureWindows(), MetricsMockData.getTestResultMetric(),
         MetricsMockData.getKeySubmissionWithClientMetadata(),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
@@ -105,20 +97,6 @@ class PpaDataServiceTest {
   }
 
   private PpaDataService getMockServiceInstance() {
-    ExposureRiskMetadataRepository exposureRiskMetadataRepo =
-        mock(ExposureRiskMetadataRepository.class);
-    ExposureWindowRepository exposureWindowRepo = mock(ExposureWindowRepository.class);
-    TestResultMetadataRepository testResultRepo = mock(TestResultMetadataRepository.class);
-    KeySubmissionMetadataWithUserMetadataRepository keySubmissionWithUserMetadataRepo =
-        mock(KeySubmissionMetadataWithUserMetadataRepository.class);
-    KeySubmissionMetadataWithClientMetadataRepository keySubmissionWithClientMetadataRepo =
-        mock(KeySubmissionMetadataWithClientMetadataRepository.class);
-    UserMetadataRepository userMetadataRepo = mock(UserMetadataRepository.class);
-    ClientMetadataRepository clientMetadataRepo = mock(ClientMetadataRepository.class);
-    
-    PpaDataService ppaDataService = new PpaDataService(exposureRiskMetadataRepo, exposureWindowRepo,
-        testResultRepo, keySubmissionWithUserMetadataRepo, keySubmissionWithClientMetadataRepo,
-        userMetadataRepo, clientMetadataRepo);
-    return ppaDataService;
+    return new PpaDataService(mock(ShuffledIngestion.class));
   }
 }
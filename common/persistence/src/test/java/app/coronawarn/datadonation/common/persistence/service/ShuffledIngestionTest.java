@@ -0,0 +1,192 @@
+package app.coronawarn.datadonation.common.persistence.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsMockData;
+import app.coronawarn.datadonation.common.persistence.staging.StagingWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+
+class ShuffledIngestionTest {
+
+  private final MetricsBatchWriter writer = mock(MetricsBatchWriter.class);
+  private final StagingWriter stagingWriter = mock(StagingWriter.class);
+  private final IngestionConfiguration configuration = new IngestionConfiguration();
+  private final ClientMetadataDictionary clientMetadataDictionary = mock(ClientMetadataDictionary.class);
+  private final ExecutorService requests = Executors.newCachedThreadPool();
+
+  private ShuffledIngestion underTest;
+
+  @BeforeEach
+  void setup() {
+    configuration.setEnabled(true);
+    configuration.setMaxSubmissions(100);
+    configuration.setMaxDelayMillis(60_000);
+    underTest = new ShuffledIngestion(writer, stagingWriter, configuration, clientMetadataDictionary);
+    underTest.afterPropertiesSet();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    underTest.destroy();
+    requests.shutdownNow();
+  }
+
+  @Test
+  void submissionsShouldBeWrittenTogether() throws Exception {
+    CompletableFuture<Void> first = submitAsync(1);
+    CompletableFuture<Void> second = submitAsync(2);
+    verify(writer, never()).write(any());
+    assertThat(first).isNotDone();
+
+    underTest.flush();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    ArgumentCaptor<MetricsBatch> batch = ArgumentCaptor.forClass(MetricsBatch.class);
+    verify(writer, times(1)).write(batch.capture());
+    assertThat(batch.getValue().getSubmissions()).isEqualTo(2);
+    assertThat(batch.getValue().getExposureRiskMetadata()).hasSize(2);
+    assertThat(batch.getValue().getExposureWindows())
+        .hasSize(2 * MetricsMockData.getExposureWindows().size());
+  }
+
+  @Test
+  void fullBatchShouldBeWrittenWithoutDelay() throws Exception {
+    configuration.setMaxSubmissions(2);
+
+    CompletableFuture<Void> first = submitAsync(1);
+    CompletableFuture<Void> second = submitAsync(2);
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    verify(writer, times(1)).write(any());
+  }
+
+  @Test
+  void failedBatchShouldFailItsSubmissions() throws Exception {
+    QueryTimeoutException failure = new QueryTimeoutException("timeout");
+    doThrow(failure).when(writer).write(any());
+    CompletableFuture<Void> submission = submitAsync(1);
+
+    underTest.flush();
+
+    assertThatThrownBy(() -> submission.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(failure);
+  }
+
+  @Test
+  void submissionsShouldBeRejectedOnceTheBufferIsFull() throws Exception {
+    configuration.setMaxPendingSubmissions(1);
+    CompletableFuture<Void> accepted = submitAsync(1);
+
+    assertThatThrownBy(() -> underTest.submit(request())).isInstanceOf(StorageOverloaded.class);
+
+    underTest.flush();
+    accepted.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void emptyBatchShouldNotBeWritten() {
+    underTest.flush();
+
+    verify(writer, never()).write(any());
+  }
+
+  @Test
+  void pendingSubmissionsShouldBeWrittenOnShutdown() throws Exception {
+    CompletableFuture<Void> submission = submitAsync(1);
+
+    underTest.destroy();
+
+    submission.get(5, TimeUnit.SECONDS);
+    verify(writer, times(1)).write(any());
+  }
+
+  @Test
+  void disabledIngestionShouldWriteImmediately() {
+    IngestionConfiguration disabled = new IngestionConfiguration();
+    ShuffledIngestion direct = new ShuffledIngestion(writer, stagingWriter, disabled, clientMetadataDictionary);
+    direct.afterPropertiesSet();
+
+    direct.submit(request());
+
+    verify(writer, times(1)).write(any());
+  }
+
+  @Test
+  void stagingWithoutBatchingShouldBeRefused() {
+    when(stagingWriter.isEnabled()).thenReturn(true);
+    ShuffledIngestion direct = new ShuffledIngestion(writer, stagingWriter, new IngestionConfiguration(),
+        clientMetadataDictionary);
+
+    assertThatThrownBy(direct::afterPropertiesSet).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void enabledStagingShouldReceiveTheBatches() throws Exception {
+    when(stagingWriter.isEnabled()).thenReturn(true);
+    CompletableFuture<Void> submission = submitAsync(1);
+
+    underTest.flush();
+
+    submission.get(5, TimeUnit.SECONDS);
+    verify(stagingWriter, times(1)).stage(any());
+    verify(writer, never()).write(any());
+  }
+
+  @Test
+  void clientMetadataShouldBeRegisteredBeforeTheBatchIsWritten() throws Exception {
+    CompletableFuture<Void> submission = submitAsync(1);
+
+    underTest.flush();
+
+    submission.get(5, TimeUnit.SECONDS);
+    InOrder inOrder = inOrder(clientMetadataDictionary, writer);
+    inOrder.verify(clientMetadataDictionary).idsOf(any());
+    inOrder.verify(writer).write(any());
+  }
+
+  /**
+   * Submits from another thread, since a submission only returns once its batch is written, and waits until the
+   * submission is buffered.
+   */
+  private CompletableFuture<Void> submitAsync(int expectedPending) throws InterruptedException {
+    CompletableFuture<Void> submission = CompletableFuture.runAsync(() -> underTest.submit(request()), requests);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (underTest.getPendingSubmissions() < expectedPending && !submission.isDone()
+        && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    return submission;
+  }
+
+  private static PpaDataStorageRequest request() {
+    return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
+        MetricsMockData.getExposureWindows(), MetricsMockData.getTestResultMetric(),
+        MetricsMockData.getKeySubmissionWithClientMetadata(),
+        MetricsMockData.getKeySubmissionWithUserMetadata(),
+        MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
+  }
+}
@@ -0,0 +1,64 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsMockData;
+import app.coronawarn.datadonation.common.persistence.service.MetricsBatch;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJdbcTest
+class DurableTableWriterTest {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ClientMetadataDictionary clientMetadataDictionary;
+
+  @Test
+  void everyRowOfTheBatchShouldBeInserted() {
+    MetricsBatch batch = batch();
+    batch.setClientMetadataIds(clientMetadataDictionary.idsOf(batch.getClientMetadataDetails()));
+    Map<StagedTable, Integer> before = counts();
+
+    new DurableTableWriter(jdbcTemplate).insert(batch);
+
+    // one row per metric, and the two scan instances of the single exposure window
+    counts().forEach((table, count) -> assertThat(count - before.get(table)).as(table.getTableName())
+        .isEqualTo(table == StagedTable.SCAN_INSTANCE ? 2 : 1));
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM scan_instance s "
+        + "WHERE NOT EXISTS (SELECT 1 FROM exposure_window w WHERE w.id = s.exposure_window_id)", Integer.class))
+        .isZero();
+  }
+
+  @Test
+  void unresolvedClientMetadataShouldBeRejected() {
+    DurableTableWriter underTest = new DurableTableWriter(jdbcTemplate);
+
+    assertThatThrownBy(() -> underTest.insert(batch())).isInstanceOf(IllegalStateException.class);
+  }
+
+  private Map<StagedTable, Integer> counts() {
+    Map<StagedTable, Integer> counts = new EnumMap<>(StagedTable.class);
+    for (StagedTable table : StagedTable.values()) {
+      counts.put(table, jdbcTemplate.queryForObject("SELECT count(*) FROM " + table.getTableName(), Integer.class));
+    }
+    return counts;
+  }
+
+  private static MetricsBatch batch() {
+    return MetricsBatch.of(new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
+        MetricsMockData.getExposureWindows(), MetricsMockData.getTestResultMetric(),
+        MetricsMockData.getKeySubmissionWithClientMetadata(),
+        MetricsMockData.getKeySubmissionWithUserMetadata(),
+        MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata()));
+  }
+}
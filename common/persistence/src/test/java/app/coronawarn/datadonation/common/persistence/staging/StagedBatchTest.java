@@ -0,0 +1,96 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.datadonation.common.persistence.repository.PooledIdAllocator;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsMockData;
+import app.coronawarn.datadonation.common.persistence.service.MetricsBatch;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StagedBatchTest {
+
+  @TempDir
+  Path journalDirectory;
+
+  @Test
+  void everyRowShouldMatchTheColumnsOfItsTable() {
+    StagedBatch batch = stagedBatch();
+
+    assertThat(batch.getRows()).containsOnlyKeys(StagedTable.values());
+    batch.getRows().forEach((table, rows) -> rows
+        .forEach(row -> assertThat(row).hasSize(table.getInsertColumns().size())));
+  }
+
+  @Test
+  void scanInstancesShouldReferenceTheIdsOfTheirWindows() {
+    StagedBatch batch = stagedBatch();
+
+    List<Object[]> windows = batch.getRows().get(StagedTable.EXPOSURE_WINDOW);
+    List<Object[]> scanInstances = batch.getRows().get(StagedTable.SCAN_INSTANCE);
+    assertThat(scanInstances).allSatisfy(scanInstance -> assertThat(windows)
+        .anySatisfy(window -> assertThat(window[0]).isEqualTo(scanInstance[1])));
+  }
+
+  @Test
+  void clientMetadataShouldBeStagedAsDictionaryId() {
+    StagedBatch batch = stagedBatch();
+
+    assertThat(batch.getRows().get(StagedTable.CLIENT_METADATA)).allSatisfy(row -> assertThat(row[0]).isEqualTo(7));
+  }
+
+  @Test
+  void batchShouldSurviveTheJournalEncoding() throws Exception {
+    StagedBatch batch = stagedBatch();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    batch.writeTo(new DataOutputStream(bytes));
+
+    StagedBatch read = StagedBatch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(read.getBatchId()).isEqualTo(batch.getBatchId());
+    batch.getRows().forEach((table, rows) -> assertThat(read.getRows().get(table))
+        .usingElementComparator((left, right) -> Arrays.equals(left, right) ? 0 : 1)
+        .containsExactlyElementsOf(rows));
+  }
+
+  @Test
+  void journalShouldKeepBatchesUntilDeleted() throws Exception {
+    StagingJournal journal = new StagingJournal(journalDirectory);
+    journal.write(stagedBatch());
+
+    assertThat(journal.list()).containsExactly(42L);
+    assertThat(journal.read(42).getRowCount()).isEqualTo(stagedBatch().getRowCount());
+    assertThat(new StagingJournal(journalDirectory).getInstanceId()).isEqualTo(journal.getInstanceId());
+
+    journal.delete(42);
+    assertThat(journal.list()).isEmpty();
+  }
+
+  private static StagedBatch stagedBatch() {
+    MetricsBatch batch = MetricsBatch.of(new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
+        MetricsMockData.getExposureWindows(), MetricsMockData.getTestResultMetric(),
+        MetricsMockData.getKeySubmissionWithClientMetadata(),
+        MetricsMockData.getKeySubmissionWithUserMetadata(),
+        MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata()));
+    return StagedBatch.of(42, batch, allocator(100), allocator(1000), clientMetadata -> 7);
+  }
+
+  private static PooledIdAllocator allocator(long firstId) {
+    PooledIdAllocator allocator = mock(PooledIdAllocator.class);
+    when(allocator.allocate(anyInt()))
+        .then(invocation -> LongStream.range(firstId, firstId + (int) invocation.getArgument(0)).toArray());
+    return allocator;
+  }
+}
@@ -0,0 +1,188 @@
+package app.coronawarn.datadonation.common.persistence.staging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.MetricsMockData;
+import app.coronawarn.datadonation.common.persistence.service.MetricsBatch;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stages, merges and reconciles against the real schema. The writer and merger commit in transactions of their own,
+ * so the test runs without a surrounding transaction and empties the tables itself.
+ */
+@DataJdbcTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StagingMergerTest {
+
+  @TempDir
+  Path journalDirectory;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private ClientMetadataDictionary clientMetadataDictionary;
+
+  private StagingWriter writer;
+  private StagingMerger underTest;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setup() throws Exception {
+    truncateTables();
+    StagingConfiguration configuration = new StagingConfiguration();
+    configuration.setEnabled(true);
+    configuration.setJournalDirectory(journalDirectory.toString());
+    writer = new StagingWriter(configuration, jdbcTemplate, transactionManager, clientMetadataDictionary);
+    writer.afterPropertiesSet();
+    underTest = new StagingMerger(configuration, writer, jdbcTemplate, transactionManager,
+        mock(ObjectProvider.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    truncateTables();
+  }
+
+  @Test
+  void mergedBatchShouldBeDeletedFromTheJournal() throws Exception {
+    writer.stage(batch());
+    int stagedRows = countRows(true);
+
+    assertThat(underTest.merge()).isEqualTo(stagedRows);
+    assertThat(countRows(true)).isZero();
+    assertThat(countRows(false)).isEqualTo(stagedRows);
+    for (StagedTable table : StagedTable.values()) {
+      assertThat(count(table.getTableName())).as(table.getTableName()).isPositive();
+    }
+    assertThat(journaledBatches()).hasSize(1);
+
+    writer.reconcile();
+
+    assertThat(journaledBatches()).isEmpty();
+    assertThat(writer.getJournaledBatches()).isZero();
+    assertThat(count("staging_merged")).isZero();
+  }
+
+  @Test
+  void pendingBatchShouldStayJournaledAndStaged() throws Exception {
+    writer.stage(batch());
+    int stagedRows = countRows(true);
+
+    writer.reconcile();
+
+    assertThat(journaledBatches()).hasSize(1);
+    assertThat(count("staging_batch")).isEqualTo(1);
+    assertThat(countRows(true)).isEqualTo(stagedRows);
+  }
+
+  @Test
+  void lostBatchShouldBeStagedAgainFromTheJournal() throws Exception {
+    writer.stage(batch());
+    int stagedRows = countRows(true);
+    // what Postgres does to the UNLOGGED tables after a crash
+    jdbcTemplate.execute("TRUNCATE staging_batch, " + Arrays.stream(StagedTable.values())
+        .map(StagedTable::getStagingTableName).collect(Collectors.joining(", ")));
+
+    writer.reconcile();
+
+    assertThat(count("staging_batch")).isEqualTo(1);
+    assertThat(countRows(true)).isEqualTo(stagedRows);
+    assertThat(underTest.merge()).isEqualTo(stagedRows);
+    writer.reconcile();
+    assertThat(journaledBatches()).isEmpty();
+    assertThat(countRows(false)).isEqualTo(stagedRows);
+  }
+
+  @Test
+  void unreadableBatchShouldBeQuarantined() throws Exception {
+    Files.writeString(journalDirectory.resolve("1.batch"), "corrupt", StandardCharsets.US_ASCII);
+    writer.stage(batch());
+
+    writer.reconcile();
+
+    assertThat(journaledBatches()).hasSize(1);
+    assertThat(journalDirectory.resolve("1.batch.corrupt")).exists();
+    assertThat(writer.getJournaledBatches()).isEqualTo(1);
+    assertThat(count("staging_batch")).isEqualTo(1);
+  }
+
+  @Test
+  void concurrentMergeShouldBeSkipped() throws Exception {
+    writer.stage(batch());
+
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement();
+          ResultSet lock = statement.executeQuery("SELECT pg_try_advisory_xact_lock(hashtext('staging_merge'))")) {
+        assertThat(lock.next() && lock.getBoolean(1)).isTrue();
+
+        assertThat(underTest.merge()).isEqualTo(-1);
+      } finally {
+        connection.rollback();
+      }
+    }
+    assertThat(count("staging_batch")).isEqualTo(1);
+    assertThat(countRows(false)).isZero();
+  }
+
+  private List<Path> journaledBatches() throws Exception {
+    try (Stream<Path> files = Files.list(journalDirectory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".batch")).collect(Collectors.toList());
+    }
+  }
+
+  private int countRows(boolean staging) {
+    return Arrays.stream(StagedTable.values())
+        .mapToInt(table -> count(staging ? table.getStagingTableName() : table.getTableName()))
+        .sum();
+  }
+
+  private int count(String table) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+  }
+
+  private void truncateTables() {
+    jdbcTemplate.execute("TRUNCATE staging_batch, staging_merged, " + Arrays.stream(StagedTable.values())
+        .flatMap(table -> Stream.of(table.getTableName(), table.getStagingTableName()))
+        .collect(Collectors.joining(", ")));
+  }
+
+  private static MetricsBatch batch() {
+    return MetricsBatch.of(new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
+        MetricsMockData.getExposureWindows(), MetricsMockData.getTestResultMetric(),
+        MetricsMockData.getKeySubmissionWithClientMetadata(),
+        MetricsMockData.getKeySubmissionWithUserMetadata(),
+        MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata()));
+  }
+}
@@ -0,0 +1,38 @@
+package app.coronawarn.datadonation.services.edus.config;
+
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the mutual TLS sessions of the calling services in a sized cache, so reconnects resume them instead of running
+ * a full handshake, and lets the server's cipher order (ECDHE-ECDSA first) win over the client's.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "server.ssl", name = "enabled", havingValue = "true")
+public class TlsConfiguration {
+
+  private static final String OPENSSL_IMPLEMENTATION = "org.apache.tomcat.util.net.openssl.OpenSSLImplementation";
+
+  @Bean
+  WebServerFactoryCustomizer<TomcatServletWebServerFactory> tlsSessionCustomizer(
+      @Value("${tls.session-cache-size:20000}") int sessionCacheSize,
+      @Value("${tls.session-timeout-seconds:3600}") int sessionTimeoutSeconds,
+      @Value("${tls.honor-cipher-order:true}") boolean honorCipherOrder,
+      @Value("${tls.native-provider:false}") boolean nativeProvider) {
+    return factory -> factory.addConnectorCustomizers(connector -> {
+      if (nativeProvider) {
+        connector.setProperty("sslImplementationName", OPENSSL_IMPLEMENTATION);
+      }
+      for (SSLHostConfig sslHostConfig : connector.findSslHostConfigs()) {
+        sslHostConfig.setSessionCacheSize(sessionCacheSize);
+        sslHostConfig.setSessionTimeout(sessionTimeoutSeconds);
+        sslHostConfig.setHonorCipherOrder(honorCipherOrder);
+      }
+    });
+  }
+}
@@ -15,6 +15,7 @@ import app.coronawarn.datadonation.common.persistence.domain.OneTimePassword;
 import app.coronawarn.datadonation.common.persistence.repository.OneTimePasswordRepository;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -136,7 +137,8 @@ public class OtpRedemptionIntegrationTest {
     OtpRedemptionRequest validOtpRedemptionRequest = new OtpRedemptionRequest();
     validOtpRedemptionRequest.setOtp(VALID_UUID.toUpperCase());
 
-    when(otpRepository.findById(VALID_UUID.toLowerCase()))
+    // the uuid column matches independent of case, the stored otp is returned in its canonical form
+    when(otpRepository.findById(UUID.fromString(VALID_UUID)))
         .thenReturn(Optional.of(createOtp(VALID_UUID.toLowerCase(),
             LocalDateTime.now().plusDays(5), null)));
 
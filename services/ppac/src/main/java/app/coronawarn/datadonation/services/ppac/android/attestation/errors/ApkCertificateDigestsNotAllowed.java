@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class ApkCertificateDigestsNotAllowed extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class ApkCertificateDigestsNotAllowed extends VerificationFailure {
 
   private static final long serialVersionUID = 7913843985526360886L;
 
@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class ApkPackageNameNotAllowed extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class ApkPackageNameNotAllowed extends VerificationFailure {
 
   private static final long serialVersionUID = 8772200600466947124L;
 
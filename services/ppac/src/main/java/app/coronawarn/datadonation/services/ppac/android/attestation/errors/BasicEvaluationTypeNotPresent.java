@@ -1,7 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
 
-public class BasicEvaluationTypeNotPresent extends RuntimeException {
+public class BasicEvaluationTypeNotPresent extends VerificationFailure {
 
   private static final long serialVersionUID = -2513064483236579622L;
 
@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class BasicIntegrityIsRequired extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class BasicIntegrityIsRequired extends VerificationFailure {
 
   private static final long serialVersionUID = 2664915373178687868L;
 
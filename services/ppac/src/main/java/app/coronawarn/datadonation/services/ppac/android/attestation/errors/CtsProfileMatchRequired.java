@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class CtsProfileMatchRequired extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class CtsProfileMatchRequired extends VerificationFailure {
 
   private static final long serialVersionUID = 3672399350081903614L;
 
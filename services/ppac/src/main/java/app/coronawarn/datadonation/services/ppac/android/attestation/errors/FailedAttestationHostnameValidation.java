@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public final class FailedAttestationHostnameValidation extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public final class FailedAttestationHostnameValidation extends VerificationFailure {
 
   private static final long serialVersionUID = -8531642585453016232L;
 
@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public final class FailedJwsParsing extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public final class FailedJwsParsing extends VerificationFailure {
   
   private static final long serialVersionUID = -1579569743042757810L;
   
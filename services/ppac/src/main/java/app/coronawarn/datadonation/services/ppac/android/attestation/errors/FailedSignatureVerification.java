@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public final class FailedSignatureVerification extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public final class FailedSignatureVerification extends VerificationFailure {
 
   private static final long serialVersionUID = 5078963545906035590L;
   
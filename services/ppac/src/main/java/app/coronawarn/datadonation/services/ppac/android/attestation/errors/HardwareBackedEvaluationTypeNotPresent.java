@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class HardwareBackedEvaluationTypeNotPresent extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class HardwareBackedEvaluationTypeNotPresent extends VerificationFailure {
 
   private static final long serialVersionUID = -1834500566508031768L;
 
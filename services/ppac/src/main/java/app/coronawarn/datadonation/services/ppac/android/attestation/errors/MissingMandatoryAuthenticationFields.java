@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class MissingMandatoryAuthenticationFields extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class MissingMandatoryAuthenticationFields extends VerificationFailure {
 
   private static final long serialVersionUID = 6711968113382365103L;
   
@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
-public class NonceCouldNotBeVerified extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class NonceCouldNotBeVerified extends VerificationFailure {
 
   private static final long serialVersionUID = -288077614896557469L;
 
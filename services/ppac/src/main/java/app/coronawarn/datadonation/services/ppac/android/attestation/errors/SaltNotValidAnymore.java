@@ -1,8 +1,9 @@
 package app.coronawarn.datadonation.services.ppac.android.attestation.errors;
 
 import app.coronawarn.datadonation.common.persistence.domain.ppac.android.Salt;
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
 
-public class SaltNotValidAnymore extends RuntimeException {
+public class SaltNotValidAnymore extends VerificationFailure {
 
   private static final long serialVersionUID = 1710485742505301467L;
 
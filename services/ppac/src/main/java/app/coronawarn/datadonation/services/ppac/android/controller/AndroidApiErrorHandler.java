@@ -3,7 +3,6 @@ package app.coronawarn.datadonation.services.ppac.android.controller;
 import static app.coronawarn.datadonation.services.ppac.commons.web.DataSubmissionResponse.of;
 import static java.util.Map.*;
 
-import app.coronawarn.datadonation.common.config.SecurityLogger;
 import app.coronawarn.datadonation.services.ppac.android.attestation.errors.ApkCertificateDigestsNotAllowed;
 import app.coronawarn.datadonation.services.ppac.android.attestation.errors.ApkPackageNameNotAllowed;
 import app.coronawarn.datadonation.services.ppac.android.attestation.errors.BasicEvaluationTypeNotPresent;
@@ -19,6 +18,7 @@ import app.coronawarn.datadonation.services.ppac.android.attestation.errors.Nonc
 import app.coronawarn.datadonation.services.ppac.android.attestation.errors.NonceCouldNotBeVerified;
 import app.coronawarn.datadonation.services.ppac.android.attestation.errors.SaltNotValidAnymore;
 import app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode;
+import app.coronawarn.datadonation.services.ppac.logging.SecurityEvents;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -31,10 +31,10 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class AndroidApiErrorHandler extends ResponseEntityExceptionHandler {
 
-  private SecurityLogger securityLogger;
+  private SecurityEvents securityEvents;
 
-  public AndroidApiErrorHandler(SecurityLogger securityLogger) {
-    this.securityLogger = securityLogger;
+  public AndroidApiErrorHandler(SecurityEvents securityEvents) {
+    this.securityEvents = securityEvents;
   }
 
   /**
@@ -57,7 +57,7 @@ public class AndroidApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<Object> handleAuthenticationErrors(RuntimeException runtimeException,
       WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(runtimeException);
-    errorCode.secureLog(securityLogger, runtimeException);
+    errorCode.secureLog(securityEvents, runtimeException);
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(of(errorCode));
   }
 
@@ -69,7 +69,7 @@ public class AndroidApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<Object> handleForbiddenErrors(RuntimeException runtimeException,
       WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(runtimeException);
-    errorCode.secureLog(securityLogger, runtimeException);
+    errorCode.secureLog(securityEvents, runtimeException);
     return ResponseEntity.status(HttpStatus.FORBIDDEN).body(of(errorCode));
   }
 
@@ -77,7 +77,7 @@ public class AndroidApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<Object> handleMissingInformationOrBadRequests(
       RuntimeException runtimeException, WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(runtimeException);
-    errorCode.secureLog(securityLogger, runtimeException);
+    errorCode.secureLog(securityEvents, runtimeException);
     return ResponseEntity.badRequest().body(of(errorCode));
   }
 
@@ -85,7 +85,7 @@ public class AndroidApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<Object> handleInternalServerErrors(RuntimeException runtimeException,
       WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(runtimeException);
-    errorCode.secureLog(securityLogger, runtimeException);
+    errorCode.secureLog(securityEvents, runtimeException);
     return new ResponseEntity<>(PpacErrorCode.INTERNAL_SERVER_ERROR, new HttpHeaders(),
         HttpStatus.INTERNAL_SERVER_ERROR);
   }
@@ -2,10 +2,14 @@ package app.coronawarn.datadonation.services.ppac.android.controller;
 
 import app.coronawarn.datadonation.common.config.UrlConstants;
 import app.coronawarn.datadonation.common.persistence.domain.OneTimePassword;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.service.GenericMetricsIngestion;
 import app.coronawarn.datadonation.common.persistence.service.OtpCreationResponse;
 import app.coronawarn.datadonation.common.persistence.service.OtpService;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataService;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import app.coronawarn.datadonation.common.protocols.AuthAndroid;
+import app.coronawarn.datadonation.common.protocols.SubmissionPayloadAndroid;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtp.EDUSOneTimePassword;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtpRequestAndroid.EDUSOneTimePasswordRequestAndroid;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequestAndroid.PPADataRequestAndroid;
@@ -13,10 +17,14 @@ import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacAndroid.PP
 import app.coronawarn.datadonation.services.ppac.android.attestation.AttestationStatement;
 import app.coronawarn.datadonation.services.ppac.android.attestation.DeviceAttestationVerifier;
 import app.coronawarn.datadonation.services.ppac.android.attestation.NonceCalculator;
-import app.coronawarn.datadonation.services.ppac.android.attestation.salt.ProdSaltVerificationStrategy;
 import app.coronawarn.datadonation.services.ppac.android.controller.validation.PpaDataRequestAndroidValidator;
 import app.coronawarn.datadonation.services.ppac.android.controller.validation.ValidEdusOneTimePasswordRequestAndroid;
+import app.coronawarn.datadonation.services.ppac.commons.MetricsPayloadValidator;
 import app.coronawarn.datadonation.services.ppac.commons.PpacScenario;
+import app.coronawarn.datadonation.services.ppac.commons.admission.AdmissionThrottle;
+import app.coronawarn.datadonation.services.ppac.commons.journal.JournaledSubmission;
+import app.coronawarn.datadonation.services.ppac.commons.journal.SubmissionJournal;
+import app.coronawarn.datadonation.services.ppac.commons.web.IdempotentResponses;
 import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import com.google.api.client.json.webtoken.JsonWebSignature;
 import java.time.ZonedDateTime;
@@ -36,7 +44,7 @@ import org.springframework.web.bind.annotation.RestController;
 @Validated
 public class AndroidController {
 
-  private static final Logger logger = LoggerFactory.getLogger(ProdSaltVerificationStrategy.class);
+  private static final Logger logger = LoggerFactory.getLogger(AndroidController.class);
 
   private final PpacConfiguration ppacConfiguration;
   private final DeviceAttestationVerifier attestationVerifier;
@@ -44,16 +52,28 @@ public class AndroidController {
   private final OtpService otpService;
   private final PpaDataRequestAndroidConverter converter;
   private final PpaDataRequestAndroidValidator androidRequestValidator;
+  private final AdmissionThrottle admissionThrottle;
+  private final IdempotentResponses idempotentResponses;
+  private final MetricsPayloadValidator metricsValidator;
+  private final GenericMetricsIngestion genericMetricsIngestion;
+  private final SubmissionJournal submissionJournal;
 
   AndroidController(DeviceAttestationVerifier attestationVerifier, PpaDataService ppaDataService,
       PpacConfiguration ppacConfiguration, OtpService otpService, PpaDataRequestAndroidConverter converter,
-      PpaDataRequestAndroidValidator androidRequestValidator) {
+      PpaDataRequestAndroidValidator androidRequestValidator, AdmissionThrottle admissionThrottle,
+      IdempotentResponses idempotentResponses, MetricsPayloadValidator metricsValidator,
+      GenericMetricsIngestion genericMetricsIngestion, SubmissionJournal submissionJournal) {
     this.ppacConfiguration = ppacConfiguration;
     this.attestationVerifier = attestationVerifier;
     this.ppaDataService = ppaDataService;
     this.otpService = otpService;
     this.converter = converter;
     this.androidRequestValidator = androidRequestValidator;
+    this.admissionThrottle = admissionThrottle;
+    this.idempotentResponses = idempotentResponses;
+    this.metricsValidator = metricsValidator;
+    this.genericMetricsIngestion = genericMetricsIngestion;
+    this.submissionJournal = submissionJournal;
   }
 
   /**
@@ -66,19 +86,49 @@ public class AndroidController {
   public ResponseEntity<Void> submitData(
       @RequestBody PPADataRequestAndroid ppaDataRequest) {
 
-    logger.debug("Request received (base64): " + Base64.encodeBase64String(ppaDataRequest.toByteArray()));
+    if (logger.isDebugEnabled()) {
+      logger.debug("Request received (base64): {}", Base64.encodeBase64String(ppaDataRequest.toByteArray()));
+    }
 
     androidRequestValidator.validate(ppaDataRequest.getPayload(),
         ppacConfiguration.getMaxExposureWindowsToRejectSubmission());
+    admissionThrottle.admitSalt(ppaDataRequest.getAuthentication().getSalt());
+
+    return idempotentResponses.replayOrSubmit(UrlConstants.ANDROID + UrlConstants.DATA, ppaDataRequest, () -> {
+      AttestationStatement attestationStatement = attestationVerifier
+          .validate(ppaDataRequest.getAuthentication(), NonceCalculator.of(ppaDataRequest.getPayload().toByteArray()),
+              PpacScenario.PPA);
+      final TechnicalMetadata technicalMetadata = converter.createTechnicalMetadata(attestationStatement);
+      final PpaDataStorageRequest dataToStore =
+          this.converter.convertToStorageRequest(ppaDataRequest.getPayload(), ppacConfiguration, technicalMetadata);
+      ppaDataService.store(dataToStore);
+      submissionJournal.append(JournaledSubmission.android(ppaDataRequest.getPayload(), technicalMetadata));
+
+      return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    });
+  }
 
-    AttestationStatement attestationStatement = attestationVerifier
-        .validate(ppaDataRequest.getAuthentication(), NonceCalculator.of(ppaDataRequest.getPayload().toByteArray()),
-            PpacScenario.PPA);
-    final PpaDataStorageRequest dataToStore =
-        this.converter.convertToStorageRequest(ppaDataRequest, ppacConfiguration, attestationStatement);
-    ppaDataService.store(dataToStore);
-
-    return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+  /**
+   * Handles submissions of generic key/value metrics. The payload is authenticated like a data submission, the salt
+   * may only be used once.
+   *
+   * @param submission The unmarshalled protocol buffers metrics submission.
+   * @return An empty response body.
+   */
+  @PostMapping(value = UrlConstants.METRICS, consumes = "application/x-protobuf")
+  public ResponseEntity<Void> submitMetrics(@RequestBody SubmissionPayloadAndroid submission) {
+    AuthAndroid authentication = submission.getAuthentication();
+    metricsValidator.validate(submission.getMetrics());
+    admissionThrottle.admitSalt(authentication.getSalt());
+
+    return idempotentResponses.replayOrSubmit(UrlConstants.ANDROID + UrlConstants.METRICS, submission, () -> {
+      PPACAndroid ppac = PPACAndroid.newBuilder().setSafetyNetJws(authentication.getSafetyNetJwsResult())
+          .setSalt(authentication.getSalt()).build();
+      attestationVerifier.validate(ppac, NonceCalculator.of(submission.getMetrics().toByteArray()),
+          PpacScenario.METRICS);
+      genericMetricsIngestion.submit(submission.getMetrics());
+      return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    });
   }
 
   /**
@@ -92,13 +142,16 @@ public class AndroidController {
       @ValidEdusOneTimePasswordRequestAndroid @RequestBody EDUSOneTimePasswordRequestAndroid otpRequest) {
     PPACAndroid ppac = otpRequest.getAuthentication();
     EDUSOneTimePassword payload = otpRequest.getPayload();
+    admissionThrottle.admitSalt(ppac.getSalt());
 
-    attestationVerifier.validate(ppac, NonceCalculator.of(payload.toByteArray()), PpacScenario.EDUS);
+    return idempotentResponses.replayOrSubmit(UrlConstants.ANDROID + UrlConstants.OTP, otpRequest, () -> {
+      attestationVerifier.validate(ppac, NonceCalculator.of(payload.toByteArray()), PpacScenario.EDUS);
 
-    OneTimePassword otp = createOneTimePassword(ppac, payload);
+      OneTimePassword otp = createOneTimePassword(ppac, payload);
 
-    ZonedDateTime expirationTime = otpService.createOtp(otp, ppacConfiguration.getOtpValidityInHours());
-    return ResponseEntity.status(HttpStatus.OK).body(new OtpCreationResponse(expirationTime));
+      ZonedDateTime expirationTime = otpService.createOtp(otp, ppacConfiguration.getOtpValidityInHours());
+      return ResponseEntity.status(HttpStatus.OK).body(new OtpCreationResponse(expirationTime));
+    });
   }
 
   private OneTimePassword createOneTimePassword(PPACAndroid ppac, EDUSOneTimePassword payload) {
@@ -6,11 +6,12 @@ import app.coronawarn.datadonation.common.persistence.domain.metrics.ClientMetad
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.UserMetadataDetails;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.ExposureRiskMetadata;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPAClientMetadataAndroid;
@@ -29,7 +30,6 @@ import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Component;
 
@@ -42,8 +42,15 @@ public class PpaDataRequestAndroidConverter extends PpaDataRequestConverter<PPAD
    */
   public PpaDataStorageRequest convertToStorageRequest(PPADataRequestAndroid ppaDataRequest,
       PpacConfiguration ppacConfiguration, AttestationStatement attestationStatement) {
+    return convertToStorageRequest(ppaDataRequest.getPayload(), ppacConfiguration,
+        createTechnicalMetadata(attestationStatement));
+  }
 
-    PPADataAndroid payload = ppaDataRequest.getPayload();
+  /**
+   * Converts an already verified payload, with the technical metadata of its original submission.
+   */
+  public PpaDataStorageRequest convertToStorageRequest(PPADataAndroid payload, PpacConfiguration ppacConfiguration,
+      TechnicalMetadata submissionMetadata) {
     List<ExposureRiskMetadata> exposureRiskMetadata = payload.getExposureRiskMetadataSetList();
     List<PPANewExposureWindow> newExposureWindows =
         sliceExposureWindows(payload.getNewExposureWindowsList(), ppacConfiguration);
@@ -54,26 +61,33 @@ public class PpaDataRequestAndroidConverter extends PpaDataRequestConverter<PPAD
     PPAClientMetadataAndroid clientMetadata = payload.getClientMetadata();
     PPAUserMetadata userMetadata = payload.getUserMetadata();
     
-    TechnicalMetadata technicalMetadata = createTechnicalMetadata(attestationStatement);
+    TechnicalMetadata technicalMetadata = canonical(submissionMetadata);
+    ClientMetadataDetails clientMetadataDetails = canonical(convertToClientMetadataDetails(clientMetadata));
+    UserMetadataDetails userMetadataDetails = convertToUserMetadataDetails(userMetadata);
     
     app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata exposureRiskMetric =
-        convertToExposureMetrics(exposureRiskMetadata, userMetadata, technicalMetadata);
+        convertToExposureMetrics(exposureRiskMetadata, userMetadataDetails, technicalMetadata);
     List<ExposureWindow> exposureWinowsMetric =
-        convertToExposureWindowMetrics(newExposureWindows, clientMetadata, technicalMetadata);
-    TestResultMetadata testResultMetric = convertToTestResultMetrics(testResults, userMetadata, technicalMetadata);
+        convertToExposureWindowMetrics(newExposureWindows, clientMetadataDetails, technicalMetadata);
+    TestResultMetadata testResultMetric =
+        convertToTestResultMetrics(testResults, userMetadataDetails, technicalMetadata);
     
     KeySubmissionMetadataWithClientMetadata keySubmissionWithClientMetadata =
-        convertToKeySubmissionWithClientMetadataMetrics(keySubmissionsMetadata, clientMetadata, technicalMetadata);
+        convertToKeySubmissionWithClientMetadataMetrics(keySubmissionsMetadata, clientMetadataDetails,
+            technicalMetadata);
     KeySubmissionMetadataWithUserMetadata keySubmissionWithUserMetadata =
-        convertToKeySubmissionWithUserMetadataMetrics(keySubmissionsMetadata, userMetadata, technicalMetadata);
-    UserMetadata userMetadataEntity = convertToUserMetadataEntity(userMetadata, technicalMetadata);
-    ClientMetadata clientMetadataEntity = convertToClientMetadataEntity(clientMetadata, technicalMetadata);
+        convertToKeySubmissionWithUserMetadataMetrics(keySubmissionsMetadata, userMetadataDetails, technicalMetadata);
+    UserMetadata userMetadataEntity = convertToUserMetadataEntity(userMetadataDetails, technicalMetadata);
+    ClientMetadata clientMetadataEntity = convertToClientMetadataEntity(clientMetadataDetails, technicalMetadata);
     
     return new PpaDataStorageRequest(exposureRiskMetric, exposureWinowsMetric, testResultMetric,
         keySubmissionWithClientMetadata, keySubmissionWithUserMetadata, userMetadataEntity, clientMetadataEntity);
   }
 
-  private TechnicalMetadata createTechnicalMetadata(AttestationStatement attestationStatement) {
+  /**
+   * Creates the technical metadata of a submission verified now with the given attestation.
+   */
+  public TechnicalMetadata createTechnicalMetadata(AttestationStatement attestationStatement) {
     return new TechnicalMetadata(LocalDate.now(ZoneId.of("UTC")), attestationStatement.isBasicIntegrity(), 
         attestationStatement.isCtsProfileMatch(), attestationStatement.isEvaluationTypeEqualTo(EvaluationType.BASIC), 
         attestationStatement.isEvaluationTypeEqualTo(EvaluationType.HARDWARE_BACKED));
@@ -82,15 +96,14 @@ public class PpaDataRequestAndroidConverter extends PpaDataRequestConverter<PPAD
   /**
    * Convert the given proto structure to a domain {@link ClientMetadata} entity.
    */
-  private ClientMetadata convertToClientMetadataEntity(PPAClientMetadataAndroid clientMetadata,
+  private ClientMetadata convertToClientMetadataEntity(ClientMetadataDetails clientMetadata,
       TechnicalMetadata technicalMetadata) {
-    return new ClientMetadata(null, convertToClientMetadataDetails(clientMetadata),
-        technicalMetadata);
+    return new ClientMetadata(null, clientMetadata, technicalMetadata);
   }
 
   private KeySubmissionMetadataWithClientMetadata convertToKeySubmissionWithClientMetadataMetrics(
       List<PPAKeySubmissionMetadata> keySubmissionsMetadata,
-      PPAClientMetadataAndroid clientMetadata, TechnicalMetadata technicalMetadata) {
+      ClientMetadataDetails clientMetadata, TechnicalMetadata technicalMetadata) {
     if (!keySubmissionsMetadata.isEmpty()) {
       PPAKeySubmissionMetadata keySubmissionElement = keySubmissionsMetadata.iterator().next();
       return new KeySubmissionMetadataWithClientMetadata(null, keySubmissionElement.getSubmitted(),
@@ -99,13 +112,13 @@ public class PpaDataRequestAndroidConverter extends PpaDataRequestConverter<PPAD
           keySubmissionElement.getSubmittedAfterSymptomFlow(),
           keySubmissionElement.getAdvancedConsentGiven(),
           keySubmissionElement.getLastSubmissionFlowScreenValue(),
-          convertToClientMetadataDetails(clientMetadata), technicalMetadata);
+          clientMetadata, technicalMetadata);
     }
     return null;
   }
 
   private List<ExposureWindow> convertToExposureWindowMetrics(
-      List<PPANewExposureWindow> newExposureWindows, PPAClientMetadataAndroid clientMetadata,
+      List<PPANewExposureWindow> newExposureWindows, ClientMetadataDetails clientMetadata,
       TechnicalMetadata technicalMetadata) {
     if (!newExposureWindows.isEmpty()) {
       return newExposureWindows.stream()
@@ -116,14 +129,14 @@ public class PpaDataRequestAndroidConverter extends PpaDataRequestConverter<PPAD
   }
 
   private ExposureWindow convertToExposureWindowEntity(PPANewExposureWindow newExposureWindow,
-      PPAClientMetadataAndroid clientMetadata, TechnicalMetadata technicalMetadata) {
+      ClientMetadataDetails clientMetadata, TechnicalMetadata technicalMetadata) {
     PPAExposureWindow exposureWindow = newExposureWindow.getExposureWindow();
-    Set<ScanInstance> scanInstances = convertToScanInstancesEntities(newExposureWindow);
+    ScanInstances scanInstances = convertToScanInstances(newExposureWindow);
     
     return new ExposureWindow(null, getLocalDateFor(exposureWindow.getDate()),
         exposureWindow.getReportTypeValue(), exposureWindow.getInfectiousness().getNumber(),
         exposureWindow.getCalibrationConfidence(), newExposureWindow.getTransmissionRiskLevel(),
-        newExposureWindow.getNormalizedTime(), convertToClientMetadataDetails(clientMetadata),
+        newExposureWindow.getNormalizedTime(), clientMetadata,
         technicalMetadata, scanInstances);
   }
   
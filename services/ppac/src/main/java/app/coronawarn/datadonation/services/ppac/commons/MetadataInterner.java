@@ -0,0 +1,32 @@
+package app.coronawarn.datadonation.services.ppac.commons;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded canonicalizing cache for immutable metadata embeddables. Submissions from the same app version share
+ * equal client and technical metadata, so repeated values resolve to one shared instance instead of being kept
+ * once per stored entity. Least recently used values are evicted once the maximum size is reached, which keeps
+ * client controlled values (e.g. the app config ETag) from growing the cache without limit.
+ *
+ * @param <T> an immutable type with value based <code>equals</code> and <code>hashCode</code>.
+ */
+public class MetadataInterner<T> {
+
+  private final Cache<T, T> canonicalValues;
+
+  public MetadataInterner(long maximumSize) {
+    this.canonicalValues = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * Returns the canonical instance equal to the given value, registering the value itself if none is known yet.
+   */
+  public T intern(T value) {
+    if (value == null) {
+      return null;
+    }
+    T canonical = canonicalValues.asMap().putIfAbsent(value, value);
+    return canonical == null ? value : canonical;
+  }
+}
@@ -0,0 +1,54 @@
+package app.coronawarn.datadonation.services.ppac.commons;
+
+import app.coronawarn.datadonation.common.protocols.AuthIos;
+import app.coronawarn.datadonation.common.protocols.Metrics;
+import app.coronawarn.datadonation.common.protocols.TextMetric;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import app.coronawarn.datadonation.services.ppac.ios.controller.validation.PpaDataRequestIosPayloadValidator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates submissions of generic {@link Metrics} before their authentication is verified, so oversized payloads are
+ * rejected without calling SafetyNet or DeviceCheck.
+ */
+@Component
+public class MetricsPayloadValidator {
+
+  private final PpacConfiguration.GenericMetrics configuration;
+
+  public MetricsPayloadValidator(PpacConfiguration ppacConfiguration) {
+    this.configuration = ppacConfiguration.getGenericMetrics();
+  }
+
+  /**
+   * Checks the number of values and the length of the text values.
+   *
+   * @throws PpaDataRequestValidationFailed if a limit is exceeded.
+   */
+  public void validate(Metrics metrics) {
+    int values = metrics.getIntDataCount() + metrics.getFloatDataCount() + metrics.getTextDataCount();
+    if (values > configuration.getMaxValues()) {
+      throw new PpaDataRequestValidationFailed(
+          "Metrics contain more than " + configuration.getMaxValues() + " values.");
+    }
+    for (TextMetric metric : metrics.getTextDataList()) {
+      if (metric.getValue().length() > configuration.getMaxTextLength()) {
+        throw new PpaDataRequestValidationFailed(
+            "Text metric " + Integer.toUnsignedString(metric.getKey()) + " is longer than "
+                + configuration.getMaxTextLength() + " characters.");
+      }
+    }
+  }
+
+  /**
+   * Checks the metrics and that the API token is a canonical UUID, as the API token table requires.
+   *
+   * @throws PpaDataRequestValidationFailed if a check fails.
+   */
+  public void validate(AuthIos authentication, Metrics metrics) {
+    if (!PpaDataRequestIosPayloadValidator.isCanonicalUuid(authentication.getApiToken())) {
+      throw new PpaDataRequestValidationFailed("Api Token must a valid UUID v4 String");
+    }
+    validate(metrics);
+  }
+}
@@ -1,10 +1,11 @@
 package app.coronawarn.datadonation.services.ppac.commons;
 
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.UserMetadataDetails;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.ExposureRiskMetadata;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPAExposureWindowScanInstance;
@@ -15,11 +16,32 @@ import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPAUserMetadat
 import app.coronawarn.datadonation.common.utils.TimeUtils;
 import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public abstract class PpaDataRequestConverter<T> {
 
+  private static final long MAX_CANONICAL_TECHNICAL_METADATA = 256;
+  private static final long MAX_CANONICAL_CLIENT_METADATA = 4096;
+
+  private final MetadataInterner<TechnicalMetadata> technicalMetadataInterner =
+      new MetadataInterner<>(MAX_CANONICAL_TECHNICAL_METADATA);
+  private final MetadataInterner<ClientMetadataDetails> clientMetadataInterner =
+      new MetadataInterner<>(MAX_CANONICAL_CLIENT_METADATA);
+
+  /**
+   * Returns the shared instance of the given technical metadata, to be used by all entities of a request.
+   */
+  protected TechnicalMetadata canonical(TechnicalMetadata technicalMetadata) {
+    return technicalMetadataInterner.intern(technicalMetadata);
+  }
+
+  /**
+   * Returns the shared instance of the given client metadata, to be used by all entities of a request.
+   */
+  protected ClientMetadataDetails canonical(ClientMetadataDetails clientMetadataDetails) {
+    return clientMetadataInterner.intern(clientMetadataDetails);
+  }
+
   /**
    * Convert exposure risk meta data to the internal format.
    *
@@ -29,7 +51,7 @@ public abstract class PpaDataRequestConverter<T> {
    * @return a new instance of  exposure risk meta data.
    */
   protected app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata convertToExposureMetrics(
-      List<ExposureRiskMetadata> exposureRiskMetadata, PPAUserMetadata userMetadata,
+      List<ExposureRiskMetadata> exposureRiskMetadata, UserMetadataDetails userMetadata,
       TechnicalMetadata technicalMetadata) {
     if (!exposureRiskMetadata.isEmpty()) {
       ExposureRiskMetadata riskElement = exposureRiskMetadata.iterator().next();
@@ -38,7 +60,7 @@ public abstract class PpaDataRequestConverter<T> {
           riskElement.getRiskLevelChangedComparedToPreviousSubmission(),
           TimeUtils.getLocalDateFor(riskElement.getMostRecentDateAtRiskLevel()),
           riskElement.getDateChangedComparedToPreviousSubmission(),
-          convertToUserMetadataDetails(userMetadata), technicalMetadata);
+          userMetadata, technicalMetadata);
     }
     return null;
 
@@ -67,12 +89,9 @@ public abstract class PpaDataRequestConverter<T> {
   /**
    * Convert the given proto structure to a domain {@link UserMetadata} entity.
    */
-  protected UserMetadata convertToUserMetadataEntity(PPAUserMetadata userMetadata,
+  protected UserMetadata convertToUserMetadataEntity(UserMetadataDetails userMetadata,
       TechnicalMetadata technicalMetadata) {
-    return new UserMetadata(null,
-        new UserMetadataDetails(userMetadata.getFederalState().getNumber(),
-            userMetadata.getAdministrativeUnit(), userMetadata.getAgeGroup().getNumber()),
-        technicalMetadata);
+    return new UserMetadata(null, userMetadata, technicalMetadata);
   }
 
   /**
@@ -83,7 +102,7 @@ public abstract class PpaDataRequestConverter<T> {
    * @return a newly created instance  of {@link TestResultMetadata }
    */
   protected TestResultMetadata convertToTestResultMetrics(
-      List<PPATestResultMetadata> testResults, PPAUserMetadata userMetadata, TechnicalMetadata technicalMetadata) {
+      List<PPATestResultMetadata> testResults, UserMetadataDetails userMetadata, TechnicalMetadata technicalMetadata) {
     if (!testResults.isEmpty()) {
       PPATestResultMetadata resultElement = testResults.iterator().next();
       return new TestResultMetadata(null, resultElement.getTestResult().getNumber(),
@@ -91,7 +110,7 @@ public abstract class PpaDataRequestConverter<T> {
           resultElement.getRiskLevelAtTestRegistrationValue(),
           resultElement.getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration(),
           resultElement.getHoursSinceHighRiskWarningAtTestRegistration(),
-          convertToUserMetadataDetails(userMetadata), technicalMetadata);
+          userMetadata, technicalMetadata);
     }
     return null;
   }
@@ -105,7 +124,7 @@ public abstract class PpaDataRequestConverter<T> {
    * @return a newly created instance of {@link KeySubmissionMetadataWithUserMetadata }
    */
   protected KeySubmissionMetadataWithUserMetadata convertToKeySubmissionWithUserMetadataMetrics(
-      List<PPAKeySubmissionMetadata> keySubmissionsMetadata, PPAUserMetadata userMetadata,
+      List<PPAKeySubmissionMetadata> keySubmissionsMetadata, UserMetadataDetails userMetadata,
       TechnicalMetadata technicalMetadata) {
     if (!keySubmissionsMetadata.isEmpty()) {
       PPAKeySubmissionMetadata keySubmissionElement = keySubmissionsMetadata.iterator().next();
@@ -116,21 +135,23 @@ public abstract class PpaDataRequestConverter<T> {
           keySubmissionElement.getHoursSinceTestRegistration(),
           keySubmissionElement.getDaysSinceMostRecentDateAtRiskLevelAtTestRegistration(),
           keySubmissionElement.getHoursSinceHighRiskWarningAtTestRegistration(),
-          convertToUserMetadataDetails(userMetadata), technicalMetadata);
+          userMetadata, technicalMetadata);
     }
     return null;
   }
 
-  protected Set<ScanInstance> convertToScanInstancesEntities(
-      PPANewExposureWindow newExposureWindow) {
+  /**
+   * Copies the scan instances of the given exposure window into a flat primitive structure, keeping the order and
+   * any identical entries reported by the client.
+   */
+  protected ScanInstances convertToScanInstances(PPANewExposureWindow newExposureWindow) {
     List<PPAExposureWindowScanInstance> scanInstances =
         newExposureWindow.getExposureWindow().getScanInstancesList();
-    return scanInstances.stream().map(scanData -> this.convertToScanInstanceEntity(scanData))
-        .collect(Collectors.toSet());
-  }
-
-  protected ScanInstance convertToScanInstanceEntity(PPAExposureWindowScanInstance scanInstanceData) {
-    return new ScanInstance(null, null, scanInstanceData.getTypicalAttenuation(),
-        scanInstanceData.getMinAttenuation(), scanInstanceData.getSecondsSinceLastScan());
+    ScanInstances.Builder builder = ScanInstances.builder(scanInstances.size());
+    for (PPAExposureWindowScanInstance scanInstance : scanInstances) {
+      builder.add(scanInstance.getTypicalAttenuation(), scanInstance.getMinAttenuation(),
+          scanInstance.getSecondsSinceLastScan());
+    }
+    return builder.build();
   }
 }
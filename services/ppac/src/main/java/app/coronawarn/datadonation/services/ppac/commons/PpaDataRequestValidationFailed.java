@@ -1,6 +1,6 @@
 package app.coronawarn.datadonation.services.ppac.commons;
 
-public class PpaDataRequestValidationFailed extends RuntimeException {
+public class PpaDataRequestValidationFailed extends VerificationFailure {
 
   private static final long serialVersionUID = -1558962815012631670L;
 
@@ -6,22 +6,28 @@ import app.coronawarn.datadonation.services.ppac.android.attestation.PpacAndroid
 import app.coronawarn.datadonation.services.ppac.ios.verification.PpacIosScenarioRepository;
 import app.coronawarn.datadonation.services.ppac.ios.verification.scenario.ratelimit.PpacIosRateLimitStrategy;
 import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 
 public enum PpacScenario {
 
   EDUS(PpacIosRateLimitStrategy::validateForEdus, PpacIosScenarioRepository::saveForEdus,
       PpacIosScenarioRepository::updateForEdus, PpacAndroidIntegrityValidator::validateIntegrityForEdus),
   PPA(PpacIosRateLimitStrategy::validateForPpa, PpacIosScenarioRepository::saveForPpa,
-      PpacIosScenarioRepository::updateForPpa, PpacAndroidIntegrityValidator::validateIntegrityForPpa);
+      PpacIosScenarioRepository::updateForPpa, PpacAndroidIntegrityValidator::validateIntegrityForPpa),
+  /**
+   * Generic metrics, with the integrity requirements of PPA but a daily iOS quota of their own.
+   */
+  METRICS(PpacIosRateLimitStrategy::validateForMetrics, PpacIosScenarioRepository::saveForMetrics,
+      PpacIosScenarioRepository::updateForMetrics, PpacAndroidIntegrityValidator::validateIntegrityForPpa);
 
   private final BiConsumer<PpacIosRateLimitStrategy, ApiToken> validationCommand;
   private final BiConsumer<PpacIosScenarioRepository, ApiToken> insertCommand;
-  private final BiConsumer<PpacIosScenarioRepository, ApiToken> updateCommand;
+  private final BiPredicate<PpacIosScenarioRepository, ApiToken> updateCommand;
   private final BiConsumer<PpacAndroidIntegrityValidator, AttestationStatement> integrityValidator;
 
   PpacScenario(BiConsumer<PpacIosRateLimitStrategy, ApiToken> validationCommand,
       BiConsumer<PpacIosScenarioRepository, ApiToken> insertCommand,
-      BiConsumer<PpacIosScenarioRepository, ApiToken> updateCommand,
+      BiPredicate<PpacIosScenarioRepository, ApiToken> updateCommand,
       BiConsumer<PpacAndroidIntegrityValidator, AttestationStatement> integrityValidator) {
     this.validationCommand = validationCommand;
     this.insertCommand = insertCommand;
@@ -52,13 +58,14 @@ public enum PpacScenario {
   }
 
   /**
-   * Update an existing apitoken.
+   * Update an existing apitoken, consuming the rate limit quota of the current scenario.
    *
    * @param ppacIosScenarioRepository the repository to use.
    * @param apiToken                  the apitoken to update.
+   * @return <code>true</code> if the quota was consumed, <code>false</code> if it was already used up.
    */
-  public void update(PpacIosScenarioRepository ppacIosScenarioRepository, ApiToken apiToken) {
-    this.updateCommand.accept(ppacIosScenarioRepository, apiToken);
+  public boolean update(PpacIosScenarioRepository ppacIosScenarioRepository, ApiToken apiToken) {
+    return this.updateCommand.test(ppacIosScenarioRepository, apiToken);
   }
 
   public void validateIntegrity(PpacAndroidIntegrityValidator integrityValidator,
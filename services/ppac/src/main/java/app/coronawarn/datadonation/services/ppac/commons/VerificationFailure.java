@@ -0,0 +1,20 @@
+package app.coronawarn.datadonation.services.ppac.commons;
+
+/**
+ * Base class of the expected reasons to reject a request, e.g. a failed attestation, a redeemed device token or an
+ * exceeded quota. They are part of normal operation and make up all of the traffic of an attack, so they are created
+ * without a stack trace, which would otherwise dominate the cost of a rejection, and are logged by their message only.
+ * Genuinely unexpected errors must not extend this class.
+ */
+public abstract class VerificationFailure extends RuntimeException {
+
+  private static final long serialVersionUID = 3104329577413961553L;
+
+  protected VerificationFailure(String message) {
+    this(message, null);
+  }
+
+  protected VerificationFailure(String message, Throwable cause) {
+    super(message, cause, false, false);
+  }
+}
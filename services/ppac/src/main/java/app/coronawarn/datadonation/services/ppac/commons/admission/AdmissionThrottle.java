@@ -0,0 +1,110 @@
+package app.coronawarn.datadonation.services.ppac.commons.admission;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects abusive clients before the expensive part of the authentication (JWS chain verification, DeviceCheck round
+ * trips) runs. Requests are counted per cheap request feature, i.e. the source address, the salt of an Android
+ * attestation and the hash of an iOS device token, each with its own sliding-window limit. A legitimate client never
+ * reuses a salt or device token, so their limits can be tight, while many clients may share one address.
+ */
+@Component
+public class AdmissionThrottle {
+
+  static final String ADDRESS = "address";
+  static final String SALT = "salt";
+  static final String DEVICE_TOKEN = "device-token";
+
+  private static final int SALT_PREFIX_LENGTH = 32;
+
+  private final boolean enabled;
+  private final SlidingWindowThrottle addresses;
+  private final SlidingWindowThrottle salts;
+  private final SlidingWindowThrottle deviceTokens;
+  private final Counter rejectedAddresses;
+  private final Counter rejectedSalts;
+  private final Counter rejectedDeviceTokens;
+
+  /**
+   * Creates one throttle per request feature and registers the rejection counters.
+   */
+  public AdmissionThrottle(PpacConfiguration ppacConfiguration, MeterRegistry meterRegistry) {
+    PpacConfiguration.Admission configuration = ppacConfiguration.getAdmission();
+    long windowMillis = TimeUnit.SECONDS.toMillis(configuration.getWindowSeconds());
+    this.enabled = configuration.isEnabled();
+    this.addresses = new SlidingWindowThrottle(configuration.getStripes(), configuration.getMaxTrackedKeys(),
+        windowMillis, configuration.getMaxRequestsPerAddress());
+    this.salts = new SlidingWindowThrottle(configuration.getStripes(), configuration.getMaxTrackedKeys(),
+        windowMillis, configuration.getMaxRequestsPerSalt());
+    this.deviceTokens = new SlidingWindowThrottle(configuration.getStripes(), configuration.getMaxTrackedKeys(),
+        windowMillis, configuration.getMaxRequestsPerDeviceToken());
+    this.rejectedAddresses = rejectionCounter(meterRegistry, ADDRESS);
+    this.rejectedSalts = rejectionCounter(meterRegistry, SALT);
+    this.rejectedDeviceTokens = rejectionCounter(meterRegistry, DEVICE_TOKEN);
+  }
+
+  private static Counter rejectionCounter(MeterRegistry meterRegistry, String feature) {
+    return Counter.builder("ppac.admission.rejected").tag("feature", feature).register(meterRegistry);
+  }
+
+  /**
+   * Counts a request from the given source address.
+   *
+   * @return <code>false</code> if the request must be rejected.
+   */
+  public boolean admitAddress(String address) {
+    return admit(addresses, address, rejectedAddresses);
+  }
+
+  /**
+   * Counts an Android request carrying the given salt.
+   *
+   * @throws AdmissionThrottled if the salt was used too often.
+   */
+  public void admitSalt(String salt) {
+    String prefix = salt.length() > SALT_PREFIX_LENGTH ? salt.substring(0, SALT_PREFIX_LENGTH) : salt;
+    if (!admit(salts, prefix, rejectedSalts)) {
+      throw new AdmissionThrottled(SALT);
+    }
+  }
+
+  /**
+   * Counts an iOS request carrying the given device token. Only its hash is kept in memory.
+   *
+   * @throws AdmissionThrottled if the device token was used too often.
+   */
+  public void admitDeviceToken(String deviceToken) {
+    if (!admit(deviceTokens, hash(deviceToken), rejectedDeviceTokens)) {
+      throw new AdmissionThrottled(DEVICE_TOKEN);
+    }
+  }
+
+  private boolean admit(SlidingWindowThrottle throttle, String key, Counter rejections) {
+    if (!enabled || key == null || key.isEmpty()) {
+      return true;
+    }
+    if (throttle.tryAcquire(key, Instant.now().toEpochMilli())) {
+      return true;
+    }
+    rejections.increment();
+    return false;
+  }
+
+  private static String hash(String deviceToken) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(digest.digest(deviceToken.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
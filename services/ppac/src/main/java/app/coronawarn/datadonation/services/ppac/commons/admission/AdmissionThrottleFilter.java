@@ -0,0 +1,84 @@
+package app.coronawarn.datadonation.services.ppac.commons.admission;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.ANDROID;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Throttles the Android and iOS endpoints per source address before the request body is even read. Salts and device
+ * tokens are throttled by the controllers, right after the body was parsed and before the attestation is verified.
+ *
+ * <p>Behind a load balancer every request would share the balancer's address. Requests from one of the configured
+ * trusted proxies are therefore keyed by the right-most address of <code>X-Forwarded-For</code> that is not itself a
+ * trusted proxy; entries further left are supplied by the client and can not be trusted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class AdmissionThrottleFilter extends OncePerRequestFilter {
+
+  static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+  private final AdmissionThrottle admissionThrottle;
+  private final String retryAfterSeconds;
+  private final Set<String> trustedProxies;
+
+  /**
+   * Creates the filter for the given throttle.
+   */
+  public AdmissionThrottleFilter(AdmissionThrottle admissionThrottle, PpacConfiguration ppacConfiguration) {
+    this.admissionThrottle = admissionThrottle;
+    this.retryAfterSeconds = String.valueOf(ppacConfiguration.getAdmission().getRetryAfterSeconds());
+    this.trustedProxies = new HashSet<>(ppacConfiguration.getAdmission().getTrustedProxies());
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return !path.startsWith(ANDROID + "/") && !path.startsWith(IOS + "/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!admissionThrottle.admitAddress(clientAddress(request))) {
+      response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+      return;
+    }
+    filterChain.doFilter(request, response);
+  }
+
+  String clientAddress(HttpServletRequest request) {
+    String address = request.getRemoteAddr();
+    String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+    if (forwardedFor == null || !trustedProxies.contains(address)) {
+      return address;
+    }
+    String[] hops = forwardedFor.split(",");
+    for (int i = hops.length - 1; i >= 0; i--) {
+      String hop = hops[i].trim();
+      if (hop.isEmpty()) {
+        continue;
+      }
+      address = hop;
+      if (!trustedProxies.contains(hop)) {
+        break;
+      }
+    }
+    return address;
+  }
+}
@@ -0,0 +1,10 @@
+package app.coronawarn.datadonation.services.ppac.commons.admission;
+
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class AdmissionThrottled extends VerificationFailure {
+
+  public AdmissionThrottled(String feature) {
+    super("Request rejected before authentication, too many requests for the same " + feature);
+  }
+}
@@ -0,0 +1,90 @@
+package app.coronawarn.datadonation.services.ppac.commons.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts requests per key in a sliding window, approximated from the counts of the current and the previous fixed
+ * window. Keys are spread over independently locked stripes, each holding a bounded LRU map, so contention stays low
+ * and memory is capped no matter how many distinct keys an attacker sprays. Keys which are hot enough to be throttled
+ * are the most recently used ones and therefore survive the eviction.
+ */
+class SlidingWindowThrottle {
+
+  private final Stripe[] stripes;
+  private final long windowMillis;
+  private final int maxRequests;
+
+  /**
+   * Creates the throttle.
+   *
+   * @param stripes      The number of independently locked stripes, rounded up to a power of two.
+   * @param maxKeys      The maximum number of keys tracked over all stripes.
+   * @param windowMillis The length of the sliding window.
+   * @param maxRequests  The number of requests admitted per key and window.
+   */
+  SlidingWindowThrottle(int stripes, int maxKeys, long windowMillis, int maxRequests) {
+    int stripeCount = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+    this.stripes = new Stripe[stripeCount];
+    int keysPerStripe = Math.max(maxKeys / stripeCount, 1);
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new Stripe(keysPerStripe);
+    }
+    this.windowMillis = windowMillis;
+    this.maxRequests = maxRequests;
+  }
+
+  /**
+   * Counts a request for the given key unless it exceeds the admitted rate.
+   *
+   * @return <code>false</code> if the request must be rejected.
+   */
+  boolean tryAcquire(String key, long nowMillis) {
+    Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+    synchronized (stripe) {
+      Window window = stripe.computeIfAbsent(key, k -> new Window());
+      return window.tryAcquire(nowMillis / windowMillis, nowMillis % windowMillis);
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private final class Window {
+
+    private long index = Long.MIN_VALUE;
+    private int current;
+    private int previous;
+
+    private boolean tryAcquire(long nowIndex, long elapsedMillis) {
+      if (nowIndex != index) {
+        previous = nowIndex == index + 1 ? current : 0;
+        current = 0;
+        index = nowIndex;
+      }
+      double estimate = previous * (1.0 - (double) elapsedMillis / windowMillis) + current;
+      if (estimate >= maxRequests) {
+        return false;
+      }
+      current++;
+      return true;
+    }
+  }
+
+  private final class Stripe extends LinkedHashMap<String, Window> {
+
+    private static final long serialVersionUID = 1L;
+    private final int maxKeys;
+
+    private Stripe(int maxKeys) {
+      super(16, 0.75f, true);
+      this.maxKeys = maxKeys;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+      return size() > maxKeys;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package app.coronawarn.datadonation.services.ppac.commons.journal;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataAndroid;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * The payload of an accepted data submission together with the technical metadata of its verification. The
+ * authentication of the submission is never journaled.
+ */
+public final class JournaledSubmission {
+
+  public enum Platform {
+    ANDROID, IOS
+  }
+
+  /**
+   * Platform, submission date and the four attestation flags.
+   */
+  private static final int HEADER_BYTES = 1 + Long.BYTES + 4;
+
+  private final Platform platform;
+  private final TechnicalMetadata technicalMetadata;
+  private final byte[] payload;
+
+  private JournaledSubmission(Platform platform, TechnicalMetadata technicalMetadata, byte[] payload) {
+    this.platform = platform;
+    this.technicalMetadata = technicalMetadata;
+    this.payload = payload;
+  }
+
+  public static JournaledSubmission android(PPADataAndroid payload, TechnicalMetadata technicalMetadata) {
+    return new JournaledSubmission(Platform.ANDROID, technicalMetadata, payload.toByteArray());
+  }
+
+  public static JournaledSubmission ios(PPADataIOS payload, TechnicalMetadata technicalMetadata) {
+    return new JournaledSubmission(Platform.IOS, technicalMetadata, payload.toByteArray());
+  }
+
+  public Platform getPlatform() {
+    return platform;
+  }
+
+  public TechnicalMetadata getTechnicalMetadata() {
+    return technicalMetadata;
+  }
+
+  /**
+   * The serialized <code>PPADataAndroid</code> or <code>PPADataIOS</code>, depending on the platform.
+   */
+  public byte[] getPayload() {
+    return payload.clone();
+  }
+
+  int encodedLength() {
+    return HEADER_BYTES + payload.length;
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    buffer.put((byte) platform.ordinal());
+    buffer.putLong(technicalMetadata.getSubmittedAt().toEpochDay());
+    buffer.put(encode(technicalMetadata.getAndroidPpacBasicIntegrity()));
+    buffer.put(encode(technicalMetadata.getAndroidPpacCtsProfileMatch()));
+    buffer.put(encode(technicalMetadata.getAndroidPpacEvaluationTypeBasic()));
+    buffer.put(encode(technicalMetadata.getAndroidPpacEvaluationTypeHardwareBacked()));
+    buffer.put(payload);
+  }
+
+  static JournaledSubmission readFrom(ByteBuffer buffer) {
+    Platform platform = Platform.values()[buffer.get()];
+    TechnicalMetadata technicalMetadata = new TechnicalMetadata(LocalDate.ofEpochDay(buffer.getLong()),
+        decode(buffer.get()), decode(buffer.get()), decode(buffer.get()), decode(buffer.get()));
+    byte[] payload = new byte[buffer.remaining()];
+    buffer.get(payload);
+    return new JournaledSubmission(platform, technicalMetadata, payload);
+  }
+
+  private static byte encode(Boolean flag) {
+    if (flag == null) {
+      return -1;
+    }
+    return (byte) (flag ? 1 : 0);
+  }
+
+  private static Boolean decode(byte flag) {
+    if (flag < 0) {
+      return null;
+    }
+    return flag == 1;
+  }
+}
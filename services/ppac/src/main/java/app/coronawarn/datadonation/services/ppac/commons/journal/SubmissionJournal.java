@@ -0,0 +1,237 @@
+package app.coronawarn.datadonation.services.ppac.commons.journal;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only journal of accepted data submissions, for disaster recovery and for replaying production traffic (see
+ * {@link SubmissionJournalReplay}).
+ *
+ * <p>Submissions are appended to memory-mapped segment files of a fixed size. A new segment is started when a
+ * record does not fit into the current one and on every start of the service, so segments are never written by two
+ * processes. Each record is its length, the CRC32 of its body and the body. Since the segments are zero filled, a
+ * zero length marks the end of a segment. Appending only copies into the page cache, the records survive a crash of
+ * the service but not of the host, unless the segment was already rotated and synced.
+ *
+ * <p>The metric tables only keep submissions for their retention period, so the journal must not keep them longer.
+ * Every hour and on every rotation, segments whose newest submission is older than the configured retention days are
+ * deleted. A rotated segment is stamped with the time it was closed as its last modification time.
+ *
+ * <p>Journaling is best effort: a failure is logged and does not fail the submission, which is already stored.
+ */
+@Component
+public class SubmissionJournal implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(SubmissionJournal.class);
+
+  private static final String SUFFIX = ".segment";
+  private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+  private final PpacConfiguration.Journal configuration;
+
+  private MappedByteBuffer segment;
+  private Path segmentFile;
+  /**
+   * Time of the last write to the current segment, or of its creation.
+   */
+  private Instant segmentWrittenAt;
+  private long segmentNumber = -1;
+  private ScheduledExecutorService pruning;
+
+  public SubmissionJournal(PpacConfiguration ppacConfiguration) {
+    this.configuration = ppacConfiguration.getJournal();
+  }
+
+  /**
+   * Appends the submission, if the journal is enabled.
+   */
+  public void append(JournaledSubmission submission) {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    int length = submission.encodedLength();
+    if (RECORD_HEADER_BYTES + length > configuration.getSegmentBytes()) {
+      logger.error("Submission of {} bytes exceeds the journal segment size and is not journaled.", length);
+      return;
+    }
+    ByteBuffer body = ByteBuffer.allocate(length);
+    submission.writeTo(body);
+    body.flip();
+    CRC32 crc = new CRC32();
+    crc.update(body.duplicate());
+    try {
+      synchronized (this) {
+        if (segment == null || segment.remaining() < RECORD_HEADER_BYTES + length) {
+          rotate();
+        }
+        // the length is written last, readers never see a record without its body
+        int start = segment.position();
+        segment.position(start + Integer.BYTES);
+        segment.putInt((int) crc.getValue());
+        segment.put(body);
+        segment.putInt(start, length);
+        segmentWrittenAt = Instant.now();
+      }
+    } catch (IOException e) {
+      logger.error("Failed to journal a submission.", e);
+    }
+  }
+
+  private void rotate() throws IOException {
+    Path directory = Files.createDirectories(Paths.get(configuration.getDirectory()));
+    if (segment != null) {
+      close();
+    } else {
+      List<Path> segments = segments(directory);
+      segmentNumber = segments.isEmpty() ? -1 : number(segments.get(segments.size() - 1));
+    }
+    segmentNumber++;
+    Path file = directory.resolve(String.format("%020d%s", segmentNumber, SUFFIX));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      segment = channel.map(MapMode.READ_WRITE, 0, configuration.getSegmentBytes());
+    }
+    segmentFile = file;
+    segmentWrittenAt = Instant.now();
+    logger.info("Journaling submissions to {}.", file);
+    prune(Instant.now());
+  }
+
+  private void close() throws IOException {
+    segment.force();
+    Files.setLastModifiedTime(segmentFile, FileTime.from(segmentWrittenAt));
+    segment = null;
+  }
+
+  /**
+   * Deletes the segments whose newest submission is older than the retention period, including the current segment
+   * once nothing was appended to it for that long.
+   */
+  synchronized void prune(Instant now) {
+    Path directory = Paths.get(configuration.getDirectory());
+    Instant threshold = now.minus(Duration.ofDays(configuration.getRetentionDays()));
+    try {
+      if (segment != null && segmentWrittenAt.isBefore(threshold)) {
+        close();
+      }
+      if (!Files.isDirectory(directory)) {
+        return;
+      }
+      for (Path file : segments(directory)) {
+        if (segment == null || !file.equals(segmentFile)) {
+          if (Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+            Files.delete(file);
+            logger.info("Deleted journal segment {} past the retention of {} days.", file,
+                configuration.getRetentionDays());
+          }
+        }
+      }
+    } catch (IOException e) {
+      logger.error("Failed to delete outdated journal segments.", e);
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    pruning = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "submission-journal-pruning");
+      thread.setDaemon(true);
+      return thread;
+    });
+    pruning.scheduleWithFixedDelay(() -> prune(Instant.now()), 0, 1, TimeUnit.HOURS);
+  }
+
+  @Override
+  public synchronized void destroy() {
+    if (pruning != null) {
+      pruning.shutdownNow();
+    }
+    if (segment != null) {
+      try {
+        close();
+      } catch (IOException e) {
+        logger.error("Failed to close the journal segment {}.", segmentFile, e);
+      }
+    }
+  }
+
+  /**
+   * Passes the journaled submissions of all segments in the given directory to the consumer, in the order they were
+   * appended. A segment is read up to its end or up to a torn record, as left by a crash of the host.
+   *
+   * @return the number of submissions read.
+   */
+  public static long read(Path directory, Consumer<JournaledSubmission> consumer) throws IOException {
+    long count = 0;
+    for (Path file : segments(directory)) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        count += read(file, channel.map(MapMode.READ_ONLY, 0, channel.size()), consumer);
+      }
+    }
+    return count;
+  }
+
+  private static long read(Path file, ByteBuffer segment, Consumer<JournaledSubmission> consumer) {
+    long count = 0;
+    CRC32 crc = new CRC32();
+    while (segment.remaining() >= RECORD_HEADER_BYTES) {
+      int length = segment.getInt();
+      int expectedCrc = segment.getInt();
+      if (length <= 0 || length > segment.remaining()) {
+        break;
+      }
+      ByteBuffer body = segment.slice();
+      body.limit(length);
+      crc.reset();
+      crc.update(body.duplicate());
+      if ((int) crc.getValue() != expectedCrc) {
+        logger.warn("Skipping the rest of {} after a torn record.", file);
+        break;
+      }
+      consumer.accept(JournaledSubmission.readFrom(body));
+      segment.position(segment.position() + length);
+      count++;
+    }
+    return count;
+  }
+
+  private static List<Path> segments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static long number(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+  }
+}
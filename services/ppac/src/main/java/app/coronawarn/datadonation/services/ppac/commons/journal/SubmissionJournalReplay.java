@@ -0,0 +1,135 @@
+package app.coronawarn.datadonation.services.ppac.commons.journal;
+
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataService;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataAndroid;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import app.coronawarn.datadonation.services.ppac.android.controller.PpaDataRequestAndroidConverter;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import app.coronawarn.datadonation.services.ppac.ios.controller.PpaDataRequestIosConverter;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores all submissions of the {@link SubmissionJournal} again, as fast as the {@link PpaDataService} accepts them,
+ * and exits. Used to restore the metric tables and as an ingestion benchmark with production traffic. Run with the
+ * profile <code>journal-replay</code> and <code>spring.main.web-application-type=none</code>, the journal itself
+ * should be disabled.
+ *
+ * <p>Like requests, the configured number of replay threads each store one submission at a time and wait until it
+ * is committed, so shuffled batches fill up. A submission rejected with {@link StorageOverloaded} is retried after a
+ * short pause. The reported rate counts the submissions stored until the last commit, before the application is
+ * closed.
+ */
+@Component
+@Profile("journal-replay")
+public class SubmissionJournalReplay implements ApplicationRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(SubmissionJournalReplay.class);
+  private static final long OVERLOAD_BACKOFF_MILLIS = 50;
+
+  private final PpacConfiguration ppacConfiguration;
+  private final PpaDataRequestAndroidConverter androidConverter;
+  private final PpaDataRequestIosConverter iosConverter;
+  private final PpaDataService ppaDataService;
+  private final ApplicationContext appContext;
+
+  /**
+   * Constructs the replay runner.
+   */
+  public SubmissionJournalReplay(PpacConfiguration ppacConfiguration, PpaDataRequestAndroidConverter androidConverter,
+      PpaDataRequestIosConverter iosConverter, PpaDataService ppaDataService, ApplicationContext appContext) {
+    this.ppacConfiguration = ppacConfiguration;
+    this.androidConverter = androidConverter;
+    this.iosConverter = iosConverter;
+    this.ppaDataService = ppaDataService;
+    this.appContext = appContext;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws IOException {
+    logger.info("Replaying the submissions journaled in {}.", ppacConfiguration.getJournal().getDirectory());
+    int concurrency = ppacConfiguration.getJournal().getReplayConcurrency();
+    ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+    Semaphore inFlight = new Semaphore(concurrency);
+    AtomicLong failed = new AtomicLong();
+    long start = System.nanoTime();
+    long count;
+    try {
+      count = SubmissionJournal.read(Paths.get(ppacConfiguration.getJournal().getDirectory()), submission -> {
+        inFlight.acquireUninterruptibly();
+        workers.execute(() -> {
+          try {
+            store(submission);
+          } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Failed to replay a journaled submission.", e);
+          } finally {
+            inFlight.release();
+          }
+        });
+      });
+      // every store returns only once its submission is committed
+      inFlight.acquireUninterruptibly(concurrency);
+    } finally {
+      workers.shutdown();
+    }
+    long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    long stored = count - failed.get();
+    logger.info("Replayed {} of {} submissions in {} ms ({} per second).", stored, count, millis,
+        stored * 1000 / millis);
+    System.exit(SpringApplication.exit(appContext));
+  }
+
+  /**
+   * Stores the given submission, waiting while the ingestion is overloaded.
+   */
+  void store(JournaledSubmission submission) {
+    PpaDataStorageRequest request = convert(submission);
+    while (true) {
+      try {
+        ppaDataService.store(request);
+        return;
+      } catch (StorageOverloaded e) {
+        try {
+          Thread.sleep(OVERLOAD_BACKOFF_MILLIS);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  private PpaDataStorageRequest convert(JournaledSubmission submission) {
+    try {
+      switch (submission.getPlatform()) {
+        case ANDROID:
+          return androidConverter.convertToStorageRequest(PPADataAndroid.parseFrom(submission.getPayload()),
+              ppacConfiguration, submission.getTechnicalMetadata());
+        case IOS:
+          return iosConverter.convertToStorageRequest(PPADataIOS.parseFrom(submission.getPayload()),
+              ppacConfiguration, submission.getTechnicalMetadata());
+        default:
+          throw new IllegalStateException("Unknown platform " + submission.getPlatform());
+      }
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException("Journaled payload can not be parsed.", e);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration.ConcurrencyLimit;
+
+/**
+ * Gradient based limit of concurrent requests for a single endpoint. The limit follows the ratio between the long-term
+ * average latency and the latency of the latest request: while requests are as fast as usual it grows by a small
+ * queue allowance, once a dependency (Postgres, DeviceCheck) slows down the gradient drops below one and the limit
+ * shrinks accordingly. Requests failing with a server error reduce the limit multiplicatively.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  private static final double MIN_GRADIENT = 0.5;
+  private static final double SMOOTHING = 0.2;
+  private static final int LONG_TERM_WINDOW = 600;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double backoffRatio;
+
+  private volatile double limit;
+  private int inFlight;
+  private double longTermLatency;
+
+  /**
+   * Creates a limit starting at the configured initial limit.
+   */
+  public AdaptiveConcurrencyLimit(ConcurrencyLimit configuration) {
+    this.minLimit = Math.max(configuration.getMinLimit(), 1);
+    this.maxLimit = Math.max(configuration.getMaxLimit(), minLimit);
+    this.tolerance = Math.max(configuration.getTolerance(), 1.0);
+    this.backoffRatio = configuration.getBackoffRatio();
+    this.limit = Math.min(Math.max(configuration.getInitialLimit(), minLimit), maxLimit);
+  }
+
+  /**
+   * Reserves a slot for a request.
+   *
+   * @return <code>false</code> if the limit is reached and the request must be rejected.
+   */
+  public synchronized boolean tryAcquire() {
+    if (inFlight >= getLimit()) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  /**
+   * Frees the slot of a finished request and adapts the limit to its latency.
+   *
+   * @param latencyNanos The time the request took.
+   * @param dropped      <code>true</code> if the request failed due to an overloaded or broken dependency.
+   */
+  public synchronized void release(long latencyNanos, boolean dropped) {
+    int concurrent = inFlight--;
+    if (dropped) {
+      limit = clamp(limit * backoffRatio);
+      return;
+    }
+    double latency = Math.max(latencyNanos, 1);
+    if (longTermLatency == 0) {
+      longTermLatency = latency;
+    } else {
+      longTermLatency += (latency - longTermLatency) / LONG_TERM_WINDOW;
+    }
+    // requests that did not use half of the limit say nothing about the capacity, so the limit must not grow
+    if (concurrent < limit / 2 && latency <= longTermLatency * tolerance) {
+      return;
+    }
+    double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longTermLatency / latency));
+    double target = limit * gradient + Math.sqrt(limit);
+    limit = clamp(limit * (1 - SMOOTHING) + target * SMOOTHING);
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns <code>true</code> if the limit has collapsed to its minimum, i.e. the endpoint is degraded rather than
+   * just busy.
+   */
+  public boolean isAtMinimum() {
+    return getLimit() <= minLimit;
+  }
+
+  private double clamp(double value) {
+    return Math.max(minLimit, Math.min(maxLimit, value));
+  }
+}
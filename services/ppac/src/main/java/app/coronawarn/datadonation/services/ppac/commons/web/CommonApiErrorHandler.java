@@ -2,13 +2,18 @@ package app.coronawarn.datadonation.services.ppac.commons.web;
 
 import static app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode.INTERNAL_SERVER_ERROR;
 
-import app.coronawarn.datadonation.common.config.SecurityLogger;
 import app.coronawarn.datadonation.common.persistence.errors.MetricsDataCouldNotBeStored;
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
 import app.coronawarn.datadonation.services.ppac.commons.PpaDataRequestValidationFailed;
+import app.coronawarn.datadonation.services.ppac.commons.admission.AdmissionThrottled;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
 import app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode;
+import app.coronawarn.datadonation.services.ppac.logging.SecurityEvents;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -18,10 +23,17 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class CommonApiErrorHandler extends ResponseEntityExceptionHandler {
 
-  private SecurityLogger securityLogger;
+  private SecurityEvents securityEvents;
+  private final String admissionRetryAfterSeconds;
+  private final String overloadRetryAfterSeconds;
 
-  public CommonApiErrorHandler(SecurityLogger securityLogger) {
-    this.securityLogger = securityLogger;
+  /**
+   * Creates the handler, the <code>Retry-After</code> values are taken from the configuration.
+   */
+  public CommonApiErrorHandler(SecurityEvents securityEvents, PpacConfiguration ppacConfiguration) {
+    this.securityEvents = securityEvents;
+    this.admissionRetryAfterSeconds = String.valueOf(ppacConfiguration.getAdmission().getRetryAfterSeconds());
+    this.overloadRetryAfterSeconds = String.valueOf(ppacConfiguration.getConcurrencyLimit().getRetryAfterSeconds());
   }
 
   private static final Map<Class<? extends RuntimeException>, PpacErrorCode> ERROR_CODES =
@@ -32,13 +44,31 @@ public class CommonApiErrorHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(value = {InternalError.class})
   @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
   protected void handleInternalErrors(RuntimeException e, WebRequest webRequest) {
-    getErrorCode(e).secureLog(securityLogger, e);
+    getErrorCode(e).secureLog(securityEvents, e);
   }
   
   @ExceptionHandler(value = {MetricsDataCouldNotBeStored.class, PpaDataRequestValidationFailed.class})
   @ResponseStatus(HttpStatus.BAD_REQUEST)
   protected void handleBadRequest(RuntimeException e, WebRequest webRequest) {
-    getErrorCode(e).secureLog(securityLogger, e);
+    getErrorCode(e).secureLog(securityEvents, e);
+  }
+
+  @ExceptionHandler(value = {AdmissionThrottled.class})
+  protected ResponseEntity<DataSubmissionResponse> handleAdmissionThrottled(RuntimeException e,
+      WebRequest webRequest) {
+    PpacErrorCode.ADMISSION_THROTTLED.secureLog(securityEvents, e);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, admissionRetryAfterSeconds)
+        .body(DataSubmissionResponse.of(PpacErrorCode.ADMISSION_THROTTLED));
+  }
+
+  @ExceptionHandler(value = {StorageOverloaded.class})
+  protected ResponseEntity<DataSubmissionResponse> handleStorageOverloaded(RuntimeException e,
+      WebRequest webRequest) {
+    PpacErrorCode.STORAGE_OVERLOADED.secureLog(securityEvents, e);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, overloadRetryAfterSeconds)
+        .body(DataSubmissionResponse.of(PpacErrorCode.STORAGE_OVERLOADED));
   }
 
   private PpacErrorCode getErrorCode(RuntimeException runtimeException) {
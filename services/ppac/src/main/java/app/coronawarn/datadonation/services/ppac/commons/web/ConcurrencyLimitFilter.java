@@ -0,0 +1,117 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.ANDROID;
+import static app.coronawarn.datadonation.common.config.UrlConstants.DATA;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+import static app.coronawarn.datadonation.common.config.UrlConstants.METRICS;
+import static app.coronawarn.datadonation.common.config.UrlConstants.OTP;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sheds load on the Android and iOS endpoints before it reaches the attestation, DeviceCheck or the database. Every
+ * endpoint has its own {@link AdaptiveConcurrencyLimit}, so a flood of PPA data submissions can not starve the EDUS OTP
+ * creation. Requests above the limit are answered right away with <code>429 Too Many Requests</code>, or with
+ * <code>503 Service Unavailable</code> once the limit has collapsed to its minimum, both carrying a
+ * <code>Retry-After</code> header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  static final List<String> LIMITED_ENDPOINTS = List.of(ANDROID + DATA, ANDROID + OTP, ANDROID + METRICS, IOS + DATA,
+      IOS + OTP, IOS + METRICS);
+
+  private final PpacConfiguration.ConcurrencyLimit configuration;
+  private final Map<String, AdaptiveConcurrencyLimit> limits;
+  private final Map<String, Counter> tooManyRequests;
+  private final Map<String, Counter> serviceUnavailable;
+
+  /**
+   * Creates one limit per endpoint and exports the limits, the requests in flight and the rejections as metrics.
+   */
+  public ConcurrencyLimitFilter(PpacConfiguration ppacConfiguration, MeterRegistry meterRegistry) {
+    this.configuration = ppacConfiguration.getConcurrencyLimit();
+    this.limits = LIMITED_ENDPOINTS.stream()
+        .collect(Collectors.toMap(Function.identity(), endpoint -> new AdaptiveConcurrencyLimit(configuration)));
+    this.tooManyRequests = rejectionCounters(meterRegistry, HttpStatus.TOO_MANY_REQUESTS);
+    this.serviceUnavailable = rejectionCounters(meterRegistry, HttpStatus.SERVICE_UNAVAILABLE);
+    limits.forEach((endpoint, limit) -> {
+      Gauge.builder("ppac.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+          .tag("endpoint", endpoint).register(meterRegistry);
+      Gauge.builder("ppac.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+          .tag("endpoint", endpoint).register(meterRegistry);
+    });
+  }
+
+  private static Map<String, Counter> rejectionCounters(MeterRegistry meterRegistry, HttpStatus status) {
+    return LIMITED_ENDPOINTS.stream().collect(Collectors.toMap(Function.identity(),
+        endpoint -> Counter.builder("ppac.concurrency.rejected")
+            .tag("endpoint", endpoint)
+            .tag("status", String.valueOf(status.value()))
+            .register(meterRegistry)));
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !configuration.isEnabled() || !limits.containsKey(endpointOf(request));
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String endpoint = endpointOf(request);
+    AdaptiveConcurrencyLimit limit = limits.get(endpoint);
+    if (!limit.tryAcquire()) {
+      reject(endpoint, limit, response);
+      return;
+    }
+    long start = System.nanoTime();
+    boolean dropped = true;
+    try {
+      filterChain.doFilter(request, response);
+      dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+    } finally {
+      limit.release(System.nanoTime() - start, dropped);
+    }
+  }
+
+  private void reject(String endpoint, AdaptiveConcurrencyLimit limit, HttpServletResponse response) {
+    HttpStatus status;
+    if (limit.isAtMinimum()) {
+      status = HttpStatus.SERVICE_UNAVAILABLE;
+      serviceUnavailable.get(endpoint).increment();
+    } else {
+      status = HttpStatus.TOO_MANY_REQUESTS;
+      tooManyRequests.get(endpoint).increment();
+    }
+    response.setStatus(status.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(configuration.getRetryAfterSeconds()));
+  }
+
+  AdaptiveConcurrencyLimit getLimit(String endpoint) {
+    return limits.get(endpoint);
+  }
+
+  private static String endpointOf(HttpServletRequest request) {
+    return request.getRequestURI().substring(request.getContextPath().length());
+  }
+}
@@ -0,0 +1,94 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import com.google.common.io.CountingInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses a gzip or deflate request body while it is read and enforces the decompression limits on the fly, so a
+ * decompression bomb is aborted after at most the permitted number of bytes instead of being inflated into memory.
+ */
+class DecompressingInputStream extends InputStream {
+
+  private final CountingInputStream compressed;
+  private final InputStream decompressed;
+  private final long maxDecompressedBytes;
+  private final int maxRatio;
+  private final long ratioGraceBytes;
+  private long decompressedBytes;
+
+  private DecompressingInputStream(CountingInputStream compressed, InputStream decompressed,
+      long maxDecompressedBytes, int maxRatio, long ratioGraceBytes) {
+    this.compressed = compressed;
+    this.decompressed = decompressed;
+    this.maxDecompressedBytes = maxDecompressedBytes;
+    this.maxRatio = maxRatio;
+    this.ratioGraceBytes = ratioGraceBytes;
+  }
+
+  /**
+   * Wraps the given compressed body.
+   *
+   * @param encoding             Either <code>gzip</code> or <code>deflate</code> (zlib format).
+   * @param maxDecompressedBytes The maximum size of the decompressed body.
+   * @param maxRatio             The maximum ratio between decompressed and compressed size.
+   * @param ratioGraceBytes      The number of decompressed bytes before the ratio is enforced, so small, highly
+   *                             compressible bodies (e.g. padding) are not rejected.
+   */
+  static DecompressingInputStream of(InputStream body, String encoding, long maxDecompressedBytes, int maxRatio,
+      long ratioGraceBytes) throws IOException {
+    CountingInputStream compressed = new CountingInputStream(body);
+    InputStream decompressed = "gzip".equals(encoding)
+        ? new GZIPInputStream(compressed)
+        : new InflaterInputStream(compressed);
+    return new DecompressingInputStream(compressed, decompressed, maxDecompressedBytes, maxRatio, ratioGraceBytes);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int value = decompressed.read();
+    if (value >= 0) {
+      count(1);
+    }
+    return value;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int read = decompressed.read(buffer, offset, length);
+    if (read > 0) {
+      count(read);
+    }
+    return read;
+  }
+
+  @Override
+  public void close() throws IOException {
+    decompressed.close();
+  }
+
+  private void count(int bytes) throws DecompressionLimitExceeded {
+    decompressedBytes += bytes;
+    if (decompressedBytes > maxDecompressedBytes) {
+      throw new DecompressionLimitExceeded("Decompressed request body exceeds " + maxDecompressedBytes + " bytes");
+    }
+    if (decompressedBytes > ratioGraceBytes && decompressedBytes > compressed.getCount() * maxRatio) {
+      throw new DecompressionLimitExceeded("Request body compression ratio exceeds " + maxRatio);
+    }
+  }
+
+  /**
+   * Signals a body that exceeds the decompression limits. As an {@link IOException} it surfaces as an unreadable
+   * message, i.e. <code>400 Bad Request</code>.
+   */
+  static final class DecompressionLimitExceeded extends IOException {
+
+    private static final long serialVersionUID = -6023117862960471583L;
+
+    DecompressionLimitExceeded(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.MessageLite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the responses of recent successful submissions, keyed on a digest of the complete authenticated request
+ * (payload and attestation or device token). A client which timed out and retries the very same request gets the
+ * original response replayed, instead of paying for the verification again only to fail on the redeemed salt or device
+ * token. Since the key covers the authentication, a different request can not obtain a replayed response.
+ */
+@Component
+public class IdempotentResponses {
+
+  private final boolean enabled;
+  private final Cache<String, ResponseEntity<?>> responses;
+  private final ConcurrentMap<String, CompletableFuture<ResponseEntity<?>>> inFlight = new ConcurrentHashMap<>();
+  private final Counter replayed;
+
+  /**
+   * Creates the bounded response cache.
+   */
+  public IdempotentResponses(PpacConfiguration ppacConfiguration, MeterRegistry meterRegistry) {
+    PpacConfiguration.Idempotency configuration = ppacConfiguration.getIdempotency();
+    this.enabled = configuration.isEnabled();
+    this.responses = CacheBuilder.newBuilder()
+        .maximumSize(configuration.getMaxEntries())
+        .expireAfterWrite(Duration.ofSeconds(configuration.getTtlSeconds()))
+        .build();
+    this.replayed = Counter.builder("ppac.idempotency.replayed").register(meterRegistry);
+  }
+
+  /**
+   * Replays the response of an earlier, successful submission of the same request or executes the submission. Only
+   * successful responses are remembered, a failed submission propagates its exception and may be retried. Concurrent
+   * duplicates are coalesced: while one of them is submitted, the others wait for its outcome and get its response
+   * replayed if it succeeded, or are submitted themselves if it did not.
+   *
+   * @param endpoint   The endpoint receiving the request, so equal bodies sent to different endpoints do not collide.
+   * @param request    The complete unmarshalled request, including its authentication.
+   * @param submission Verifies and stores the request.
+   * @return The replayed or the new response.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> ResponseEntity<T> replayOrSubmit(String endpoint, MessageLite request,
+      Supplier<ResponseEntity<T>> submission) {
+    if (!enabled) {
+      return submission.get();
+    }
+    String key = keyOf(endpoint, request);
+    while (true) {
+      ResponseEntity<T> response = (ResponseEntity<T>) responses.getIfPresent(key);
+      if (response != null) {
+        replayed.increment();
+        return response;
+      }
+      CompletableFuture<ResponseEntity<?>> own = new CompletableFuture<>();
+      CompletableFuture<ResponseEntity<?>> running = inFlight.putIfAbsent(key, own);
+      if (running == null) {
+        return submit(key, own, submission);
+      }
+      response = (ResponseEntity<T>) outcomeOf(running);
+      if (isSuccessful(response)) {
+        replayed.increment();
+        return response;
+      }
+    }
+  }
+
+  private <T> ResponseEntity<T> submit(String key, CompletableFuture<ResponseEntity<?>> own,
+      Supplier<ResponseEntity<T>> submission) {
+    try {
+      ResponseEntity<T> response = submission.get();
+      if (isSuccessful(response)) {
+        responses.put(key, response);
+      }
+      own.complete(response);
+      return response;
+    } catch (RuntimeException e) {
+      own.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  private static ResponseEntity<?> outcomeOf(CompletableFuture<ResponseEntity<?>> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      return null;
+    }
+  }
+
+  private static boolean isSuccessful(ResponseEntity<?> response) {
+    return response != null && response.getStatusCode().is2xxSuccessful();
+  }
+
+  static String keyOf(String endpoint, MessageLite request) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+      digest.update(request.toByteArray());
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
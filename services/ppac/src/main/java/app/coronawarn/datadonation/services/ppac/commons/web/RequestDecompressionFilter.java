@@ -0,0 +1,227 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.ANDROID;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Accepts <code>gzip</code> and <code>deflate</code> encoded request bodies on the Android and iOS endpoints. The body
+ * is decompressed while the protobuf parser reads it, within the configured size and ratio limits. Other encodings are
+ * rejected with <code>415 Unsupported Media Type</code>.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+  private static final List<String> SUPPORTED_ENCODINGS = List.of("gzip", "deflate");
+
+  private final PpacConfiguration.RequestCompression configuration;
+
+  public RequestDecompressionFilter(PpacConfiguration ppacConfiguration) {
+    this.configuration = ppacConfiguration.getRequestCompression();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return request.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+        || !path.startsWith(ANDROID + "/") && !path.startsWith(IOS + "/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase(Locale.ROOT);
+    if ("identity".equals(encoding)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    if (!configuration.isEnabled() || !SUPPORTED_ENCODINGS.contains(encoding)) {
+      response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+      response.setHeader(HttpHeaders.ACCEPT_ENCODING, configuration.isEnabled() ? "gzip, deflate" : "identity");
+      return;
+    }
+    filterChain.doFilter(new DecompressedRequest(request, encoding), response);
+  }
+
+  private final class DecompressedRequest extends HttpServletRequestWrapper {
+
+    private final String encoding;
+    private ServletInputStream body;
+
+    private DecompressedRequest(HttpServletRequest request, String encoding) {
+      super(request);
+      this.encoding = encoding;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (body == null) {
+        body = new DecompressedBody(super.getInputStream(), encoding);
+      }
+      return body;
+    }
+
+    @Override
+    public int getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return -1;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return isHidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      List<String> names = Collections.list(super.getHeaderNames());
+      names.removeIf(this::isHidden);
+      return Collections.enumeration(names);
+    }
+
+    private boolean isHidden(String name) {
+      return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+  }
+
+  /**
+   * Decompresses the body lazily, so the compressed stream is not touched before the application starts reading.
+   * Blocking reads stream through the inflater. In non-blocking mode the compressed body is collected as the container
+   * reports it available and handed to the application, fully decompressible without blocking, once it is complete.
+   */
+  private final class DecompressedBody extends ServletInputStream {
+
+    private final ServletInputStream compressed;
+    private final String encoding;
+    private InputStream delegate;
+    private boolean finished;
+    private volatile boolean ready = true;
+
+    private DecompressedBody(ServletInputStream compressed, String encoding) {
+      this.compressed = compressed;
+      this.encoding = encoding;
+    }
+
+    private InputStream delegate() throws IOException {
+      if (delegate == null) {
+        delegate = decompress(compressed);
+      }
+      return delegate;
+    }
+
+    private InputStream decompress(InputStream body) throws IOException {
+      return DecompressingInputStream.of(body, encoding, configuration.getMaxDecompressedBytes(),
+          configuration.getMaxRatio(), configuration.getRatioGraceBytes());
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = delegate().read();
+      finished = value < 0;
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = delegate().read(buffer, offset, length);
+      finished = read < 0;
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (delegate != null) {
+        delegate.close();
+      } else {
+        compressed.close();
+      }
+    }
+
+    @Override
+    public boolean isFinished() {
+      return finished;
+    }
+
+    @Override
+    public boolean isReady() {
+      return ready;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      ready = false;
+      compressed.setReadListener(new BufferingReadListener(readListener));
+    }
+
+    private final class BufferingReadListener implements ReadListener {
+
+      private final ReadListener readListener;
+      private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      private final byte[] chunk = new byte[8192];
+
+      private BufferingReadListener(ReadListener readListener) {
+        this.readListener = readListener;
+      }
+
+      @Override
+      public void onDataAvailable() throws IOException {
+        while (compressed.isReady()) {
+          int read = compressed.read(chunk);
+          if (read < 0) {
+            return;
+          }
+          if (buffer.size() + read > configuration.getMaxDecompressedBytes()) {
+            throw new IOException("Compressed request body exceeds " + configuration.getMaxDecompressedBytes()
+                + " bytes");
+          }
+          buffer.write(chunk, 0, read);
+        }
+      }
+
+      @Override
+      public void onAllDataRead() throws IOException {
+        delegate = decompress(new ByteArrayInputStream(buffer.toByteArray()));
+        ready = true;
+        readListener.onDataAvailable();
+        readListener.onAllDataRead();
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        readListener.onError(throwable);
+      }
+    }
+  }
+}
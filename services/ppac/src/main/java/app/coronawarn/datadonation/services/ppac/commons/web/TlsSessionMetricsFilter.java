@@ -0,0 +1,56 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Counts full TLS handshakes and the requests served on already established sessions. A session id is counted as a
+ * handshake exactly once, the first time it is seen. Every later request with that id, whether it arrived on a
+ * kept-alive connection or a resumed session, only counts towards <code>tls.session.requests</code>, so the ratio of
+ * both counters is the number of requests each full handshake paid for. The filter runs before all others, so
+ * rejected requests are counted as well.
+ */
+public class TlsSessionMetricsFilter extends OncePerRequestFilter {
+
+  static final String SESSION_ID = "javax.servlet.request.ssl_session_id";
+  static final String CIPHER_SUITE = "javax.servlet.request.cipher_suite";
+  static final String PROTOCOL = "org.apache.tomcat.util.net.secure_protocol_version";
+
+  private final MeterRegistry meterRegistry;
+  private final Cache<String, Boolean> knownSessions;
+
+  /**
+   * Creates the filter. Known session ids are remembered as long as the server keeps the sessions.
+   */
+  public TlsSessionMetricsFilter(MeterRegistry meterRegistry, int sessionCacheSize, Duration sessionTimeout) {
+    this.meterRegistry = meterRegistry;
+    this.knownSessions = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(sessionCacheSize, 1))
+        .expireAfterAccess(sessionTimeout)
+        .build();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    Object sessionId = request.getAttribute(SESSION_ID);
+    if (sessionId != null) {
+      boolean known = knownSessions.asMap().putIfAbsent(sessionId.toString(), Boolean.TRUE) != null;
+      Counter.builder(known ? "tls.session.requests" : "tls.handshakes")
+          .tag("protocol", String.valueOf(request.getAttribute(PROTOCOL)))
+          .tag("cipher", String.valueOf(request.getAttribute(CIPHER_SUITE)))
+          .register(meterRegistry)
+          .increment();
+    }
+    filterChain.doFilter(request, response);
+  }
+}
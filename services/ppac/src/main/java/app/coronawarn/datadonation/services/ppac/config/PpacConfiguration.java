@@ -1,5 +1,7 @@
 package app.coronawarn.datadonation.services.ppac.config;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -193,6 +195,8 @@ public class PpacConfiguration {
     private Integer minDeviceTokenLength;
     private Integer maxDeviceTokenLength;
     private String missingOrIncorrectlyFormattedDeviceTokenPayload;
+    private int deviceTokenRetentionHours;
+    private int maxRecentDeviceTokensPerHour;
 
     public String getDeviceApiUrl() {
       return deviceApiUrl;
@@ -250,6 +254,414 @@ public class PpacConfiguration {
     public void setPpacIosJwtTeamId(String ppacIosJwtTeamId) {
       this.ppacIosJwtTeamId = ppacIosJwtTeamId;
     }
+
+    public int getDeviceTokenRetentionHours() {
+      return deviceTokenRetentionHours;
+    }
+
+    public void setDeviceTokenRetentionHours(int deviceTokenRetentionHours) {
+      this.deviceTokenRetentionHours = deviceTokenRetentionHours;
+    }
+
+    public int getMaxRecentDeviceTokensPerHour() {
+      return maxRecentDeviceTokensPerHour;
+    }
+
+    public void setMaxRecentDeviceTokensPerHour(int maxRecentDeviceTokensPerHour) {
+      this.maxRecentDeviceTokensPerHour = maxRecentDeviceTokensPerHour;
+    }
+  }
+
+  public static final class ConcurrencyLimit {
+
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+    private double tolerance = 2.0;
+    private double backoffRatio = 0.9;
+    private int retryAfterSeconds = 5;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+      return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+      this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+      return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+      return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+    }
+
+    public double getTolerance() {
+      return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+      this.tolerance = tolerance;
+    }
+
+    public double getBackoffRatio() {
+      return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+      this.backoffRatio = backoffRatio;
+    }
+
+    public int getRetryAfterSeconds() {
+      return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+      this.retryAfterSeconds = retryAfterSeconds;
+    }
+  }
+
+  public static final class Admission {
+
+    private boolean enabled = true;
+    private int windowSeconds = 60;
+    private int maxRequestsPerAddress = 1000;
+    private int maxRequestsPerSalt = 5;
+    private int maxRequestsPerDeviceToken = 5;
+    private int maxTrackedKeys = 100_000;
+    private int stripes = 64;
+    private int retryAfterSeconds = 60;
+    private List<String> trustedProxies = new ArrayList<>();
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getWindowSeconds() {
+      return windowSeconds;
+    }
+
+    public void setWindowSeconds(int windowSeconds) {
+      this.windowSeconds = windowSeconds;
+    }
+
+    public int getMaxRequestsPerAddress() {
+      return maxRequestsPerAddress;
+    }
+
+    public void setMaxRequestsPerAddress(int maxRequestsPerAddress) {
+      this.maxRequestsPerAddress = maxRequestsPerAddress;
+    }
+
+    public int getMaxRequestsPerSalt() {
+      return maxRequestsPerSalt;
+    }
+
+    public void setMaxRequestsPerSalt(int maxRequestsPerSalt) {
+      this.maxRequestsPerSalt = maxRequestsPerSalt;
+    }
+
+    public int getMaxRequestsPerDeviceToken() {
+      return maxRequestsPerDeviceToken;
+    }
+
+    public void setMaxRequestsPerDeviceToken(int maxRequestsPerDeviceToken) {
+      this.maxRequestsPerDeviceToken = maxRequestsPerDeviceToken;
+    }
+
+    public int getMaxTrackedKeys() {
+      return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(int maxTrackedKeys) {
+      this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public int getStripes() {
+      return stripes;
+    }
+
+    public void setStripes(int stripes) {
+      this.stripes = stripes;
+    }
+
+    public int getRetryAfterSeconds() {
+      return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+      this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public List<String> getTrustedProxies() {
+      return trustedProxies;
+    }
+
+    public void setTrustedProxies(List<String> trustedProxies) {
+      this.trustedProxies = trustedProxies;
+    }
+  }
+
+  public static final class SecurityLog {
+
+    private int samplesPerInterval = 10;
+    private int summaryIntervalSeconds = 60;
+
+    public int getSamplesPerInterval() {
+      return samplesPerInterval;
+    }
+
+    public void setSamplesPerInterval(int samplesPerInterval) {
+      this.samplesPerInterval = samplesPerInterval;
+    }
+
+    public int getSummaryIntervalSeconds() {
+      return summaryIntervalSeconds;
+    }
+
+    public void setSummaryIntervalSeconds(int summaryIntervalSeconds) {
+      this.summaryIntervalSeconds = summaryIntervalSeconds;
+    }
+  }
+
+  public static final class RequestCompression {
+
+    private boolean enabled = true;
+    private long maxDecompressedBytes = 16L * 1024 * 1024;
+    private int maxRatio = 100;
+    private long ratioGraceBytes = 1024L * 1024;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getMaxDecompressedBytes() {
+      return maxDecompressedBytes;
+    }
+
+    public void setMaxDecompressedBytes(long maxDecompressedBytes) {
+      this.maxDecompressedBytes = maxDecompressedBytes;
+    }
+
+    public int getMaxRatio() {
+      return maxRatio;
+    }
+
+    public void setMaxRatio(int maxRatio) {
+      this.maxRatio = maxRatio;
+    }
+
+    public long getRatioGraceBytes() {
+      return ratioGraceBytes;
+    }
+
+    public void setRatioGraceBytes(long ratioGraceBytes) {
+      this.ratioGraceBytes = ratioGraceBytes;
+    }
+  }
+
+  public static final class Idempotency {
+
+    private boolean enabled = true;
+    private int maxEntries = 100_000;
+    private int ttlSeconds = 600;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+      return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+    }
+
+    public int getTtlSeconds() {
+      return ttlSeconds;
+    }
+
+    public void setTtlSeconds(int ttlSeconds) {
+      this.ttlSeconds = ttlSeconds;
+    }
+  }
+
+  public static final class GenericMetrics {
+
+    private int maxValues = 1000;
+    private int maxTextLength = 256;
+
+    public int getMaxValues() {
+      return maxValues;
+    }
+
+    public void setMaxValues(int maxValues) {
+      this.maxValues = maxValues;
+    }
+
+    public int getMaxTextLength() {
+      return maxTextLength;
+    }
+
+    public void setMaxTextLength(int maxTextLength) {
+      this.maxTextLength = maxTextLength;
+    }
+  }
+
+  public static final class Journal {
+
+    private boolean enabled;
+    private String directory = "submission-journal";
+    private int segmentBytes = 64 * 1024 * 1024;
+    private int replayConcurrency = 64;
+    private int retentionDays = 7;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+      return directory;
+    }
+
+    public void setDirectory(String directory) {
+      this.directory = directory;
+    }
+
+    public int getSegmentBytes() {
+      return segmentBytes;
+    }
+
+    public void setSegmentBytes(int segmentBytes) {
+      this.segmentBytes = segmentBytes;
+    }
+
+    public int getReplayConcurrency() {
+      return replayConcurrency;
+    }
+
+    public void setReplayConcurrency(int replayConcurrency) {
+      this.replayConcurrency = replayConcurrency;
+    }
+
+    public int getRetentionDays() {
+      return retentionDays;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+      this.retentionDays = retentionDays;
+    }
+  }
+
+  public static final class Quarantine {
+
+    private boolean enabled;
+    private int failureThreshold = 5;
+    private int openSeconds = 30;
+    private int batchSize = 20;
+    private long intervalMillis = 1000;
+    private int maxAgeHours = 24;
+    private int maxRows = 100_000;
+    private int claimSeconds = 300;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getFailureThreshold() {
+      return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+      this.failureThreshold = failureThreshold;
+    }
+
+    public int getOpenSeconds() {
+      return openSeconds;
+    }
+
+    public void setOpenSeconds(int openSeconds) {
+      this.openSeconds = openSeconds;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public long getIntervalMillis() {
+      return intervalMillis;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+      this.intervalMillis = intervalMillis;
+    }
+
+    public int getMaxAgeHours() {
+      return maxAgeHours;
+    }
+
+    public void setMaxAgeHours(int maxAgeHours) {
+      this.maxAgeHours = maxAgeHours;
+    }
+
+    public int getMaxRows() {
+      return maxRows;
+    }
+
+    public void setMaxRows(int maxRows) {
+      this.maxRows = maxRows;
+    }
+
+    public int getClaimSeconds() {
+      return claimSeconds;
+    }
+
+    public void setClaimSeconds(int claimSeconds) {
+      this.claimSeconds = claimSeconds;
+    }
   }
 
   private int otpValidityInHours;
@@ -261,14 +673,50 @@ public class PpacConfiguration {
 
   private Android android;
 
+  private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+  private Admission admission = new Admission();
+
+  private SecurityLog securityLog = new SecurityLog();
+
+  private RequestCompression requestCompression = new RequestCompression();
+
+  private Idempotency idempotency = new Idempotency();
+
+  private GenericMetrics genericMetrics = new GenericMetrics();
+
+  private Journal journal = new Journal();
+
+  private Quarantine quarantine = new Quarantine();
+
+  public Admission getAdmission() {
+    return admission;
+  }
+
   public Android getAndroid() {
     return android;
   }
 
+  public ConcurrencyLimit getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  public GenericMetrics getGenericMetrics() {
+    return genericMetrics;
+  }
+
+  public Idempotency getIdempotency() {
+    return idempotency;
+  }
+
   public Ios getIos() {
     return ios;
   }
 
+  public Journal getJournal() {
+    return journal;
+  }
+
   public int getMaxExposureWindowsToRejectSubmission() {
     return maxExposureWindowsToRejectSubmission;
   }
@@ -277,18 +725,50 @@ public class PpacConfiguration {
     return maxExposureWindowsToStore;
   }
 
+  public Quarantine getQuarantine() {
+    return quarantine;
+  }
+
+  public RequestCompression getRequestCompression() {
+    return requestCompression;
+  }
+
+  public SecurityLog getSecurityLog() {
+    return securityLog;
+  }
+
   public int getOtpValidityInHours() {
     return otpValidityInHours;
   }
 
+  public void setAdmission(Admission admission) {
+    this.admission = admission;
+  }
+
   public void setAndroid(Android android) {
     this.android = android;
   }
 
+  public void setConcurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+    this.concurrencyLimit = concurrencyLimit;
+  }
+
+  public void setGenericMetrics(GenericMetrics genericMetrics) {
+    this.genericMetrics = genericMetrics;
+  }
+
+  public void setIdempotency(Idempotency idempotency) {
+    this.idempotency = idempotency;
+  }
+
   public void setIos(Ios ios) {
     this.ios = ios;
   }
 
+  public void setJournal(Journal journal) {
+    this.journal = journal;
+  }
+
   public void setMaxExposureWindowsToRejectSubmission(int maxExposureWindowsToRejectSubmission) {
     this.maxExposureWindowsToRejectSubmission = maxExposureWindowsToRejectSubmission;
   }
@@ -297,6 +777,18 @@ public class PpacConfiguration {
     this.maxExposureWindowsToStore = maxExposureWindowsToStore;
   }
 
+  public void setQuarantine(Quarantine quarantine) {
+    this.quarantine = quarantine;
+  }
+
+  public void setRequestCompression(RequestCompression requestCompression) {
+    this.requestCompression = requestCompression;
+  }
+
+  public void setSecurityLog(SecurityLog securityLog) {
+    this.securityLog = securityLog;
+  }
+
   public void setOtpValidityInHours(int otpValidityInHours) {
     this.otpValidityInHours = otpValidityInHours;
   }
@@ -0,0 +1,59 @@
+package app.coronawarn.datadonation.services.ppac.config;
+
+import app.coronawarn.datadonation.services.ppac.commons.web.TlsSessionMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.apache.catalina.connector.Connector;
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Tunes the TLS termination of the embedded Tomcat for clients which open a new connection for almost every request.
+ * Sessions are kept in a sized cache, so reconnecting clients resume them instead of running a full handshake, and the
+ * server's cipher order (ECDHE-ECDSA first) wins over the client's. Optionally the handshake is offloaded to OpenSSL,
+ * which requires the Tomcat native library to be installed.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "server.ssl", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(TlsProperties.class)
+public class TlsConfiguration {
+
+  private static final Logger logger = LoggerFactory.getLogger(TlsConfiguration.class);
+  private static final String OPENSSL_IMPLEMENTATION = "org.apache.tomcat.util.net.openssl.OpenSSLImplementation";
+
+  @Bean
+  WebServerFactoryCustomizer<TomcatServletWebServerFactory> tlsSessionCustomizer(TlsProperties tlsProperties) {
+    return factory -> factory.addConnectorCustomizers(connector -> customize(connector, tlsProperties));
+  }
+
+  @Bean
+  FilterRegistrationBean<TlsSessionMetricsFilter> tlsSessionMetricsFilter(TlsProperties tlsProperties,
+      MeterRegistry meterRegistry) {
+    FilterRegistrationBean<TlsSessionMetricsFilter> registration = new FilterRegistrationBean<>(
+        new TlsSessionMetricsFilter(meterRegistry, tlsProperties.getSessionCacheSize(),
+            Duration.ofSeconds(tlsProperties.getSessionTimeoutSeconds())));
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  static void customize(Connector connector, TlsProperties tlsProperties) {
+    if (tlsProperties.isNativeProvider()) {
+      connector.setProperty("sslImplementationName", OPENSSL_IMPLEMENTATION);
+      logger.info("TLS handshakes are offloaded to OpenSSL.");
+    }
+    for (SSLHostConfig sslHostConfig : connector.findSslHostConfigs()) {
+      sslHostConfig.setSessionCacheSize(tlsProperties.getSessionCacheSize());
+      sslHostConfig.setSessionTimeout(tlsProperties.getSessionTimeoutSeconds());
+      sslHostConfig.setHonorCipherOrder(tlsProperties.isHonorCipherOrder());
+    }
+  }
+}
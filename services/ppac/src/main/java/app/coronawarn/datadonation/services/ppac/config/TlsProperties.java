@@ -0,0 +1,47 @@
+package app.coronawarn.datadonation.services.ppac.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tuning of the TLS termination in addition to the <code>server.ssl</code> settings of Spring Boot.
+ */
+@ConfigurationProperties(prefix = "tls")
+public class TlsProperties {
+
+  private int sessionCacheSize = 20_000;
+  private int sessionTimeoutSeconds = 3600;
+  private boolean honorCipherOrder = true;
+  private boolean nativeProvider;
+
+  public int getSessionCacheSize() {
+    return sessionCacheSize;
+  }
+
+  public void setSessionCacheSize(int sessionCacheSize) {
+    this.sessionCacheSize = sessionCacheSize;
+  }
+
+  public int getSessionTimeoutSeconds() {
+    return sessionTimeoutSeconds;
+  }
+
+  public void setSessionTimeoutSeconds(int sessionTimeoutSeconds) {
+    this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+  }
+
+  public boolean isHonorCipherOrder() {
+    return honorCipherOrder;
+  }
+
+  public void setHonorCipherOrder(boolean honorCipherOrder) {
+    this.honorCipherOrder = honorCipherOrder;
+  }
+
+  public boolean isNativeProvider() {
+    return nativeProvider;
+  }
+
+  public void setNativeProvider(boolean nativeProvider) {
+    this.nativeProvider = nativeProvider;
+  }
+}
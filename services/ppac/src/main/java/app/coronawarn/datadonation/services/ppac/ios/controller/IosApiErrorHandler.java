@@ -8,7 +8,6 @@ import static app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode.DE
 import static app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode.DEVICE_TOKEN_REDEEMED;
 import static app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode.DEVICE_TOKEN_SYNTAX_ERROR;
 
-import app.coronawarn.datadonation.common.config.SecurityLogger;
 import app.coronawarn.datadonation.services.ppac.commons.web.DataSubmissionResponse;
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.ApiTokenAlreadyUsed;
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.ApiTokenExpired;
@@ -18,6 +17,7 @@ import app.coronawarn.datadonation.services.ppac.ios.verification.errors.DeviceT
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.DeviceTokenRedeemed;
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.DeviceTokenSyntaxError;
 import app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode;
+import app.coronawarn.datadonation.services.ppac.logging.SecurityEvents;
 import java.util.Map;
 import javax.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
@@ -30,10 +30,10 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class IosApiErrorHandler extends ResponseEntityExceptionHandler {
 
-  private SecurityLogger securityLogger;
+  private SecurityEvents securityEvents;
 
-  public IosApiErrorHandler(SecurityLogger securityLogger) {
-    this.securityLogger = securityLogger;
+  public IosApiErrorHandler(SecurityEvents securityEvents) {
+    this.securityEvents = securityEvents;
   }
 
   private static final Map<Class<? extends RuntimeException>, PpacErrorCode> ERROR_CODES =
@@ -50,7 +50,7 @@ public class IosApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<Object> handleAuthenticationErrors(RuntimeException e,
       WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(e);
-    errorCode.secureLog(securityLogger, e);
+    errorCode.secureLog(securityEvents, e);
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(of(errorCode));
   }
 
@@ -59,7 +59,7 @@ public class IosApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<Object> handleBadRequests(RuntimeException e,
       WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(e);
-    errorCode.secureLog(securityLogger, e);
+    errorCode.secureLog(securityEvents, e);
     return ResponseEntity.badRequest().body(of(errorCode));
   }
 
@@ -69,7 +69,7 @@ public class IosApiErrorHandler extends ResponseEntityExceptionHandler {
       WebRequest webRequest) {
 
     final PpacErrorCode errorCode = getErrorCode(e);
-    errorCode.secureLog(securityLogger, e);
+    errorCode.secureLog(securityEvents, e);
     return ResponseEntity.status(HttpStatus.FORBIDDEN).body(of(errorCode));
   }
 
@@ -77,7 +77,7 @@ public class IosApiErrorHandler extends ResponseEntityExceptionHandler {
   protected ResponseEntity<DataSubmissionResponse> handleTooManyRequestsErrors(RuntimeException e,
       WebRequest webRequest) {
     final PpacErrorCode errorCode = getErrorCode(e);
-    errorCode.secureLog(securityLogger, e);
+    errorCode.secureLog(securityEvents, e);
 
     return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
         .body(of(errorCode));
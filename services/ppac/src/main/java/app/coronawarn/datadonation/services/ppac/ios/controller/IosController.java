@@ -2,20 +2,32 @@ package app.coronawarn.datadonation.services.ppac.ios.controller;
 
 import static app.coronawarn.datadonation.common.config.UrlConstants.DATA;
 import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+import static app.coronawarn.datadonation.common.config.UrlConstants.METRICS;
 import static app.coronawarn.datadonation.common.config.UrlConstants.OTP;
 
 import app.coronawarn.datadonation.common.persistence.domain.OneTimePassword;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.service.GenericMetricsIngestion;
 import app.coronawarn.datadonation.common.persistence.service.OtpCreationResponse;
 import app.coronawarn.datadonation.common.persistence.service.OtpService;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataService;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import app.coronawarn.datadonation.common.protocols.AuthIos;
+import app.coronawarn.datadonation.common.protocols.SubmissionPayloadIos;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtpRequestIos.EDUSOneTimePasswordRequestIOS;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequestIos.PPADataRequestIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
+import app.coronawarn.datadonation.services.ppac.commons.MetricsPayloadValidator;
 import app.coronawarn.datadonation.services.ppac.commons.PpacScenario;
+import app.coronawarn.datadonation.services.ppac.commons.admission.AdmissionThrottle;
+import app.coronawarn.datadonation.services.ppac.commons.journal.JournaledSubmission;
+import app.coronawarn.datadonation.services.ppac.commons.journal.SubmissionJournal;
+import app.coronawarn.datadonation.services.ppac.commons.web.IdempotentResponses;
 import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import app.coronawarn.datadonation.services.ppac.ios.controller.validation.ValidEdusOneTimePasswordRequestIos;
 import app.coronawarn.datadonation.services.ppac.ios.controller.validation.ValidPpaDataRequestIosPayload;
 import app.coronawarn.datadonation.services.ppac.ios.verification.PpacProcessor;
+import app.coronawarn.datadonation.services.ppac.ios.verification.quarantine.IosQuarantine;
 import java.time.ZonedDateTime;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -36,18 +48,34 @@ public class IosController {
   private final PpaDataRequestIosConverter converter;
   private final PpaDataService ppaDataService;
   private final PpacConfiguration ppacConfiguration;
+  private final AdmissionThrottle admissionThrottle;
+  private final IdempotentResponses idempotentResponses;
+  private final MetricsPayloadValidator metricsValidator;
+  private final GenericMetricsIngestion genericMetricsIngestion;
+  private final SubmissionJournal submissionJournal;
+  private final IosQuarantine quarantine;
 
   IosController(PpacConfiguration ppacConfiguration, PpacProcessor ppacProcessor, OtpService otpService,
-      PpaDataRequestIosConverter converter, PpaDataService ppaDataService) {
+      PpaDataRequestIosConverter converter, PpaDataService ppaDataService, AdmissionThrottle admissionThrottle,
+      IdempotentResponses idempotentResponses, MetricsPayloadValidator metricsValidator,
+      GenericMetricsIngestion genericMetricsIngestion, SubmissionJournal submissionJournal,
+      IosQuarantine quarantine) {
     this.ppacConfiguration = ppacConfiguration;
     this.ppacProcessor = ppacProcessor;
     this.otpService = otpService;
     this.converter = converter;
     this.ppaDataService = ppaDataService;
+    this.admissionThrottle = admissionThrottle;
+    this.idempotentResponses = idempotentResponses;
+    this.metricsValidator = metricsValidator;
+    this.genericMetricsIngestion = genericMetricsIngestion;
+    this.submissionJournal = submissionJournal;
+    this.quarantine = quarantine;
   }
 
   /**
-   * Entry point for validating incoming data submission requests.
+   * Entry point for validating incoming data submission requests. While DeviceCheck is degraded, valid submissions are
+   * quarantined and their authentication is verified later (see {@link IosQuarantine}).
    *
    * @param ppaDataRequestIos           The unmarshalled protocol buffers submission payload.
    * @param ignoreApiTokenAlreadyIssued flag to indicate whether the ApiToken should be validated against the last
@@ -58,13 +86,22 @@ public class IosController {
   public ResponseEntity<Object> submitData(
       @RequestHeader(value = "cwa-ppac-ios-accept-api-token", required = false) boolean ignoreApiTokenAlreadyIssued,
       @ValidPpaDataRequestIosPayload @RequestBody PPADataRequestIOS ppaDataRequestIos) {
-
-    ppacProcessor.validate(ppaDataRequestIos.getAuthentication(), ignoreApiTokenAlreadyIssued,
-        PpacScenario.PPA);
-    final PpaDataStorageRequest ppaDataStorageRequest =
-        this.converter.convertToStorageRequest(ppaDataRequestIos, ppacConfiguration);
-    ppaDataService.store(ppaDataStorageRequest);
-    return ResponseEntity.noContent().build();
+    admissionThrottle.admitDeviceToken(ppaDataRequestIos.getAuthentication().getDeviceToken());
+    return idempotentResponses.replayOrSubmit(IOS + DATA, ppaDataRequestIos, () -> {
+      if (quarantine.isActive()) {
+        ppaDataService.validate(converter.convertToStorageRequest(ppaDataRequestIos, ppacConfiguration));
+        quarantine.quarantine(ppaDataRequestIos, ignoreApiTokenAlreadyIssued);
+        return ResponseEntity.noContent().build();
+      }
+      ppacProcessor.validate(ppaDataRequestIos.getAuthentication(), ignoreApiTokenAlreadyIssued,
+          PpacScenario.PPA);
+      final PpaDataStorageRequest ppaDataStorageRequest =
+          this.converter.convertToStorageRequest(ppaDataRequestIos, ppacConfiguration);
+      ppaDataService.store(ppaDataStorageRequest);
+      submissionJournal.append(JournaledSubmission.ios(ppaDataRequestIos.getPayload(),
+          TechnicalMetadata.newEmptyInstance()));
+      return ResponseEntity.noContent().build();
+    });
   }
 
   /**
@@ -79,11 +116,37 @@ public class IosController {
   public ResponseEntity<Object> submitOtp(
       @RequestHeader(value = "cwa-ppac-ios-accept-api-token", required = false) boolean ignoreApiTokenAlreadyIssued,
       @ValidEdusOneTimePasswordRequestIos @RequestBody EDUSOneTimePasswordRequestIOS otpRequest) {
-    ppacProcessor.validate(otpRequest.getAuthentication(), ignoreApiTokenAlreadyIssued,
-        PpacScenario.EDUS);
-    ZonedDateTime expirationTime = otpService
-        .createOtp(new OneTimePassword(otpRequest.getPayload().getOtp()),
-            ppacConfiguration.getOtpValidityInHours());
-    return ResponseEntity.status(HttpStatus.OK).body(new OtpCreationResponse(expirationTime));
+    admissionThrottle.admitDeviceToken(otpRequest.getAuthentication().getDeviceToken());
+    return idempotentResponses.replayOrSubmit(IOS + OTP, otpRequest, () -> {
+      ppacProcessor.validate(otpRequest.getAuthentication(), ignoreApiTokenAlreadyIssued,
+          PpacScenario.EDUS);
+      ZonedDateTime expirationTime = otpService
+          .createOtp(new OneTimePassword(otpRequest.getPayload().getOtp()),
+              ppacConfiguration.getOtpValidityInHours());
+      return ResponseEntity.status(HttpStatus.OK).body(new OtpCreationResponse(expirationTime));
+    });
+  }
+
+  /**
+   * Entry point for submissions of generic key/value metrics, authenticated like data submissions.
+   *
+   * @param ignoreApiTokenAlreadyIssued flag to indicate whether the ApiToken should be validated against the last
+   *                                    updated time from the per-device Data.
+   * @param submission                  The unmarshalled protocol buffers metrics submission.
+   * @return An empty response body.
+   */
+  @PostMapping(value = METRICS, consumes = "application/x-protobuf")
+  public ResponseEntity<Object> submitMetrics(
+      @RequestHeader(value = "cwa-ppac-ios-accept-api-token", required = false) boolean ignoreApiTokenAlreadyIssued,
+      @RequestBody SubmissionPayloadIos submission) {
+    AuthIos authentication = submission.getAuthentication();
+    metricsValidator.validate(authentication, submission.getMetrics());
+    admissionThrottle.admitDeviceToken(authentication.getDeviceToken());
+    return idempotentResponses.replayOrSubmit(IOS + METRICS, submission, () -> {
+      ppacProcessor.validate(PPACIOS.newBuilder().setDeviceToken(authentication.getDeviceToken())
+          .setApiToken(authentication.getApiToken()).build(), ignoreApiTokenAlreadyIssued, PpacScenario.METRICS);
+      genericMetricsIngestion.submit(submission.getMetrics());
+      return ResponseEntity.noContent().build();
+    });
   }
 }
@@ -6,11 +6,12 @@ import app.coronawarn.datadonation.common.persistence.domain.metrics.ClientMetad
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.UserMetadataDetails;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.ExposureRiskMetadata;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPAClientMetadataIOS;
@@ -25,7 +26,6 @@ import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequest
 import app.coronawarn.datadonation.services.ppac.commons.PpaDataRequestConverter;
 import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Component;
 
@@ -37,7 +37,15 @@ public class PpaDataRequestIosConverter extends PpaDataRequestConverter<PPADataR
    */
   public PpaDataStorageRequest convertToStorageRequest(PPADataRequestIOS ppaDataRequest,
       PpacConfiguration ppacConfiguration) {
-    final PPADataIOS payload = ppaDataRequest.getPayload();
+    return convertToStorageRequest(ppaDataRequest.getPayload(), ppacConfiguration,
+        TechnicalMetadata.newEmptyInstance());
+  }
+
+  /**
+   * Converts an already verified payload, with the technical metadata of its original submission.
+   */
+  public PpaDataStorageRequest convertToStorageRequest(PPADataIOS payload, PpacConfiguration ppacConfiguration,
+      TechnicalMetadata submissionMetadata) {
     List<ExposureRiskMetadata> exposureRiskMetadata = payload.getExposureRiskMetadataSetList();
     List<PPANewExposureWindow> newExposureWindows = payload.getNewExposureWindowsList();
     List<PPATestResultMetadata> testResults = payload.getTestResultMetadataSetList();
@@ -46,19 +54,23 @@ public class PpaDataRequestIosConverter extends PpaDataRequestConverter<PPADataR
     PPAClientMetadataIOS clientMetadata = payload.getClientMetadata();
     PPAUserMetadata userMetadata = payload.getUserMetadata();
 
-    TechnicalMetadata technicalMetadata = TechnicalMetadata.newEmptyInstance();
+    TechnicalMetadata technicalMetadata = canonical(submissionMetadata);
+    ClientMetadataDetails clientMetadataDetails = canonical(convertToClientMetadataDetails(clientMetadata));
+    UserMetadataDetails userMetadataDetails = convertToUserMetadataDetails(userMetadata);
     
     app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata exposureRiskMetric =
-        convertToExposureMetrics(exposureRiskMetadata, userMetadata, technicalMetadata);
+        convertToExposureMetrics(exposureRiskMetadata, userMetadataDetails, technicalMetadata);
     List<ExposureWindow> exposureWindowsMetric =
-        convertToExposureWindowMetrics(newExposureWindows, clientMetadata, technicalMetadata);
-    TestResultMetadata testResultMetric = convertToTestResultMetrics(testResults, userMetadata, technicalMetadata);
+        convertToExposureWindowMetrics(newExposureWindows, clientMetadataDetails, technicalMetadata);
+    TestResultMetadata testResultMetric =
+        convertToTestResultMetrics(testResults, userMetadataDetails, technicalMetadata);
     KeySubmissionMetadataWithClientMetadata keySubmissionWithClientMetadata =
-        convertToKeySubmissionWithClientMetadataMetrics(keySubmissionsMetadata, clientMetadata, technicalMetadata);
+        convertToKeySubmissionWithClientMetadataMetrics(keySubmissionsMetadata, clientMetadataDetails,
+            technicalMetadata);
     KeySubmissionMetadataWithUserMetadata keySubmissionWithUserMetadata =
-        convertToKeySubmissionWithUserMetadataMetrics(keySubmissionsMetadata, userMetadata, technicalMetadata);
-    UserMetadata userMetadataEntity = convertToUserMetadataEntity(userMetadata, technicalMetadata);
-    ClientMetadata clientMetadataEntity = convertToClientMetadataEntity(clientMetadata, technicalMetadata);
+        convertToKeySubmissionWithUserMetadataMetrics(keySubmissionsMetadata, userMetadataDetails, technicalMetadata);
+    UserMetadata userMetadataEntity = convertToUserMetadataEntity(userMetadataDetails, technicalMetadata);
+    ClientMetadata clientMetadataEntity = convertToClientMetadataEntity(clientMetadataDetails, technicalMetadata);
     
     return new PpaDataStorageRequest(exposureRiskMetric, exposureWindowsMetric, testResultMetric,
         keySubmissionWithClientMetadata, keySubmissionWithUserMetadata, userMetadataEntity, clientMetadataEntity);
@@ -67,14 +79,13 @@ public class PpaDataRequestIosConverter extends PpaDataRequestConverter<PPADataR
   /**
    * Convert the given proto structure to a domain {@link ClientMetadata} entity.
    */
-  private ClientMetadata convertToClientMetadataEntity(PPAClientMetadataIOS clientMetadata,
+  private ClientMetadata convertToClientMetadataEntity(ClientMetadataDetails clientMetadata,
       TechnicalMetadata technicalMetadata) {
-    return new ClientMetadata(null, convertToClientMetadataDetails(clientMetadata),
-        technicalMetadata);
+    return new ClientMetadata(null, clientMetadata, technicalMetadata);
   }
   
   private List<ExposureWindow> convertToExposureWindowMetrics(
-      List<PPANewExposureWindow> newExposureWindows, PPAClientMetadataIOS clientMetadata,
+      List<PPANewExposureWindow> newExposureWindows, ClientMetadataDetails clientMetadata,
       TechnicalMetadata technicalMetadata) {
     if (!newExposureWindows.isEmpty()) {
       return newExposureWindows.stream().map(
@@ -85,20 +96,20 @@ public class PpaDataRequestIosConverter extends PpaDataRequestConverter<PPADataR
   }
 
   private ExposureWindow convertToExposureWindowEntity(PPANewExposureWindow newExposureWindow,
-      PPAClientMetadataIOS clientMetadata,TechnicalMetadata technicalMetadata) {
+      ClientMetadataDetails clientMetadata, TechnicalMetadata technicalMetadata) {
     PPAExposureWindow exposureWindow = newExposureWindow.getExposureWindow();
-    Set<ScanInstance> scanInstances = convertToScanInstancesEntities(newExposureWindow);
+    ScanInstances scanInstances = convertToScanInstances(newExposureWindow);
     
     return new ExposureWindow(null, getLocalDateFor(exposureWindow.getDate()),
         exposureWindow.getReportTypeValue(), exposureWindow.getInfectiousness().getNumber(),
         exposureWindow.getCalibrationConfidence(), newExposureWindow.getTransmissionRiskLevel(),
-        newExposureWindow.getNormalizedTime(), convertToClientMetadataDetails(clientMetadata),
+        newExposureWindow.getNormalizedTime(), clientMetadata,
         technicalMetadata, scanInstances);
   }
   
   private KeySubmissionMetadataWithClientMetadata convertToKeySubmissionWithClientMetadataMetrics(
       List<PPAKeySubmissionMetadata> keySubmissionsMetadata,
-      PPAClientMetadataIOS clientMetadata, TechnicalMetadata technicalMetadata) {
+      ClientMetadataDetails clientMetadata, TechnicalMetadata technicalMetadata) {
     if (!keySubmissionsMetadata.isEmpty()) {
       PPAKeySubmissionMetadata keySubmissionElement = keySubmissionsMetadata.iterator().next();
       return new KeySubmissionMetadataWithClientMetadata(null, keySubmissionElement.getSubmitted(),
@@ -107,7 +118,7 @@ public class PpaDataRequestIosConverter extends PpaDataRequestConverter<PPADataR
           keySubmissionElement.getSubmittedAfterSymptomFlow(),
           keySubmissionElement.getAdvancedConsentGiven(),
           keySubmissionElement.getLastSubmissionFlowScreenValue(),
-          convertToClientMetadataDetails(clientMetadata), technicalMetadata);
+          clientMetadata, technicalMetadata);
     }
     return null;
   }
@@ -14,7 +14,16 @@ public class EdusOneTimePasswordRequestIosValidator implements
   public boolean isValid(EDUSOneTimePasswordRequestIOS requestBody,
       ConstraintValidatorContext context) {
     context.disableDefaultConstraintViolation();
-    return checkIsValidUuid(requestBody.getPayload().getOtp(), context);
+    return checkIsValidUuid(requestBody.getPayload().getOtp(), context)
+        && checkApiTokenUuid(requestBody.getAuthentication().getApiToken(), context);
+  }
+
+  private boolean checkApiTokenUuid(String apiToken, ConstraintValidatorContext constraintValidatorContext) {
+    if (!PpaDataRequestIosPayloadValidator.isCanonicalUuid(apiToken)) {
+      addViolation(constraintValidatorContext, "Api Token must a valid UUID v4 String");
+      return false;
+    }
+    return true;
   }
 
   private boolean checkIsValidUuid(String string,
@@ -3,7 +3,7 @@ package app.coronawarn.datadonation.services.ppac.ios.controller.validation;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequestIos.PPADataRequestIOS;
 import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import java.util.Base64;
-import java.util.UUID;
+import java.util.regex.Pattern;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 import org.springframework.stereotype.Component;
@@ -12,6 +12,9 @@ import org.springframework.stereotype.Component;
 public class PpaDataRequestIosPayloadValidator implements
     ConstraintValidator<ValidPpaDataRequestIosPayload, PPADataRequestIOS> {
 
+  private static final Pattern CANONICAL_UUID =
+      Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
   private final PpacConfiguration ppacConfiguration;
   private Integer minDeviceTokenLength;
   private Integer maxDeviceTokenLength;
@@ -38,13 +41,19 @@ public class PpaDataRequestIosPayloadValidator implements
 
   private boolean checkApiTokenUuid(String apiToken,
       ConstraintValidatorContext constraintValidatorContext) {
-    try {
-      UUID.fromString(apiToken);
-      return true;
-    } catch (Exception e) {
+    if (!isCanonicalUuid(apiToken)) {
       addViolation(constraintValidatorContext, "Api Token must a valid UUID v4 String");
       return false;
     }
+    return true;
+  }
+
+  /**
+   * Checks for the hyphenated hex form the database accepts for its <code>uuid</code> column.
+   * <code>UUID.fromString</code> also accepts abbreviated forms like <code>1-2-3-4-5</code>.
+   */
+  public static boolean isCanonicalUuid(String value) {
+    return CANONICAL_UUID.matcher(value).matches();
   }
 
   private boolean checkDeviceTokenLength(String deviceToken,
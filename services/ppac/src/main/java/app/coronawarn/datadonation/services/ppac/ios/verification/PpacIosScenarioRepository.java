@@ -2,19 +2,77 @@ package app.coronawarn.datadonation.services.ppac.ios.verification;
 
 import static app.coronawarn.datadonation.common.utils.TimeUtils.getEpochSecondForNow;
 import static app.coronawarn.datadonation.common.utils.TimeUtils.getLastDayOfMonthForNow;
+import static app.coronawarn.datadonation.common.utils.TimeUtils.getStartOfDayForNow;
+import static app.coronawarn.datadonation.common.utils.TimeUtils.getStartOfMonthForNow;
 
+import app.coronawarn.datadonation.common.persistence.coherence.CacheCoherenceBus;
+import app.coronawarn.datadonation.common.persistence.coherence.CoherenceEvent;
+import app.coronawarn.datadonation.common.persistence.coherence.CoherenceListener;
 import app.coronawarn.datadonation.common.persistence.domain.ApiToken;
 import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.Optional;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * State layer for {@link ApiToken}s. Recently seen tokens are kept in a write-through cache, so repeated requests
+ * (including repeated quota rejections) do not read the token again. Quotas are consumed by a single conditional
+ * update, which is the only authority on whether a submission may pass: cached state is used for early rejects only.
+ * Every write is announced on the {@link CacheCoherenceBus}, so other replicas drop their copy of the token.
+ */
 @Component
 public class PpacIosScenarioRepository {
 
+  static final String API_TOKEN_CACHE = "api-token";
+
+  private static final long MAX_CACHED_API_TOKENS = 50_000;
+  private static final Duration CACHED_API_TOKEN_TTL = Duration.ofMinutes(10);
+
   private final ApiTokenRepository apiTokenRepository;
+  private final CacheCoherenceBus coherenceBus;
+  private final Cache<String, ApiToken> apiTokens = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_API_TOKENS)
+      .expireAfterWrite(CACHED_API_TOKEN_TTL)
+      .build();
 
-  public PpacIosScenarioRepository(ApiTokenRepository apiTokenRepository) {
+  /**
+   * Creates the repository and subscribes its cache to the ApiToken changes of other replicas.
+   */
+  public PpacIosScenarioRepository(ApiTokenRepository apiTokenRepository, CacheCoherenceBus coherenceBus) {
     this.apiTokenRepository = apiTokenRepository;
+    this.coherenceBus = coherenceBus;
+    coherenceBus.subscribe(API_TOKEN_CACHE, new CoherenceListener() {
+      @Override
+      public void onEvent(CoherenceEvent event) {
+        apiTokens.invalidate(event.getKey());
+      }
+
+      @Override
+      public void onResync() {
+        apiTokens.invalidateAll();
+      }
+    });
+  }
+
+  /**
+   * Looks up the given API Token, from the cache if it was seen recently.
+   *
+   * @param apiToken {@link String} Key of the API Token.
+   * @return the API Token if it exists.
+   */
+  public Optional<ApiToken> findById(String apiToken) {
+    ApiToken cached = apiTokens.getIfPresent(apiToken);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<ApiToken> loaded = apiTokenRepository.findById(apiToken);
+    loaded.ifPresent(it -> apiTokens.put(it.getApiToken(), it));
+    return loaded;
   }
 
   /**
@@ -35,6 +93,7 @@ public class PpacIosScenarioRepository {
     } catch (Exception e) {
       throw new InternalError(e);
     }
+    cacheAfterCommit(new ApiToken(apiToken.getApiToken(), expirationDate, currentTimeStamp, currentTimeStamp, null));
   }
 
   /**
@@ -55,27 +114,110 @@ public class PpacIosScenarioRepository {
     } catch (Exception e) {
       throw new InternalError(e);
     }
+    cacheAfterCommit(new ApiToken(apiToken.getApiToken(), expirationDate, currentTimeStamp, null, currentTimeStamp));
   }
 
   /**
-   * Update an existing ApiToken in case of EDUS. Set the lastUsedForEdus property.
+   * Generic metrics specific save method. Stores the provided API Token, sets its expirationDate on the last day of
+   * the month and consumes its daily quota for generic metrics.
+   *
+   * @param apiToken {@link String} Key of the API Token.
+   */
+  public void saveForMetrics(ApiToken apiToken) {
+    Long currentTimeStamp = getEpochSecondForNow();
+    Long expirationDate = getLastDayOfMonthForNow();
+
+    try {
+      apiTokenRepository.insert(apiToken.getApiToken(),
+          expirationDate,
+          currentTimeStamp,
+          null,
+          null);
+      apiTokenRepository.consumeForMetrics(apiToken.getApiToken(), currentTimeStamp, getStartOfDayForNow());
+    } catch (Exception e) {
+      throw new InternalError(e);
+    }
+    ApiToken saved = new ApiToken(apiToken.getApiToken(), expirationDate, currentTimeStamp, null, null);
+    saved.setLastUsedMetrics(currentTimeStamp);
+    cacheAfterCommit(saved);
+  }
+
+  /**
+   * Update an existing ApiToken in case of EDUS. Sets the lastUsedForEdus property unless the token was already used
+   * for EDUS in the current month.
+   *
+   * @param apiToken the apitoken to update.
+   * @return <code>true</code> if the EDUS quota was consumed by this call.
+   */
+  public boolean updateForEdus(ApiToken apiToken) {
+    Long currentTimeStamp = getEpochSecondForNow();
+    if (apiTokenRepository.consumeForEdus(apiToken.getApiToken(), currentTimeStamp, getStartOfMonthForNow()) == 0) {
+      apiTokens.invalidate(apiToken.getApiToken());
+      return false;
+    }
+    ApiToken updated = new ApiToken(apiToken.getApiToken(), apiToken.getExpirationDate(), apiToken.getCreatedAt(),
+        currentTimeStamp, apiToken.getLastUsedPpac().orElse(null));
+    updated.setLastUsedMetrics(apiToken.getLastUsedMetrics().orElse(null));
+    cacheAfterCommit(updated);
+    return true;
+  }
+
+  /**
+   * Update an existing ApiToken in case of PPA. Sets the lastUsedForPpac property unless the token was already used
+   * for PPA on the current day.
    *
    * @param apiToken the apitoken to update.
+   * @return <code>true</code> if the PPA quota was consumed by this call.
    */
-  public void updateForEdus(ApiToken apiToken) {
+  public boolean updateForPpa(ApiToken apiToken) {
     Long currentTimeStamp = getEpochSecondForNow();
-    apiToken.setLastUsedEdus(currentTimeStamp);
-    apiTokenRepository.save(apiToken);
+    if (apiTokenRepository.consumeForPpa(apiToken.getApiToken(), currentTimeStamp, getStartOfDayForNow()) == 0) {
+      apiTokens.invalidate(apiToken.getApiToken());
+      return false;
+    }
+    ApiToken updated = new ApiToken(apiToken.getApiToken(), apiToken.getExpirationDate(), apiToken.getCreatedAt(),
+        apiToken.getLastUsedEdus().orElse(null), currentTimeStamp);
+    updated.setLastUsedMetrics(apiToken.getLastUsedMetrics().orElse(null));
+    cacheAfterCommit(updated);
+    return true;
   }
 
   /**
-   * Update an existing ApiToken in case of PPA. Set the lastUsedForPpac property.
+   * Update an existing ApiToken in case of generic metrics. Sets the lastUsedMetrics property unless the token was
+   * already used for generic metrics on the current day. The PPA quota is not affected.
    *
    * @param apiToken the apitoken to update.
+   * @return <code>true</code> if the generic metrics quota was consumed by this call.
    */
-  public void updateForPpa(ApiToken apiToken) {
+  public boolean updateForMetrics(ApiToken apiToken) {
     Long currentTimeStamp = getEpochSecondForNow();
-    apiToken.setLastUsedPpac(currentTimeStamp);
-    apiTokenRepository.save(apiToken);
+    if (apiTokenRepository.consumeForMetrics(apiToken.getApiToken(), currentTimeStamp, getStartOfDayForNow()) == 0) {
+      apiTokens.invalidate(apiToken.getApiToken());
+      return false;
+    }
+    ApiToken updated = new ApiToken(apiToken.getApiToken(), apiToken.getExpirationDate(), apiToken.getCreatedAt(),
+        apiToken.getLastUsedEdus().orElse(null), apiToken.getLastUsedPpac().orElse(null));
+    updated.setLastUsedMetrics(currentTimeStamp);
+    cacheAfterCommit(updated);
+    return true;
+  }
+
+  /**
+   * Caches the written state once it is visible to other requests and tells other replicas to drop their copy. Rolled
+   * back writes must not be cached, so within a transaction the token is only evicted until the commit succeeded.
+   */
+  private void cacheAfterCommit(ApiToken apiToken) {
+    coherenceBus.publishInvalidate(API_TOKEN_CACHE, apiToken.getApiToken());
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      apiTokens.put(apiToken.getApiToken(), apiToken);
+      return;
+    }
+    apiTokens.invalidate(apiToken.getApiToken());
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        apiTokens.put(apiToken.getApiToken(), apiToken);
+      }
+    });
   }
 }
@@ -7,6 +7,8 @@ import app.coronawarn.datadonation.services.ppac.commons.PpacScenario;
 import app.coronawarn.datadonation.services.ppac.ios.client.domain.PerDeviceDataResponse;
 import app.coronawarn.datadonation.services.ppac.ios.verification.apitoken.ApiTokenService;
 import app.coronawarn.datadonation.services.ppac.ios.verification.devicedata.PerDeviceDataValidator;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
+import app.coronawarn.datadonation.services.ppac.ios.verification.quarantine.DeviceCheckCircuitBreaker;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,18 +20,22 @@ public class PpacProcessor {
   private static final Logger logger = LoggerFactory.getLogger(PpacProcessor.class);
   private final ApiTokenService apiTokenService;
   private final PerDeviceDataValidator perDeviceDataValidator;
+  private final DeviceCheckCircuitBreaker circuitBreaker;
 
   /**
    * Constructor for DataDonationProcessor.
    *
    * @param apiTokenService        apiTokenService for processing Api Tokens.
    * @param perDeviceDataValidator Per-Device Data Validator.
+   * @param circuitBreaker         tracks whether DeviceCheck is available.
    */
   public PpacProcessor(
       ApiTokenService apiTokenService,
-      PerDeviceDataValidator perDeviceDataValidator) {
+      PerDeviceDataValidator perDeviceDataValidator,
+      DeviceCheckCircuitBreaker circuitBreaker) {
     this.apiTokenService = apiTokenService;
     this.perDeviceDataValidator = perDeviceDataValidator;
+    this.circuitBreaker = circuitBreaker;
   }
 
   /**
@@ -47,10 +53,16 @@ public class PpacProcessor {
   public void validate(PPACIOS authentication, final boolean ignoreApiTokenAlreadyIssued,
       PpacScenario scenario) {
     String transactionId = UUID.randomUUID().toString();
-    PerDeviceDataResponse perDeviceDataResponse = perDeviceDataValidator
-        .validateAndStoreDeviceToken(transactionId, authentication.getDeviceToken());
-    apiTokenService
-        .validate(perDeviceDataResponse, authentication, transactionId, ignoreApiTokenAlreadyIssued,
-            scenario);
+    try {
+      PerDeviceDataResponse perDeviceDataResponse = perDeviceDataValidator
+          .validateAndStoreDeviceToken(transactionId, authentication.getDeviceToken());
+      apiTokenService
+          .validate(perDeviceDataResponse, authentication, transactionId, ignoreApiTokenAlreadyIssued,
+              scenario);
+    } catch (InternalError e) {
+      circuitBreaker.recordFailure();
+      throw e;
+    }
+    circuitBreaker.recordSuccess();
   }
 }
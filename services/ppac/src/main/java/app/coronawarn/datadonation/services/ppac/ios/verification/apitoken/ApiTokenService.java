@@ -3,7 +3,6 @@ package app.coronawarn.datadonation.services.ppac.ios.verification.apitoken;
 import static app.coronawarn.datadonation.common.utils.TimeUtils.getEpochMilliSecondForNow;
 
 import app.coronawarn.datadonation.common.persistence.domain.ApiToken;
-import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
 import app.coronawarn.datadonation.services.ppac.commons.PpacScenario;
 import app.coronawarn.datadonation.services.ppac.ios.client.IosDeviceApiClient;
@@ -26,7 +25,6 @@ public abstract class ApiTokenService {
 
   private static final Logger logger = LoggerFactory.getLogger(ApiTokenService.class);
 
-  private final ApiTokenRepository apiTokenRepository;
   private final IosDeviceApiClient iosDeviceApiClient;
   private final JwtProvider jwtProvider;
   private final ApiTokenAuthenticationStrategy apiTokenAuthenticationStrategy;
@@ -37,13 +35,11 @@ public abstract class ApiTokenService {
    * Handles business logic regarding {@link ApiToken}.
    */
   public ApiTokenService(
-      ApiTokenRepository apiTokenRepository,
       IosDeviceApiClient iosDeviceApiClient,
       JwtProvider jwtProvider,
       ApiTokenAuthenticationStrategy apiTokenAuthenticationStrategy,
       PpacIosRateLimitStrategy iosScenarioValidator,
       PpacIosScenarioRepository ppacIosScenarioRepository) {
-    this.apiTokenRepository = apiTokenRepository;
     this.iosDeviceApiClient = iosDeviceApiClient;
     this.jwtProvider = jwtProvider;
     this.apiTokenAuthenticationStrategy = apiTokenAuthenticationStrategy;
@@ -73,7 +69,7 @@ public abstract class ApiTokenService {
       String transactionId,
       boolean ignoreApiTokenAlreadyIssued,
       PpacScenario ppacScenario) {
-    Optional<ApiToken> apiTokenOptional = apiTokenRepository.findById(ppacios.getApiToken());
+    Optional<ApiToken> apiTokenOptional = ppacIosScenarioRepository.findById(ppacios.getApiToken());
     if (apiTokenOptional.isPresent()) {
       this.authenticateExistingApiToken(apiTokenOptional.get(), ppacScenario);
     } else {
@@ -88,7 +84,9 @@ public abstract class ApiTokenService {
   private void authenticateExistingApiToken(ApiToken apiToken, PpacScenario scenario) {
     apiTokenAuthenticationStrategy.checkApiTokenNotAlreadyExpired(apiToken);
     scenario.validate(iosScenarioValidator, apiToken);
-    scenario.update(ppacIosScenarioRepository, apiToken);
+    if (!scenario.update(ppacIosScenarioRepository, apiToken)) {
+      iosScenarioValidator.rejectAlreadyConsumed(apiToken);
+    }
   }
 
   private void authenticateNewApiToken(PerDeviceDataResponse perDeviceDataResponse,
@@ -1,6 +1,5 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.apitoken;
 
-import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
 import app.coronawarn.datadonation.services.ppac.ios.client.IosDeviceApiClient;
 import app.coronawarn.datadonation.services.ppac.ios.verification.JwtProvider;
 import app.coronawarn.datadonation.services.ppac.ios.verification.PpacIosScenarioRepository;
@@ -14,12 +13,11 @@ import org.springframework.stereotype.Component;
 @Profile("loadtest")
 public class LoadTestApiTokenService extends ApiTokenService {
 
-  public LoadTestApiTokenService(ApiTokenRepository apiTokenRepository,
-      IosDeviceApiClient iosDeviceApiClient, JwtProvider jwtProvider,
+  public LoadTestApiTokenService(IosDeviceApiClient iosDeviceApiClient, JwtProvider jwtProvider,
       ApiTokenAuthenticationStrategy apiTokenAuthenticationStrategy,
       PpacIosRateLimitStrategy iosScenarioValidator,
       PpacIosScenarioRepository ppacIosScenarioRepository) {
-    super(apiTokenRepository, iosDeviceApiClient, jwtProvider, apiTokenAuthenticationStrategy,
+    super(iosDeviceApiClient, jwtProvider, apiTokenAuthenticationStrategy,
         iosScenarioValidator, ppacIosScenarioRepository);
   }
 
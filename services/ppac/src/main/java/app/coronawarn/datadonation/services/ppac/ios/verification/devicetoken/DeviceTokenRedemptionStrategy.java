@@ -4,4 +4,6 @@ public interface DeviceTokenRedemptionStrategy {
 
   void redeem(Exception e);
 
+  void redeemDuplicate();
+
 }
@@ -1,43 +1,76 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken;
 
-import app.coronawarn.datadonation.common.persistence.domain.DeviceToken;
+import app.coronawarn.datadonation.common.persistence.coherence.CacheCoherenceBus;
+import app.coronawarn.datadonation.common.persistence.coherence.CoherenceEvent;
 import app.coronawarn.datadonation.common.persistence.repository.DeviceTokenRepository;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.dao.DuplicateKeyException;
-import org.springframework.data.relational.core.conversion.DbActionExecutionException;
+import java.util.Base64;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DeviceTokenService {
 
-  private static final Logger logger = LoggerFactory.getLogger(DeviceTokenService.class);
+  static final String DEVICE_TOKEN_CACHE = "device-token";
+
   private final DeviceTokenRepository deviceTokenRepository;
   private final DeviceTokenRedemptionStrategy redemptionStrategy;
+  private final RecentDeviceTokens recentDeviceTokens;
+  private final CacheCoherenceBus coherenceBus;
 
+  /**
+   * Constructs the service and subscribes the {@link RecentDeviceTokens} to the device tokens redeemed by other
+   * replicas.
+   */
   public DeviceTokenService(DeviceTokenRepository deviceTokenRepository,
-      DeviceTokenRedemptionStrategy redemptionStrategy) {
+      DeviceTokenRedemptionStrategy redemptionStrategy, RecentDeviceTokens recentDeviceTokens,
+      CacheCoherenceBus coherenceBus) {
     this.deviceTokenRepository = deviceTokenRepository;
     this.redemptionStrategy = redemptionStrategy;
+    this.recentDeviceTokens = recentDeviceTokens;
+    this.coherenceBus = coherenceBus;
+    coherenceBus.subscribe(DEVICE_TOKEN_CACHE, event -> {
+      if (event.getType() == CoherenceEvent.Type.INSERT) {
+        recentDeviceTokens.add(Base64.getDecoder().decode(event.getKey()));
+      }
+    });
   }
 
   /**
-   * Hashes a given DeviceToken with 'SHA-256' and stores it together with the current epoch seconds in UTC.
+   * Hashes a given DeviceToken with 'SHA-256' and stores it together with the current epoch seconds in UTC. Replays
+   * are detected from the {@link RecentDeviceTokens} of this instance first and otherwise from the number of rows
+   * inserted, so an already redeemed token never aborts a database statement.
    *
    * @param deviceToken      The input DeviceToken.
    * @param currentTimeStamp The current Timestamp in Epoch Seconds and UTC.
    */
   public void hashAndStoreDeviceToken(String deviceToken, Long currentTimeStamp) {
+    final byte[] tokenHash;
     try {
       MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      final byte[] tokenHash = digest.digest(deviceToken.getBytes(StandardCharsets.UTF_8));
-      DeviceToken newDeviceToken = new DeviceToken(tokenHash, currentTimeStamp);
-      deviceTokenRepository.save(newDeviceToken);
-    } catch (DbActionExecutionException | NoSuchAlgorithmException e) {
+      tokenHash = digest.digest(deviceToken.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      redemptionStrategy.redeem(e);
+      return;
+    }
+    if (recentDeviceTokens.contains(tokenHash)) {
+      redemptionStrategy.redeemDuplicate();
+      return;
+    }
+    final int insertedRows;
+    try {
+      insertedRows = deviceTokenRepository.insertIfAbsent(tokenHash, currentTimeStamp);
+    } catch (DataAccessException e) {
       redemptionStrategy.redeem(e);
+      return;
+    }
+    recentDeviceTokens.add(tokenHash);
+    if (insertedRows == 0) {
+      redemptionStrategy.redeemDuplicate();
+      return;
     }
+    coherenceBus.publishInsert(DEVICE_TOKEN_CACHE, Base64.getEncoder().encodeToString(tokenHash));
   }
 }
@@ -11,4 +11,9 @@ public class LoadTestDeviceTokenRedemptionStrategy implements DeviceTokenRedempt
   public void redeem(Exception e) {
     // do nothing here
   }
+
+  @Override
+  public void redeemDuplicate() {
+    // do nothing here
+  }
 }
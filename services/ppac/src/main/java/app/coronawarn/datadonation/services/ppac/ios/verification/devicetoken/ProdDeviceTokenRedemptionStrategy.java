@@ -17,4 +17,9 @@ public class ProdDeviceTokenRedemptionStrategy implements DeviceTokenRedemptionS
     }
     throw new InternalError(e);
   }
+
+  @Override
+  public void redeemDuplicate() {
+    throw new DeviceTokenRedeemed();
+  }
 }
@@ -0,0 +1,107 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory record of the device token hashes redeemed by this instance, kept in one concurrent set per hour for
+ * the configured device token retention. A hit means the token was stored recently and is therefore redeemed, so the
+ * replay can be rejected without a database round trip. A miss proves nothing (the token may have been stored by
+ * another instance, or the hour bucket may have been full), the database stays the source of truth.
+ */
+@Component
+public class RecentDeviceTokens {
+
+  private static final long BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private final AtomicReferenceArray<Bucket> buckets;
+  private final int maxTokensPerBucket;
+
+  /**
+   * Creates one bucket per hour of the device token retention. A retention of zero hours disables the cache.
+   */
+  public RecentDeviceTokens(PpacConfiguration ppacConfiguration) {
+    this(ppacConfiguration.getIos().getDeviceTokenRetentionHours(),
+        ppacConfiguration.getIos().getMaxRecentDeviceTokensPerHour());
+  }
+
+  RecentDeviceTokens(int retentionHours, int maxTokensPerBucket) {
+    this.buckets = new AtomicReferenceArray<>(Math.max(retentionHours, 0));
+    this.maxTokensPerBucket = maxTokensPerBucket;
+  }
+
+  public boolean contains(byte[] deviceTokenHash) {
+    return contains(deviceTokenHash, Instant.now().toEpochMilli());
+  }
+
+  public void add(byte[] deviceTokenHash) {
+    add(deviceTokenHash, Instant.now().toEpochMilli());
+  }
+
+  /**
+   * Forgets all device tokens, e.g. after the device_token table was purged.
+   */
+  public void clear() {
+    for (int i = 0; i < buckets.length(); i++) {
+      buckets.set(i, null);
+    }
+  }
+
+  boolean contains(byte[] deviceTokenHash, long nowMillis) {
+    long currentHour = nowMillis / BUCKET_MILLIS;
+    ByteBuffer key = ByteBuffer.wrap(deviceTokenHash);
+    for (int i = 0; i < buckets.length(); i++) {
+      Bucket bucket = buckets.get(i);
+      // only trust buckets which are younger than the retention, older tokens may already be deleted
+      if (bucket != null && currentHour - bucket.hour < buckets.length() && bucket.hashes.contains(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  void add(byte[] deviceTokenHash, long nowMillis) {
+    if (buckets.length() == 0) {
+      return;
+    }
+    long currentHour = nowMillis / BUCKET_MILLIS;
+    int slot = (int) Math.floorMod(currentHour, (long) buckets.length());
+    Bucket bucket = buckets.get(slot);
+    while (bucket == null || bucket.hour != currentHour) {
+      if (bucket != null && bucket.hour > currentHour) {
+        return;
+      }
+      Bucket fresh = new Bucket(currentHour);
+      if (buckets.compareAndSet(slot, bucket, fresh)) {
+        bucket = fresh;
+      } else {
+        bucket = buckets.get(slot);
+      }
+    }
+    bucket.add(ByteBuffer.wrap(deviceTokenHash), maxTokensPerBucket);
+  }
+
+  private static final class Bucket {
+
+    private final long hour;
+    private final Set<ByteBuffer> hashes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private Bucket(long hour) {
+      this.hour = hour;
+    }
+
+    private void add(ByteBuffer hash, int maxSize) {
+      if (size.get() < maxSize && hashes.add(hash)) {
+        size.incrementAndGet();
+      }
+    }
+  }
+}
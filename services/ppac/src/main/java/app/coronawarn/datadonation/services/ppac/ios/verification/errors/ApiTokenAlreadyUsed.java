@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class ApiTokenAlreadyUsed extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class ApiTokenAlreadyUsed extends VerificationFailure {
 
   public ApiTokenAlreadyUsed() {
     super("PPAC failed due to API Token already issued this month");
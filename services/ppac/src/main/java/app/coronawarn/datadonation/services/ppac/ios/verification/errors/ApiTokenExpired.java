@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class ApiTokenExpired extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class ApiTokenExpired extends VerificationFailure {
 
   public ApiTokenExpired() {
     super("PPAC failed due to expired api token.");
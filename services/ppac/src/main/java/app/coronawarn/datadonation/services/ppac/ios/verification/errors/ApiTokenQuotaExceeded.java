@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class ApiTokenQuotaExceeded extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class ApiTokenQuotaExceeded extends VerificationFailure {
 
   public ApiTokenQuotaExceeded() {
     super("PPAC failed due to Api Token quota exceeded");
@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class DeviceBlocked extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class DeviceBlocked extends VerificationFailure {
 
   public DeviceBlocked() {
     super("PPAC failed due to blocked device");
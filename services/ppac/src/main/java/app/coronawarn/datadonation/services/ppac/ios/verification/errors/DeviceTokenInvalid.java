@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class DeviceTokenInvalid extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class DeviceTokenInvalid extends VerificationFailure {
 
   public DeviceTokenInvalid() {
     super("PPAC failed due to invalid device token!");
@@ -1,6 +1,12 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class DeviceTokenRedeemed extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class DeviceTokenRedeemed extends VerificationFailure {
+
+  public DeviceTokenRedeemed() {
+    super("PPAC failed due to redeemed device token");
+  }
 
   public DeviceTokenRedeemed(final Throwable cause) {
     super("PPAC failed due to redeemed device token", cause);
@@ -1,6 +1,8 @@
 package app.coronawarn.datadonation.services.ppac.ios.verification.errors;
 
-public class DeviceTokenSyntaxError extends RuntimeException {
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+
+public class DeviceTokenSyntaxError extends VerificationFailure {
 
   public DeviceTokenSyntaxError(final Throwable cause) {
     super("Device token is badly formatted ", cause);
@@ -0,0 +1,86 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.quarantine;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the outcome of the DeviceCheck verifications. After the configured number of consecutive failures the
+ * breaker opens for the configured time, during which iOS data submissions are quarantined instead of verified. Once
+ * the time has passed, the breaker is half-open: a single verification is let through as probe while all others are
+ * still quarantined. A failure of the probe opens the breaker again, a success closes it. A probe that records neither,
+ * e.g. because the device was rejected before DeviceCheck was asked, is replaced by the next one after the open time.
+ */
+@Component
+public class DeviceCheckCircuitBreaker {
+
+  private static final Logger logger = LoggerFactory.getLogger(DeviceCheckCircuitBreaker.class);
+
+  private final PpacConfiguration.Quarantine configuration;
+  private final LongSupplier nanoTime;
+
+  private int consecutiveFailures;
+  private long openUntil;
+  private boolean open;
+  private boolean probing;
+  private long probeUntil;
+
+  @Autowired
+  public DeviceCheckCircuitBreaker(PpacConfiguration ppacConfiguration) {
+    this(ppacConfiguration, System::nanoTime);
+  }
+
+  DeviceCheckCircuitBreaker(PpacConfiguration ppacConfiguration, LongSupplier nanoTime) {
+    this.configuration = ppacConfiguration.getQuarantine();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Returns <code>true</code> while verifications should not be attempted. In the half-open state only the caller
+   * that gets <code>false</code> first verifies, as probe, and must record the outcome.
+   */
+  public synchronized boolean isOpen() {
+    if (!open) {
+      return false;
+    }
+    long now = nanoTime.getAsLong();
+    if (now - openUntil < 0 || probing && now - probeUntil < 0) {
+      return true;
+    }
+    probing = true;
+    probeUntil = now + openNanos();
+    return false;
+  }
+
+  public synchronized void recordSuccess() {
+    if (open) {
+      logger.info("DeviceCheck recovered, iOS submissions are verified immediately again.");
+      open = false;
+      probing = false;
+    }
+    consecutiveFailures = 0;
+  }
+
+  /**
+   * Records a failure of DeviceCheck itself, i.e. an error response other than a rejected device.
+   */
+  public synchronized void recordFailure() {
+    consecutiveFailures++;
+    if (open || consecutiveFailures >= configuration.getFailureThreshold()) {
+      if (!open) {
+        logger.warn("DeviceCheck failed {} times in a row, iOS submissions are quarantined.", consecutiveFailures);
+      }
+      open = true;
+      probing = false;
+      openUntil = nanoTime.getAsLong() + openNanos();
+    }
+  }
+
+  private long openNanos() {
+    return TimeUnit.SECONDS.toNanos(configuration.getOpenSeconds());
+  }
+}
@@ -0,0 +1,56 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.quarantine;
+
+import app.coronawarn.datadonation.common.persistence.domain.ppac.ios.QuarantinedSubmission;
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.repository.ppac.ios.QuarantineRepository;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequestIos.PPADataRequestIOS;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds iOS data submissions back while DeviceCheck is degraded, see {@link DeviceCheckCircuitBreaker}. The
+ * submissions are verified later by the {@link QuarantineVerifier}.
+ */
+@Component
+public class IosQuarantine {
+
+  private final PpacConfiguration.Quarantine configuration;
+  private final DeviceCheckCircuitBreaker circuitBreaker;
+  private final QuarantineRepository repository;
+
+  /**
+   * Constructs the quarantine.
+   */
+  public IosQuarantine(PpacConfiguration ppacConfiguration, DeviceCheckCircuitBreaker circuitBreaker,
+      QuarantineRepository repository) {
+    this.configuration = ppacConfiguration.getQuarantine();
+    this.circuitBreaker = circuitBreaker;
+    this.repository = repository;
+  }
+
+  /**
+   * Returns <code>true</code> if submissions must be quarantined instead of verified now.
+   */
+  public boolean isActive() {
+    return configuration.isEnabled() && circuitBreaker.isOpen();
+  }
+
+  /**
+   * Stores the submission with its authentication. The submission must already be syntactically valid, only its
+   * authentication is verified later.
+   *
+   * @throws StorageOverloaded if the quarantine already holds the configured maximum number of submissions.
+   */
+  public void quarantine(PPADataRequestIOS ppaDataRequestIos, boolean ignoreApiTokenAlreadyIssued) {
+    boolean stored = repository.insert(new QuarantinedSubmission(null, Instant.now().getEpochSecond(),
+        LocalDate.now(ZoneOffset.UTC), ppaDataRequestIos.getAuthentication().getDeviceToken(),
+        ppaDataRequestIos.getAuthentication().getApiToken(), ignoreApiTokenAlreadyIssued,
+        ppaDataRequestIos.getPayload().toByteArray()), configuration.getMaxRows());
+    if (!stored) {
+      throw new StorageOverloaded("The iOS quarantine is full");
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.quarantine;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.ppac.ios.QuarantinedSubmission;
+import app.coronawarn.datadonation.common.persistence.repository.ppac.ios.QuarantineRepository;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataService;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
+import app.coronawarn.datadonation.services.ppac.commons.PpacScenario;
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
+import app.coronawarn.datadonation.services.ppac.commons.journal.JournaledSubmission;
+import app.coronawarn.datadonation.services.ppac.commons.journal.SubmissionJournal;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import app.coronawarn.datadonation.services.ppac.ios.controller.PpaDataRequestIosConverter;
+import app.coronawarn.datadonation.services.ppac.ios.verification.PpacProcessor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies the quarantined iOS submissions in the background, one batch of the configured size per interval, so
+ * DeviceCheck is not flooded once it recovers. Verified submissions are stored, rejected ones and those older than the
+ * configured maximum age are discarded. While the {@link DeviceCheckCircuitBreaker} is open nothing is verified. Only
+ * a {@link VerificationFailure} or an unparseable payload discards a submission, on any other error the claim of the
+ * rest of the batch is released and it is retried later.
+ *
+ * <p>A submission is only deleted from the quarantine after it was handled. A verified submission is marked before it
+ * is stored, so a retry after a failed store does not verify its already redeemed device token again. If the instance
+ * fails in between, the claim expires and the submission is retried; one that was already stored is then stored
+ * again, which is preferred over losing it.
+ *
+ * <p>Submissions are verified with the clock of the verification, not of their receipt. The daily PPA quota of the
+ * API token is therefore charged to the day of the verification: a submission quarantined shortly before midnight UTC
+ * and verified after it uses up the quota of the next day, so a submission of the same device on that day is rejected
+ * with {@link app.coronawarn.datadonation.services.ppac.ios.verification.errors.ApiTokenQuotaExceeded}. The quarantine
+ * only holds submissions while DeviceCheck is degraded, so this is accepted rather than passing the time of receipt
+ * through the API token verification.
+ */
+@Component
+public class QuarantineVerifier implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(QuarantineVerifier.class);
+
+  private final PpacConfiguration ppacConfiguration;
+  private final PpacConfiguration.Quarantine configuration;
+  private final DeviceCheckCircuitBreaker circuitBreaker;
+  private final QuarantineRepository repository;
+  private final PpacProcessor ppacProcessor;
+  private final PpaDataRequestIosConverter converter;
+  private final PpaDataService ppaDataService;
+  private final SubmissionJournal submissionJournal;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Constructs the verifier.
+   */
+  public QuarantineVerifier(PpacConfiguration ppacConfiguration, DeviceCheckCircuitBreaker circuitBreaker,
+      QuarantineRepository repository, PpacProcessor ppacProcessor, PpaDataRequestIosConverter converter,
+      PpaDataService ppaDataService, SubmissionJournal submissionJournal) {
+    this.ppacConfiguration = ppacConfiguration;
+    this.configuration = ppacConfiguration.getQuarantine();
+    this.circuitBreaker = circuitBreaker;
+    this.repository = repository;
+    this.ppacProcessor = ppacProcessor;
+    this.converter = converter;
+    this.ppaDataService = ppaDataService;
+    this.submissionJournal = submissionJournal;
+  }
+
+  /**
+   * Verifies the next batch of quarantined submissions.
+   */
+  void verifyBatch() {
+    if (circuitBreaker.isOpen()) {
+      return;
+    }
+    long now = Instant.now().getEpochSecond();
+    List<QuarantinedSubmission> batch = repository.claim(configuration.getBatchSize(), now,
+        configuration.getClaimSeconds());
+    long expiredBefore = now - TimeUnit.HOURS.toSeconds(configuration.getMaxAgeHours());
+    int stored = 0;
+    int discarded = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      QuarantinedSubmission submission = batch.get(i);
+      if (submission.getReceivedAt() < expiredBefore) {
+        repository.delete(submission.getId());
+        discarded++;
+        continue;
+      }
+      PPADataIOS payload;
+      try {
+        payload = PPADataIOS.parseFrom(submission.getPayload());
+      } catch (InvalidProtocolBufferException e) {
+        logger.debug("Discarding a quarantined submission that can not be parsed.", e);
+        repository.delete(submission.getId());
+        discarded++;
+        continue;
+      }
+      try {
+        verify(submission);
+        store(submission, payload);
+        stored++;
+      } catch (VerificationFailure e) {
+        logger.debug("Discarding a quarantined submission: {}", e.getMessage());
+        discarded++;
+      } catch (RuntimeException e) {
+        // e.g. DeviceCheck still fails or the storage is overloaded, the submission is retried by a later batch
+        repository.release(batch.subList(i, batch.size()).stream().map(QuarantinedSubmission::getId)
+            .collect(Collectors.toList()));
+        logger.warn("Failed to verify or store quarantined submissions, {} are retried later.", batch.size() - i, e);
+        break;
+      }
+      repository.delete(submission.getId());
+    }
+    if (stored > 0 || discarded > 0) {
+      logger.info("Stored {} and discarded {} quarantined submissions.", stored, discarded);
+    }
+  }
+
+  /**
+   * Verifies the authentication of a submission unless this was already done before it failed to be stored. Its
+   * device token is redeemed then, so it would be rejected otherwise. The API token quota is charged to today, see
+   * the class comment.
+   */
+  private void verify(QuarantinedSubmission submission) {
+    if (submission.isVerified()) {
+      return;
+    }
+    ppacProcessor.validate(PPACIOS.newBuilder().setDeviceToken(submission.getDeviceToken())
+        .setApiToken(submission.getApiToken()).build(), submission.isIgnoreApiTokenAlreadyIssued(), PpacScenario.PPA);
+    repository.markVerified(submission.getId());
+  }
+
+  private void store(QuarantinedSubmission submission, PPADataIOS payload) {
+    TechnicalMetadata technicalMetadata = new TechnicalMetadata(submission.getSubmittedAt(), null, null, null, null);
+    ppaDataService.store(converter.convertToStorageRequest(payload, ppacConfiguration, technicalMetadata));
+    submissionJournal.append(JournaledSubmission.ios(payload, technicalMetadata));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ios-quarantine-verifier");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::verifyBatchSafely, configuration.getIntervalMillis(),
+        configuration.getIntervalMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void verifyBatchSafely() {
+    try {
+      verifyBatch();
+    } catch (RuntimeException e) {
+      // a failing run must not cancel the schedule
+      logger.error("Failed to verify quarantined submissions.", e);
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdown();
+    scheduler.awaitTermination(30, TimeUnit.SECONDS);
+  }
+}
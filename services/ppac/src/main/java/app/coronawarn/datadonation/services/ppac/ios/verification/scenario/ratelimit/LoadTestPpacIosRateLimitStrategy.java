@@ -26,4 +26,18 @@ public class LoadTestPpacIosRateLimitStrategy implements PpacIosRateLimitStrateg
 
   }
 
+  /**
+   * Check Rate Limit for generic metrics. ApiToken can only be used once a day for generic metrics.
+   *
+   * @param apiToken the ApiToken that needs to be validated.
+   */
+  public void validateForMetrics(ApiToken apiToken) {
+
+  }
+
+  @Override
+  public void rejectAlreadyConsumed(ApiToken apiToken) {
+    // do nothing during load tests
+  }
+
 }
@@ -17,4 +17,20 @@ public interface PpacIosRateLimitStrategy {
    * @param apiToken the ApiToken that needs to be validated.
    */
   void validateForPpa(ApiToken apiToken);
+
+  /**
+   * Check Rate Limit for generic metrics. ApiToken can only be used once a day for generic metrics, independent of
+   * its use for PPA.
+   *
+   * @param apiToken the ApiToken that needs to be validated.
+   */
+  void validateForMetrics(ApiToken apiToken);
+
+  /**
+   * Called if the quota of the current scenario was found to be used up while consuming it, e.g. by a concurrent
+   * submission with the same ApiToken.
+   *
+   * @param apiToken the ApiToken whose quota is already used up.
+   */
+  void rejectAlreadyConsumed(ApiToken apiToken);
 }
@@ -21,7 +21,7 @@ public class ProdPpacIosRateLimitStrategy implements PpacIosRateLimitStrategy {
    */
   public void validateForEdus(ApiToken apiToken) {
     apiToken.getLastUsedEdus().ifPresent(it -> {
-      YearMonth currentMonth = YearMonth.now();
+      YearMonth currentMonth = YearMonth.from(TimeUtils.getLocalDateForNow());
       YearMonth lastUsedForEdusMonth = YearMonth.from(getLocalDateFor(it));
       if (currentMonth.equals(lastUsedForEdusMonth)) {
         throw new ApiTokenQuotaExceeded();
@@ -39,10 +39,28 @@ public class ProdPpacIosRateLimitStrategy implements PpacIosRateLimitStrategy {
     apiToken.getLastUsedPpac().ifPresent(it -> {
       LocalDate currentDate = TimeUtils.getLocalDateForNow();
       LocalDate lastUsedForPpa = getLocalDateFor(it);
-      if (currentDate.getDayOfWeek().equals(lastUsedForPpa.getDayOfWeek())) {
+      if (currentDate.equals(lastUsedForPpa)) {
         throw new ApiTokenQuotaExceeded();
       }
     });
 
   }
+
+  /**
+   * Check Rate Limit for generic metrics. ApiToken can only be used once a day for generic metrics.
+   *
+   * @param apiToken the ApiToken that needs to be validated.
+   */
+  public void validateForMetrics(ApiToken apiToken) {
+    apiToken.getLastUsedMetrics().ifPresent(it -> {
+      if (TimeUtils.getLocalDateForNow().equals(getLocalDateFor(it))) {
+        throw new ApiTokenQuotaExceeded();
+      }
+    });
+  }
+
+  @Override
+  public void rejectAlreadyConsumed(ApiToken apiToken) {
+    throw new ApiTokenQuotaExceeded();
+  }
 }
@@ -32,7 +32,9 @@ public enum PpacErrorCode {
   //EVALUATION_TYPE_HARDWARE_BACKED_REQUIRED(null),
 
   // COMMONS
+  ADMISSION_THROTTLED(SecurityLogger::securityWarn),
   METRICS_DATA_NOT_VALID(SecurityLogger::securityWarn),
+  STORAGE_OVERLOADED(SecurityLogger::warn),
   INTERNAL_SERVER_ERROR(SecurityLogger::error),
   UNKNOWN(SecurityLogger::error);
 
@@ -42,7 +44,14 @@ public enum PpacErrorCode {
     this.logInvocation = logInvocation;
   }
 
-  public void secureLog(SecurityLogger securityLogger, RuntimeException runtimeException) {
+  /**
+   * Records a rejected request with this error code. The event is counted and logged if it is sampled.
+   */
+  public void secureLog(SecurityEvents securityEvents, RuntimeException runtimeException) {
+    securityEvents.record(this, runtimeException);
+  }
+
+  void log(SecurityLogger securityLogger, RuntimeException runtimeException) {
     this.logInvocation.accept(securityLogger, runtimeException);
   }
 }
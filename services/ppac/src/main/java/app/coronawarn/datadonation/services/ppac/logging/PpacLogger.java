@@ -1,17 +1,26 @@
 package app.coronawarn.datadonation.services.ppac.logging;
 
 import app.coronawarn.datadonation.common.config.SecurityLogger;
+import app.coronawarn.datadonation.services.ppac.commons.VerificationFailure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+/**
+ * Logs rejected requests. {@link VerificationFailure}s are expected and carry no stack trace, so only their message
+ * (and the message of their cause) is logged; any other exception is logged with its stack trace.
+ */
 @Component
 public class PpacLogger implements SecurityLogger {
 
   static final Logger logger = LoggerFactory.getLogger(PpacLogger.class);
 
   public void warn(RuntimeException e) {
-    logger.warn(e.getMessage(), e);
+    if (e instanceof VerificationFailure) {
+      logger.warn(describe(e));
+    } else {
+      logger.warn(e.getMessage(), e);
+    }
   }
 
   public void error(RuntimeException e) {
@@ -19,7 +28,15 @@ public class PpacLogger implements SecurityLogger {
   }
 
   public void securityWarn(RuntimeException e) {
-    logger.warn(SECURITY, e.getMessage(), e);
+    if (e instanceof VerificationFailure) {
+      logger.warn(SECURITY, describe(e));
+    } else {
+      logger.warn(SECURITY, e.getMessage(), e);
+    }
+  }
+
+  private static String describe(RuntimeException e) {
+    return e.getCause() == null ? e.getMessage() : e.getMessage() + " (" + e.getCause() + ")";
   }
 
 }
@@ -0,0 +1,113 @@
+package app.coronawarn.datadonation.services.ppac.logging;
+
+import static app.coronawarn.datadonation.common.config.SecurityLogger.SECURITY;
+
+import app.coronawarn.datadonation.common.config.SecurityLogger;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the security events of rejected requests by {@link PpacErrorCode}. Only a limited number of samples per
+ * error code and interval is passed on to the {@link SecurityLogger}, the rest is counted and reported in one
+ * aggregated summary per interval, so an attack can not flood the logs. Internal and unknown errors are always logged.
+ */
+@Component
+public class SecurityEvents implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(SecurityEvents.class);
+  private static final Set<PpacErrorCode> ALWAYS_LOGGED =
+      EnumSet.of(PpacErrorCode.INTERNAL_SERVER_ERROR, PpacErrorCode.UNKNOWN);
+  private static final PpacErrorCode[] CODES = PpacErrorCode.values();
+
+  private final SecurityLogger securityLogger;
+  private final int samplesPerInterval;
+  private final int summaryIntervalSeconds;
+  private final AtomicLongArray counts = new AtomicLongArray(CODES.length);
+  private final AtomicIntegerArray samples = new AtomicIntegerArray(CODES.length);
+  private final Map<PpacErrorCode, Counter> counters = new EnumMap<>(PpacErrorCode.class);
+
+  private ScheduledExecutorService executor;
+
+  /**
+   * Creates the event log and registers one counter per error code.
+   */
+  public SecurityEvents(SecurityLogger securityLogger, PpacConfiguration ppacConfiguration,
+      MeterRegistry meterRegistry) {
+    this.securityLogger = securityLogger;
+    this.samplesPerInterval = ppacConfiguration.getSecurityLog().getSamplesPerInterval();
+    this.summaryIntervalSeconds = ppacConfiguration.getSecurityLog().getSummaryIntervalSeconds();
+    for (PpacErrorCode code : CODES) {
+      counters.put(code, Counter.builder("ppac.security.events").tag("code", code.name()).register(meterRegistry));
+    }
+  }
+
+  /**
+   * Counts the event and logs it if the samples of its error code for the current interval are not exhausted.
+   */
+  public void record(PpacErrorCode errorCode, RuntimeException exception) {
+    int index = errorCode.ordinal();
+    counts.incrementAndGet(index);
+    counters.get(errorCode).increment();
+    if (ALWAYS_LOGGED.contains(errorCode)
+        || samples.get(index) < samplesPerInterval && samples.getAndIncrement(index) < samplesPerInterval) {
+      errorCode.log(securityLogger, exception);
+    }
+  }
+
+  /**
+   * Logs how often each error code occurred since the last summary and resets the samples.
+   */
+  void summarize() {
+    StringJoiner summary = new StringJoiner(", ");
+    long total = 0;
+    for (PpacErrorCode code : CODES) {
+      long count = counts.getAndSet(code.ordinal(), 0);
+      samples.set(code.ordinal(), 0);
+      if (count > 0) {
+        summary.add(code.name() + "=" + count);
+        total += count;
+      }
+    }
+    if (total > 0) {
+      logger.warn(SECURITY, "{} rejected requests in the last {} seconds: {}", total, summaryIntervalSeconds,
+          summary);
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (summaryIntervalSeconds <= 0) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "security-event-summary");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleAtFixedRate(this::summarize, summaryIntervalSeconds, summaryIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+      summarize();
+    }
+  }
+}
@@ -257,7 +257,7 @@ class AndroidControllerTest {
     void checkResponseStatusIsBadRequestForInvalidPayload(PPADataRequestAndroid invalidPayload,
         PpaDataStorageRequest ppaDataStorageRequest) throws IOException {
       doReturn(ppaDataStorageRequest).when(androidStorageConverter)
-          .convertToStorageRequest(eq(invalidPayload), eq(ppacConfiguration), any());
+          .convertToStorageRequest(eq(invalidPayload.getPayload()), eq(ppacConfiguration), any());
       ResponseEntity<Void> actResponse = executor.executePost(invalidPayload);
       assertThat(actResponse.getStatusCode()).isEqualTo(BAD_REQUEST);
     }
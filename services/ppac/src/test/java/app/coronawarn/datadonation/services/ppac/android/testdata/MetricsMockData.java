@@ -5,7 +5,7 @@ import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRis
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
@@ -13,7 +13,6 @@ import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.UserMetadataDetails;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
 
 public final class MetricsMockData {
 
@@ -61,7 +60,7 @@ public final class MetricsMockData {
     return new ClientMetadata(null, mockClientMetadata, mockTechnicalMetadata);
   }
   
-  private static Set<ScanInstance> getScanInstances() {
-    return Set.of(new ScanInstance(null, null, 3, 4, 5), new ScanInstance(null, null, 6, 7, 7));
+  private static ScanInstances getScanInstances() {
+    return ScanInstances.builder(2).add(3, 4, 5).add(6, 7, 7).build();
   }
 }
@@ -3,6 +3,7 @@ package app.coronawarn.datadonation.services.ppac.android.testdata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
 import app.coronawarn.datadonation.common.persistence.repository.ppac.android.SaltRepository;
 import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
@@ -215,7 +216,7 @@ public class TestData {
 
   public static PpaDataStorageRequest getStorageRequestWithInvalidExposureWindow() {
     return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
-        List.of(new ExposureWindow(null, null, null, null, null, null, null, null, null, Set.of())),
+        List.of(new ExposureWindow(null, null, 0, 0, 0, 0, 0.0, null, null, ScanInstances.EMPTY)),
         MetricsMockData.getTestResultMetric(), MetricsMockData.getKeySubmissionWithClientMetadata(),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
@@ -223,8 +224,8 @@ public class TestData {
 
   public static PpaDataStorageRequest getStorageRequestWithInvalidExposureRisk() {
     return new PpaDataStorageRequest(
-        new app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata(null,
-            null, null, null, null, null, null),
+        new app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRiskMetadata(null, 0, false,
+            null, false, null, null),
         MetricsMockData.getExposureWindow(), MetricsMockData.getTestResultMetric(),
         MetricsMockData.getKeySubmissionWithClientMetadata(),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
@@ -235,16 +236,15 @@ public class TestData {
     return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
         MetricsMockData.getExposureWindow(), MetricsMockData.getTestResultMetric(),
         MetricsMockData.getKeySubmissionWithClientMetadata(),
-        new KeySubmissionMetadataWithUserMetadata(null, null, null, null, null, null, null, null,
-            null, null),
+        new KeySubmissionMetadataWithUserMetadata(null, false, false, false, 0, 0, 0, 0, null, null),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
   }
 
   public static PpaDataStorageRequest getStorageRequestWithInvalidClientMetadata() {
     return new PpaDataStorageRequest(
         MetricsMockData.getExposureRiskMetadata(), MetricsMockData.getExposureWindow(),
-        MetricsMockData.getTestResultMetric(), new KeySubmissionMetadataWithClientMetadata(null,
-        null, null, null, null, null, null, null, null),
+        MetricsMockData.getTestResultMetric(),
+        new KeySubmissionMetadataWithClientMetadata(null, false, false, false, false, false, 0, null, null),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
   }
@@ -252,7 +252,7 @@ public class TestData {
   public static PpaDataStorageRequest getStorageRequestWithInvalidTestResults() {
     return new PpaDataStorageRequest(MetricsMockData.getExposureRiskMetadata(),
         MetricsMockData.getExposureWindow(),
-        new TestResultMetadata(null, null, null, null, null, null, null, null),
+        new TestResultMetadata(null, 0, 0, 0, 0, 0, null, null),
         MetricsMockData.getKeySubmissionWithClientMetadata(),
         MetricsMockData.getKeySubmissionWithUserMetadata(),
         MetricsMockData.getUserMetadata(), MetricsMockData.getClientMetadata());
@@ -0,0 +1,31 @@
+package app.coronawarn.datadonation.services.ppac.commons;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.services.ppac.android.attestation.errors.FailedJwsParsing;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.ApiTokenQuotaExceeded;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
+import org.junit.jupiter.api.Test;
+
+class VerificationFailureTest {
+
+  @Test
+  void expectedFailuresShouldNotCaptureStackTraces() {
+    assertThat(new ApiTokenQuotaExceeded().getStackTrace()).isEmpty();
+    assertThat(new PpaDataRequestValidationFailed("invalid").getStackTrace()).isEmpty();
+  }
+
+  @Test
+  void expectedFailuresShouldKeepTheirCause() {
+    IllegalArgumentException cause = new IllegalArgumentException("not a JWS");
+    FailedJwsParsing failure = new FailedJwsParsing(cause);
+
+    assertThat(failure.getStackTrace()).isEmpty();
+    assertThat(failure.getCause()).isSameAs(cause);
+  }
+
+  @Test
+  void unexpectedErrorsShouldCaptureStackTraces() {
+    assertThat(new InternalError(new IllegalStateException()).getStackTrace()).isNotEmpty();
+  }
+}
@@ -0,0 +1,68 @@
+package app.coronawarn.datadonation.services.ppac.commons.admission;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.DATA;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+import static app.coronawarn.datadonation.services.ppac.commons.admission.AdmissionThrottleFilter.X_FORWARDED_FOR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class AdmissionThrottleFilterTest {
+
+  private static final String PROXY = "10.0.0.1";
+  private static final String OTHER_PROXY = "10.0.0.2";
+
+  private AdmissionThrottleFilter underTest;
+
+  @BeforeEach
+  void setup() {
+    PpacConfiguration configuration = new PpacConfiguration();
+    configuration.getAdmission().setMaxRequestsPerAddress(1);
+    configuration.getAdmission().setTrustedProxies(List.of(PROXY, OTHER_PROXY));
+    underTest = new AdmissionThrottleFilter(new AdmissionThrottle(configuration, new SimpleMeterRegistry()),
+        configuration);
+  }
+
+  @Test
+  void requestsFromTrustedProxiesShouldBeThrottledByForwardedAddress() throws Exception {
+    assertThat(execute(PROXY, "192.0.2.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(execute(PROXY, "192.0.2.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(execute(PROXY, "192.0.2.1").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+  }
+
+  @Test
+  void clientSuppliedForwardedEntriesShouldBeIgnored() {
+    assertThat(underTest.clientAddress(request(PROXY, "198.51.100.7, 192.0.2.1"))).isEqualTo("192.0.2.1");
+    assertThat(underTest.clientAddress(request(PROXY, "198.51.100.7, 192.0.2.1, " + OTHER_PROXY)))
+        .isEqualTo("192.0.2.1");
+  }
+
+  @Test
+  void forwardedAddressFromUntrustedPeersShouldBeIgnored() {
+    assertThat(underTest.clientAddress(request("203.0.113.5", "192.0.2.1"))).isEqualTo("203.0.113.5");
+    assertThat(underTest.clientAddress(request(PROXY, null))).isEqualTo(PROXY);
+  }
+
+  private MockHttpServletResponse execute(String remoteAddress, String forwardedFor) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    underTest.doFilter(request(remoteAddress, forwardedFor), response, new MockFilterChain());
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String remoteAddress, String forwardedFor) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", IOS + DATA);
+    request.setRemoteAddr(remoteAddress);
+    if (forwardedFor != null) {
+      request.addHeader(X_FORWARDED_FOR, forwardedFor);
+    }
+    return request;
+  }
+}
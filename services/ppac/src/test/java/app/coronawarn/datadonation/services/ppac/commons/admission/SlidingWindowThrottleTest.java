@@ -0,0 +1,62 @@
+package app.coronawarn.datadonation.services.ppac.commons.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowThrottleTest {
+
+  private static final long WINDOW = 60_000;
+  private static final long NOW = 1_000 * WINDOW;
+
+  @Test
+  void requestsAboveTheLimitShouldBeRejectedPerKey() {
+    SlidingWindowThrottle underTest = new SlidingWindowThrottle(4, 100, WINDOW, 3);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(underTest.tryAcquire("abuser", NOW)).isTrue();
+    }
+    assertThat(underTest.tryAcquire("abuser", NOW)).isFalse();
+    assertThat(underTest.tryAcquire("client", NOW)).isTrue();
+  }
+
+  @Test
+  void previousWindowShouldBeWeightedByItsOverlap() {
+    SlidingWindowThrottle underTest = new SlidingWindowThrottle(4, 100, WINDOW, 4);
+    for (int i = 0; i < 4; i++) {
+      underTest.tryAcquire("key", NOW);
+    }
+
+    // half of the previous window still overlaps, so two of its four requests count
+    assertThat(underTest.tryAcquire("key", NOW + WINDOW + WINDOW / 2)).isTrue();
+    assertThat(underTest.tryAcquire("key", NOW + WINDOW + WINDOW / 2)).isTrue();
+    assertThat(underTest.tryAcquire("key", NOW + WINDOW + WINDOW / 2)).isFalse();
+    assertThat(underTest.tryAcquire("key", NOW + 3 * WINDOW)).isTrue();
+  }
+
+  @Test
+  void leastRecentlyUsedKeysShouldBeEvicted() {
+    SlidingWindowThrottle underTest = new SlidingWindowThrottle(1, 2, WINDOW, 1);
+    underTest.tryAcquire("first", NOW);
+    underTest.tryAcquire("second", NOW);
+    underTest.tryAcquire("third", NOW);
+
+    assertThat(underTest.tryAcquire("third", NOW)).isFalse();
+    assertThat(underTest.tryAcquire("first", NOW)).isTrue();
+  }
+
+  @Test
+  void reusedDeviceTokenShouldBeThrottled() {
+    PpacConfiguration configuration = new PpacConfiguration();
+    configuration.getAdmission().setMaxRequestsPerDeviceToken(1);
+    AdmissionThrottle admissionThrottle = new AdmissionThrottle(configuration, new SimpleMeterRegistry());
+
+    admissionThrottle.admitDeviceToken("deviceToken");
+    admissionThrottle.admitDeviceToken("otherDeviceToken");
+    assertThatThrownBy(() -> admissionThrottle.admitDeviceToken("deviceToken"))
+        .isInstanceOf(AdmissionThrottled.class);
+  }
+}
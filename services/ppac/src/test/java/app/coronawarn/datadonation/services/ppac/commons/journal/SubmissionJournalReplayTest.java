@@ -0,0 +1,44 @@
+package app.coronawarn.datadonation.services.ppac.commons.journal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataService;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import app.coronawarn.datadonation.services.ppac.android.controller.PpaDataRequestAndroidConverter;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import app.coronawarn.datadonation.services.ppac.ios.controller.PpaDataRequestIosConverter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+
+class SubmissionJournalReplayTest {
+
+  private final PpacConfiguration ppacConfiguration = new PpacConfiguration();
+  private final PpaDataRequestIosConverter iosConverter = mock(PpaDataRequestIosConverter.class);
+  private final PpaDataService ppaDataService = mock(PpaDataService.class);
+  private final SubmissionJournalReplay underTest = new SubmissionJournalReplay(ppacConfiguration,
+      mock(PpaDataRequestAndroidConverter.class), iosConverter, ppaDataService, mock(ApplicationContext.class));
+
+  @Test
+  void overloadedStorageShouldBeRetried() {
+    TechnicalMetadata technicalMetadata = TechnicalMetadata.newEmptyInstance();
+    PpaDataStorageRequest request = new PpaDataStorageRequest(null, List.of(), null, null, null, null, null);
+    when(iosConverter.convertToStorageRequest(any(PPADataIOS.class), eq(ppacConfiguration), eq(technicalMetadata)))
+        .thenReturn(request);
+    doThrow(new StorageOverloaded("full")).doThrow(new StorageOverloaded("full")).doNothing()
+        .when(ppaDataService).store(request);
+
+    underTest.store(JournaledSubmission.ios(PPADataIOS.getDefaultInstance(), technicalMetadata));
+
+    verify(ppaDataService, times(3)).store(request);
+  }
+}
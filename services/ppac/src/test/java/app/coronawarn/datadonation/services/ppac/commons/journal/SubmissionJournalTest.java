@@ -0,0 +1,152 @@
+package app.coronawarn.datadonation.services.ppac.commons.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPAClientMetadataIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataAndroid;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPAUserMetadata;
+import app.coronawarn.datadonation.services.ppac.commons.journal.JournaledSubmission.Platform;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SubmissionJournalTest {
+
+  private static final TechnicalMetadata ANDROID_METADATA =
+      new TechnicalMetadata(LocalDate.of(2021, 5, 3), true, false, true, null);
+
+  @TempDir
+  Path directory;
+
+  private PpacConfiguration ppacConfiguration;
+
+  @BeforeEach
+  void setup() {
+    ppacConfiguration = new PpacConfiguration();
+    ppacConfiguration.getJournal().setEnabled(true);
+    ppacConfiguration.getJournal().setDirectory(directory.toString());
+    ppacConfiguration.getJournal().setSegmentBytes(4096);
+  }
+
+  @Test
+  void submissionsShouldBeReadInOrderWithTheirMetadata() throws IOException {
+    SubmissionJournal journal = new SubmissionJournal(ppacConfiguration);
+    journal.append(JournaledSubmission.android(androidPayload(), ANDROID_METADATA));
+    journal.append(JournaledSubmission.ios(iosPayload(), TechnicalMetadata.newEmptyInstance()));
+    journal.destroy();
+
+    List<JournaledSubmission> submissions = readAll();
+
+    assertThat(submissions).extracting(JournaledSubmission::getPlatform)
+        .containsExactly(Platform.ANDROID, Platform.IOS);
+    assertThat(submissions.get(0).getTechnicalMetadata()).isEqualTo(ANDROID_METADATA);
+    assertThat(PPADataAndroid.parseFrom(submissions.get(0).getPayload())).isEqualTo(androidPayload());
+    assertThat(PPADataIOS.parseFrom(submissions.get(1).getPayload())).isEqualTo(iosPayload());
+    assertThat(submissions.get(1).getTechnicalMetadata().getAndroidPpacBasicIntegrity()).isNull();
+  }
+
+  @Test
+  void segmentsShouldBeRotatedWhenFullAndOnRestart() throws IOException {
+    SubmissionJournal journal = new SubmissionJournal(ppacConfiguration);
+    for (int i = 0; i < 200; i++) {
+      journal.append(JournaledSubmission.ios(iosPayload(), TechnicalMetadata.newEmptyInstance()));
+    }
+    journal.destroy();
+    long segmentsBeforeRestart = segments().size();
+
+    SubmissionJournal restarted = new SubmissionJournal(ppacConfiguration);
+    restarted.append(JournaledSubmission.ios(iosPayload(), TechnicalMetadata.newEmptyInstance()));
+    restarted.destroy();
+
+    assertThat(segmentsBeforeRestart).isGreaterThan(1);
+    assertThat(segments()).hasSize((int) segmentsBeforeRestart + 1);
+    assertThat(readAll()).hasSize(201);
+  }
+
+  @Test
+  void readingShouldStopAtATornRecord() throws IOException {
+    SubmissionJournal journal = new SubmissionJournal(ppacConfiguration);
+    journal.append(JournaledSubmission.android(androidPayload(), ANDROID_METADATA));
+    journal.append(JournaledSubmission.android(androidPayload(), ANDROID_METADATA));
+    journal.destroy();
+
+    try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+      // corrupt the last byte of the second record
+      int firstLength = file.readInt();
+      file.seek(2L * (2 * Integer.BYTES + firstLength) - 1);
+      file.write(0x55);
+    }
+
+    assertThat(readAll()).hasSize(1);
+  }
+
+  @Test
+  void segmentsPastTheRetentionShouldBeDeleted() throws IOException {
+    SubmissionJournal journal = new SubmissionJournal(ppacConfiguration);
+    journal.append(JournaledSubmission.android(androidPayload(), ANDROID_METADATA));
+    journal.destroy();
+    Path old = segments().get(0);
+    Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofDays(8))));
+
+    SubmissionJournal restarted = new SubmissionJournal(ppacConfiguration);
+    restarted.append(JournaledSubmission.android(androidPayload(), ANDROID_METADATA));
+
+    assertThat(segments()).hasSize(1).doesNotContain(old);
+    assertThat(readAll()).hasSize(1);
+
+    // nothing appended for longer than the retention
+    restarted.prune(Instant.now().plus(Duration.ofDays(8)));
+    restarted.destroy();
+
+    assertThat(segments()).isEmpty();
+  }
+
+  @Test
+  void nothingShouldBeWrittenWhenDisabled() throws IOException {
+    ppacConfiguration.getJournal().setEnabled(false);
+    SubmissionJournal journal = new SubmissionJournal(ppacConfiguration);
+    journal.append(JournaledSubmission.android(androidPayload(), ANDROID_METADATA));
+    journal.destroy();
+
+    assertThat(segments()).isEmpty();
+  }
+
+  private List<JournaledSubmission> readAll() throws IOException {
+    List<JournaledSubmission> submissions = new ArrayList<>();
+    SubmissionJournal.read(directory, submissions::add);
+    return submissions;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static PPADataAndroid androidPayload() {
+    return PPADataAndroid.newBuilder()
+        .setUserMetadata(PPAUserMetadata.newBuilder().setAgeGroupValue(2))
+        .build();
+  }
+
+  private static PPADataIOS iosPayload() {
+    return PPADataIOS.newBuilder()
+        .setClientMetadata(PPAClientMetadataIOS.newBuilder().setAppConfigETag("etag"))
+        .build();
+  }
+}
@@ -0,0 +1,115 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.DATA;
+import static app.coronawarn.datadonation.common.config.UrlConstants.HEALTH_ROUTE;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+import static app.coronawarn.datadonation.common.config.UrlConstants.OTP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private MeterRegistry meterRegistry;
+  private ConcurrencyLimitFilter underTest;
+
+  @BeforeEach
+  void setup() {
+    PpacConfiguration configuration = new PpacConfiguration();
+    configuration.getConcurrencyLimit().setInitialLimit(10);
+    configuration.getConcurrencyLimit().setMinLimit(2);
+    configuration.getConcurrencyLimit().setMaxLimit(50);
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new ConcurrencyLimitFilter(configuration, meterRegistry);
+  }
+
+  @Test
+  void requestsAboveTheLimitShouldBeRejectedPerEndpoint() throws Exception {
+    saturate(IOS + DATA);
+
+    MockHttpServletResponse rejected = execute(IOS + DATA);
+    assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+    assertThat(execute(IOS + OTP).getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(meterRegistry.get("ppac.concurrency.rejected")
+        .tag("endpoint", IOS + DATA).tag("status", "429").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void otherRoutesShouldNotBeLimited() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", HEALTH_ROUTE);
+
+    assertThat(underTest.shouldNotFilter(request)).isTrue();
+  }
+
+  @Test
+  void limitShouldGrowWhileLatencyIsStable() {
+    AdaptiveConcurrencyLimit limit = underTest.getLimit(IOS + DATA);
+    runRounds(limit, FAST, 20);
+
+    assertThat(limit.getLimit()).isGreaterThan(10);
+    assertThat(meterRegistry.get("ppac.concurrency.limit").tag("endpoint", IOS + DATA).gauge().value())
+        .isEqualTo(limit.getLimit());
+  }
+
+  @Test
+  void limitShouldShrinkWhenLatencyRises() {
+    AdaptiveConcurrencyLimit limit = underTest.getLimit(IOS + DATA);
+    runRounds(limit, FAST, 5);
+    int stableLimit = limit.getLimit();
+    runRounds(limit, SLOW, 5);
+
+    assertThat(limit.getLimit()).isLessThan(stableLimit);
+  }
+
+  @Test
+  void collapsedLimitShouldRejectWithServiceUnavailable() throws Exception {
+    AdaptiveConcurrencyLimit limit = underTest.getLimit(IOS + DATA);
+    for (int i = 0; i < 100; i++) {
+      limit.tryAcquire();
+      limit.release(FAST, true);
+    }
+    saturate(IOS + DATA);
+
+    assertThat(limit.isAtMinimum()).isTrue();
+    assertThat(execute(IOS + DATA).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+  }
+
+  private void saturate(String endpoint) {
+    AdaptiveConcurrencyLimit limit = underTest.getLimit(endpoint);
+    while (limit.tryAcquire()) {
+      // occupy all slots
+    }
+  }
+
+  private static void runRounds(AdaptiveConcurrencyLimit limit, long latencyNanos, int rounds) {
+    for (int round = 0; round < rounds; round++) {
+      int acquired = 0;
+      while (limit.tryAcquire()) {
+        acquired++;
+      }
+      for (int i = 0; i < acquired; i++) {
+        limit.release(latencyNanos, false);
+      }
+    }
+  }
+
+  private MockHttpServletResponse execute(String endpoint) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    underTest.doFilter(new MockHttpServletRequest("POST", endpoint), response, new MockFilterChain());
+    return response;
+  }
+}
@@ -0,0 +1,170 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.DATA;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+import static app.coronawarn.datadonation.common.config.UrlConstants.OTP;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequestIos.PPADataRequestIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+class IdempotentResponsesTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicInteger submissions = new AtomicInteger();
+
+  private IdempotentResponses underTest;
+
+  @BeforeEach
+  void setup() {
+    underTest = new IdempotentResponses(new PpacConfiguration(), meterRegistry);
+  }
+
+  @Test
+  void retriedSubmissionShouldBeReplayed() {
+    PPADataRequestIOS request = request("device-token");
+
+    underTest.replayOrSubmit(IOS + DATA, request, this::succeed);
+    ResponseEntity<Object> replayed = underTest.replayOrSubmit(IOS + DATA, request, this::succeed);
+
+    assertThat(replayed.getStatusCodeValue()).isEqualTo(204);
+    assertThat(submissions).hasValue(1);
+    assertThat(meterRegistry.get("ppac.idempotency.replayed").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void differentRequestsAndEndpointsShouldBeSubmitted() {
+    underTest.replayOrSubmit(IOS + DATA, request("device-token"), this::succeed);
+    underTest.replayOrSubmit(IOS + DATA, request("other-device-token"), this::succeed);
+    underTest.replayOrSubmit(IOS + OTP, request("device-token"), this::succeed);
+
+    assertThat(submissions).hasValue(3);
+  }
+
+  @Test
+  void failedSubmissionShouldNotBeRemembered() {
+    PPADataRequestIOS request = request("device-token");
+
+    assertThatThrownBy(() -> underTest.replayOrSubmit(IOS + DATA, request, () -> {
+      throw new IllegalStateException("verification failed");
+    })).isInstanceOf(IllegalStateException.class);
+    underTest.replayOrSubmit(IOS + DATA, request, this::succeed);
+
+    assertThat(submissions).hasValue(1);
+  }
+
+  @Test
+  void unsuccessfulResponseShouldNotBeRemembered() {
+    PPADataRequestIOS request = request("device-token");
+
+    ResponseEntity<Object> rejected = underTest.replayOrSubmit(IOS + DATA, request, () -> {
+      submissions.incrementAndGet();
+      return ResponseEntity.badRequest().build();
+    });
+    ResponseEntity<Object> accepted = underTest.replayOrSubmit(IOS + DATA, request, this::succeed);
+
+    assertThat(rejected.getStatusCodeValue()).isEqualTo(400);
+    assertThat(accepted.getStatusCodeValue()).isEqualTo(204);
+    assertThat(submissions).hasValue(2);
+  }
+
+  @Test
+  void concurrentDuplicatesShouldBeSubmittedOnce() throws Exception {
+    PPADataRequestIOS request = request("device-token");
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<ResponseEntity<Object>> first = executor.submit(() -> underTest.replayOrSubmit(IOS + DATA, request, () -> {
+        firstStarted.countDown();
+        await(releaseFirst);
+        return succeed();
+      }));
+      assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<ResponseEntity<Object>> duplicate = executor.submit(
+          () -> underTest.replayOrSubmit(IOS + DATA, request, this::succeed));
+      Thread.sleep(200);
+      releaseFirst.countDown();
+
+      assertThat(first.get(5, TimeUnit.SECONDS).getStatusCodeValue()).isEqualTo(204);
+      assertThat(duplicate.get(5, TimeUnit.SECONDS).getStatusCodeValue()).isEqualTo(204);
+      assertThat(submissions).hasValue(1);
+      assertThat(meterRegistry.get("ppac.idempotency.replayed").counter().count()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void duplicateOfAFailedSubmissionShouldBeSubmittedItself() throws Exception {
+    PPADataRequestIOS request = request("device-token");
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<ResponseEntity<Object>> first = executor.submit(() -> underTest.<Object>replayOrSubmit(IOS + DATA, request,
+          () -> {
+            firstStarted.countDown();
+            await(releaseFirst);
+            throw new IllegalStateException("verification failed");
+          }));
+      assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<ResponseEntity<Object>> duplicate = executor.submit(
+          () -> underTest.replayOrSubmit(IOS + DATA, request, this::succeed));
+      Thread.sleep(200);
+      releaseFirst.countDown();
+
+      assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+      assertThat(duplicate.get(5, TimeUnit.SECONDS).getStatusCodeValue()).isEqualTo(204);
+      assertThat(submissions).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void disabledCacheShouldAlwaysSubmit() {
+    PpacConfiguration configuration = new PpacConfiguration();
+    configuration.getIdempotency().setEnabled(false);
+    underTest = new IdempotentResponses(configuration, meterRegistry);
+    PPADataRequestIOS request = request("device-token");
+
+    underTest.replayOrSubmit(IOS + DATA, request, this::succeed);
+    underTest.replayOrSubmit(IOS + DATA, request, this::succeed);
+
+    assertThat(submissions).hasValue(2);
+  }
+
+  private ResponseEntity<Object> succeed() {
+    submissions.incrementAndGet();
+    return ResponseEntity.noContent().build();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static PPADataRequestIOS request(String deviceToken) {
+    return PPADataRequestIOS.newBuilder()
+        .setAuthentication(PPACIOS.newBuilder().setDeviceToken(deviceToken).setApiToken("api-token").build())
+        .build();
+  }
+}
@@ -0,0 +1,188 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import static app.coronawarn.datadonation.common.config.UrlConstants.DATA;
+import static app.coronawarn.datadonation.common.config.UrlConstants.IOS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import app.coronawarn.datadonation.services.ppac.commons.web.DecompressingInputStream.DecompressionLimitExceeded;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestDecompressionFilterTest {
+
+  private static final byte[] PAYLOAD = "protobuf payload".getBytes(StandardCharsets.UTF_8);
+
+  private RequestDecompressionFilter underTest;
+
+  @BeforeEach
+  void setup() {
+    PpacConfiguration configuration = new PpacConfiguration();
+    configuration.getRequestCompression().setMaxDecompressedBytes(1024 * 1024);
+    configuration.getRequestCompression().setRatioGraceBytes(64 * 1024);
+    underTest = new RequestDecompressionFilter(configuration);
+  }
+
+  @Test
+  void gzipBodyShouldBeDecompressed() throws Exception {
+    HttpServletRequest forwarded = execute("gzip", gzip(PAYLOAD));
+
+    assertThat(forwarded.getInputStream().readAllBytes()).isEqualTo(PAYLOAD);
+    assertThat(forwarded.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    assertThat(forwarded.getContentLength()).isEqualTo(-1);
+  }
+
+  @Test
+  void deflateBodyShouldBeDecompressed() throws Exception {
+    HttpServletRequest forwarded = execute("deflate", deflate(PAYLOAD));
+
+    assertThat(forwarded.getInputStream().readAllBytes()).isEqualTo(PAYLOAD);
+  }
+
+  @Test
+  void decompressionBombShouldBeAbortedWhileStreaming() throws Exception {
+    HttpServletRequest forwarded = execute("gzip", gzip(new byte[8 * 1024 * 1024]));
+
+    assertThatThrownBy(() -> forwarded.getInputStream().readAllBytes())
+        .isInstanceOf(DecompressionLimitExceeded.class);
+  }
+
+  @Test
+  void nonBlockingReadsShouldReceiveTheDecompressedBody() throws Exception {
+    HttpServletRequest forwarded = execute("gzip", gzip(PAYLOAD), true);
+    ServletInputStream body = forwarded.getInputStream();
+    ByteArrayOutputStream received = new ByteArrayOutputStream();
+    AtomicBoolean allDataRead = new AtomicBoolean();
+
+    body.setReadListener(new ReadListener() {
+      @Override
+      public void onDataAvailable() throws IOException {
+        byte[] buffer = new byte[4];
+        int read;
+        while (body.isReady() && (read = body.read(buffer)) >= 0) {
+          received.write(buffer, 0, read);
+        }
+      }
+
+      @Override
+      public void onAllDataRead() {
+        allDataRead.set(true);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        throw new AssertionError(throwable);
+      }
+    });
+
+    assertThat(received.toByteArray()).isEqualTo(PAYLOAD);
+    assertThat(allDataRead).isTrue();
+  }
+
+  @Test
+  void unsupportedEncodingShouldBeRejected() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", IOS + DATA);
+    request.addHeader(HttpHeaders.CONTENT_ENCODING, "br");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    underTest.doFilter(request, response, new MockFilterChain());
+
+    assertThat(response.getStatus()).isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+  }
+
+  private HttpServletRequest execute(String encoding, byte[] body) throws Exception {
+    return execute(encoding, body, false);
+  }
+
+  private HttpServletRequest execute(String encoding, byte[] body, boolean nonBlocking) throws Exception {
+    MockHttpServletRequest request = nonBlocking ? new NonBlockingRequest() : new MockHttpServletRequest();
+    request.setMethod("POST");
+    request.setRequestURI(IOS + DATA);
+    request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+    request.setContent(body);
+    MockFilterChain filterChain = new MockFilterChain();
+    underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+    return (HttpServletRequest) filterChain.getRequest();
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(content);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] content) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new DeflaterOutputStream(bytes)) {
+      out.write(content);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Delivers its content to a read listener in small chunks, the way the container does.
+   */
+  private static final class NonBlockingRequest extends MockHttpServletRequest {
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream content = new ByteArrayInputStream(getContentAsByteArray());
+      return new ServletInputStream() {
+        private int readsUntilNotReady = 2;
+
+        @Override
+        public boolean isFinished() {
+          return content.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return readsUntilNotReady > 0;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          try {
+            while (!isFinished()) {
+              readsUntilNotReady = 2;
+              readListener.onDataAvailable();
+            }
+            readListener.onAllDataRead();
+          } catch (IOException e) {
+            readListener.onError(e);
+          }
+        }
+
+        @Override
+        public int read() {
+          readsUntilNotReady--;
+          return content.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+          readsUntilNotReady--;
+          return content.read(buffer, offset, Math.min(length, 3));
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package app.coronawarn.datadonation.services.ppac.commons.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class TlsSessionMetricsFilterTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final TlsSessionMetricsFilter underTest =
+      new TlsSessionMetricsFilter(meterRegistry, 100, Duration.ofHours(1));
+
+  @Test
+  void everySessionShouldCountAsOneHandshakeAndLaterRequestsAsSessionRequests() throws Exception {
+    execute("session-1");
+    execute("session-1");
+    execute("session-1");
+    execute("session-2");
+
+    assertThat(meterRegistry.get("tls.handshakes").tag("protocol", "TLSv1.3").counter().count()).isEqualTo(2);
+    assertThat(meterRegistry.get("tls.session.requests").tag("protocol", "TLSv1.3").counter().count()).isEqualTo(2);
+  }
+
+  @Test
+  void plainRequestsShouldNotBeCounted() throws Exception {
+    underTest.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+    assertThat(meterRegistry.find("tls.handshakes").counter()).isNull();
+  }
+
+  private void execute(String sessionId) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setAttribute(TlsSessionMetricsFilter.SESSION_ID, sessionId);
+    request.setAttribute(TlsSessionMetricsFilter.PROTOCOL, "TLSv1.3");
+    request.setAttribute(TlsSessionMetricsFilter.CIPHER_SUITE, "TLS_AES_128_GCM_SHA256");
+    underTest.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+  }
+}
@@ -38,6 +38,7 @@ import app.coronawarn.datadonation.services.ppac.ios.client.domain.PerDeviceData
 import app.coronawarn.datadonation.services.ppac.ios.testdata.TestData;
 import app.coronawarn.datadonation.services.ppac.ios.verification.JwtProvider;
 import app.coronawarn.datadonation.services.ppac.ios.verification.PpacIosScenarioRepository;
+import app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken.RecentDeviceTokens;
 import app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode;
 import feign.FeignException;
 import feign.Request;
@@ -72,6 +73,9 @@ public class IosAuthenticationIntegrationTest {
   @Autowired
   private DeviceTokenRepository deviceTokenRepository;
 
+  @Autowired
+  private RecentDeviceTokens recentDeviceTokens;
+
   @Autowired
   private PpacConfiguration configuration;
 
@@ -90,6 +94,7 @@ public class IosAuthenticationIntegrationTest {
   @BeforeEach
   void clearDatabase() {
     deviceTokenRepository.deleteAll();
+    recentDeviceTokens.clear();
     apiTokenRepository.deleteAll();
     when(jwtProvider.generateJwt()).thenReturn("jwt");
   }
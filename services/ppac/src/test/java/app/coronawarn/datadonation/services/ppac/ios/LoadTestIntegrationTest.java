@@ -26,6 +26,7 @@ import app.coronawarn.datadonation.services.ppac.ios.client.IosDeviceApiClient;
 import app.coronawarn.datadonation.services.ppac.ios.client.domain.PerDeviceDataResponse;
 import app.coronawarn.datadonation.services.ppac.ios.verification.JwtProvider;
 import app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken.DeviceTokenRedemptionStrategy;
+import app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken.RecentDeviceTokens;
 import java.time.OffsetDateTime;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,6 +52,9 @@ public class LoadTestIntegrationTest {
   @Autowired
   private DeviceTokenRepository deviceTokenRepository;
 
+  @Autowired
+  private RecentDeviceTokens recentDeviceTokens;
+
   @Autowired
   private PpacConfiguration configuration;
 
@@ -69,6 +73,7 @@ public class LoadTestIntegrationTest {
   @BeforeEach
   void clearDatabase() {
     deviceTokenRepository.deleteAll();
+    recentDeviceTokens.clear();
     apiTokenRepository.deleteAll();
     when(jwtProvider.generateJwt()).thenReturn("jwt");
   }
@@ -9,17 +9,24 @@ import static app.coronawarn.datadonation.services.ppac.ios.testdata.TestData.po
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NO_CONTENT;
 
 import app.coronawarn.datadonation.common.config.UrlConstants;
 import app.coronawarn.datadonation.common.persistence.domain.OneTimePassword;
 import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
 import app.coronawarn.datadonation.common.persistence.repository.DeviceTokenRepository;
+import app.coronawarn.datadonation.common.persistence.service.GenericMetricsIngestion;
 import app.coronawarn.datadonation.common.persistence.service.OtpCreationResponse;
 import app.coronawarn.datadonation.common.persistence.service.OtpService;
+import app.coronawarn.datadonation.common.protocols.AuthIos;
+import app.coronawarn.datadonation.common.protocols.IntMetric;
+import app.coronawarn.datadonation.common.protocols.Metrics;
+import app.coronawarn.datadonation.common.protocols.SubmissionPayloadIos;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtp.EDUSOneTimePassword;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtpRequestIos.EDUSOneTimePasswordRequestIOS;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
@@ -29,6 +36,7 @@ import app.coronawarn.datadonation.services.ppac.ios.client.IosDeviceApiClient;
 import app.coronawarn.datadonation.services.ppac.ios.client.domain.PerDeviceDataResponse;
 import app.coronawarn.datadonation.services.ppac.ios.verification.JwtProvider;
 import app.coronawarn.datadonation.services.ppac.ios.verification.apitoken.authentication.ApiTokenAuthenticationStrategy;
+import app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken.RecentDeviceTokens;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -42,6 +50,10 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -53,6 +65,7 @@ import org.springframework.test.context.ActiveProfiles;
 public class IosControllerTest {
 
   private static final String IOS_OTP_URL = UrlConstants.IOS + UrlConstants.OTP;
+  private static final String IOS_METRICS_URL = UrlConstants.IOS + UrlConstants.METRICS;
 
   @Autowired
   private TestRestTemplate testRestTemplate;
@@ -72,16 +85,23 @@ public class IosControllerTest {
   @SpyBean
   private OtpService otpService;
 
+  @MockBean
+  private GenericMetricsIngestion genericMetricsIngestion;
+
   @Autowired
   private ApiTokenRepository apiTokenRepository;
 
   @Autowired
   private DeviceTokenRepository deviceTokenRepository;
 
+  @Autowired
+  private RecentDeviceTokens recentDeviceTokens;
+
   @BeforeEach
   void clearDatabase() {
     apiTokenRepository.deleteAll();
     deviceTokenRepository.deleteAll();
+    recentDeviceTokens.clear();
   }
 
   private EDUSOneTimePasswordRequestIOS buildValidOtpPayload(String password) {
@@ -137,4 +157,59 @@ public class IosControllerTest {
       assertThat(response.getStatusCode()).isEqualTo(BAD_REQUEST);
     }
   }
+
+  @Nested
+  class SubmitMetricsTests {
+
+    private final Metrics metrics = Metrics.newBuilder()
+        .addIntData(IntMetric.newBuilder().setKey(1).setValue(42)).build();
+
+    @Test
+    void testMetricsAreIngested() {
+      PerDeviceDataResponse data = buildIosDeviceData(OffsetDateTime.now(), true);
+      when(iosDeviceApiClient.queryDeviceData(anyString(), any())).thenReturn(ResponseEntity.ok(jsonify(data)));
+      when(jwtProvider.generateJwt()).thenReturn("secretkey");
+
+      ResponseEntity<Void> response = postMetrics(buildUuid());
+
+      assertThat(response.getStatusCode()).isEqualTo(NO_CONTENT);
+      verify(genericMetricsIngestion, times(1)).submit(metrics);
+    }
+
+    @Test
+    void testMetricsDoNotConsumeThePpaQuota() {
+      PerDeviceDataResponse data = buildIosDeviceData(OffsetDateTime.now(), true);
+      when(iosDeviceApiClient.queryDeviceData(anyString(), any())).thenReturn(ResponseEntity.ok(jsonify(data)));
+      when(jwtProvider.generateJwt()).thenReturn("secretkey");
+      String apiToken = buildUuid();
+
+      assertThat(postMetrics(apiToken).getStatusCode()).isEqualTo(NO_CONTENT);
+
+      assertThat(apiTokenRepository.findById(apiToken)).hasValueSatisfying(it -> {
+        assertThat(it.getLastUsedMetrics()).isPresent();
+        assertThat(it.getLastUsedPpac()).isEmpty();
+      });
+    }
+
+    @Test
+    void testResponseIs400WhenApiTokenIsInvalidUuid() {
+      ResponseEntity<Void> response = postMetrics("invalidUUID");
+
+      assertThat(response.getStatusCode()).isEqualTo(BAD_REQUEST);
+      verify(genericMetricsIngestion, never()).submit(any());
+    }
+
+    private ResponseEntity<Void> postMetrics(String apiToken) {
+      SubmissionPayloadIos submission = SubmissionPayloadIos.newBuilder()
+          .setAuthentication(AuthIos.newBuilder().setApiToken(apiToken)
+              .setDeviceToken(buildBase64String(ppacConfiguration.getIos().getMinDeviceTokenLength() + 1)))
+          .setMetrics(metrics)
+          .build();
+      HttpHeaders httpHeaders = new HttpHeaders();
+      httpHeaders.setContentType(MediaType.valueOf("application/x-protobuf"));
+      httpHeaders.set("cwa-ppac-ios-accept-api-token", "false");
+      return testRestTemplate.exchange(IOS_METRICS_URL, HttpMethod.POST, new HttpEntity<>(submission, httpHeaders),
+          Void.class);
+    }
+  }
 }
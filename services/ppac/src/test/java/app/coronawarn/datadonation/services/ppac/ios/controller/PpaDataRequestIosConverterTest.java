@@ -190,4 +190,31 @@ public class PpaDataRequestIosConverterTest {
     assertThat(ppaDataStorageRequest.getTestResultMetric()).isNotPresent();
     assertThat(ppaDataStorageRequest.getExposureWindowsMetric()).isNotPresent();
   }
+
+  @Test
+  public void testClientAndTechnicalMetadataAreSharedAcrossEntities() {
+    final PPANewExposureWindow ppaNewExposureWindow = PPANewExposureWindow.newBuilder()
+        .setExposureWindow(PPAExposureWindow.newBuilder().setDate(TimeUtils.getEpochSecondForNow()).build())
+        .build();
+    final PPADataIOS payload = PPADataIOS.newBuilder()
+        .addNewExposureWindows(ppaNewExposureWindow)
+        .addNewExposureWindows(ppaNewExposureWindow)
+        .addKeySubmissionMetadataSet(PPAKeySubmissionMetadata.newBuilder().setSubmitted(true).build())
+        .build();
+    PPADataRequestIOS ppaDataRequestIOS = PPADataRequestIOS.newBuilder().setPayload(payload).build();
+
+    // when
+    final PpaDataStorageRequest first = underTest.convertToStorageRequest(ppaDataRequestIOS, ppacConfig);
+    final PpaDataStorageRequest second = underTest.convertToStorageRequest(ppaDataRequestIOS, ppacConfig);
+
+    // then
+    final ExposureWindow firstWindow = first.getExposureWindowsMetric().get().get(0);
+    final ExposureWindow secondWindow = first.getExposureWindowsMetric().get().get(1);
+    assertThat(secondWindow.getClientMetadata()).isSameAs(firstWindow.getClientMetadata());
+    assertThat(secondWindow.getTechnicalMetadata()).isSameAs(firstWindow.getTechnicalMetadata());
+    assertThat(first.getKeySubmissionWithClientMetadata().get().getClientMetadata())
+        .isSameAs(firstWindow.getClientMetadata());
+    assertThat(second.getClientMetadata().get().getClientMetadataDetails())
+        .isSameAs(firstWindow.getClientMetadata());
+  }
 }
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.when;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtp.EDUSOneTimePassword;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtpRequestAndroid.EDUSOneTimePasswordRequestAndroid;
 import app.coronawarn.datadonation.common.protocols.internal.ppdd.EdusOtpRequestIos.EDUSOneTimePasswordRequestIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
 import app.coronawarn.datadonation.services.ppac.android.controller.validation.EdusOneTimePasswordRequestAndroidValidator;
 import java.util.UUID;
 import javax.validation.ConstraintValidatorContext;
@@ -49,8 +50,19 @@ public class EdusOneTimePasswordRequestIosValidatorTest {
     assertThat(validator.isValid(payload, context)).isFalse();
   }
 
+  @Test
+  public void testValidatePayloadInvalidApiToken() {
+    EDUSOneTimePasswordRequestIOS payload = buildRequest(UUID.randomUUID().toString(), "1-2-3-4-5");
+    assertThat(validator.isValid(payload, context)).isFalse();
+  }
+
   private EDUSOneTimePasswordRequestIOS buildRequestWithOtp(String otp) {
+    return buildRequest(otp, UUID.randomUUID().toString());
+  }
+
+  private EDUSOneTimePasswordRequestIOS buildRequest(String otp, String apiToken) {
     return EDUSOneTimePasswordRequestIOS.newBuilder()
+        .setAuthentication(PPACIOS.newBuilder().setApiToken(apiToken))
         .setPayload(EDUSOneTimePassword.newBuilder().setOtp(otp)).build();
   }
 }
@@ -24,6 +24,7 @@ import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
 import app.coronawarn.datadonation.services.ppac.ios.client.IosDeviceApiClient;
 import app.coronawarn.datadonation.services.ppac.ios.client.domain.PerDeviceDataResponse;
 import app.coronawarn.datadonation.services.ppac.ios.verification.apitoken.authentication.TestApiTokenAuthenticationStrategy;
+import app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken.RecentDeviceTokens;
 import app.coronawarn.datadonation.services.ppac.logging.PpacErrorCode;
 import java.time.OffsetDateTime;
 import java.util.Optional;
@@ -53,6 +54,9 @@ public class ApiTokenAuthenticationStrategyIntegrationTest {
   @Autowired
   private DeviceTokenRepository deviceTokenRepository;
 
+  @Autowired
+  private RecentDeviceTokens recentDeviceTokens;
+
   @Autowired
   private PpacConfiguration configuration;
 
@@ -69,6 +73,7 @@ public class ApiTokenAuthenticationStrategyIntegrationTest {
   void clearDatabase() {
     apiTokenRepository.deleteAll();
     deviceTokenRepository.deleteAll();
+    recentDeviceTokens.clear();
     when(jwtProvider.generateJwt()).thenReturn("jwt");
   }
 
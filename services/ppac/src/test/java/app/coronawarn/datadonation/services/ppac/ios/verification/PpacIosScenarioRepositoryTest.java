@@ -2,19 +2,26 @@ package app.coronawarn.datadonation.services.ppac.ios.verification;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import app.coronawarn.datadonation.common.persistence.coherence.CacheCoherenceBus;
 import app.coronawarn.datadonation.common.persistence.domain.ApiToken;
 import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
 import app.coronawarn.datadonation.services.ppac.ios.verification.apitoken.ApiTokenBuilder;
 import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.relational.core.conversion.DbActionExecutionException;
@@ -28,24 +35,58 @@ class PpacIosScenarioRepositoryTest {
   @Spy
   ApiTokenRepository apiTokenRepository;
 
+  @Mock
+  CacheCoherenceBus coherenceBus;
+
   @Test
   void updateForEdus() {
-    ArgumentCaptor<ApiToken> argumentCaptor = ArgumentCaptor.forClass(ApiToken.class);
     ApiToken apiToken = ApiTokenBuilder.newBuilder().setApiToken("test").build();
-    underTest.updateForEdus(apiToken);
-    verify(apiTokenRepository, times(1)).save(argumentCaptor.capture());
+    doReturn(1).when(apiTokenRepository).consumeForEdus(eq("test"), anyLong(), anyLong());
 
-    assertThat(argumentCaptor.getValue().getLastUsedEdus()).isNotNull();
+    assertThat(underTest.updateForEdus(apiToken)).isTrue();
+    verify(apiTokenRepository, never()).save(any());
+    assertThat(underTest.findById("test")).hasValueSatisfying(it -> assertThat(it.getLastUsedEdus()).isPresent());
   }
 
   @Test
   void updateForPpa() {
-    ArgumentCaptor<ApiToken> argumentCaptor = ArgumentCaptor.forClass(ApiToken.class);
     ApiToken apiToken = ApiTokenBuilder.newBuilder().setApiToken("test").build();
-    underTest.updateForPpa(apiToken);
-    verify(apiTokenRepository, times(1)).save(argumentCaptor.capture());
+    doReturn(1).when(apiTokenRepository).consumeForPpa(eq("test"), anyLong(), anyLong());
+
+    assertThat(underTest.updateForPpa(apiToken)).isTrue();
+    verify(apiTokenRepository, never()).save(any());
+    assertThat(underTest.findById("test")).hasValueSatisfying(it -> assertThat(it.getLastUsedPpac()).isPresent());
+  }
+
+  @Test
+  void updateForMetricsShouldKeepThePpaQuota() {
+    ApiToken apiToken = ApiTokenBuilder.newBuilder().setApiToken("test").setLastUsedPpac(1L).build();
+    doReturn(1).when(apiTokenRepository).consumeForMetrics(eq("test"), anyLong(), anyLong());
+
+    assertThat(underTest.updateForMetrics(apiToken)).isTrue();
+    verify(apiTokenRepository, never()).consumeForPpa(any(), anyLong(), anyLong());
+    assertThat(underTest.findById("test")).hasValueSatisfying(it -> {
+      assertThat(it.getLastUsedMetrics()).isPresent();
+      assertThat(it.getLastUsedPpac()).contains(1L);
+    });
+  }
+
+  @Test
+  void updateForPpaShouldReportConsumedQuota() {
+    ApiToken apiToken = ApiTokenBuilder.newBuilder().setApiToken("test").build();
+    doReturn(0).when(apiTokenRepository).consumeForPpa(eq("test"), anyLong(), anyLong());
+
+    assertThat(underTest.updateForPpa(apiToken)).isFalse();
+  }
+
+  @Test
+  void findByIdShouldServeRepeatedLookupsFromCache() {
+    ApiToken apiToken = ApiTokenBuilder.newBuilder().setApiToken("test").build();
+    doReturn(Optional.of(apiToken)).when(apiTokenRepository).findById("test");
 
-    assertThat(argumentCaptor.getValue().getLastUsedPpac()).isNotNull();
+    assertThat(underTest.findById("test")).contains(apiToken);
+    assertThat(underTest.findById("test")).contains(apiToken);
+    verify(apiTokenRepository, times(1)).findById("test");
   }
 
   @Test
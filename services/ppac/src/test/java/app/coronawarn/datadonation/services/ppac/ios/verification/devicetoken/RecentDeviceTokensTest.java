@@ -0,0 +1,69 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.devicetoken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RecentDeviceTokensTest {
+
+  private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+  private static final long NOW = 1_000 * HOUR;
+
+  private final byte[] token = "token".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void addedTokenShouldBeFoundByEqualHash() {
+    RecentDeviceTokens underTest = new RecentDeviceTokens(24, 10);
+    underTest.add(token, NOW);
+
+    assertThat(underTest.contains("token".getBytes(StandardCharsets.UTF_8), NOW)).isTrue();
+    assertThat(underTest.contains("other".getBytes(StandardCharsets.UTF_8), NOW)).isFalse();
+  }
+
+  @Test
+  void tokenShouldBeForgottenAfterRetention() {
+    RecentDeviceTokens underTest = new RecentDeviceTokens(24, 10);
+    underTest.add(token, NOW);
+
+    assertThat(underTest.contains(token, NOW + 23 * HOUR)).isTrue();
+    assertThat(underTest.contains(token, NOW + 24 * HOUR)).isFalse();
+  }
+
+  @Test
+  void bucketShouldBeReusedForNewHour() {
+    RecentDeviceTokens underTest = new RecentDeviceTokens(2, 10);
+    underTest.add(token, NOW);
+    underTest.add("other".getBytes(StandardCharsets.UTF_8), NOW + 2 * HOUR);
+
+    assertThat(underTest.contains(token, NOW + HOUR)).isFalse();
+    assertThat(underTest.contains("other".getBytes(StandardCharsets.UTF_8), NOW + 2 * HOUR)).isTrue();
+  }
+
+  @Test
+  void fullBucketShouldNotRememberFurtherTokens() {
+    RecentDeviceTokens underTest = new RecentDeviceTokens(24, 1);
+    underTest.add("first".getBytes(StandardCharsets.UTF_8), NOW);
+    underTest.add(token, NOW);
+
+    assertThat(underTest.contains(token, NOW)).isFalse();
+  }
+
+  @Test
+  void zeroRetentionShouldDisableCache() {
+    RecentDeviceTokens underTest = new RecentDeviceTokens(0, 10);
+    underTest.add(token, NOW);
+
+    assertThat(underTest.contains(token, NOW)).isFalse();
+  }
+
+  @Test
+  void clearShouldForgetAllTokens() {
+    RecentDeviceTokens underTest = new RecentDeviceTokens(24, 10);
+    underTest.add(token, NOW);
+    underTest.clear();
+
+    assertThat(underTest.contains(token, NOW)).isFalse();
+  }
+}
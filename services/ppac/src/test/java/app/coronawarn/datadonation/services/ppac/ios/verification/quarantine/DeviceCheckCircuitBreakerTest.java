@@ -0,0 +1,103 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.quarantine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeviceCheckCircuitBreakerTest {
+
+  private long now;
+  private DeviceCheckCircuitBreaker underTest;
+
+  @BeforeEach
+  void setup() {
+    PpacConfiguration ppacConfiguration = new PpacConfiguration();
+    ppacConfiguration.getQuarantine().setFailureThreshold(3);
+    ppacConfiguration.getQuarantine().setOpenSeconds(10);
+    underTest = new DeviceCheckCircuitBreaker(ppacConfiguration, () -> now);
+  }
+
+  @Test
+  void shouldOpenAfterConsecutiveFailures() {
+    underTest.recordFailure();
+    underTest.recordFailure();
+    underTest.recordSuccess();
+    underTest.recordFailure();
+    underTest.recordFailure();
+    assertThat(underTest.isOpen()).isFalse();
+
+    underTest.recordFailure();
+    assertThat(underTest.isOpen()).isTrue();
+  }
+
+  @Test
+  void shouldReopenOnFirstFailureAfterTheOpenTime() {
+    openBreaker();
+    now += TimeUnit.SECONDS.toNanos(10);
+    assertThat(underTest.isOpen()).isFalse();
+
+    underTest.recordFailure();
+    assertThat(underTest.isOpen()).isTrue();
+  }
+
+  @Test
+  void shouldCloseOnSuccessAfterTheOpenTime() {
+    openBreaker();
+    now += TimeUnit.SECONDS.toNanos(10);
+    underTest.recordSuccess();
+
+    underTest.recordFailure();
+    assertThat(underTest.isOpen()).isFalse();
+  }
+
+  @Test
+  void shouldLetASingleProbeThroughAfterTheOpenTime() {
+    openBreaker();
+    now += TimeUnit.SECONDS.toNanos(10);
+
+    assertThat(underTest.isOpen()).isFalse();
+    assertThat(underTest.isOpen()).isTrue();
+    assertThat(underTest.isOpen()).isTrue();
+
+    underTest.recordSuccess();
+    assertThat(underTest.isOpen()).isFalse();
+    assertThat(underTest.isOpen()).isFalse();
+  }
+
+  @Test
+  void shouldReopenForTheOpenTimeWhenTheProbeFails() {
+    openBreaker();
+    now += TimeUnit.SECONDS.toNanos(10);
+    assertThat(underTest.isOpen()).isFalse();
+
+    underTest.recordFailure();
+    now += TimeUnit.SECONDS.toNanos(9);
+    assertThat(underTest.isOpen()).isTrue();
+    now += TimeUnit.SECONDS.toNanos(1);
+    assertThat(underTest.isOpen()).isFalse();
+    assertThat(underTest.isOpen()).isTrue();
+  }
+
+  @Test
+  void shouldReplaceAProbeWithoutOutcomeAfterTheOpenTime() {
+    openBreaker();
+    now += TimeUnit.SECONDS.toNanos(10);
+    assertThat(underTest.isOpen()).isFalse();
+
+    now += TimeUnit.SECONDS.toNanos(9);
+    assertThat(underTest.isOpen()).isTrue();
+    now += TimeUnit.SECONDS.toNanos(1);
+    assertThat(underTest.isOpen()).isFalse();
+    assertThat(underTest.isOpen()).isTrue();
+  }
+
+  private void openBreaker() {
+    for (int i = 0; i < 3; i++) {
+      underTest.recordFailure();
+    }
+    assertThat(underTest.isOpen()).isTrue();
+  }
+}
@@ -0,0 +1,53 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.quarantine;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.datadonation.common.persistence.errors.StorageOverloaded;
+import app.coronawarn.datadonation.common.persistence.repository.ppac.ios.QuarantineRepository;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpaDataRequestIos.PPADataRequestIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IosQuarantineTest {
+
+  private static final PPADataRequestIOS REQUEST = PPADataRequestIOS.newBuilder()
+      .setAuthentication(PPACIOS.newBuilder().setDeviceToken("device-token")
+          .setApiToken("00000000-0000-4000-8000-000000000000"))
+      .setPayload(PPADataIOS.getDefaultInstance())
+      .build();
+
+  private final PpacConfiguration ppacConfiguration = new PpacConfiguration();
+  private final QuarantineRepository repository = mock(QuarantineRepository.class);
+
+  private IosQuarantine underTest;
+
+  @BeforeEach
+  void setup() {
+    ppacConfiguration.getQuarantine().setMaxRows(7);
+    underTest = new IosQuarantine(ppacConfiguration, mock(DeviceCheckCircuitBreaker.class), repository);
+  }
+
+  @Test
+  void submissionsShouldBeStoredUpToTheLimit() {
+    when(repository.insert(any(), eq(7))).thenReturn(true);
+
+    underTest.quarantine(REQUEST, true);
+
+    verify(repository).insert(any(), eq(7));
+  }
+
+  @Test
+  void fullQuarantineShouldRejectSubmissions() {
+    when(repository.insert(any(), eq(7))).thenReturn(false);
+
+    assertThatThrownBy(() -> underTest.quarantine(REQUEST, true)).isInstanceOf(StorageOverloaded.class);
+  }
+}
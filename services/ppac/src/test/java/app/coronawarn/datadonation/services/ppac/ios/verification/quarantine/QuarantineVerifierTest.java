@@ -0,0 +1,157 @@
+package app.coronawarn.datadonation.services.ppac.ios.verification.quarantine;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.ppac.ios.QuarantinedSubmission;
+import app.coronawarn.datadonation.common.persistence.repository.ppac.ios.QuarantineRepository;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataService;
+import app.coronawarn.datadonation.common.persistence.service.PpaDataStorageRequest;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PPADataIOS;
+import app.coronawarn.datadonation.common.protocols.internal.ppdd.PpacIos.PPACIOS;
+import app.coronawarn.datadonation.services.ppac.commons.PpacScenario;
+import app.coronawarn.datadonation.services.ppac.commons.journal.SubmissionJournal;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import app.coronawarn.datadonation.services.ppac.ios.controller.PpaDataRequestIosConverter;
+import app.coronawarn.datadonation.services.ppac.ios.verification.PpacProcessor;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.DeviceTokenRedeemed;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuarantineVerifierTest {
+
+  private final PpacConfiguration ppacConfiguration = new PpacConfiguration();
+  private final DeviceCheckCircuitBreaker circuitBreaker = mock(DeviceCheckCircuitBreaker.class);
+  private final QuarantineRepository repository = mock(QuarantineRepository.class);
+  private final PpacProcessor ppacProcessor = mock(PpacProcessor.class);
+  private final PpaDataRequestIosConverter converter = mock(PpaDataRequestIosConverter.class);
+  private final PpaDataService ppaDataService = mock(PpaDataService.class);
+
+  private QuarantineVerifier underTest;
+
+  @BeforeEach
+  void setup() {
+    ppacConfiguration.getQuarantine().setBatchSize(3);
+    underTest = new QuarantineVerifier(ppacConfiguration, circuitBreaker, repository, ppacProcessor, converter,
+        ppaDataService, new SubmissionJournal(ppacConfiguration));
+  }
+
+  @Test
+  void verifiedSubmissionsShouldBeStoredWithTheirSubmissionDate() {
+    QuarantinedSubmission submission = submission("accepted", Instant.now().getEpochSecond());
+    PpaDataStorageRequest storageRequest = new PpaDataStorageRequest(null, null, null, null, null, null, null);
+    when(repository.claim(eq(3), anyLong(), anyInt())).thenReturn(List.of(submission));
+    when(converter.convertToStorageRequest(any(PPADataIOS.class), eq(ppacConfiguration),
+        eq(new TechnicalMetadata(submission.getSubmittedAt(), null, null, null, null)))).thenReturn(storageRequest);
+
+    underTest.verifyBatch();
+
+    verify(ppacProcessor).validate(PPACIOS.newBuilder().setDeviceToken("accepted")
+        .setApiToken(submission.getApiToken()).build(), false, PpacScenario.PPA);
+    verify(ppaDataService).store(storageRequest);
+    verify(repository).delete(1L);
+  }
+
+  @Test
+  void rejectedAndExpiredSubmissionsShouldBeDiscarded() {
+    long expired = Instant.now().getEpochSecond() - TimeUnit.HOURS.toSeconds(25);
+    when(repository.claim(eq(3), anyLong(), anyInt())).thenReturn(
+        List.of(submission(1L, "rejected", Instant.now().getEpochSecond()), submission(2L, "expired", expired)));
+    doThrow(new DeviceTokenRedeemed()).when(ppacProcessor).validate(any(), anyBoolean(), any());
+
+    underTest.verifyBatch();
+
+    verify(ppacProcessor, times(1)).validate(any(), anyBoolean(), any());
+    verify(ppaDataService, never()).store(any());
+    verify(repository).delete(1L);
+    verify(repository).delete(2L);
+    verify(repository, never()).release(any());
+  }
+
+  @Test
+  void remainingSubmissionsShouldBeQuarantinedAgainWhenDeviceCheckFails() {
+    long now = Instant.now().getEpochSecond();
+    QuarantinedSubmission first = submission(1L, "first", now);
+    QuarantinedSubmission second = submission(2L, "second", now);
+    when(repository.claim(eq(3), anyLong(), anyInt())).thenReturn(List.of(first, second));
+    doThrow(new InternalError(new RuntimeException())).when(ppacProcessor).validate(any(), anyBoolean(), any());
+
+    underTest.verifyBatch();
+
+    verify(repository).release(List.of(1L, 2L));
+    verify(repository, never()).delete(anyLong());
+    verify(ppaDataService, never()).store(any());
+  }
+
+  @Test
+  void verifiedSubmissionsShouldBeMarkedAndQuarantinedAgainWhenTheStoreFails() {
+    when(repository.claim(eq(3), anyLong(), anyInt()))
+        .thenReturn(List.of(submission(1L, "first", Instant.now().getEpochSecond())));
+    doThrow(new IllegalStateException()).when(ppaDataService).store(any());
+
+    underTest.verifyBatch();
+
+    verify(repository).markVerified(1L);
+    verify(repository).release(List.of(1L));
+    verify(repository, never()).delete(anyLong());
+  }
+
+  @Test
+  void alreadyVerifiedSubmissionsShouldNotBeVerifiedAgain() {
+    QuarantinedSubmission submission = new QuarantinedSubmission(1L, Instant.now().getEpochSecond(),
+        LocalDate.of(2021, 5, 3), "verified", "00000000-0000-4000-8000-000000000000", false,
+        PPADataIOS.getDefaultInstance().toByteArray(), true);
+    when(repository.claim(eq(3), anyLong(), anyInt())).thenReturn(List.of(submission));
+
+    underTest.verifyBatch();
+
+    verify(ppacProcessor, never()).validate(any(), anyBoolean(), any());
+    verify(ppaDataService).store(any());
+    verify(repository).delete(1L);
+  }
+
+  @Test
+  void unparseableSubmissionsShouldBeDiscarded() {
+    when(repository.claim(eq(3), anyLong(), anyInt())).thenReturn(List.of(new QuarantinedSubmission(1L,
+        Instant.now().getEpochSecond(), LocalDate.of(2021, 5, 3), "broken", "00000000-0000-4000-8000-000000000000",
+        false, new byte[] {(byte) 0xff})));
+
+    underTest.verifyBatch();
+
+    verify(ppacProcessor, never()).validate(any(), anyBoolean(), any());
+    verify(repository).delete(1L);
+  }
+
+  @Test
+  void nothingShouldBeClaimedWhileTheCircuitBreakerIsOpen() {
+    when(circuitBreaker.isOpen()).thenReturn(true);
+
+    underTest.verifyBatch();
+
+    verify(repository, never()).claim(anyInt(), anyLong(), anyInt());
+  }
+
+  private static QuarantinedSubmission submission(String deviceToken, long receivedAt) {
+    return submission(1L, deviceToken, receivedAt);
+  }
+
+  private static QuarantinedSubmission submission(long id, String deviceToken, long receivedAt) {
+    return new QuarantinedSubmission(id, receivedAt, LocalDate.of(2021, 5, 3), deviceToken,
+        "00000000-0000-4000-8000-000000000000", false, PPADataIOS.getDefaultInstance().toByteArray());
+  }
+}
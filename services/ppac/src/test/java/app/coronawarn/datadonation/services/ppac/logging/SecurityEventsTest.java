@@ -0,0 +1,63 @@
+package app.coronawarn.datadonation.services.ppac.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import app.coronawarn.datadonation.common.config.SecurityLogger;
+import app.coronawarn.datadonation.services.ppac.config.PpacConfiguration;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.ApiTokenQuotaExceeded;
+import app.coronawarn.datadonation.services.ppac.ios.verification.errors.InternalError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SecurityEventsTest {
+
+  private final SecurityLogger securityLogger = mock(SecurityLogger.class);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private SecurityEvents underTest;
+
+  @BeforeEach
+  void setup() {
+    PpacConfiguration configuration = new PpacConfiguration();
+    configuration.getSecurityLog().setSamplesPerInterval(2);
+    underTest = new SecurityEvents(securityLogger, configuration, meterRegistry);
+  }
+
+  @Test
+  void onlySamplesShouldBeLoggedButAllEventsCounted() {
+    ApiTokenQuotaExceeded exception = new ApiTokenQuotaExceeded();
+    for (int i = 0; i < 5; i++) {
+      PpacErrorCode.API_TOKEN_QUOTA_EXCEEDED.secureLog(underTest, exception);
+    }
+
+    verify(securityLogger, times(2)).securityWarn(exception);
+    assertThat(meterRegistry.get("ppac.security.events").tag("code", "API_TOKEN_QUOTA_EXCEEDED").counter().count())
+        .isEqualTo(5);
+  }
+
+  @Test
+  void samplesShouldBeRenewedAfterSummary() {
+    ApiTokenQuotaExceeded exception = new ApiTokenQuotaExceeded();
+    for (int i = 0; i < 3; i++) {
+      PpacErrorCode.API_TOKEN_QUOTA_EXCEEDED.secureLog(underTest, exception);
+    }
+    underTest.summarize();
+    PpacErrorCode.API_TOKEN_QUOTA_EXCEEDED.secureLog(underTest, exception);
+
+    verify(securityLogger, times(3)).securityWarn(exception);
+  }
+
+  @Test
+  void internalErrorsShouldAlwaysBeLogged() {
+    InternalError exception = new InternalError(new IllegalStateException());
+    for (int i = 0; i < 5; i++) {
+      PpacErrorCode.INTERNAL_SERVER_ERROR.secureLog(underTest, exception);
+    }
+
+    verify(securityLogger, times(5)).error(exception);
+  }
+}
@@ -1,5 +1,8 @@
 package app.coronawarn.datadonation.services.retention.config;
 
+import app.coronawarn.datadonation.common.persistence.repository.ReplayProtectionRing;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -11,6 +14,7 @@ public class RetentionConfiguration {
   @Min(0)
   private Integer apiTokenRetentionDays;
   @Min(0)
+  @Max(ReplayProtectionRing.MAX_RETENTION_HOURS)
   private Integer deviceTokenRetentionHours;
   @Min(0)
   private Integer otpRetentionDays;
@@ -25,9 +29,26 @@ public class RetentionConfiguration {
   @Min(0)
   private Integer testResultMetadataRetentionDays;
   @Min(0)
+  @Max(ReplayProtectionRing.MAX_RETENTION_HOURS)
   private Integer saltRetentionHours;
   @Min(0)
   private Integer clientMetadataRetentionDays;
+  @Min(0)
+  private Integer userMetadataRetentionDays;
+  @Min(0)
+  private Integer genericMetricRetentionDays;
+  @Min(0)
+  private Integer iosQuarantineRetentionHours;
+  @Min(1)
+  private Integer exposureWindowDeletionBatchSize;
+  @Min(1)
+  private Integer scanInstanceDeletionBatchSize;
+  private boolean backfillOrphans;
+  @Min(1)
+  private Integer clientMetadataBackfillBatchSize;
+  private boolean backfillClientMetadata;
+  @Valid
+  private Vacuum vacuum = new Vacuum();
 
   public Integer getTestResultMetadataRetentionDays() {
     return testResultMetadataRetentionDays;
@@ -108,4 +129,119 @@ public class RetentionConfiguration {
   public void setClientMetadataRetentionDays(Integer clientMetadataRetentionDays) {
     this.clientMetadataRetentionDays = clientMetadataRetentionDays;
   }
+
+  public Integer getUserMetadataRetentionDays() {
+    return userMetadataRetentionDays;
+  }
+
+  public void setUserMetadataRetentionDays(Integer userMetadataRetentionDays) {
+    this.userMetadataRetentionDays = userMetadataRetentionDays;
+  }
+
+  public Integer getGenericMetricRetentionDays() {
+    return genericMetricRetentionDays;
+  }
+
+  public void setGenericMetricRetentionDays(Integer genericMetricRetentionDays) {
+    this.genericMetricRetentionDays = genericMetricRetentionDays;
+  }
+
+  public Integer getIosQuarantineRetentionHours() {
+    return iosQuarantineRetentionHours;
+  }
+
+  public void setIosQuarantineRetentionHours(Integer iosQuarantineRetentionHours) {
+    this.iosQuarantineRetentionHours = iosQuarantineRetentionHours;
+  }
+
+  public Integer getExposureWindowDeletionBatchSize() {
+    return exposureWindowDeletionBatchSize;
+  }
+
+  public void setExposureWindowDeletionBatchSize(Integer exposureWindowDeletionBatchSize) {
+    this.exposureWindowDeletionBatchSize = exposureWindowDeletionBatchSize;
+  }
+
+  public Integer getScanInstanceDeletionBatchSize() {
+    return scanInstanceDeletionBatchSize;
+  }
+
+  public void setScanInstanceDeletionBatchSize(Integer scanInstanceDeletionBatchSize) {
+    this.scanInstanceDeletionBatchSize = scanInstanceDeletionBatchSize;
+  }
+
+  public boolean isBackfillOrphans() {
+    return backfillOrphans;
+  }
+
+  public void setBackfillOrphans(boolean backfillOrphans) {
+    this.backfillOrphans = backfillOrphans;
+  }
+
+  public Integer getClientMetadataBackfillBatchSize() {
+    return clientMetadataBackfillBatchSize;
+  }
+
+  public void setClientMetadataBackfillBatchSize(Integer clientMetadataBackfillBatchSize) {
+    this.clientMetadataBackfillBatchSize = clientMetadataBackfillBatchSize;
+  }
+
+  public boolean isBackfillClientMetadata() {
+    return backfillClientMetadata;
+  }
+
+  public void setBackfillClientMetadata(boolean backfillClientMetadata) {
+    this.backfillClientMetadata = backfillClientMetadata;
+  }
+
+  public Vacuum getVacuum() {
+    return vacuum;
+  }
+
+  public void setVacuum(Vacuum vacuum) {
+    this.vacuum = vacuum;
+  }
+
+  public static class Vacuum {
+
+    private boolean enabled = true;
+    @Min(0)
+    private int costDelayMillis = 2;
+    @Min(0)
+    private long pauseMillis = 1000;
+    @Min(0)
+    private long statsWaitMillis = 2000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getCostDelayMillis() {
+      return costDelayMillis;
+    }
+
+    public void setCostDelayMillis(int costDelayMillis) {
+      this.costDelayMillis = costDelayMillis;
+    }
+
+    public long getPauseMillis() {
+      return pauseMillis;
+    }
+
+    public void setPauseMillis(long pauseMillis) {
+      this.pauseMillis = pauseMillis;
+    }
+
+    public long getStatsWaitMillis() {
+      return statsWaitMillis;
+    }
+
+    public void setStatsWaitMillis(long statsWaitMillis) {
+      this.statsWaitMillis = statsWaitMillis;
+    }
+  }
 }
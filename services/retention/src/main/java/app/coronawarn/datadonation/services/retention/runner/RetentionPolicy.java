@@ -4,21 +4,25 @@ import static java.time.temporal.ChronoUnit.DAYS;
 import static java.time.temporal.ChronoUnit.HOURS;
 
 import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
-import app.coronawarn.datadonation.common.persistence.repository.DeviceTokenRepository;
 import app.coronawarn.datadonation.common.persistence.repository.OneTimePasswordRepository;
+import app.coronawarn.datadonation.common.persistence.repository.ReplayProtectionRing;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureRiskMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureWindowRepository;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.GenericMetricRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithUserMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.TestResultMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.ppac.android.SaltRepository;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.UserMetadataRepository;
+import app.coronawarn.datadonation.common.persistence.repository.ppac.ios.QuarantineRepository;
 import app.coronawarn.datadonation.services.retention.Application;
 import app.coronawarn.datadonation.services.retention.config.RetentionConfiguration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.temporal.TemporalUnit;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,13 +42,16 @@ public class RetentionPolicy implements ApplicationRunner {
   private final KeySubmissionMetadataWithClientMetadataRepository keySubmissionMetadataWithClientMetadataRepository;
   private final KeySubmissionMetadataWithUserMetadataRepository keySubmissionMetadataWithUserMetadataRepository;
   private final TestResultMetadataRepository testResultMetadataRepository;
-  private final DeviceTokenRepository deviceTokenRepository;
   private final OneTimePasswordRepository oneTimePasswordRepository;
   private final RetentionConfiguration retentionConfiguration;
   private final ApplicationContext appContext;
-  private final SaltRepository saltRepository;
+  private final ReplayProtectionRing replayProtectionRing;
   private final ApiTokenRepository apiTokenRepository;
   private final ClientMetadataRepository clientMetadataRepository;
+  private final UserMetadataRepository userMetadataRepository;
+  private final GenericMetricRepository genericMetricRepository;
+  private final ClientMetadataDictionary clientMetadataDictionary;
+  private final QuarantineRepository quarantineRepository;
 
   /**
    * Creates a new {@link RetentionPolicy}.
@@ -57,23 +64,29 @@ public class RetentionPolicy implements ApplicationRunner {
       KeySubmissionMetadataWithClientMetadataRepository keySubmissionMetadataWithClientMetadataRepository,
       KeySubmissionMetadataWithUserMetadataRepository keySubmissionMetadataWithUserMetadataRepository,
       TestResultMetadataRepository testResultMetadataRepository,
-      DeviceTokenRepository deviceTokenRepository,
       OneTimePasswordRepository oneTimePasswordRepository,
       RetentionConfiguration retentionConfiguration, ApplicationContext appContext,
-      SaltRepository saltRepository,
-      ClientMetadataRepository clientMetadataRepository) {
+      ReplayProtectionRing replayProtectionRing,
+      ClientMetadataRepository clientMetadataRepository,
+      UserMetadataRepository userMetadataRepository,
+      GenericMetricRepository genericMetricRepository,
+      ClientMetadataDictionary clientMetadataDictionary,
+      QuarantineRepository quarantineRepository) {
     this.exposureRiskMetadataRepository = exposureRiskMetadataRepository;
     this.exposureWindowRepository = exposureWindowRepository;
     this.keySubmissionMetadataWithClientMetadataRepository = keySubmissionMetadataWithClientMetadataRepository;
     this.keySubmissionMetadataWithUserMetadataRepository = keySubmissionMetadataWithUserMetadataRepository;
     this.testResultMetadataRepository = testResultMetadataRepository;
-    this.deviceTokenRepository = deviceTokenRepository;
     this.oneTimePasswordRepository = oneTimePasswordRepository;
     this.retentionConfiguration = retentionConfiguration;
     this.appContext = appContext;
-    this.saltRepository = saltRepository;
+    this.replayProtectionRing = replayProtectionRing;
     this.apiTokenRepository = apiTokenRepository;
     this.clientMetadataRepository = clientMetadataRepository;
+    this.userMetadataRepository = userMetadataRepository;
+    this.genericMetricRepository = genericMetricRepository;
+    this.clientMetadataDictionary = clientMetadataDictionary;
+    this.quarantineRepository = quarantineRepository;
   }
 
   @Override
@@ -81,14 +94,24 @@ public class RetentionPolicy implements ApplicationRunner {
     try {
       deleteOutdatedExposureRiskMetadata();
       deleteOutdatedExposureWindows();
+      if (retentionConfiguration.isBackfillOrphans()) {
+        deleteOrphanScanInstances();
+      }
       deleteKeySubmissionMetadataWithClient();
       deleteKeySubmissionMetadataWithUser();
       deleteClientMetadata();
+      if (retentionConfiguration.isBackfillClientMetadata()) {
+        assignClientMetadataIds();
+      }
+      deleteUnreferencedClientMetadataDetails();
+      deleteUserMetadata();
       deleteTestResultsMetadata();
+      deleteGenericMetrics();
       deleteOutdatedApiTokens();
       deleteOutdatedOneTimePasswords();
       deleteOutdatedDeviceTokens();
       deleteOutdatedSalt();
+      deleteOutdatedQuarantinedSubmissions();
     } catch (Exception e) {
       logger.error("Apply of retention policy failed.", e);
       Application.killApplication(appContext);
@@ -105,6 +128,40 @@ public class RetentionPolicy implements ApplicationRunner {
     clientMetadataRepository.deleteOlderThan(clientMetadataThreshold);
   }
 
+  /**
+   * Assigns the client metadata dictionary id to the metric rows written before it was introduced and clears their
+   * inline values. Each table is walked in batches by ascending id, so every statement only touches a bounded number
+   * of rows.
+   */
+  private void assignClientMetadataIds() {
+    int batchSize = retentionConfiguration.getClientMetadataBackfillBatchSize();
+    for (String table : ClientMetadataDictionary.METRIC_TABLES) {
+      long assigned = 0;
+      long afterId = Long.MIN_VALUE;
+      long toId;
+      while ((toId = clientMetadataDictionary.maxUnassignedId(table, afterId, batchSize)) > afterId) {
+        assigned += clientMetadataDictionary.assignIds(table, afterId, toId);
+        afterId = toId;
+      }
+      logger.info("Assigned the client metadata dictionary id to {} rows of {}.", assigned, table);
+    }
+  }
+
+  private void deleteUnreferencedClientMetadataDetails() {
+    logger.info("Deleted {} unused client metadata dictionary entries.",
+        clientMetadataDictionary.deleteUnreferenced());
+  }
+
+  private void deleteUserMetadata() {
+    LocalDate userMetadataThreshold = subtractRetentionDaysFromNowToLocalDate(
+        retentionConfiguration.getUserMetadataRetentionDays());
+
+    logDeletionInDays(userMetadataRepository.countOlderThan(userMetadataThreshold),
+        retentionConfiguration.getUserMetadataRetentionDays(),
+        "user metadata");
+    userMetadataRepository.deleteOlderThan(userMetadataThreshold);
+  }
+
   private void deleteTestResultsMetadata() {
     LocalDate testResultsMetadataThreshold = subtractRetentionDaysFromNowToLocalDate(
         retentionConfiguration.getTestResultMetadataRetentionDays());
@@ -115,6 +172,16 @@ public class RetentionPolicy implements ApplicationRunner {
     testResultMetadataRepository.deleteOlderThan(testResultsMetadataThreshold);
   }
 
+  private void deleteGenericMetrics() {
+    LocalDate genericMetricThreshold = subtractRetentionDaysFromNowToLocalDate(
+        retentionConfiguration.getGenericMetricRetentionDays());
+
+    logDeletionInDays(genericMetricRepository.countOlderThan(genericMetricThreshold),
+        retentionConfiguration.getGenericMetricRetentionDays(),
+        "generic metric values");
+    genericMetricRepository.deleteOlderThan(genericMetricThreshold);
+  }
+
   private void deleteKeySubmissionMetadataWithUser() {
     LocalDate userThreshold = subtractRetentionDaysFromNowToLocalDate(
         retentionConfiguration.getKeyMetadataWithUserRetentionDays());
@@ -142,15 +209,60 @@ public class RetentionPolicy implements ApplicationRunner {
     logDeletionInDays(exposureWindowRepository.countOlderThan(exposureWindowThreshold),
         retentionConfiguration.getExposureRiskMetadataRetentionDays(),
         "exposure windows");
+    deleteOutdatedScanInstances(exposureWindowThreshold);
     exposureWindowRepository.deleteOlderThan(exposureWindowThreshold);
   }
 
+  /**
+   * Deletes the scan instances of the outdated exposure windows before the windows themselves, since there is no
+   * cascading foreign key. The outdated windows are walked in batches by ascending id, so every batch only reads the
+   * windows it deletes from, and each delete keeps its transaction and the held locks short.
+   */
+  private void deleteOutdatedScanInstances(LocalDate exposureWindowThreshold) {
+    int batchSize = retentionConfiguration.getExposureWindowDeletionBatchSize();
+    long deleted = 0;
+    long afterId = Long.MIN_VALUE;
+    List<Long> windowIds;
+    do {
+      windowIds = exposureWindowRepository.findIdsOlderThan(exposureWindowThreshold, afterId, batchSize);
+      if (!windowIds.isEmpty()) {
+        deleted += exposureWindowRepository.deleteScanInstancesOfWindows(windowIds);
+        afterId = windowIds.get(windowIds.size() - 1);
+      }
+    } while (windowIds.size() >= batchSize);
+    logger.info("Deleted {} scan instances of exposure windows that are older than {} day(s) ago.", deleted,
+        retentionConfiguration.getExposureWindowRetentionDays());
+  }
+
+  /**
+   * One-off sweep for scan instances left behind by earlier runs, which deleted exposure windows only. The table is
+   * walked in id ranges of the batch size from its lowest id, which may be zero or negative, so each delete touches a
+   * bounded number of rows.
+   */
+  private void deleteOrphanScanInstances() {
+    int batchSize = retentionConfiguration.getScanInstanceDeletionBatchSize();
+    long minId = exposureWindowRepository.minScanInstanceId();
+    long maxId = exposureWindowRepository.maxScanInstanceId();
+    long deleted = 0;
+    for (long fromId = minId - 1; fromId < maxId; fromId += batchSize) {
+      deleted += exposureWindowRepository.deleteOrphanScanInstances(fromId, Math.min(fromId + batchSize, maxId));
+    }
+    logger.info("Deleted {} orphaned scan instances.", deleted);
+  }
+
   private void deleteOutdatedSalt() {
-    long saltThreshold = subtractRetentionPeriodFromNowToSeconds(HOURS,
-        retentionConfiguration.getSaltRetentionHours());
-    logDeletionInHours(saltRepository.countOlderThan(saltThreshold),
-        retentionConfiguration.getSaltRetentionHours(), "salts");
-    saltRepository.deleteOlderThan(saltThreshold);
+    int retentionHours = retentionConfiguration.getSaltRetentionHours();
+    logDeletionInHours(replayProtectionRing.countOlderThan(ReplayProtectionRing.Table.SALT, retentionHours),
+        retentionHours, "salts");
+    replayProtectionRing.truncateOlderThan(ReplayProtectionRing.Table.SALT, retentionHours);
+  }
+
+  private void deleteOutdatedQuarantinedSubmissions() {
+    int retentionHours = retentionConfiguration.getIosQuarantineRetentionHours();
+    long threshold = subtractRetentionPeriodFromNowToSeconds(HOURS, retentionHours);
+    logDeletionInHours(quarantineRepository.countOlderThan(threshold), retentionHours,
+        "quarantined iOS submissions");
+    quarantineRepository.deleteOlderThan(threshold);
   }
 
   private void deleteOutdatedExposureRiskMetadata() {
@@ -185,12 +297,10 @@ public class RetentionPolicy implements ApplicationRunner {
   }
 
   private void deleteOutdatedDeviceTokens() {
-    long deviceTokenThreshold = subtractRetentionPeriodFromNowToSeconds(HOURS,
-        retentionConfiguration.getDeviceTokenRetentionHours());
-    logDeletionInHours(deviceTokenRepository.countOlderThan(deviceTokenThreshold),
-        retentionConfiguration.getDeviceTokenRetentionHours(), "device tokens");
-
-    deviceTokenRepository.deleteOlderThan(deviceTokenThreshold);
+    int retentionHours = retentionConfiguration.getDeviceTokenRetentionHours();
+    logDeletionInHours(replayProtectionRing.countOlderThan(ReplayProtectionRing.Table.DEVICE_TOKEN, retentionHours),
+        retentionHours, "device tokens");
+    replayProtectionRing.truncateOlderThan(ReplayProtectionRing.Table.DEVICE_TOKEN, retentionHours);
   }
 
   private void deleteOutdatedApiTokens() {
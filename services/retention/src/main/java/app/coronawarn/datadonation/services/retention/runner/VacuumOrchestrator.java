@@ -0,0 +1,149 @@
+package app.coronawarn.datadonation.services.retention.runner;
+
+import app.coronawarn.datadonation.services.retention.Application;
+import app.coronawarn.datadonation.services.retention.config.RetentionConfiguration;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Follows the deletions of the {@link RetentionPolicy} with a <code>VACUUM (ANALYZE)</code> of every affected table,
+ * one table at a time, so the freed space is reusable and the planner statistics are fresh before autovacuum gets to
+ * it. Each vacuum runs with a session <code>vacuum_cost_delay</code>, which throttles its I/O the same way autovacuum
+ * is throttled, and the runner pauses between tables.
+ *
+ * <p>Dead tuples and total size of each table before and after are only logged: the runner exits right after the
+ * retention, so no gauge would ever be scraped. The statistics collector updates <code>pg_stat_user_tables</code>
+ * asynchronously, so the statistics after are read once they count the manual vacuum and analyze, waiting at most
+ * <code>stats-wait-millis</code>.
+ */
+@Component
+@Order(2)
+public class VacuumOrchestrator implements ApplicationRunner {
+
+  /**
+   * The tables the {@link RetentionPolicy} deletes from. Only these constants are interpolated into statements. The
+   * replay protection tables are truncated, not deleted from, and need no vacuum.
+   */
+  static final List<String> TABLES = List.of("exposure_risk_metadata", "scan_instance", "exposure_window",
+      "key_submission_metadata_with_client_metadata", "key_submission_metadata_with_user_metadata",
+      "client_metadata", "user_metadata", "test_result_metadata", "generic_metric", "api_token", "one_time_password");
+
+  // every query runs in its own transaction, so the statistics are not cached from a previous read
+  private static final String SELECT_STATS = "SELECT s.n_dead_tup, pg_total_relation_size(s.relid), s.vacuum_count, "
+      + "s.analyze_count FROM pg_stat_user_tables s WHERE s.relname = ? AND s.schemaname = current_schema()";
+  private static final long STATS_POLL_MILLIS = 100;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final JdbcTemplate jdbcTemplate;
+  private final RetentionConfiguration.Vacuum configuration;
+  private final ApplicationContext appContext;
+
+  /**
+   * Creates a new {@link VacuumOrchestrator}.
+   */
+  public VacuumOrchestrator(JdbcTemplate jdbcTemplate, RetentionConfiguration retentionConfiguration,
+      ApplicationContext appContext) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.configuration = retentionConfiguration.getVacuum();
+    this.appContext = appContext;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    try {
+      for (String table : TABLES) {
+        vacuum(table);
+        TimeUnit.MILLISECONDS.sleep(configuration.getPauseMillis());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.warn("Vacuum after retention interrupted.");
+    } catch (Exception e) {
+      logger.error("Vacuum after retention failed.", e);
+      Application.killApplication(appContext);
+    }
+  }
+
+  void vacuum(String table) throws InterruptedException {
+    TableStats before = statsOf(table);
+    long start = System.currentTimeMillis();
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      try (Statement statement = connection.createStatement()) {
+        // VACUUM can not run in a transaction block, the statements run in auto-commit mode
+        statement.execute("SET vacuum_cost_delay = " + configuration.getCostDelayMillis());
+        try {
+          statement.execute("VACUUM (ANALYZE) " + table);
+        } finally {
+          // the pooled connection must not keep the throttle, even if the VACUUM failed
+          statement.execute("RESET vacuum_cost_delay");
+        }
+      }
+      return null;
+    });
+    long duration = System.currentTimeMillis() - start;
+    if (before == null) {
+      logger.info("Vacuumed {} in {} ms, it has no statistics.", table, duration);
+      return;
+    }
+    TableStats after = statsAfter(table, before);
+    if (after.counts(before)) {
+      logger.info("Vacuumed {} in {} ms: dead tuples {} -> {}, size {} -> {} bytes.", table, duration,
+          before.deadTuples, after.deadTuples, before.bytes, after.bytes);
+    } else {
+      logger.info("Vacuumed {} in {} ms: dead tuples {} -> not yet reported, size {} -> {} bytes.", table, duration,
+          before.deadTuples, before.bytes, after.bytes);
+    }
+  }
+
+  private TableStats statsAfter(String table, TableStats before) throws InterruptedException {
+    long waitUntil = System.currentTimeMillis() + configuration.getStatsWaitMillis();
+    TableStats after = statsOf(table);
+    while (after != null && !after.counts(before) && System.currentTimeMillis() < waitUntil) {
+      TimeUnit.MILLISECONDS.sleep(STATS_POLL_MILLIS);
+      after = statsOf(table);
+    }
+    return after == null ? before : after;
+  }
+
+  private TableStats statsOf(String table) {
+    List<TableStats> stats = jdbcTemplate.query(SELECT_STATS,
+        (rs, rowNum) -> new TableStats(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)), table);
+    return stats.isEmpty() ? null : stats.get(0);
+  }
+
+  private static final class TableStats {
+
+    private final long deadTuples;
+    private final long bytes;
+    private final long vacuumCount;
+    private final long analyzeCount;
+
+    private TableStats(long deadTuples, long bytes, long vacuumCount, long analyzeCount) {
+      this.deadTuples = deadTuples;
+      this.bytes = bytes;
+      this.vacuumCount = vacuumCount;
+      this.analyzeCount = analyzeCount;
+    }
+
+    /**
+     * Returns <code>true</code> if these statistics already count the manual vacuum and analyze that followed the
+     * given ones. The analyze is reported last, so the dead tuples are current then.
+     */
+    private boolean counts(TableStats before) {
+      return vacuumCount > before.vacuumCount && analyzeCount > before.analyzeCount;
+    }
+  }
+}
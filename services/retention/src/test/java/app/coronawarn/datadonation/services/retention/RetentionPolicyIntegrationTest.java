@@ -11,11 +11,13 @@ import app.coronawarn.datadonation.common.persistence.repository.metrics.Exposur
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithUserMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.TestResultMetadataRepository;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.UserMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.ppac.android.SaltRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -54,6 +56,12 @@ public class RetentionPolicyIntegrationTest {
   @Autowired
   ClientMetadataRepository clientMetadataRepository;
 
+  @Autowired
+  UserMetadataRepository plainUserMetadataRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
   @Test
   void testShouldDeleteExposureRiskMetadataSuccessfully() {
     assertEquals(3, exposureRiskMetadataRepository.count());
@@ -64,6 +72,11 @@ public class RetentionPolicyIntegrationTest {
     assertEquals(4, exposureWindowRepository.count());
   }
 
+  @Test
+  void testShouldDeleteScanInstancesOfDeletedExposureWindowsAndOrphans() {
+    assertEquals(8, jdbcTemplate.queryForObject("SELECT count(*) FROM scan_instance", Integer.class));
+  }
+
   @Test
   void testShouldDeleteSubmissionMetadataWithClientSuccessfully() {
     assertEquals(5, keySubmissionWithclientMetadataRepository.count());
@@ -103,4 +116,9 @@ public class RetentionPolicyIntegrationTest {
   void testShouldDeleteClientMetadataSuccessfully() {
     assertEquals(11, clientMetadataRepository.count());
   }
+
+  @Test
+  void testShouldDeleteUserMetadataSuccessfully() {
+    assertEquals(2, plainUserMetadataRepository.count());
+  }
 }
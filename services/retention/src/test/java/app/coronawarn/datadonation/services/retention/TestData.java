@@ -9,13 +9,13 @@ import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureRis
 import app.coronawarn.datadonation.common.persistence.domain.metrics.ExposureWindow;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithClientMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.KeySubmissionMetadataWithUserMetadata;
-import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstance;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.ScanInstances;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TechnicalMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.TestResultMetadata;
+import app.coronawarn.datadonation.common.persistence.domain.metrics.UserMetadata;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.ClientMetadataDetails;
 import app.coronawarn.datadonation.common.persistence.domain.metrics.embeddable.UserMetadataDetails;
 import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
-import app.coronawarn.datadonation.common.persistence.repository.DeviceTokenRepository;
 import app.coronawarn.datadonation.common.persistence.repository.OneTimePasswordRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureRiskMetadataRepository;
@@ -23,11 +23,12 @@ import app.coronawarn.datadonation.common.persistence.repository.metrics.Exposur
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithUserMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.TestResultMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.ppac.android.SaltRepository;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.UserMetadataRepository;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
-import java.util.Set;
+import java.util.List;
+import java.util.UUID;
 import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +36,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -47,15 +49,9 @@ public class TestData implements ApplicationRunner {
   @Autowired
   private ApiTokenRepository apiTokenRepository;
 
-  @Autowired
-  private DeviceTokenRepository deviceTokenRepository;
-
   @Autowired
   private OneTimePasswordRepository otpRepository;
 
-  @Autowired
-  private SaltRepository saltRepository;
-
   @Autowired
   private ExposureRiskMetadataRepository exposureRiskMetadataRepository;
 
@@ -74,6 +70,12 @@ public class TestData implements ApplicationRunner {
   @Autowired
   private ClientMetadataRepository clientMetadataRepository;
 
+  @Autowired
+  private UserMetadataRepository userMetadataRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
   @Override
   public void run(ApplicationArguments args) {
     logger.info("Generating test data");
@@ -87,7 +89,9 @@ public class TestData implements ApplicationRunner {
         .peek(this::insertDeviceTokens)
         .peek(this::insertOtps)
         .peek(this::insertClientMetadata)
+        .peek(this::insertUserMetadata)
         .forEach(this::insertSalt);
+    insertOrphanScanInstance();
     logger.info("Finished generating test data");
   }
 
@@ -97,22 +101,36 @@ public class TestData implements ApplicationRunner {
     clientMetadataRepository.save(clientMetadata);
   }
 
+  private void insertUserMetadata(int i) {
+    UserMetadata userMetadata = new UserMetadata(null, new UserMetadataDetails(1, 1, 1),
+        new TechnicalMetadata(LocalDate.now(ZoneOffset.UTC).minusDays(i), false, false, false, false));
+    userMetadataRepository.save(userMetadata);
+  }
+
+  private void insertOrphanScanInstance() {
+    jdbcTemplate.update("INSERT INTO scan_instance (exposure_window_id, typical_attenuation, minimum_attenuation,"
+        + " seconds_since_last_scan) VALUES (-1, 1, 1, 1)");
+  }
+
   private void insertSalt(int i) {
-    saltRepository.persist("salt" + i, now().minus(i, HOURS).getEpochSecond());
+    jdbcTemplate.update("INSERT INTO salt (salt, created_at, bucket) "
+        + "VALUES (?, ?, replay_ring_bucket(now() - ? * INTERVAL '1 hour'))",
+        "salt" + i, now().minus(i, HOURS).getEpochSecond(), i);
   }
 
   private void insertOtps(int i) {
-    otpRepository.insert("passwordA" + i,
+    otpRepository.insert(UUID.randomUUID().toString(),
         now().minus(i, DAYS).getEpochSecond(),
         now().getEpochSecond());
-    otpRepository.insert("passwordB" + i,
+    otpRepository.insert(UUID.randomUUID().toString(),
         now().getEpochSecond(),
         now().minus(i, DAYS).getEpochSecond());
   }
 
   private void insertDeviceTokens(int i) {
-    deviceTokenRepository
-        .persist((long) i, ("" + i).getBytes(StandardCharsets.UTF_8), now().minus(i, HOURS).getEpochSecond());
+    jdbcTemplate.update("INSERT INTO device_token (device_token_hash, created_at, bucket) "
+        + "VALUES (?, ?, replay_ring_bucket(now() - ? * INTERVAL '1 hour'))",
+        ("" + i).getBytes(StandardCharsets.UTF_8), now().minus(i, HOURS).getEpochSecond(), i);
   }
 
   private void insertTestResultMetadata(int i) {
@@ -141,8 +159,8 @@ public class TestData implements ApplicationRunner {
     ExposureWindow ew = new ExposureWindow(null, LocalDate.now(ZoneOffset.UTC).minusDays(i + 1), 1, 2, 1, 1, 1.0,
         new ClientMetadataDetails(1, 0, 0, "etag", 1, 0, 0, 1, 1),
         new TechnicalMetadata(LocalDate.now(ZoneOffset.UTC).minusDays(i), false, false, false, false),
-        Set.of(new ScanInstance(null, null, 1, 2, 3), new ScanInstance(null, null, 3, 3, 3)));
-    exposureWindowRepository.save(ew);
+        ScanInstances.builder(2).add(1, 2, 3).add(3, 3, 3).build());
+    exposureWindowRepository.insertAll(List.of(ew));
   }
 
   private void insertExposureRiskMetadata(int i) {
@@ -155,7 +173,7 @@ public class TestData implements ApplicationRunner {
   }
 
   private void insertApiToken(int i) {
-    apiTokenRepository.insert("test token" + i,
+    apiTokenRepository.insert(UUID.randomUUID().toString(),
         now().plus(10, DAYS).getEpochSecond(),
         now().minus(i, DAYS).getEpochSecond(), now().getEpochSecond(), now().getEpochSecond());
   }
@@ -2,27 +2,39 @@ package app.coronawarn.datadonation.services.retention.runner;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 import static java.time.temporal.ChronoUnit.HOURS;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import app.coronawarn.datadonation.common.persistence.repository.ApiTokenRepository;
-import app.coronawarn.datadonation.common.persistence.repository.DeviceTokenRepository;
 import app.coronawarn.datadonation.common.persistence.repository.OneTimePasswordRepository;
+import app.coronawarn.datadonation.common.persistence.repository.ReplayProtectionRing;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataDictionary;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureRiskMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.ExposureWindowRepository;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.GenericMetricRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithClientMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.KeySubmissionMetadataWithUserMetadataRepository;
 import app.coronawarn.datadonation.common.persistence.repository.metrics.TestResultMetadataRepository;
-import app.coronawarn.datadonation.common.persistence.repository.ppac.android.SaltRepository;
+import app.coronawarn.datadonation.common.persistence.repository.metrics.UserMetadataRepository;
+import app.coronawarn.datadonation.common.persistence.repository.ppac.ios.QuarantineRepository;
 import app.coronawarn.datadonation.services.retention.config.RetentionConfiguration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.temporal.TemporalUnit;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
@@ -48,13 +60,19 @@ class RetentionPolicyTest {
   @MockBean
   TestResultMetadataRepository testResultMetadataRepository;
   @MockBean
-  ApiTokenRepository apiTokenRepository;
+  UserMetadataRepository plainUserMetadataRepository;
+  @MockBean
+  GenericMetricRepository genericMetricRepository;
+  @MockBean
+  ClientMetadataDictionary clientMetadataDictionary;
+  @MockBean
+  QuarantineRepository quarantineRepository;
   @MockBean
-  DeviceTokenRepository deviceTokenRepository;
+  ApiTokenRepository apiTokenRepository;
   @MockBean
   OneTimePasswordRepository otpRepository;
   @MockBean
-  SaltRepository saltRepository;
+  ReplayProtectionRing replayProtectionRing;
   @Autowired
   RetentionConfiguration retentionConfiguration;
   @Autowired
@@ -81,9 +99,9 @@ class RetentionPolicyTest {
     verify(apiTokenRepository, times(1))
         .deleteOlderThan(
             subtractRetentionPeriodFromNowToSeconds(DAYS, retentionConfiguration.getApiTokenRetentionDays()));
-    verify(deviceTokenRepository, times(1))
-        .deleteOlderThan(
-            subtractRetentionPeriodFromNowToSeconds(HOURS, retentionConfiguration.getDeviceTokenRetentionHours()));
+    verify(replayProtectionRing, times(1))
+        .truncateOlderThan(ReplayProtectionRing.Table.DEVICE_TOKEN,
+            retentionConfiguration.getDeviceTokenRetentionHours());
     verify(otpRepository, times(1))
         .deleteOlderThan(subtractRetentionPeriodFromNowToSeconds(DAYS, retentionConfiguration.getOtpRetentionDays()));
     verify(exposureRiskMetadataRepository, times(1))
@@ -101,13 +119,89 @@ class RetentionPolicyTest {
     verify(testResultMetadataRepository, times(1))
         .deleteOlderThan(
             subtractRetentionDaysFromNowToLocalDate(retentionConfiguration.getTestResultMetadataRetentionDays()));
-    verify(saltRepository, times(1))
-        .deleteOlderThan(
-            subtractRetentionPeriodFromNowToSeconds(HOURS, retentionConfiguration.getSaltRetentionHours()));
+    verify(replayProtectionRing, times(1))
+        .truncateOlderThan(ReplayProtectionRing.Table.SALT, retentionConfiguration.getSaltRetentionHours());
     verify(clientMetadataRepository, times(1))
         .deleteOlderThan(
             subtractRetentionDaysFromNowToLocalDate(retentionConfiguration.getClientMetadataRetentionDays()));
+    verify(plainUserMetadataRepository, times(1))
+        .deleteOlderThan(
+            subtractRetentionDaysFromNowToLocalDate(retentionConfiguration.getUserMetadataRetentionDays()));
+    verify(genericMetricRepository, times(1))
+        .deleteOlderThan(
+            subtractRetentionDaysFromNowToLocalDate(retentionConfiguration.getGenericMetricRetentionDays()));
+  }
+
+  @Test
+  void testScanInstancesAreDeletedInBatchesBeforeTheirExposureWindows() {
+    LocalDate threshold =
+        subtractRetentionDaysFromNowToLocalDate(retentionConfiguration.getExposureWindowRetentionDays());
+    int batchSize = retentionConfiguration.getExposureWindowDeletionBatchSize();
+    when(exposureWindowRepository.findIdsOlderThan(threshold, Long.MIN_VALUE, batchSize)).thenReturn(List.of(-5L, 2L));
+    when(exposureWindowRepository.findIdsOlderThan(threshold, 2L, batchSize)).thenReturn(List.of(7L));
+    when(exposureWindowRepository.minScanInstanceId()).thenReturn(-98L);
+    when(exposureWindowRepository.maxScanInstanceId()).thenReturn(-86L);
+
+    retentionPolicy.run(null);
+
+    InOrder inOrder = inOrder(exposureWindowRepository);
+    inOrder.verify(exposureWindowRepository).deleteScanInstancesOfWindows(List.of(-5L, 2L));
+    inOrder.verify(exposureWindowRepository).deleteScanInstancesOfWindows(List.of(7L));
+    inOrder.verify(exposureWindowRepository).deleteOlderThan(threshold);
+    verify(exposureWindowRepository).deleteOrphanScanInstances(-99, -94);
+    verify(exposureWindowRepository).deleteOrphanScanInstances(-94, -89);
+    verify(exposureWindowRepository).deleteOrphanScanInstances(-89, -86);
+  }
 
+  @Test
+  void testOutdatedQuarantinedSubmissionsAreDeleted() {
+    retentionPolicy.run(null);
+
+    long threshold = subtractRetentionPeriodFromNowToSeconds(HOURS,
+        retentionConfiguration.getIosQuarantineRetentionHours());
+    verify(quarantineRepository).countOlderThan(threshold);
+    verify(quarantineRepository).deleteOlderThan(threshold);
+  }
+
+  @Test
+  void testNoOrphanSweepWithoutBackfill() {
+    retentionConfiguration.setBackfillOrphans(false);
+    try {
+      retentionPolicy.run(null);
+      verify(exposureWindowRepository, never()).deleteOrphanScanInstances(anyLong(), anyLong());
+    } finally {
+      retentionConfiguration.setBackfillOrphans(true);
+    }
+  }
+
+  @Test
+  void testClientMetadataIdsAreAssignedInBatches() {
+    int batchSize = retentionConfiguration.getClientMetadataBackfillBatchSize();
+    when(clientMetadataDictionary.maxUnassignedId(anyString(), anyLong(), anyInt()))
+        .thenAnswer(invocation -> invocation.getArgument(1));
+    when(clientMetadataDictionary.maxUnassignedId("exposure_window", Long.MIN_VALUE, batchSize)).thenReturn(-3L);
+    when(clientMetadataDictionary.maxUnassignedId("exposure_window", -3L, batchSize)).thenReturn(8L);
+
+    retentionPolicy.run(null);
+
+    InOrder inOrder = inOrder(clientMetadataDictionary);
+    inOrder.verify(clientMetadataDictionary).assignIds("exposure_window", Long.MIN_VALUE, -3L);
+    inOrder.verify(clientMetadataDictionary).assignIds("exposure_window", -3L, 8L);
+    inOrder.verify(clientMetadataDictionary).deleteUnreferenced();
+    verify(clientMetadataDictionary, times(2)).assignIds(eq("exposure_window"), anyLong(), anyLong());
+    verify(clientMetadataDictionary, never()).assignIds(eq("client_metadata"), anyLong(), anyLong());
+  }
+
+  @Test
+  void testNoClientMetadataBackfillWithoutFlag() {
+    retentionConfiguration.setBackfillClientMetadata(false);
+    try {
+      retentionPolicy.run(null);
+      verify(clientMetadataDictionary, never()).maxUnassignedId(anyString(), anyLong(), anyInt());
+      verify(clientMetadataDictionary).deleteUnreferenced();
+    } finally {
+      retentionConfiguration.setBackfillClientMetadata(true);
+    }
   }
 
   private LocalDate subtractRetentionDaysFromNowToLocalDate(Integer retentionDays) {
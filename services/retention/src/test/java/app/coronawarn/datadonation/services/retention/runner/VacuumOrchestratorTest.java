@@ -0,0 +1,93 @@
+package app.coronawarn.datadonation.services.retention.runner;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import app.coronawarn.datadonation.services.retention.config.RetentionConfiguration;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+class VacuumOrchestratorTest {
+
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private final RetentionConfiguration configuration = new RetentionConfiguration();
+
+  private VacuumOrchestrator underTest;
+
+  @BeforeEach
+  void setup() {
+    configuration.getVacuum().setPauseMillis(0);
+    configuration.getVacuum().setStatsWaitMillis(0);
+    underTest = new VacuumOrchestrator(jdbcTemplate, configuration, mock(ApplicationContext.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void everyTableShouldBeVacuumed() {
+    underTest.run(null);
+
+    verify(jdbcTemplate, times(VacuumOrchestrator.TABLES.size())).execute(any(ConnectionCallback.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void statsAfterShouldBeReadOnceTheVacuumIsReported() throws Exception {
+    configuration.getVacuum().setStatsWaitMillis(5000);
+    ResultSet before = stats(500, 0, 0);
+    ResultSet notYetReported = stats(500, 0, 0);
+    ResultSet vacuumReported = stats(0, 1, 0);
+    ResultSet analyzeReported = stats(0, 1, 1);
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("api_token")))
+        .thenAnswer(invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(before, 0)))
+        .thenAnswer(invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(notYetReported, 0)))
+        .thenAnswer(invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(vacuumReported, 0)))
+        .thenAnswer(invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(analyzeReported, 0)));
+
+    underTest.vacuum("api_token");
+
+    verify(jdbcTemplate, times(4)).query(anyString(), any(RowMapper.class), eq("api_token"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void statsAfterShouldNotBeAwaitedLongerThanConfigured() throws Exception {
+    ResultSet unchanged = stats(500, 0, 0);
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("api_token")))
+        .thenAnswer(invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(unchanged, 0)));
+
+    underTest.vacuum("api_token");
+
+    verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq("api_token"));
+  }
+
+  @Test
+  void disabledVacuumShouldNotTouchTheDatabase() {
+    configuration.getVacuum().setEnabled(false);
+
+    underTest.run(null);
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  private static ResultSet stats(long deadTuples, long vacuumCount, long analyzeCount) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getLong(1)).thenReturn(deadTuples);
+    when(resultSet.getLong(2)).thenReturn(65536L);
+    when(resultSet.getLong(3)).thenReturn(vacuumCount);
+    when(resultSet.getLong(4)).thenReturn(analyzeCount);
+    return resultSet;
+  }
+}